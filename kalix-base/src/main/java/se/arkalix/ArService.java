@@ -68,7 +68,9 @@ public interface ArService {
         final var isSecure = system.isSecure();
         return new ServiceDescription.Builder()
             .name(name())
-            .provider(new SystemDescription(system.keyStore(), system.localSocketAddress()))
+            .provider(isSecure
+                ? new SystemDescription(system.keyStore(), system.localSocketAddress())
+                : new SystemDescription(system.name(), system.localSocketAddress()))
             .qualifier(qualifier())
             .security(accessPolicy().descriptor())
             .metadata(metadata())
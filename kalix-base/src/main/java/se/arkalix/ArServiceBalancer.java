@@ -0,0 +1,676 @@
+package se.arkalix;
+
+import se.arkalix.description.ServiceDescription;
+import se.arkalix.descriptor.InterfaceDescriptor;
+import se.arkalix.internal.util.concurrent.NettyFutures;
+import se.arkalix.util.Result;
+import se.arkalix.util.concurrent.Future;
+import se.arkalix.util.function.ThrowingFunction;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A consumer-side load balancer, distributing the consumption of a particular
+ * service among all providers of it known to an {@link ArServiceCache}.
+ * <p>
+ * A balancer is associated with one service name and one interface. Every
+ * time a provider is to be selected, the balancer determines if its cache has
+ * been updated since the last selection and, if so, refreshes its set of
+ * providers from the cache. The statistics of providers that remain in the
+ * cache are kept across such refreshes, unless their socket addresses have
+ * changed, in which case they are treated as new providers.
+ * <p>
+ * For every provider, the balancer tracks the number of outstanding
+ * requests, which are requests that have been made but whose results have not
+ * yet become available, as well as an exponentially weighted moving average
+ * (EWMA) of the latencies of its completed requests. Failed requests are
+ * recorded as taking twice as long as the slower of their actual latency and
+ * the current average, which prevents providers that fail quickly from
+ * attracting more requests.
+ * <p>
+ * The consumption of a service is performed via
+ * {@link #consume(ThrowingFunction)}, as in the following example:
+ * <pre>
+ *     final var balancer = new ArServiceBalancer.Builder()
+ *         .cache(system.consumedServices())
+ *         .serviceName("temperature")
+ *         .serviceInterface(InterfaceDescriptor.HTTP_SECURE_JSON)
+ *         .build();
+ *
+ *     balancer.consume(service -&gt; client.send(
+ *         service.provider().remoteSocketAddress(),
+ *         new HttpClientRequest()
+ *             .method(HttpMethod.GET)
+ *             .uri(service.qualifier())))
+ *         .onResult(result -&gt; { ... });
+ * </pre>
+ * If a request should preferably be sent to the same provider as other
+ * requests with the same key, such as to make use of any caches maintained by
+ * that provider, {@link #consume(String, ThrowingFunction)} may be used
+ * instead. Keys are mapped to providers via consistent hashing, which means
+ * that only a small fraction of all keys are mapped to different providers
+ * when providers are added or removed.
+ * <p>
+ * A {@link Builder#providerFilter(Predicate) provider filter} may be used to
+ * temporarily exclude providers from being selected, such as those whose
+ * circuits are open in the {@link se.arkalix.net.http.client.HttpClient
+ * HttpClient} used to consume them:
+ * <pre>
+ *     new ArServiceBalancer.Builder()
+ *         ...
+ *         .providerFilter(service -&gt; client.circuitState(
+ *             service.provider().remoteSocketAddress()) != HttpClientCircuitBreaker.State.OPEN)
+ *         .build();
+ * </pre>
+ */
+public class ArServiceBalancer {
+    private final ArServiceCache cache;
+    private final String serviceName;
+    private final InterfaceDescriptor serviceInterface;
+    private final Strategy strategy;
+    private final int virtualNodesPerProvider;
+    private final double latencyWeight;
+    private final Predicate<ServiceDescription> providerFilter;
+    private final AtomicInteger roundRobinCounter = new AtomicInteger(0);
+
+    private volatile State state = new State(-1, new Provider[0], new long[0], new Provider[0]);
+
+    private ArServiceBalancer(final Builder builder) {
+        cache = Objects.requireNonNull(builder.cache, "Expected cache");
+        serviceName = Objects.requireNonNull(builder.serviceName, "Expected serviceName");
+        serviceInterface = Objects.requireNonNull(builder.serviceInterface, "Expected serviceInterface");
+        strategy = Objects.requireNonNull(builder.strategy, "Expected strategy");
+        virtualNodesPerProvider = builder.virtualNodesPerProvider;
+        if (virtualNodesPerProvider <= 0) {
+            throw new IllegalArgumentException("Expected virtualNodesPerProvider > 0");
+        }
+        latencyWeight = builder.latencyWeight;
+        if (!(latencyWeight > 0.0 && latencyWeight <= 1.0)) {
+            throw new IllegalArgumentException("Expected 0.0 < latencyWeight <= 1.0");
+        }
+        providerFilter = builder.providerFilter;
+    }
+
+    /**
+     * @return Cache from which providers are collected.
+     */
+    public ArServiceCache cache() {
+        return cache;
+    }
+
+    /**
+     * @return Name of balanced service.
+     */
+    public String serviceName() {
+        return serviceName;
+    }
+
+    /**
+     * @return Interface balanced providers must support.
+     */
+    public InterfaceDescriptor serviceInterface() {
+        return serviceInterface;
+    }
+
+    /**
+     * @return Strategy used to select providers for requests without keys.
+     */
+    public Strategy strategy() {
+        return strategy;
+    }
+
+    /**
+     * @return Currently known providers of the balanced service.
+     */
+    public List<Provider> providers() {
+        return List.of(state().providers);
+    }
+
+    /**
+     * Selects a provider of the balanced service and then calls
+     * {@code consumer} with its service description.
+     * <p>
+     * The request made by {@code consumer} is counted as outstanding until
+     * the {@code Future} it returns either completes or is cancelled.
+     *
+     * @param consumer Function making request to selected service provider.
+     * @param <V>      Type of value eventually produced by {@code consumer}.
+     * @return Future completed with the result of the {@code Future} returned
+     * by {@code consumer}. If no provider of the balanced service is known,
+     * the returned {@code Future} is failed with a
+     * {@link NoSuchElementException}.
+     * @throws NullPointerException If {@code consumer} is {@code null}.
+     */
+    public <V> Future<V> consume(final ThrowingFunction<ServiceDescription, Future<V>> consumer) {
+        return consume(null, consumer);
+    }
+
+    /**
+     * Selects a provider of the balanced service by mapping {@code key} to
+     * it, and then calls {@code consumer} with its service description.
+     * <p>
+     * Requests with the same key are sent to the same provider for as long
+     * as the set of known providers remains unchanged. If {@code key} is
+     * {@code null}, the {@link #strategy() strategy} of this balancer is used
+     * to select a provider instead.
+     *
+     * @param key      Key to map to provider, or {@code null}.
+     * @param consumer Function making request to selected service provider.
+     * @param <V>      Type of value eventually produced by {@code consumer}.
+     * @return Future completed with the result of the {@code Future} returned
+     * by {@code consumer}. If no provider of the balanced service is known,
+     * the returned {@code Future} is failed with a
+     * {@link NoSuchElementException}.
+     * @throws NullPointerException If {@code consumer} is {@code null}.
+     */
+    public <V> Future<V> consume(
+        final String key,
+        final ThrowingFunction<ServiceDescription, Future<V>> consumer)
+    {
+        Objects.requireNonNull(consumer, "Expected consumer");
+
+        final var state = state();
+        final var provider = key != null
+            ? selectByKey(state, key)
+            : selectByStrategy(filter(state.providers));
+        if (provider == null) {
+            return Future.failure(new NoSuchElementException("No provider " +
+                "of the \"" + serviceName + "\" service supporting the " +
+                serviceInterface + " interface is known"));
+        }
+
+        final var call = provider.begin();
+        final Future<V> future;
+        try {
+            future = Objects.requireNonNull(consumer.apply(provider.service()),
+                "Expected consumer to return Future");
+        }
+        catch (final Throwable throwable) {
+            call.end(false);
+            return Future.failure(throwable);
+        }
+
+        final var promise = ImmediateEventExecutor.INSTANCE.<V>newPromise();
+        future.onResult(result -> {
+            call.end(result.isSuccess());
+            if (result.isSuccess()) {
+                promise.trySuccess(result.value());
+            }
+            else {
+                promise.tryFailure(result.fault());
+            }
+        });
+        final var future1 = NettyFutures.adapt(promise);
+        return new Future<>() {
+            @Override
+            public void onResult(final Consumer<Result<V>> consumer) {
+                future1.onResult(consumer);
+            }
+
+            @Override
+            public void cancel(final boolean mayInterruptIfRunning) {
+                future.cancel(mayInterruptIfRunning);
+                call.cancel();
+                future1.cancel(mayInterruptIfRunning);
+            }
+        };
+    }
+
+    private State state() {
+        final var state = this.state;
+        final var version = cache.version();
+        if (state.version == version) {
+            return state;
+        }
+        synchronized (this) {
+            final var state0 = this.state;
+            if (state0.version == version) {
+                return state0;
+            }
+            final var state1 = refresh(state0, version);
+            this.state = state1;
+            return state1;
+        }
+    }
+
+    private State refresh(final State state, final long version) {
+        final var previous = new HashMap<String, Provider>();
+        for (final var provider : state.providers) {
+            previous.put(provider.key, provider);
+        }
+        final var providers = cache.getByNameAndInterfaces(serviceName, serviceInterface)
+            .map(service -> {
+                final var key = keyOf(service);
+                final var provider = previous.get(key);
+                if (provider != null) {
+                    provider.service = service;
+                    return provider;
+                }
+                return new Provider(key, service, latencyWeight);
+            })
+            .toArray(Provider[]::new);
+
+        final var nodes = new ArrayList<Map.Entry<Long, Provider>>(providers.length * virtualNodesPerProvider);
+        for (final var provider : providers) {
+            for (var i = 0; i < virtualNodesPerProvider; ++i) {
+                nodes.add(Map.entry(hash(provider.key + "#" + i), provider));
+            }
+        }
+        nodes.sort(Map.Entry.comparingByKey());
+        final var ringHashes = new long[nodes.size()];
+        final var ringProviders = new Provider[nodes.size()];
+        for (var i = 0; i < ringHashes.length; ++i) {
+            final var node = nodes.get(i);
+            ringHashes[i] = node.getKey();
+            ringProviders[i] = node.getValue();
+        }
+
+        return new State(version, providers, ringHashes, ringProviders);
+    }
+
+    /*
+     * If no provider passes the filter, all of them are considered, as
+     * failing to select any provider is no better than selecting an excluded
+     * one.
+     */
+    private Provider[] filter(final Provider[] providers) {
+        if (providerFilter == null) {
+            return providers;
+        }
+        var nAccepted = 0;
+        final var accepted = new Provider[providers.length];
+        for (final var provider : providers) {
+            if (providerFilter.test(provider.service())) {
+                accepted[nAccepted++] = provider;
+            }
+        }
+        if (nAccepted == providers.length || nAccepted == 0) {
+            return providers;
+        }
+        return Arrays.copyOf(accepted, nAccepted);
+    }
+
+    private Provider selectByStrategy(final Provider[] providers) {
+        final var n = providers.length;
+        if (n <= 1) {
+            return n == 1 ? providers[0] : null;
+        }
+        switch (strategy) {
+        case ROUND_ROBIN:
+            return providers[Math.floorMod(roundRobinCounter.getAndIncrement(), n)];
+
+        case LEAST_OUTSTANDING: {
+            final var offset = ThreadLocalRandom.current().nextInt(n);
+            var best = providers[offset];
+            for (var i = 1; i < n; ++i) {
+                final var candidate = providers[(offset + i) % n];
+                if (candidate.outstandingRequests() < best.outstandingRequests()) {
+                    best = candidate;
+                }
+            }
+            return best;
+        }
+
+        case POWER_OF_TWO_CHOICES: {
+            final var random = ThreadLocalRandom.current();
+            final var i = random.nextInt(n);
+            var j = random.nextInt(n - 1);
+            if (j >= i) {
+                j += 1;
+            }
+            final var a = providers[i];
+            final var b = providers[j];
+            return a.isCheaperThan(b) ? a : b;
+        }
+
+        default:
+            throw new IllegalStateException("Unexpected strategy: " + strategy);
+        }
+    }
+
+    private Provider selectByKey(final State state, final String key) {
+        final var ringHashes = state.ringHashes;
+        if (ringHashes.length == 0) {
+            return null;
+        }
+        var index = Arrays.binarySearch(ringHashes, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        final var ringProviders = state.ringProviders;
+        final var first = ringProviders[index % ringProviders.length];
+        if (providerFilter == null) {
+            return first;
+        }
+        // Excluded providers pass their keys on to the next accepted
+        // provider along the ring.
+        for (var i = 0; i < ringProviders.length; ++i) {
+            final var provider = ringProviders[(index + i) % ringProviders.length];
+            if (providerFilter.test(provider.service())) {
+                return provider;
+            }
+        }
+        return first;
+    }
+
+    private static String keyOf(final ServiceDescription service) {
+        final var provider = service.provider();
+        final var address = provider.remoteSocketAddress();
+        return provider.name() + "@" + address.getHostString() + ":" +
+            address.getPort() + service.qualifier();
+    }
+
+    // 64-bit FNV-1a followed by the finalizer of MurmurHash3, which spreads
+    // similar keys, such as those of virtual nodes, across the ring.
+    private static long hash(final String key) {
+        var hash = 0xcbf29ce484222325L;
+        for (final var b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * A strategy used to select among the providers of a service.
+     */
+    public enum Strategy {
+        /**
+         * Providers are selected one after the other, in order.
+         */
+        ROUND_ROBIN,
+
+        /**
+         * The provider with the fewest outstanding requests is selected.
+         */
+        LEAST_OUTSTANDING,
+
+        /**
+         * Two providers are selected at random, after which the one with
+         * the lowest estimated cost is selected. The cost of a provider is
+         * its average latency multiplied by its number of outstanding
+         * requests plus one. If the latency of either provider is not yet
+         * known, the one with the fewest outstanding requests is selected.
+         */
+        POWER_OF_TWO_CHOICES,
+    }
+
+    /**
+     * A provider of the service of some {@link ArServiceBalancer}, along with
+     * statistics about the requests sent to it.
+     */
+    public static class Provider {
+        private final String key;
+        private final double latencyWeight;
+        private final AtomicInteger outstandingRequests = new AtomicInteger(0);
+        private final AtomicLong latencyNanos = new AtomicLong(0);
+        private final LongAdder requestCount = new LongAdder();
+        private final LongAdder failureCount = new LongAdder();
+
+        private volatile ServiceDescription service;
+
+        private Provider(final String key, final ServiceDescription service, final double latencyWeight) {
+            this.key = key;
+            this.service = service;
+            this.latencyWeight = latencyWeight;
+        }
+
+        /**
+         * @return Description of provided service.
+         */
+        public ServiceDescription service() {
+            return service;
+        }
+
+        /**
+         * @return Number of requests made to this provider whose results are
+         * not yet available.
+         */
+        public int outstandingRequests() {
+            return outstandingRequests.get();
+        }
+
+        /**
+         * @return Exponentially weighted moving average of the latencies of
+         * completed requests, or {@link Duration#ZERO} if no request has yet
+         * completed.
+         */
+        public Duration latency() {
+            return Duration.ofNanos(latencyNanos.get());
+        }
+
+        /**
+         * @return Number of requests completed by this provider, including
+         * failed requests.
+         */
+        public long requestCount() {
+            return requestCount.sum();
+        }
+
+        /**
+         * @return Number of failed requests.
+         */
+        public long failureCount() {
+            return failureCount.sum();
+        }
+
+        private Call begin() {
+            outstandingRequests.incrementAndGet();
+            return new Call(this, System.nanoTime());
+        }
+
+        private boolean isCheaperThan(final Provider other) {
+            final var latency0 = latencyNanos.get();
+            final var latency1 = other.latencyNanos.get();
+            final var outstanding0 = outstandingRequests.get() + 1L;
+            final var outstanding1 = other.outstandingRequests.get() + 1L;
+            if (latency0 == 0 || latency1 == 0) {
+                return outstanding0 <= outstanding1;
+            }
+            return (double) latency0 * outstanding0 <= (double) latency1 * outstanding1;
+        }
+
+        private void end(final long elapsedNanos, final boolean isSuccess) {
+            outstandingRequests.decrementAndGet();
+            requestCount.increment();
+            if (!isSuccess) {
+                failureCount.increment();
+            }
+            long latency0, latency1;
+            do {
+                latency0 = latencyNanos.get();
+                final var sample = isSuccess
+                    ? Math.max(elapsedNanos, 1)
+                    : Math.max(elapsedNanos, latency0) * 2 + 1;
+                latency1 = latency0 == 0
+                    ? sample
+                    : Math.max(latency0 + Math.round((sample - latency0) * latencyWeight), 1);
+            }
+            while (!latencyNanos.compareAndSet(latency0, latency1));
+        }
+
+        @Override
+        public String toString() {
+            return "Provider{" +
+                "key='" + key + '\'' +
+                ", outstandingRequests=" + outstandingRequests() +
+                ", latency=" + latency() +
+                ", requestCount=" + requestCount() +
+                ", failureCount=" + failureCount() +
+                '}';
+        }
+    }
+
+    private static class Call {
+        private final Provider provider;
+        private final long startNanos;
+        private final AtomicBoolean isEnded = new AtomicBoolean(false);
+
+        private Call(final Provider provider, final long startNanos) {
+            this.provider = provider;
+            this.startNanos = startNanos;
+        }
+
+        void end(final boolean isSuccess) {
+            if (isEnded.compareAndSet(false, true)) {
+                provider.end(System.nanoTime() - startNanos, isSuccess);
+            }
+        }
+
+        void cancel() {
+            if (isEnded.compareAndSet(false, true)) {
+                provider.outstandingRequests.decrementAndGet();
+            }
+        }
+    }
+
+    private static class State {
+        private final long version;
+        private final Provider[] providers;
+        private final long[] ringHashes;
+        private final Provider[] ringProviders;
+
+        private State(
+            final long version,
+            final Provider[] providers,
+            final long[] ringHashes,
+            final Provider[] ringProviders)
+        {
+            this.version = version;
+            this.providers = providers;
+            this.ringHashes = ringHashes;
+            this.ringProviders = ringProviders;
+        }
+    }
+
+    /**
+     * Builder useful for creating {@link ArServiceBalancer} instances.
+     */
+    public static class Builder {
+        private ArServiceCache cache;
+        private String serviceName;
+        private InterfaceDescriptor serviceInterface;
+        private Strategy strategy = Strategy.POWER_OF_TWO_CHOICES;
+        private int virtualNodesPerProvider = 64;
+        private double latencyWeight = 0.2;
+        private Predicate<ServiceDescription> providerFilter;
+
+        /**
+         * Sets cache from which providers are to be collected. Typically,
+         * this is the {@link ArSystem#consumedServices() cache of consumed
+         * services} of some system. <b>Must be specified.</b>
+         *
+         * @param cache Service cache.
+         * @return This builder.
+         */
+        public Builder cache(final ArServiceCache cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        /**
+         * Sets name of service to balance. <b>Must be specified.</b>
+         *
+         * @param serviceName Service name.
+         * @return This builder.
+         */
+        public Builder serviceName(final String serviceName) {
+            this.serviceName = serviceName;
+            return this;
+        }
+
+        /**
+         * Sets interface providers must support to be balanced. <b>Must be
+         * specified.</b>
+         *
+         * @param serviceInterface Service interface.
+         * @return This builder.
+         */
+        public Builder serviceInterface(final InterfaceDescriptor serviceInterface) {
+            this.serviceInterface = serviceInterface;
+            return this;
+        }
+
+        /**
+         * Sets strategy used to select providers for requests without keys.
+         * Defaults to {@link Strategy#POWER_OF_TWO_CHOICES}.
+         *
+         * @param strategy Selection strategy.
+         * @return This builder.
+         */
+        public Builder strategy(final Strategy strategy) {
+            this.strategy = strategy;
+            return this;
+        }
+
+        /**
+         * Sets number of points each provider occupies on the consistent
+         * hash ring used to map request keys to providers. More points make
+         * keys spread more evenly among providers. Defaults to 64.
+         *
+         * @param virtualNodesPerProvider Points per provider.
+         * @return This builder.
+         */
+        public Builder virtualNodesPerProvider(final int virtualNodesPerProvider) {
+            this.virtualNodesPerProvider = virtualNodesPerProvider;
+            return this;
+        }
+
+        /**
+         * Sets weight given to the latency of each completed request when
+         * updating the latency averages of providers. Higher weights make
+         * averages adapt faster to changes in latency. Defaults to 0.2.
+         *
+         * @param latencyWeight Weight in the range (0.0, 1.0].
+         * @return This builder.
+         */
+        public Builder latencyWeight(final double latencyWeight) {
+            this.latencyWeight = latencyWeight;
+            return this;
+        }
+
+        /**
+         * Sets predicate determining if a provider may currently be
+         * selected. The predicate is tested every time a provider is to be
+         * selected. If no provider passes it, all providers are considered
+         * instead. Not set by default.
+         *
+         * @param providerFilter Provider predicate.
+         * @return This builder.
+         */
+        public Builder providerFilter(final Predicate<ServiceDescription> providerFilter) {
+            this.providerFilter = providerFilter;
+            return this;
+        }
+
+        /**
+         * @return New {@link ArServiceBalancer}.
+         * @throws IllegalArgumentException If {@code virtualNodesPerProvider}
+         *                                  is not positive or
+         *                                  {@code latencyWeight} is outside
+         *                                  the range (0.0, 1.0].
+         * @throws NullPointerException     If {@code cache},
+         *                                  {@code serviceName},
+         *                                  {@code serviceInterface} or
+         *                                  {@code strategy} is not set.
+         */
+        public ArServiceBalancer build() {
+            return new ArServiceBalancer(this);
+        }
+    }
+}
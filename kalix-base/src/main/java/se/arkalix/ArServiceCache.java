@@ -5,14 +5,25 @@ import se.arkalix.descriptor.InterfaceDescriptor;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 
 /**
  * A local service registry, maintaining descriptions of known remote services.
+ * <p>
+ * Services are identified by their names, qualifiers, supported interfaces
+ * and the names of their providers, which means that the cache may hold
+ * several descriptions of the same service, each offered by a different
+ * provider. As the socket addresses of providers are not part of the identity
+ * of a service, updating the cache with a service whose provider has moved to
+ * a new address replaces the description holding its old address.
+ *
+ * @see ArServiceBalancer
  */
 public class ArServiceCache {
     private final ConcurrentSkipListSet<ServiceDescription> services =
         new ConcurrentSkipListSet<>(new ServiceDescriptionComparator());
+    private final AtomicLong version = new AtomicLong(0);
 
     /**
      * Gets stream of all services in cache matching given {@code name}.
@@ -52,7 +63,17 @@ public class ArServiceCache {
         final List<InterfaceDescriptor> interfaces)
     {
         return services.stream().filter(service -> service.name().equals(name) &&
-            interfaces.stream().anyMatch(interfaces::contains));
+            service.supportedInterfaces().stream().anyMatch(interfaces::contains));
+    }
+
+    /**
+     * Gets number incremented every time this cache is updated, making it
+     * possible to cheaply determine if its contents may have changed.
+     *
+     * @return Current cache version.
+     */
+    public long version() {
+        return version.get();
     }
 
     /**
@@ -94,6 +115,47 @@ public class ArServiceCache {
                 this.services.add(service);
             }
         });
+        version.incrementAndGet();
+    }
+
+    /**
+     * Removes service entries from cache, if present.
+     * <p>
+     * Entries are removed if they have the same names, qualifiers, supported
+     * interfaces and provider names as any of the given services, even if the
+     * socket addresses of their providers differ.
+     *
+     * @param services Services to remove.
+     */
+    public void remove(final ServiceDescription... services) {
+        remove(Stream.of(services));
+    }
+
+    /**
+     * Removes service entries from cache, if present.
+     * <p>
+     * Entries are removed if they have the same names, qualifiers, supported
+     * interfaces and provider names as any of the given services, even if the
+     * socket addresses of their providers differ.
+     *
+     * @param services Services to remove.
+     */
+    public void remove(final Collection<ServiceDescription> services) {
+        remove(services.stream());
+    }
+
+    /**
+     * Removes service entries from cache, if present.
+     * <p>
+     * Entries are removed if they have the same names, qualifiers, supported
+     * interfaces and provider names as any of the given services, even if the
+     * socket addresses of their providers differ.
+     *
+     * @param services Services to remove.
+     */
+    public void remove(final Stream<ServiceDescription> services) {
+        services.forEach(this.services::remove);
+        version.incrementAndGet();
     }
 
     private static final class ServiceDescriptionComparator implements Comparator<ServiceDescription> {
@@ -108,8 +170,17 @@ public class ArServiceCache {
             if (d != 0) {
                 return d;
             }
-            final var aInterfaces = a.supportedInterfaces();
-            final var bInterfaces = b.supportedInterfaces();
+            d = compareInterfaces(a.supportedInterfaces(), b.supportedInterfaces());
+            if (d != 0) {
+                return d;
+            }
+            return a.provider().name().compareTo(b.provider().name());
+        }
+
+        private static int compareInterfaces(
+            final List<InterfaceDescriptor> aInterfaces,
+            final List<InterfaceDescriptor> bInterfaces)
+        {
             if (aInterfaces.size() == 1 && bInterfaces.size() == 1) {
                 return aInterfaces.get(0).compareTo(bInterfaces.get(0));
             }
@@ -119,7 +190,7 @@ public class ArServiceCache {
             Arrays.sort(bInterfaceArray);
             final var i1 = Math.min(aInterfaceArray.length, bInterfaceArray.length);
             for (var i0 = 0; i0 < i1; ++i0) {
-                d = aInterfaceArray[i0].compareTo(bInterfaceArray[i0]);
+                final var d = aInterfaceArray[i0].compareTo(bInterfaceArray[i0]);
                 if (d != 0) {
                     return d;
                 }
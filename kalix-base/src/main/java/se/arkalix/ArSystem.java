@@ -4,7 +4,14 @@ import se.arkalix.description.ServiceDescription;
 import se.arkalix.internal.ArServer;
 import se.arkalix.internal.ArServerRegistry;
 import se.arkalix.internal.plugin.PluginNotifier;
+import se.arkalix.net.http.service.HttpServerLimits;
+import se.arkalix.net.http.service.HttpServerMetrics;
+import se.arkalix.net.http.service.HttpSlowRequestLog;
+import se.arkalix.net.http.service.HttpWorkerPool;
 import se.arkalix.plugin.Plugin;
+import se.arkalix.security.TlsHandshakePool;
+import se.arkalix.security.TlsSettings;
+import se.arkalix.security.access.AccessVerificationPool;
 import se.arkalix.security.identity.ArSystemCertificateChain;
 import se.arkalix.security.identity.ArSystemKeyStore;
 import se.arkalix.security.identity.ArTrustStore;
@@ -32,6 +39,16 @@ public class ArSystem {
     private final FutureScheduler scheduler;
     private final FutureSchedulerShutdownListener schedulerShutdownListener;
     private final PluginNotifier pluginNotifier;
+    private final HttpServerLimits httpServerLimits;
+    private final TlsSettings tlsSettings;
+    private final TlsHandshakePool tlsHandshakePool;
+    private final int httpClientConnectionPoolSize;
+    private final boolean isHttpWorkerPoolOwned;
+    private final boolean isAccessVerificationPoolOwned;
+    private final HttpServerMetrics httpServerMetrics;
+
+    private HttpWorkerPool httpWorkerPool;
+    private AccessVerificationPool accessVerificationPool;
 
     private final Set<ArServer> servers = Collections.synchronizedSet(new HashSet<>());
     private final ArServiceCache serviceCache = new ArServiceCache();
@@ -75,6 +92,16 @@ public class ArSystem {
             name = builder.name;
         }
 
+        httpServerLimits = Objects.requireNonNullElseGet(builder.httpServerLimits, HttpServerLimits::getDefault);
+        httpServerMetrics = new HttpServerMetrics(builder.httpSlowRequestLog);
+        tlsSettings = Objects.requireNonNullElseGet(builder.tlsSettings, TlsSettings::getDefault);
+        tlsHandshakePool = builder.tlsHandshakePool;
+        httpClientConnectionPoolSize = builder.httpClientConnectionPoolSize;
+        httpWorkerPool = builder.httpWorkerPool;
+        isHttpWorkerPoolOwned = httpWorkerPool == null;
+        accessVerificationPool = builder.accessVerificationPool;
+        isAccessVerificationPoolOwned = accessVerificationPool == null;
+
         scheduler = builder.scheduler != null
             ? builder.scheduler
             : FutureScheduler.getDefault();
@@ -156,6 +183,82 @@ public class ArSystem {
         return scheduler;
     }
 
+    /**
+     * @return Resource limits applied by the HTTP server of this system.
+     */
+    public HttpServerLimits httpServerLimits() {
+        return httpServerLimits;
+    }
+
+    /**
+     * @return Settings used when establishing the TLS connections of the
+     * HTTP server of this system, as well as those of the HTTP clients
+     * created from it.
+     */
+    public TlsSettings tlsSettings() {
+        return tlsSettings;
+    }
+
+    /**
+     * @return Pool of threads used to execute the TLS handshake tasks of
+     * the HTTP server of this system, as well as those of the HTTP clients
+     * created from it, if any.
+     */
+    public Optional<TlsHandshakePool> tlsHandshakePool() {
+        return Optional.ofNullable(tlsHandshakePool);
+    }
+
+    /**
+     * @return Maximum number of pooled connections the HTTP clients created
+     * from this system keep to each remote socket address, or {@code 0} if
+     * those clients do not pool connections.
+     */
+    public int httpClientConnectionPoolSize() {
+        return httpClientConnectionPoolSize;
+    }
+
+    /**
+     * @return Request metrics recorded by the HTTP server of this system.
+     */
+    public HttpServerMetrics httpServerMetrics() {
+        return httpServerMetrics;
+    }
+
+    /**
+     * Gets pool of threads used to execute the handlers of blocking HTTP
+     * routes and services provided by this system.
+     * <p>
+     * If no pool was explicitly provided when this system was created, one
+     * with default settings is created when this method is first called, and
+     * is then shut down together with this system.
+     *
+     * @return HTTP worker pool of this system.
+     */
+    public synchronized HttpWorkerPool httpWorkerPool() {
+        if (httpWorkerPool == null) {
+            httpWorkerPool = new HttpWorkerPool.Builder().build();
+        }
+        return httpWorkerPool;
+    }
+
+    /**
+     * Gets pool of threads used to verify the access tokens of consumers of
+     * the services provided by this system, if those services use token
+     * access control.
+     * <p>
+     * If no pool was explicitly provided when this system was created, one
+     * with default settings is created when this method is first called, and
+     * is then shut down together with this system.
+     *
+     * @return Access verification pool of this system.
+     */
+    public synchronized AccessVerificationPool accessVerificationPool() {
+        if (accessVerificationPool == null) {
+            accessVerificationPool = new AccessVerificationPool.Builder().build();
+        }
+        return accessVerificationPool;
+    }
+
     /**
      * Cache of, potentially or previously, consumed services.
      * <p>
@@ -246,6 +349,14 @@ public class ArSystem {
             .mapResult(result -> {
                 pluginNotifier.clear();
                 servers.clear();
+                synchronized (this) {
+                    if (isHttpWorkerPoolOwned && httpWorkerPool != null) {
+                        httpWorkerPool.shutdown();
+                    }
+                    if (isAccessVerificationPoolOwned && accessVerificationPool != null) {
+                        accessVerificationPool.shutdown();
+                    }
+                }
                 return result;
             });
     }
@@ -270,6 +381,13 @@ public class ArSystem {
         private boolean isSecure = true;
         private List<Plugin> plugins;
         private FutureScheduler scheduler;
+        private HttpServerLimits httpServerLimits;
+        private HttpWorkerPool httpWorkerPool;
+        private AccessVerificationPool accessVerificationPool;
+        private HttpSlowRequestLog httpSlowRequestLog;
+        private TlsSettings tlsSettings;
+        private TlsHandshakePool tlsHandshakePool;
+        private int httpClientConnectionPoolSize = 4;
 
         /**
          * Sets system name.
@@ -505,6 +623,138 @@ public class ArSystem {
             return this;
         }
 
+        /**
+         * Sets resource limits to be applied by the HTTP server of the
+         * created system, such as maximum header and body sizes, as well as
+         * connection idle timeouts.
+         * <p>
+         * If no limits are explicitly specified, the ones returned by
+         * {@link HttpServerLimits#getDefault()} are used.
+         *
+         * @param httpServerLimits HTTP server resource limits.
+         * @return This builder.
+         */
+        public Builder httpServerLimits(final HttpServerLimits httpServerLimits) {
+            this.httpServerLimits = httpServerLimits;
+            return this;
+        }
+
+        /**
+         * Sets pool of threads to be used for executing the handlers of
+         * blocking HTTP routes and services provided by the created system.
+         * <p>
+         * If a non-null pool is explicitly provided via this method, it
+         * becomes the responsibility of the caller to ensure that the pool is
+         * shut down when no longer in use. This makes it possible for several
+         * systems to share the same pool.
+         * <p>
+         * If no pool is explicitly specified, one with default settings is
+         * created when first needed and is shut down together with the
+         * created system.
+         *
+         * @param httpWorkerPool HTTP worker pool.
+         * @return This builder.
+         */
+        public Builder httpWorkerPool(final HttpWorkerPool httpWorkerPool) {
+            this.httpWorkerPool = httpWorkerPool;
+            return this;
+        }
+
+        /**
+         * Sets pool of threads to be used for verifying the access tokens of
+         * consumers of services provided by the created system, if those
+         * services use token access control.
+         * <p>
+         * If a non-null pool is explicitly provided via this method, it
+         * becomes the responsibility of the caller to ensure that the pool is
+         * shut down when no longer in use. This makes it possible for several
+         * systems to share the same pool.
+         * <p>
+         * If no pool is explicitly specified, one with default settings is
+         * created when first needed and is shut down together with the
+         * created system.
+         *
+         * @param accessVerificationPool Access verification pool.
+         * @return This builder.
+         */
+        public Builder accessVerificationPool(final AccessVerificationPool accessVerificationPool) {
+            this.accessVerificationPool = accessVerificationPool;
+            return this;
+        }
+
+        /**
+         * Sets log to offer the timings of all HTTP requests received by the
+         * created system to, which logs those of requests that were slow to
+         * respond to. If not set, slow requests are not logged.
+         *
+         * @param httpSlowRequestLog HTTP slow request log.
+         * @return This builder.
+         */
+        public Builder httpSlowRequestLog(final HttpSlowRequestLog httpSlowRequestLog) {
+            this.httpSlowRequestLog = httpSlowRequestLog;
+            return this;
+        }
+
+        /**
+         * Sets settings to use when establishing the TLS connections of the
+         * HTTP server of the created system, as well as those of any HTTP
+         * clients created from it using {@link
+         * se.arkalix.net.http.client.HttpClient#from(ArSystem)}. Only used in
+         * secure mode.
+         * <p>
+         * If no settings are explicitly specified, the ones returned by
+         * {@link TlsSettings#getDefault()} are used.
+         *
+         * @param tlsSettings TLS settings.
+         * @return This builder.
+         */
+        public Builder tlsSettings(final TlsSettings tlsSettings) {
+            this.tlsSettings = tlsSettings;
+            return this;
+        }
+
+        /**
+         * Sets pool of threads to be used for executing the TLS handshake
+         * tasks of the HTTP server of the created system, as well as those of
+         * any HTTP clients created from it using {@link
+         * se.arkalix.net.http.client.HttpClient#from(ArSystem)}. Only used in
+         * secure mode.
+         * <p>
+         * It is the responsibility of the caller to ensure that the pool is
+         * shut down when no longer in use, which makes it possible for
+         * several systems to share the same pool. If no pool is specified,
+         * handshake tasks are executed by the I/O threads of the connections
+         * they belong to.
+         *
+         * @param tlsHandshakePool TLS handshake pool.
+         * @return This builder.
+         */
+        public Builder tlsHandshakePool(final TlsHandshakePool tlsHandshakePool) {
+            this.tlsHandshakePool = tlsHandshakePool;
+            return this;
+        }
+
+        /**
+         * Sets maximum number of pooled connections kept to each remote
+         * socket address by any HTTP clients created from the created system
+         * using {@link se.arkalix.net.http.client.HttpClient#from(ArSystem)},
+         * such as those used by core system plugins. Defaults to 4.
+         *
+         * @param size Maximum number of connections to keep to any one
+         *             remote socket address, or {@code 0} to disable
+         *             pooling.
+         * @return This builder.
+         * @throws IllegalArgumentException If {@code size} is negative.
+         * @see se.arkalix.net.http.client.HttpClient.Builder#connectionPoolSize(int)
+         */
+        public Builder httpClientConnectionPoolSize(final int size) {
+            if (size < 0) {
+                throw new IllegalArgumentException("Expected size >= 0");
+            }
+            this.httpClientConnectionPoolSize = size;
+            return this;
+        }
+
         /**
          * @return New {@link ArSystem}.
          */
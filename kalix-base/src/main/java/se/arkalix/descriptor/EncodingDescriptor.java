@@ -74,6 +74,13 @@ public final class EncodingDescriptor {
      */
     public static final EncodingDescriptor EXI = new EncodingDescriptor("EXI", null);
 
+    /**
+     * Plain text, as identified by the {@code text/plain} media type.
+     *
+     * @see <a href="https://tools.ietf.org/html/rfc2046#section-4.1.3">RFC 2046, Section 4.1.3</a>
+     */
+    public static final EncodingDescriptor TEXT = new EncodingDescriptor("TEXT", null);
+
     /**
      * Resolves {@link EncodingDescriptor} from given {@code name}.
      *
@@ -87,6 +94,7 @@ public final class EncodingDescriptor {
         case "JSON": return JSON;
         case "XML": return XML;
         case "EXI": return EXI;
+        case "TEXT": return TEXT;
         }
         return new EncodingDescriptor(name, null);
     }
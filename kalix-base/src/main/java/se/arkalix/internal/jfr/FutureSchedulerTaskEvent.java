@@ -0,0 +1,73 @@
+package se.arkalix.internal.jfr;
+
+import jdk.jfr.*;
+import se.arkalix.util.annotation.Internal;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Spans the execution of a task scheduled via a
+ * {@link se.arkalix.util.concurrent.FutureScheduler FutureScheduler}. Only
+ * tasks executing for longer than 10 milliseconds are recorded by default.
+ */
+@Internal
+@Name("se.arkalix.FutureSchedulerTask")
+@Label("Future Scheduler Task")
+@Category({"Kalix", "Scheduler"})
+@Description("Execution of a task scheduled via a FutureScheduler")
+@Enabled(false)
+@Threshold("10 ms")
+@StackTrace(false)
+public class FutureSchedulerTaskEvent extends Event {
+    @Label("Task Class")
+    public Class<?> taskClass;
+
+    /**
+     * Wraps given {@code task} such that this event is recorded whenever it
+     * executes.
+     *
+     * @param task Task to wrap.
+     * @return Wrapped task.
+     */
+    public static Runnable wrap(final Runnable task) {
+        return () -> {
+            final var event = new FutureSchedulerTaskEvent();
+            event.begin();
+            try {
+                task.run();
+            }
+            finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.taskClass = task.getClass();
+                    event.commit();
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps given {@code task} such that this event is recorded whenever it
+     * executes.
+     *
+     * @param task Task to wrap.
+     * @param <V>  Type of task result.
+     * @return Wrapped task.
+     */
+    public static <V> Callable<V> wrap(final Callable<V> task) {
+        return () -> {
+            final var event = new FutureSchedulerTaskEvent();
+            event.begin();
+            try {
+                return task.call();
+            }
+            finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.taskClass = task.getClass();
+                    event.commit();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package se.arkalix.internal.jfr;
+
+import jdk.jfr.*;
+import se.arkalix.util.annotation.Internal;
+
+/**
+ * Spans the establishment of a connection by an HTTP client, including any
+ * TLS handshake.
+ */
+@Internal
+@Name("se.arkalix.HttpClientConnect")
+@Label("HTTP Client Connect")
+@Category({"Kalix", "HTTP Client"})
+@Description("Connection established by an HTTP client, including any TLS handshake")
+@Enabled(false)
+@StackTrace(false)
+public class HttpClientConnectEvent extends Event {
+    @Label("Remote Address")
+    public String remoteAddress;
+
+    @Label("Succeeded")
+    public boolean isSuccess;
+
+    @Label("Failure")
+    public String failure;
+}
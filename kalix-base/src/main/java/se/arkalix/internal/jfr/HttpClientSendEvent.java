@@ -0,0 +1,33 @@
+package se.arkalix.internal.jfr;
+
+import jdk.jfr.*;
+import se.arkalix.util.annotation.Internal;
+
+/**
+ * Spans the sending of a request by an HTTP client, from when it was written
+ * until the head of its response was received.
+ */
+@Internal
+@Name("se.arkalix.HttpClientSend")
+@Label("HTTP Client Send")
+@Category({"Kalix", "HTTP Client"})
+@Description("Request sent by an HTTP client, from write to response head")
+@Enabled(false)
+@StackTrace(false)
+public class HttpClientSendEvent extends Event {
+    @Label("Remote Address")
+    public String remoteAddress;
+
+    @Label("Method")
+    public String method;
+
+    @Label("URI")
+    public String uri;
+
+    @Label("Status")
+    @Description("Response status, or 0 if no response was received")
+    public int status;
+
+    @Label("Failure")
+    public String failure;
+}
@@ -0,0 +1,27 @@
+package se.arkalix.internal.jfr;
+
+import jdk.jfr.*;
+import se.arkalix.util.annotation.Internal;
+
+/**
+ * Spans the synchronous execution of a route handler, from when it was
+ * called until it returned a future.
+ */
+@Internal
+@Name("se.arkalix.HttpRouteDispatch")
+@Label("HTTP Route Dispatch")
+@Category({"Kalix", "HTTP Server"})
+@Description("Synchronous execution of an HTTP route handler")
+@Enabled(false)
+@StackTrace(false)
+public class HttpRouteDispatchEvent extends Event {
+    @Label("Service")
+    public String service;
+
+    @Label("Route")
+    public String route;
+
+    @Label("Blocking")
+    @Description("Whether the handler was executed by a worker pool")
+    public boolean isBlocking;
+}
@@ -0,0 +1,27 @@
+package se.arkalix.internal.jfr;
+
+import jdk.jfr.*;
+import se.arkalix.util.annotation.Internal;
+
+/**
+ * Signals that an HTTP server accepted a new connection.
+ *
+ * @see HttpServerConnectionEvent#monitor(io.netty.channel.Channel, boolean)
+ */
+@Internal
+@Name("se.arkalix.HttpServerConnectionAccepted")
+@Label("HTTP Server Connection Accepted")
+@Category({"Kalix", "HTTP Server"})
+@Description("Connection accepted by an HTTP server")
+@Enabled(false)
+@StackTrace(false)
+public class HttpServerConnectionAcceptedEvent extends Event {
+    @Label("Remote Address")
+    public String remoteAddress;
+
+    @Label("Local Address")
+    public String localAddress;
+
+    @Label("Secure")
+    public boolean isSecure;
+}
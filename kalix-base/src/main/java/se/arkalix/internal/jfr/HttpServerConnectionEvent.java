@@ -0,0 +1,53 @@
+package se.arkalix.internal.jfr;
+
+import io.netty.channel.Channel;
+import jdk.jfr.*;
+import se.arkalix.util.annotation.Internal;
+
+/**
+ * Spans the lifetime of a connection accepted by an HTTP server, from when it
+ * was accepted until it was closed.
+ */
+@Internal
+@Name("se.arkalix.HttpServerConnection")
+@Label("HTTP Server Connection")
+@Category({"Kalix", "HTTP Server"})
+@Description("Connection accepted by an HTTP server, from accept to close")
+@Enabled(false)
+@StackTrace(false)
+public class HttpServerConnectionEvent extends Event {
+    @Label("Remote Address")
+    public String remoteAddress;
+
+    @Label("Local Address")
+    public String localAddress;
+
+    @Label("Secure")
+    public boolean isSecure;
+
+    /**
+     * Records the lifetime of given {@code channel}, which is assumed to
+     * just have been accepted, if this event is enabled.
+     *
+     * @param channel  Accepted channel.
+     * @param isSecure Whether or not TLS is used by the channel.
+     */
+    public static void monitor(final Channel channel, final boolean isSecure) {
+        final var accepted = new HttpServerConnectionAcceptedEvent();
+        if (accepted.isEnabled()) {
+            accepted.remoteAddress = String.valueOf(channel.remoteAddress());
+            accepted.localAddress = String.valueOf(channel.localAddress());
+            accepted.isSecure = isSecure;
+            accepted.commit();
+        }
+        if (!new HttpServerConnectionEvent().isEnabled()) {
+            return;
+        }
+        final var event = new HttpServerConnectionEvent();
+        event.begin();
+        event.remoteAddress = String.valueOf(channel.remoteAddress());
+        event.localAddress = String.valueOf(channel.localAddress());
+        event.isSecure = isSecure;
+        channel.closeFuture().addListener(ignored -> event.commit());
+    }
+}
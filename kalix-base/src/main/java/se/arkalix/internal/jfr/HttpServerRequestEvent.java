@@ -0,0 +1,32 @@
+package se.arkalix.internal.jfr;
+
+import jdk.jfr.*;
+import se.arkalix.util.annotation.Internal;
+
+/**
+ * Spans the handling of a request received by an HTTP server, from when its
+ * head was received until its response was flushed.
+ */
+@Internal
+@Name("se.arkalix.HttpServerRequest")
+@Label("HTTP Server Request")
+@Category({"Kalix", "HTTP Server"})
+@Description("Request received by an HTTP server, from receipt to response flush")
+@Enabled(false)
+@StackTrace(false)
+public class HttpServerRequestEvent extends Event {
+    @Label("Method")
+    public String method;
+
+    @Label("URI")
+    public String uri;
+
+    @Label("Service")
+    public String service;
+
+    @Label("Route")
+    public String route;
+
+    @Label("Status")
+    public int status;
+}
@@ -0,0 +1,27 @@
+package se.arkalix.internal.jfr;
+
+import jdk.jfr.*;
+import se.arkalix.util.annotation.Internal;
+
+/**
+ * Spans the synchronous execution of a {@link se.arkalix.plugin.Plugin
+ * Plugin} callback.
+ */
+@Internal
+@Name("se.arkalix.PluginCallback")
+@Label("Plugin Callback")
+@Category({"Kalix", "Plugin"})
+@Description("Synchronous execution of a plugin callback")
+@Enabled(false)
+@StackTrace(false)
+public class PluginCallbackEvent extends Event {
+    @Label("Plugin Class")
+    public Class<?> pluginClass;
+
+    @Label("Callback")
+    public String callback;
+
+    @Label("Failed")
+    @Description("Whether the callback threw an exception")
+    public boolean isFailure;
+}
@@ -0,0 +1,86 @@
+package se.arkalix.internal.jfr;
+
+import io.netty.channel.Channel;
+import io.netty.handler.ssl.SslHandler;
+import jdk.jfr.*;
+import se.arkalix.util.annotation.Internal;
+
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSession;
+import java.security.cert.X509Certificate;
+
+/**
+ * Spans a TLS handshake, from when its connection was established until the
+ * handshake completed or failed.
+ */
+@Internal
+@Name("se.arkalix.TlsHandshake")
+@Label("TLS Handshake")
+@Category({"Kalix", "TLS"})
+@Description("TLS handshake performed by an HTTP client or server")
+@Enabled(false)
+@StackTrace(false)
+public class TlsHandshakeEvent extends Event {
+    @Label("Client Side")
+    @Description("Whether the local end of the connection is its client")
+    public boolean isClient;
+
+    @Label("Remote Address")
+    public String remoteAddress;
+
+    @Label("Protocol")
+    public String protocol;
+
+    @Label("Cipher Suite")
+    public String cipherSuite;
+
+    @Label("Peer")
+    @Description("Subject of the peer certificate, if any")
+    public String peer;
+
+    @Label("Succeeded")
+    public boolean isSuccess;
+
+    @Label("Failure")
+    public String failure;
+
+    /**
+     * Records the handshake of given {@code sslHandler}, which is assumed to
+     * just have been added to the pipeline of given {@code channel}, if this
+     * event is enabled.
+     *
+     * @param sslHandler SSL/TLS handler.
+     * @param channel    Channel of handler.
+     * @param isClient   Whether the local end of the channel is its client.
+     */
+    public static void monitor(final SslHandler sslHandler, final Channel channel, final boolean isClient) {
+        if (!new TlsHandshakeEvent().isEnabled()) {
+            return;
+        }
+        final var event = new TlsHandshakeEvent();
+        event.begin();
+        event.isClient = isClient;
+        sslHandler.handshakeFuture().addListener(future -> {
+            event.remoteAddress = String.valueOf(channel.remoteAddress());
+            event.isSuccess = future.isSuccess();
+            if (future.isSuccess()) {
+                final SSLSession session = sslHandler.engine().getSession();
+                event.protocol = session.getProtocol();
+                event.cipherSuite = session.getCipherSuite();
+                try {
+                    final var chain = session.getPeerCertificates();
+                    if (chain.length > 0 && chain[0] instanceof X509Certificate) {
+                        event.peer = ((X509Certificate) chain[0]).getSubjectX500Principal().getName();
+                    }
+                }
+                catch (final SSLPeerUnverifiedException ignored) {
+                    // Peer not authenticated.
+                }
+            }
+            else {
+                event.failure = String.valueOf(future.cause());
+            }
+            event.commit();
+        });
+    }
+}
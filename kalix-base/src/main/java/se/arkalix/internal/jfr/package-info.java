@@ -0,0 +1,16 @@
+/**
+ * Java Flight Recorder events emitted by Kalix.
+ * <p>
+ * All events are disabled by default and must be explicitly enabled in the
+ * settings of a recording to be recorded, such as by providing a custom
+ * {@code .jfc} file containing entries like the following:
+ * <pre>
+ *     &lt;event name="se.arkalix.HttpServerRequest"&gt;
+ *         &lt;setting name="enabled"&gt;true&lt;/setting&gt;
+ *         &lt;setting name="threshold"&gt;0 ms&lt;/setting&gt;
+ *     &lt;/event&gt;
+ * </pre>
+ * While disabled, no event objects outliving the methods creating them are
+ * allocated, which lets the JIT compiler remove all traces of them.
+ */
+package se.arkalix.internal.jfr;
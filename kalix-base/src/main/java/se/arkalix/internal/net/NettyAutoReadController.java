@@ -0,0 +1,74 @@
+package se.arkalix.internal.net;
+
+import se.arkalix.util.annotation.Internal;
+import io.netty.channel.Channel;
+
+import java.util.Objects;
+
+/**
+ * Controls whether or not a Netty {@link Channel} automatically reads more
+ * data from its socket.
+ * <p>
+ * Reading may be suspended by any number of independent parties, such as a
+ * pipelined request queue having grown full or a slow consumer of a streamed
+ * message body. Reading is only resumed when every suspension made has been
+ * matched by a call to {@link #resume()}. This prevents one party from
+ * resuming reading while another still needs it to be suspended.
+ * <p>
+ * Apart from {@link #execute(Runnable)}, the methods of this class must only
+ * be called from the event loop of the controlled channel.
+ */
+@Internal
+public class NettyAutoReadController {
+    private final Channel channel;
+
+    private int suspensionCount = 0;
+
+    /**
+     * @param channel Channel to control.
+     */
+    public NettyAutoReadController(final Channel channel) {
+        this.channel = Objects.requireNonNull(channel, "Expected channel");
+    }
+
+    /**
+     * Suspends automatic reading until a matching call to
+     * {@link #resume()} is made.
+     */
+    public void suspend() {
+        if (suspensionCount++ == 0) {
+            channel.config().setAutoRead(false);
+        }
+    }
+
+    /**
+     * Removes one suspension previously made via {@link #suspend()},
+     * resuming automatic reading if no other suspensions remain.
+     *
+     * @throws IllegalStateException If reading is not suspended.
+     */
+    public void resume() {
+        if (suspensionCount == 0) {
+            throw new IllegalStateException("Reading not suspended");
+        }
+        if (--suspensionCount == 0) {
+            channel.config().setAutoRead(true);
+        }
+    }
+
+    /**
+     * Executes given task on the event loop of the controlled channel,
+     * immediately if called from that event loop.
+     *
+     * @param task Task to execute.
+     */
+    public void execute(final Runnable task) {
+        final var eventLoop = channel.eventLoop();
+        if (eventLoop.inEventLoop()) {
+            task.run();
+        }
+        else {
+            eventLoop.execute(task);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package se.arkalix.internal.net;
+
+import se.arkalix.security.TlsHandshakePool;
+import se.arkalix.security.TlsSettings;
+import se.arkalix.util.annotation.Internal;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.OpenSslSessionContext;
+import io.netty.handler.ssl.OpenSslSessionTicketKey;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.SslProvider;
+
+import javax.net.ssl.SSLException;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+
+@Internal
+public class NettySslContexts {
+    private NettySslContexts() {}
+
+    /**
+     * Applies given {@code settings} to given {@code builder} and then uses
+     * it to build a new SSL/TLS context.
+     * <p>
+     * If the OpenSSL provider is preferred but cannot be loaded, or if it
+     * does not support ALPN and {@code isUsingAlpn} is {@code true}, the JDK
+     * provider is used instead.
+     *
+     * @param builder     Builder to apply settings to and build.
+     * @param settings    TLS settings to apply.
+     * @param isUsingAlpn Whether or not the built context is to negotiate
+     *                    application protocols via ALPN.
+     * @return New SSL/TLS context.
+     * @throws SSLException If building the context fails.
+     */
+    public static SslContext build(
+        final SslContextBuilder builder,
+        final TlsSettings settings,
+        final boolean isUsingAlpn) throws SSLException
+    {
+        final var isUsingOpenSsl = settings.provider() == TlsSettings.Provider.OPENSSL &&
+            OpenSsl.isAvailable() && (!isUsingAlpn || SslProvider.isAlpnSupported(SslProvider.OPENSSL));
+
+        builder
+            .sslProvider(isUsingOpenSsl ? SslProvider.OPENSSL : SslProvider.JDK)
+            .sessionCacheSize(settings.sessionCacheSize())
+            .sessionTimeout(settings.sessionTimeout().toSeconds());
+
+        final var sslContext = builder.build();
+
+        final var sessionTicketKeys = settings.sessionTicketKeys();
+        if (sslContext.isServer() && !sessionTicketKeys.isEmpty() &&
+            sslContext.sessionContext() instanceof OpenSslSessionContext)
+        {
+            ((OpenSslSessionContext) sslContext.sessionContext()).setTicketKeys(sessionTicketKeys.stream()
+                .map(key -> new OpenSslSessionTicketKey(
+                    Arrays.copyOfRange(key, 0, 16),
+                    Arrays.copyOfRange(key, 16, 32),
+                    Arrays.copyOfRange(key, 32, 48)))
+                .toArray(OpenSslSessionTicketKey[]::new));
+        }
+
+        return sslContext;
+    }
+
+    /**
+     * Creates new SSL/TLS handler from given {@code sslContext}.
+     *
+     * @param sslContext          SSL/TLS context to create handler from.
+     * @param alloc               Allocator to use for creating buffers.
+     * @param remoteSocketAddress Address of remote host, used by clients to
+     *                            identify sessions that may be resumed, or
+     *                            {@code null}.
+     * @param handshakePool       Pool to execute handshake tasks with, or
+     *                            {@code null} if such tasks are to be
+     *                            executed by the I/O thread of the handler.
+     * @return New SSL/TLS handler.
+     */
+    public static SslHandler newHandler(
+        final SslContext sslContext,
+        final ByteBufAllocator alloc,
+        final InetSocketAddress remoteSocketAddress,
+        final TlsHandshakePool handshakePool)
+    {
+        if (remoteSocketAddress == null) {
+            return handshakePool != null
+                ? sslContext.newHandler(alloc, handshakePool::execute)
+                : sslContext.newHandler(alloc);
+        }
+        final var host = remoteSocketAddress.getHostString();
+        final var port = remoteSocketAddress.getPort();
+        return handshakePool != null
+            ? sslContext.newHandler(alloc, host, port, handshakePool::execute)
+            : sslContext.newHandler(alloc, host, port);
+    }
+}
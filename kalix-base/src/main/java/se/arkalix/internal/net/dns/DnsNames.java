@@ -48,6 +48,9 @@ public class DnsNames {
         final var l1 = label.length();
         char c;
 
+        if (l1 == 0) {
+            return false;
+        }
         c = label.charAt(l0++);
         if (!(c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z')) {
             return false; // May not start with digit or dash.
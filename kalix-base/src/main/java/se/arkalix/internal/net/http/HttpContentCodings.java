@@ -0,0 +1,116 @@
+package se.arkalix.internal.net.http;
+
+import se.arkalix.util.annotation.Internal;
+import io.netty.handler.codec.compression.ZlibWrapper;
+
+import java.util.Optional;
+
+/**
+ * Various utility methods related to HTTP content codings.
+ *
+ * @see <a href="https://tools.ietf.org/html/rfc7231#section-3.1.2.1">RFC 7231, Section 3.1.2.1</a>
+ */
+@Internal
+public class HttpContentCodings {
+    private HttpContentCodings() {}
+
+    /**
+     * Determines what compressing content coding, if any, to use for a
+     * message sent to a receiver that specified given {@code acceptEncoding},
+     * which is assumed to be an HTTP "accept-encoding" header field value.
+     * <p>
+     * Only the {@code gzip} and {@code deflate} codings are considered. If
+     * both are equally acceptable, {@code gzip} is preferred. Codings not
+     * mentioned explicitly are given the weight of the {@code *} coding, if
+     * present. Codings with a weight of zero are never selected.
+     *
+     * @param acceptEncoding "accept-encoding" header field value.
+     * @return ZLIB wrapper corresponding to the selected content coding, if
+     * any.
+     * @see <a href="https://tools.ietf.org/html/rfc7231#section-5.3.4">RFC 7231, Section 5.3.4</a>
+     */
+    public static Optional<ZlibWrapper> findCompressionAcceptedBy(final String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return Optional.empty();
+        }
+        var gzipWeight = -1f;
+        var deflateWeight = -1f;
+        var anyWeight = -1f;
+        for (final var element : acceptEncoding.split(",")) {
+            final var semicolon = element.indexOf(';');
+            final var coding = (semicolon == -1 ? element : element.substring(0, semicolon)).trim();
+            final var weight = semicolon == -1 ? 1f : parseWeight(element.substring(semicolon + 1).trim());
+            if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) {
+                gzipWeight = Math.max(gzipWeight, weight);
+            }
+            else if (coding.equalsIgnoreCase("deflate")) {
+                deflateWeight = Math.max(deflateWeight, weight);
+            }
+            else if (coding.equals("*")) {
+                anyWeight = Math.max(anyWeight, weight);
+            }
+        }
+        if (gzipWeight < 0f) {
+            gzipWeight = anyWeight;
+        }
+        if (deflateWeight < 0f) {
+            deflateWeight = anyWeight;
+        }
+        if (gzipWeight <= 0f && deflateWeight <= 0f) {
+            return Optional.empty();
+        }
+        return Optional.of(gzipWeight >= deflateWeight ? ZlibWrapper.GZIP : ZlibWrapper.ZLIB);
+    }
+
+    /**
+     * Determines what ZLIB wrapper, if any, can be used to decompress a
+     * message with given {@code contentEncoding}, which is assumed to be an
+     * HTTP "content-encoding" header field value.
+     * <p>
+     * Only the {@code gzip} and {@code deflate} codings are recognized.
+     *
+     * @param contentEncoding "content-encoding" header field value.
+     * @return ZLIB wrapper corresponding to {@code contentEncoding}, if any.
+     */
+    public static Optional<ZlibWrapper> findCompressionOf(final String contentEncoding) {
+        if (contentEncoding == null) {
+            return Optional.empty();
+        }
+        final var coding = contentEncoding.trim();
+        if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) {
+            return Optional.of(ZlibWrapper.GZIP);
+        }
+        if (coding.equalsIgnoreCase("deflate") || coding.equalsIgnoreCase("x-deflate")) {
+            // Some senders omit the ZLIB header required by RFC 7230.
+            return Optional.of(ZlibWrapper.ZLIB_OR_NONE);
+        }
+        return Optional.empty();
+    }
+
+    private static float parseWeight(final String parameter) {
+        if (!parameter.regionMatches(true, 0, "q=", 0, 2)) {
+            return 1f;
+        }
+        try {
+            return Float.parseFloat(parameter.substring(2).trim());
+        }
+        catch (final NumberFormatException exception) {
+            return 0f;
+        }
+    }
+
+    /**
+     * @param wrapper ZLIB wrapper.
+     * @return Name of HTTP content coding corresponding to {@code wrapper}.
+     * @throws IllegalArgumentException If {@code wrapper} is not
+     *                                  {@link ZlibWrapper#GZIP GZIP} or
+     *                                  {@link ZlibWrapper#ZLIB ZLIB}.
+     */
+    public static String nameOf(final ZlibWrapper wrapper) {
+        switch (wrapper) {
+            case GZIP: return "gzip";
+            case ZLIB: return "deflate";
+        }
+        throw new IllegalArgumentException("No content coding exists for " + wrapper);
+    }
+}
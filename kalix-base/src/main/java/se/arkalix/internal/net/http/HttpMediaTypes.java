@@ -40,6 +40,10 @@ public class HttpMediaTypes {
      * encoding will match {@code "application/exi"}, which is non-standard at
      * the time of writing, as well as {@code "application/senml-exi"}.
      * <p>
+     * The only media type not of the "application" type that is recognized
+     * is {@code "text/plain"}, which matches the
+     * {@link EncodingDescriptor#TEXT TEXT} encoding.
+     * <p>
      * More about HTTP content types can be read in RFC 7231, Section 3.1.1.5.
      *
      * @param encodings   A list of candidate encodings.
@@ -88,10 +92,15 @@ public class HttpMediaTypes {
             return Optional.of(encodings.get(0));
         }
 
-        // Ensure type is "application".
+        // Ensure type is "application", unless it is "text/plain".
         if (contentType.startsWith("application/", c0)) {
             c0 += 12;
         }
+        else if (contentType.startsWith("text/", c0)) {
+            return isPlainTextSubtype(contentType, c0 + 5, c1, false)
+                ? findTextEncodingAmong(encodings)
+                : Optional.empty();
+        }
         else {
             return Optional.empty();
         }
@@ -220,6 +229,15 @@ public class HttpMediaTypes {
             else if (acceptHeader.startsWith("application/", a0)) {
                 a0 += 12;
             }
+            else if (acceptHeader.startsWith("text/", a0)) {
+                if (isPlainTextSubtype(acceptHeader, a0 + 5, a1, true)) {
+                    final var encoding = findTextEncodingAmong(encodings);
+                    if (encoding.isPresent()) {
+                        return encoding.get();
+                    }
+                }
+                continue;
+            }
             else {
                 continue;
             }
@@ -262,6 +280,29 @@ public class HttpMediaTypes {
         return null;
     }
 
+    /*
+     * The "text" type is only considered if its subtype is "plain", or "*"
+     * when wildcards are allowed, which is why it may only ever match the
+     * TEXT encoding.
+     */
+    private static boolean isPlainTextSubtype(
+        final String mediaType,
+        final int s0,
+        final int s1,
+        final boolean isWildcardAllowed)
+    {
+        if (isWildcardAllowed && s0 + 1 == s1 && mediaType.charAt(s0) == '*') {
+            return true;
+        }
+        return s1 - s0 == 5 && mediaType.regionMatches(true, s0, "plain", 0, 5);
+    }
+
+    private static Optional<EncodingDescriptor> findTextEncodingAmong(final List<EncodingDescriptor> encodings) {
+        return encodings.contains(EncodingDescriptor.TEXT)
+            ? Optional.of(EncodingDescriptor.TEXT)
+            : Optional.empty();
+    }
+
     /**
      * Converts given {@code encoding} to a media type.
      *
@@ -285,6 +326,9 @@ public class HttpMediaTypes {
         if (encoding == EncodingDescriptor.JSON) {
             return "application/json";
         }
+        if (encoding == EncodingDescriptor.TEXT) {
+            return "text/plain; charset=utf-8";
+        }
         return "application/" + encoding.name().toLowerCase();
     }
 }
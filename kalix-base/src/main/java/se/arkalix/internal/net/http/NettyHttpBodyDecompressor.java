@@ -0,0 +1,105 @@
+package se.arkalix.internal.net.http;
+
+import se.arkalix.util.annotation.Internal;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Decompresses the chunks of one compressed HTTP message body.
+ * <p>
+ * Compressed data is inflated no more than {@link #MAX_INPUT_PER_STEP} bytes
+ * at a time, and the inflated data of each step is handed to a consumer that
+ * may stop decompression, such as if the body turns out to be too large.
+ * This limits how much memory a small but highly compressed body can cause
+ * to be allocated before it is rejected.
+ */
+@Internal
+public class NettyHttpBodyDecompressor {
+    /**
+     * Maximum number of compressed bytes inflated in one step. As DEFLATE
+     * compresses data by a factor of at most about 1:1032, no step inflates
+     * more than about a megabyte of data.
+     */
+    public static final int MAX_INPUT_PER_STEP = 1024;
+
+    private final EmbeddedChannel decoder;
+
+    /**
+     * @param wrapper ZLIB wrapper identifying the kind of compressed data to
+     *                decompress.
+     */
+    public NettyHttpBodyDecompressor(final ZlibWrapper wrapper) {
+        decoder = new EmbeddedChannel(ZlibCodecFactory.newZlibDecoder(
+            Objects.requireNonNull(wrapper, "Expected wrapper")));
+    }
+
+    /**
+     * Decompresses given {@code compressed} data and hands the result to
+     * {@code consumer}, one inflated chunk at a time. Each inflated chunk is
+     * released after having been handed to {@code consumer}, which must
+     * retain it if wanting to keep it.
+     *
+     * @param compressed Compressed data. Not released.
+     * @param consumer   Function receiving inflated chunks, returning
+     *                   {@code false} if decompression is to stop.
+     * @return {@code true} only if {@code consumer} never returned
+     * {@code false}.
+     */
+    public boolean decompress(final ByteBuf compressed, final Predicate<ByteBuf> consumer) {
+        while (compressed.isReadable()) {
+            decoder.writeInbound(compressed.readRetainedSlice(Math.min(compressed.readableBytes(),
+                MAX_INPUT_PER_STEP)));
+            if (!drain(consumer)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Signals that no more compressed data will be provided and hands any
+     * remaining inflated data to {@code consumer}, after which this
+     * decompressor is closed.
+     *
+     * @param consumer Function receiving inflated chunks, returning
+     *                 {@code false} if decompression is to stop.
+     * @return {@code true} only if {@code consumer} never returned
+     * {@code false}.
+     */
+    public boolean finish(final Predicate<ByteBuf> consumer) {
+        decoder.finish();
+        final var isCompleted = drain(consumer);
+        close();
+        return isCompleted;
+    }
+
+    /**
+     * Closes this decompressor, releasing any inflated data not yet handed
+     * to a consumer.
+     */
+    public void close() {
+        decoder.finishAndReleaseAll();
+    }
+
+    private boolean drain(final Predicate<ByteBuf> consumer) {
+        ByteBuf inflated;
+        while ((inflated = decoder.readInbound()) != null) {
+            final boolean isAccepted;
+            try {
+                isAccepted = !inflated.isReadable() || consumer.test(inflated);
+            }
+            finally {
+                inflated.release();
+            }
+            if (!isAccepted) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
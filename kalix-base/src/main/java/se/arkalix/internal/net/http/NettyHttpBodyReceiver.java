@@ -6,6 +6,7 @@ import se.arkalix.dto.DtoReadable;
 import se.arkalix.dto.DtoReader;
 import se.arkalix.dto.DtoReadException;
 import se.arkalix.internal.dto.binary.ByteBufReader;
+import se.arkalix.internal.net.NettyAutoReadController;
 import se.arkalix.net.http.HttpBodyReceiver;
 import se.arkalix.util.Result;
 import se.arkalix.util.annotation.Internal;
@@ -22,40 +23,79 @@ import io.netty.handler.codec.http.LastHttpContent;
 
 import java.io.FileOutputStream;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.Objects;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Flow;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 @Internal
 public class NettyHttpBodyReceiver implements HttpBodyReceiver {
     private final ByteBufAllocator alloc;
+    private final NettyAutoReadController autoReadController;
     private final EncodingDescriptor encoding;
     private final HttpHeaders headers;
 
-    private FutureBody<?> body;
+    private Sink body;
+    private Executor completionExecutor = null;
 
     private boolean isAborted = false;
     private boolean isBodyRequested = false;
     private boolean isFinished = false;
 
-    public NettyHttpBodyReceiver(final ByteBufAllocator alloc, final HttpHeaders headers) {
-        this(alloc, headers, null);
+    public NettyHttpBodyReceiver(
+        final ByteBufAllocator alloc,
+        final NettyAutoReadController autoReadController,
+        final HttpHeaders headers)
+    {
+        this(alloc, autoReadController, headers, null);
     }
 
     public NettyHttpBodyReceiver(
         final ByteBufAllocator alloc,
+        final NettyAutoReadController autoReadController,
         final HttpHeaders headers,
         final EncodingDescriptor encoding)
     {
         this.alloc = Objects.requireNonNull(alloc, "Expected alloc");
+        this.autoReadController = Objects.requireNonNull(autoReadController, "Expected autoReadController");
         this.headers = Objects.requireNonNull(headers, "Expected headers");
         this.encoding = encoding;
     }
 
+    /**
+     * @return {@code true} only if a consumer of the received body has been
+     * registered, which means that {@link #abort(Throwable)} may be called.
+     */
+    public boolean isBodyRequested() {
+        return isBodyRequested;
+    }
+
+    /**
+     * Sets executor used to notify the consumers of requested bodies when
+     * those have been received in full, or failed to be received. Progress
+     * listeners and subscribers to bodies requested as publishers are still
+     * notified by the thread receiving the body. Must be called before any
+     * body is requested.
+     * <p>
+     * If {@code executor} rejects a notification, the consumer is notified
+     * of the rejection by the thread receiving the body.
+     *
+     * @param completionExecutor Executor to notify body consumers with, or
+     *                           {@code null} to notify them with the thread
+     *                           receiving the body.
+     */
+    public void completionExecutor(final Executor completionExecutor) {
+        this.completionExecutor = completionExecutor;
+    }
+
     public void abort(final Throwable throwable) {
         Objects.requireNonNull(throwable, "Expected throwable");
         if (isAborted) {
@@ -79,7 +119,6 @@ public class NettyHttpBodyReceiver implements HttpBodyReceiver {
         if (body.isCancelled()) {
             return;
         }
-        // TODO: Ensure body size does not exceed some configured limit.
         body.append(content);
     }
 
@@ -87,6 +126,17 @@ public class NettyHttpBodyReceiver implements HttpBodyReceiver {
         finish(null);
     }
 
+    /**
+     * @return Nanoseconds spent assembling and decoding the buffered body
+     * requested from this receiver, or zero if the body has not yet been
+     * received in full or was requested as a stream.
+     */
+    public long decodingNanos() {
+        return body instanceof FutureBodyBuffered
+            ? ((FutureBodyBuffered<?>) body).assemblyNanos
+            : 0L;
+    }
+
     public void finish(final LastHttpContent lastContent) {
         if (isAborted || isFinished || !isBodyRequested) {
             return;
@@ -136,7 +186,12 @@ public class NettyHttpBodyReceiver implements HttpBodyReceiver {
         return handleBodyRequest(() -> new FutureBodyToPath(path, append, headers));
     }
 
-    private <V> FutureProgress<V> handleBodyRequest(final Supplier<FutureBody<V>> futureBodySupplier) {
+    @Override
+    public Flow.Publisher<ByteBuffer> bodyAsPublisher() {
+        return handleBodyRequest(() -> new BodyPublisher(autoReadController));
+    }
+
+    private <S extends Sink> S handleBodyRequest(final Supplier<S> bodySupplier) {
         if (isAborted) {
             throw new IllegalStateException("Incoming HTTP body has already " +
                 "been aborted");
@@ -153,14 +208,28 @@ public class NettyHttpBodyReceiver implements HttpBodyReceiver {
         }
         isBodyRequested = true;
 
-        final var body = futureBodySupplier.get();
+        final var body = bodySupplier.get();
+        if (body instanceof FutureBody) {
+            ((FutureBody<?>) body).executor = completionExecutor;
+        }
         this.body = body;
         return body;
     }
 
-    private static abstract class FutureBody<V> implements FutureProgress<V> {
+    private interface Sink {
+        void abort(Throwable throwable);
+
+        void append(HttpContent content);
+
+        void finish();
+
+        boolean isCancelled();
+    }
+
+    private static abstract class FutureBody<V> implements FutureProgress<V>, Sink {
         private final int expectedContentLength;
 
+        private Executor executor = null;
         private Consumer<Result<V>> consumer = null;
         private Result<V> pendingResult = null;
         private Listener listener = null;
@@ -172,10 +241,12 @@ public class NettyHttpBodyReceiver implements HttpBodyReceiver {
             this.expectedContentLength = headers.getInt("content-length", 0);
         }
 
+        @Override
         public void abort(final Throwable throwable) {
             complete(Result.failure(throwable));
         }
 
+        @Override
         public void append(final HttpContent content) {
             final var buffer = content.content();
             if (listener != null) {
@@ -199,7 +270,7 @@ public class NettyHttpBodyReceiver implements HttpBodyReceiver {
             isCompleted = true;
 
             if (consumer != null) {
-                consumer.accept(isCancelled
+                notify(consumer, isCancelled
                     ? Result.failure(new CancellationException())
                     : result);
             }
@@ -208,8 +279,23 @@ public class NettyHttpBodyReceiver implements HttpBodyReceiver {
             }
         }
 
+        private void notify(final Consumer<Result<V>> consumer, final Result<V> result) {
+            if (executor == null) {
+                consumer.accept(result);
+                return;
+            }
+            try {
+                executor.execute(() -> consumer.accept(result));
+            }
+            catch (final RejectedExecutionException exception) {
+                consumer.accept(Result.failure(exception));
+            }
+        }
+
+        @Override
         public abstract void finish();
 
+        @Override
         public boolean isCancelled() {
             return isCancelled;
         }
@@ -239,6 +325,8 @@ public class NettyHttpBodyReceiver implements HttpBodyReceiver {
     private static abstract class FutureBodyBuffered<V> extends FutureBody<V> {
         private final CompositeByteBuf buffer;
 
+        private long assemblyNanos = 0L;
+
         private FutureBodyBuffered(final ByteBufAllocator alloc, final HttpHeaders headers) {
             super(headers);
             buffer = alloc.compositeBuffer();
@@ -254,7 +342,10 @@ public class NettyHttpBodyReceiver implements HttpBodyReceiver {
 
         @Override
         public void finish() {
-            complete(Result.success(assembleValue(buffer)));
+            final var t0 = System.nanoTime();
+            final var value = assembleValue(buffer);
+            assemblyNanos = System.nanoTime() - t0;
+            complete(Result.success(value));
         }
     }
 
@@ -379,4 +470,145 @@ public class NettyHttpBodyReceiver implements HttpBodyReceiver {
             return new String(byteArray, charset);
         }
     }
+
+    /*
+     * Publishes incoming body chunks as they arrive. Chunks that cannot be
+     * published immediately, due to lacking subscriber demand, are queued
+     * while reading from the connection is suspended, which eventually
+     * causes the sender to stop sending as the TCP receive window fills up.
+     * All state is managed on the event loop of the connection.
+     */
+    private static class BodyPublisher implements Flow.Publisher<ByteBuffer>, Flow.Subscription, Sink {
+        private final NettyAutoReadController autoReadController;
+        private final ArrayDeque<ByteBuffer> queue = new ArrayDeque<>();
+
+        private Flow.Subscriber<? super ByteBuffer> subscriber = null;
+        private long demand = 0;
+        private boolean isCancelled = false;
+        private boolean isFinished = false;
+        private boolean isSuspendingReads = false;
+        private Throwable fault = null;
+
+        private BodyPublisher(final NettyAutoReadController autoReadController) {
+            this.autoReadController = autoReadController;
+        }
+
+        @Override
+        public void subscribe(final Flow.Subscriber<? super ByteBuffer> subscriber) {
+            Objects.requireNonNull(subscriber, "Expected subscriber");
+            autoReadController.execute(() -> {
+                if (this.subscriber != null) {
+                    subscriber.onSubscribe(new Flow.Subscription() {
+                        @Override
+                        public void request(final long n) {}
+
+                        @Override
+                        public void cancel() {}
+                    });
+                    subscriber.onError(new IllegalStateException("Incoming " +
+                        "HTTP body publisher only supports one subscriber"));
+                    return;
+                }
+                this.subscriber = subscriber;
+                subscriber.onSubscribe(this);
+                drain();
+            });
+        }
+
+        @Override
+        public void request(final long n) {
+            autoReadController.execute(() -> {
+                if (isCancelled) {
+                    return;
+                }
+                if (n <= 0) {
+                    cancelAndRelease();
+                    subscriber.onError(new IllegalArgumentException("Expected n > 0"));
+                    return;
+                }
+                demand += n;
+                if (demand < 0) {
+                    demand = Long.MAX_VALUE;
+                }
+                drain();
+            });
+        }
+
+        @Override
+        public void cancel() {
+            autoReadController.execute(this::cancelAndRelease);
+        }
+
+        private void cancelAndRelease() {
+            isCancelled = true;
+            queue.clear();
+            updateReadSuspension();
+        }
+
+        @Override
+        public void abort(final Throwable throwable) {
+            fault = throwable;
+            drain();
+        }
+
+        @Override
+        public void append(final HttpContent content) {
+            final var buffer = content.content();
+            final var length = buffer.readableBytes();
+            if (length == 0) {
+                return;
+            }
+            final var byteBuffer = ByteBuffer.allocate(length);
+            buffer.getBytes(buffer.readerIndex(), byteBuffer);
+            queue.add(byteBuffer.flip());
+            drain();
+        }
+
+        @Override
+        public void finish() {
+            isFinished = true;
+            drain();
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return isCancelled;
+        }
+
+        private void drain() {
+            if (subscriber != null && !isCancelled) {
+                ByteBuffer byteBuffer;
+                while (demand > 0 && (byteBuffer = queue.poll()) != null) {
+                    demand -= 1;
+                    subscriber.onNext(byteBuffer);
+                    if (isCancelled) {
+                        return;
+                    }
+                }
+                if (fault != null) {
+                    isCancelled = true;
+                    queue.clear();
+                    subscriber.onError(fault);
+                }
+                else if (isFinished && queue.isEmpty()) {
+                    isCancelled = true;
+                    subscriber.onComplete();
+                }
+            }
+            updateReadSuspension();
+        }
+
+        private void updateReadSuspension() {
+            final var isToSuspendReads = !isCancelled && !isFinished && !queue.isEmpty();
+            if (isSuspendingReads != isToSuspendReads) {
+                isSuspendingReads = isToSuspendReads;
+                if (isToSuspendReads) {
+                    autoReadController.suspend();
+                }
+                else {
+                    autoReadController.resume();
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,299 @@
+package se.arkalix.internal.net.http.client;
+
+import se.arkalix.internal.util.concurrent.BoundedCache;
+import se.arkalix.internal.util.concurrent.NettyFutures;
+import se.arkalix.net.http.client.HttpClientCircuitBreaker;
+import se.arkalix.net.http.client.HttpClientCircuitBreaker.State;
+import se.arkalix.net.http.client.HttpClientCircuitOpenException;
+import se.arkalix.net.http.client.HttpClientRequest;
+import se.arkalix.net.http.client.HttpClientResponse;
+import se.arkalix.util.Result;
+import se.arkalix.util.annotation.Internal;
+import se.arkalix.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+
+import java.net.InetSocketAddress;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The circuits of one {@link se.arkalix.net.http.client.HttpClient}, each of
+ * which is identified by a remote socket address and an optional service key.
+ * <p>
+ * Circuits are held by a {@link BoundedCache}, in which closed circuits that
+ * remember no failed or slow requests are considered stale. Open and half-open
+ * circuits are retained, as forgetting them would silently close them.
+ */
+@Internal
+public class HttpClientCircuitBreakers {
+    private static final int PERMIT_REJECTED = 0;
+    private static final int PERMIT_CLOSED = 1;
+    private static final int PERMIT_HALF_OPEN = 2;
+
+    private static final int OUTCOME_FAILURE = 1;
+    private static final int OUTCOME_SLOW = 2;
+    private static final int OUTCOME_ABANDONED = 4;
+
+    private final HttpClientCircuitBreaker settings;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final BoundedCache<Key, Circuit> circuits;
+
+    public HttpClientCircuitBreakers(final HttpClientCircuitBreaker settings) {
+        this.settings = Objects.requireNonNull(settings, "Expected settings");
+        slowCallNanos = settings.slowCallDuration() != null
+            ? settings.slowCallDuration().toNanos()
+            : Long.MAX_VALUE;
+        openNanos = settings.openDuration().toNanos();
+        circuits = new BoundedCache<>(settings.maxCircuits(), Circuit::isStale, Circuit::isTripped);
+    }
+
+    /**
+     * Uses {@code sender} to send {@code request}, unless the circuit of
+     * {@code remoteSocketAddress} and {@code request} is open, in which case
+     * the returned {@code Future} is failed immediately.
+     *
+     * @param remoteSocketAddress Address of receiver of request.
+     * @param request             Request to send.
+     * @param sender              Function sending {@code request}.
+     * @return Future completed with the result of the {@code Future} returned
+     * by {@code sender}, or failed with a
+     * {@link HttpClientCircuitOpenException}.
+     */
+    public Future<HttpClientResponse> send(
+        final InetSocketAddress remoteSocketAddress,
+        final HttpClientRequest request,
+        final Supplier<Future<HttpClientResponse>> sender)
+    {
+        final var serviceKey = settings.serviceKey();
+        final var key = new Key(remoteSocketAddress, serviceKey != null ? serviceKey.apply(request) : null);
+        final var circuit = circuits.computeIfAbsent(key, ignored -> new Circuit());
+
+        final var startNanos = System.nanoTime();
+        final var permit = circuit.tryAcquire(startNanos);
+        if (permit == PERMIT_REJECTED) {
+            return Future.failure(new HttpClientCircuitOpenException("Circuit " +
+                "of " + key + " is open; request not sent"));
+        }
+
+        final var isEnded = new AtomicBoolean(false);
+        final Future<HttpClientResponse> future;
+        try {
+            future = sender.get();
+        }
+        catch (final Throwable throwable) {
+            circuit.onOutcome(permit, OUTCOME_FAILURE, System.nanoTime());
+            return Future.failure(throwable);
+        }
+
+        final var promise = ImmediateEventExecutor.INSTANCE.<HttpClientResponse>newPromise();
+        future.onResult(result -> {
+            if (isEnded.compareAndSet(false, true)) {
+                final var endNanos = System.nanoTime();
+                final var isSlow = endNanos - startNanos >= slowCallNanos;
+                final int outcome;
+                if (result.isSuccess()) {
+                    final var isFailure = settings.failureStatuses().contains(result.value().status());
+                    outcome = (isSlow ? OUTCOME_SLOW : 0) | (isFailure ? OUTCOME_FAILURE : 0);
+                }
+                else if (result.fault() instanceof CancellationException) {
+                    outcome = isSlow ? OUTCOME_SLOW : OUTCOME_ABANDONED;
+                }
+                else {
+                    outcome = isSlow ? OUTCOME_FAILURE | OUTCOME_SLOW : OUTCOME_FAILURE;
+                }
+                circuit.onOutcome(permit, outcome, endNanos);
+            }
+            if (result.isSuccess()) {
+                promise.trySuccess(result.value());
+            }
+            else {
+                promise.tryFailure(result.fault());
+            }
+        });
+        final var future1 = NettyFutures.adapt(promise);
+        return new Future<>() {
+            @Override
+            public void onResult(final Consumer<Result<HttpClientResponse>> consumer) {
+                future1.onResult(consumer);
+            }
+
+            @Override
+            public void cancel(final boolean mayInterruptIfRunning) {
+                if (isEnded.compareAndSet(false, true)) {
+                    // Requests given up on only count if they were slow.
+                    final var endNanos = System.nanoTime();
+                    circuit.onOutcome(permit, endNanos - startNanos >= slowCallNanos
+                        ? OUTCOME_SLOW
+                        : OUTCOME_ABANDONED, endNanos);
+                }
+                future.cancel(mayInterruptIfRunning);
+                future1.cancel(mayInterruptIfRunning);
+            }
+        };
+    }
+
+    /**
+     * Determines state of the circuit identified by given remote socket
+     * address and service key.
+     *
+     * @param remoteSocketAddress Remote socket address.
+     * @param service             Service key, or {@code null}.
+     * @return Current circuit state.
+     */
+    public State stateOf(final InetSocketAddress remoteSocketAddress, final String service) {
+        final var circuit = circuits.get(new Key(remoteSocketAddress, service));
+        return circuit != null
+            ? circuit.state(System.nanoTime())
+            : State.CLOSED;
+    }
+
+    private class Circuit {
+        private final byte[] window = new byte[settings.windowSize()];
+
+        private State state = State.CLOSED;
+        private int windowIndex = 0;
+        private int windowCount = 0;
+        private int failureCount = 0;
+        private int slowCount = 0;
+        private long openedAtNanos = 0;
+        private int halfOpenPermits = 0;
+        private int halfOpenSuccesses = 0;
+
+        synchronized int tryAcquire(final long nowNanos) {
+            switch (state) {
+            case CLOSED:
+                return PERMIT_CLOSED;
+
+            case OPEN:
+                if (nowNanos - openedAtNanos < openNanos) {
+                    return PERMIT_REJECTED;
+                }
+                state = State.HALF_OPEN;
+                halfOpenPermits = 0;
+                halfOpenSuccesses = 0;
+                return tryAcquireHalfOpen();
+
+            case HALF_OPEN:
+                return tryAcquireHalfOpen();
+
+            default:
+                throw new IllegalStateException("Unexpected state: " + state);
+            }
+        }
+
+        synchronized void onOutcome(final int permit, final int outcome, final long nowNanos) {
+            if (permit == PERMIT_HALF_OPEN && state == State.HALF_OPEN) {
+                if (outcome == OUTCOME_ABANDONED) {
+                    halfOpenPermits -= 1;
+                    return;
+                }
+                if (outcome != 0) {
+                    open(nowNanos);
+                    return;
+                }
+                halfOpenSuccesses += 1;
+                if (halfOpenSuccesses >= settings.halfOpenCalls()) {
+                    close();
+                }
+            }
+            else if (permit == PERMIT_CLOSED && state == State.CLOSED && outcome != OUTCOME_ABANDONED) {
+                record(outcome);
+                if (windowCount >= settings.minimumCalls() && (
+                    failureCount >= settings.failureRateThreshold() * windowCount ||
+                        slowCount >= settings.slowCallRateThreshold() * windowCount))
+                {
+                    open(nowNanos);
+                }
+            }
+        }
+
+        synchronized boolean isStale() {
+            return state == State.CLOSED && failureCount == 0 && slowCount == 0;
+        }
+
+        synchronized boolean isTripped() {
+            return state != State.CLOSED;
+        }
+
+        synchronized State state(final long nowNanos) {
+            return state == State.OPEN && nowNanos - openedAtNanos >= openNanos
+                ? State.HALF_OPEN
+                : state;
+        }
+
+        private int tryAcquireHalfOpen() {
+            if (halfOpenPermits >= settings.halfOpenCalls()) {
+                return PERMIT_REJECTED;
+            }
+            halfOpenPermits += 1;
+            return PERMIT_HALF_OPEN;
+        }
+
+        private void record(final int outcome) {
+            if (windowCount == window.length) {
+                final var evicted = window[windowIndex];
+                failureCount -= evicted & OUTCOME_FAILURE;
+                slowCount -= (evicted & OUTCOME_SLOW) >> 1;
+            }
+            else {
+                windowCount += 1;
+            }
+            window[windowIndex] = (byte) outcome;
+            failureCount += outcome & OUTCOME_FAILURE;
+            slowCount += (outcome & OUTCOME_SLOW) >> 1;
+            windowIndex = (windowIndex + 1) % window.length;
+        }
+
+        private void open(final long nowNanos) {
+            state = State.OPEN;
+            openedAtNanos = nowNanos;
+        }
+
+        private void close() {
+            state = State.CLOSED;
+            windowIndex = 0;
+            windowCount = 0;
+            failureCount = 0;
+            slowCount = 0;
+        }
+    }
+
+    private static class Key {
+        private final InetSocketAddress remoteSocketAddress;
+        private final String service;
+
+        private Key(final InetSocketAddress remoteSocketAddress, final String service) {
+            this.remoteSocketAddress = Objects.requireNonNull(remoteSocketAddress, "Expected remoteSocketAddress");
+            this.service = service;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (other == null || getClass() != other.getClass()) {
+                return false;
+            }
+            final var key = (Key) other;
+            return remoteSocketAddress.equals(key.remoteSocketAddress) &&
+                Objects.equals(service, key.service);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(remoteSocketAddress, service);
+        }
+
+        @Override
+        public String toString() {
+            return service != null
+                ? remoteSocketAddress + " (" + service + ")"
+                : remoteSocketAddress.toString();
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package se.arkalix.internal.net.http.client;
+
+import se.arkalix.net.http.client.*;
+import se.arkalix.util.annotation.Internal;
+import se.arkalix.util.concurrent.Future;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.Promise;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import static se.arkalix.internal.util.concurrent.NettyFutures.adapt;
+
+/**
+ * A pool of HTTP/1.1 connections, kept open between requests to avoid the
+ * cost of establishing new TCP and TLS sessions for every request sent.
+ * <p>
+ * Connections are pooled per remote socket address, and no more than a
+ * configured number of connections are ever open to the same address. If all
+ * connections to an address are in use when a request is to be sent, the
+ * request waits for one of them to become available, or for a configured
+ * timeout to expire. The most recently released connection is always reused
+ * first, which allows for surplus connections to expire from being idle.
+ * Connections are closed and replaced when they have been idle or open for
+ * too long, or if they are found not to be live when about to be reused.
+ */
+@Internal
+public class HttpClientConnectionPool {
+    private final ConcurrentHashMap<InetSocketAddress, Pool> pools = new ConcurrentHashMap<>();
+
+    private final Function<InetSocketAddress, Future<HttpClientConnection>> connector;
+    private final EventLoopGroup eventLoopGroup;
+    private final int maxConnectionsPerAddress;
+    private final long idleTimeoutNanos;
+    private final long maxLifetimeNanos;
+    private final long acquisitionTimeoutNanos;
+
+    private final AtomicInteger pendingAcquisitionCount = new AtomicInteger(0);
+    private final LongAdder acquisitionCount = new LongAdder();
+    private final LongAdder acquisitionNanos = new LongAdder();
+    private final AtomicLong maxAcquisitionNanos = new AtomicLong(0);
+    private final LongAdder timedOutAcquisitionCount = new LongAdder();
+
+    private HttpClientConnectionPool(final Builder builder) {
+        connector = Objects.requireNonNull(builder.connector, "Expected connector");
+        eventLoopGroup = Objects.requireNonNull(builder.eventLoopGroup, "Expected eventLoopGroup");
+        maxConnectionsPerAddress = builder.maxConnectionsPerAddress;
+        if (maxConnectionsPerAddress <= 0) {
+            throw new IllegalArgumentException("Expected maxConnectionsPerAddress > 0");
+        }
+        idleTimeoutNanos = Objects.requireNonNull(builder.idleTimeout, "Expected idleTimeout").toNanos();
+        maxLifetimeNanos = Objects.requireNonNull(builder.maxLifetime, "Expected maxLifetime").toNanos();
+        acquisitionTimeoutNanos = Objects.requireNonNull(builder.acquisitionTimeout, "Expected acquisitionTimeout")
+            .toNanos();
+    }
+
+    /**
+     * Sends given {@code request} to remote host at given socket address via
+     * a pooled connection, which is returned to the pool as soon as the head
+     * of the response has been received.
+     * <p>
+     * As the connections of this pool support pipelining, a connection can
+     * be reused before the body of its previous response has been received
+     * in full. Such reuse only delays the reception of the next response.
+     *
+     * @param remoteSocketAddress Remote socket address.
+     * @param request             Request to send.
+     * @return Future completed with the request response or an error.
+     */
+    public Future<HttpClientResponse> send(
+        final InetSocketAddress remoteSocketAddress,
+        final HttpClientRequest request)
+    {
+        Objects.requireNonNull(remoteSocketAddress, "Expected remoteSocketAddress");
+        Objects.requireNonNull(request, "Expected request");
+
+        final var pool = pools.computeIfAbsent(remoteSocketAddress, Pool::new);
+        return adapt(pool.acquire())
+            .flatMap(entry -> entry.connection.send(request)
+                .mapResult(result -> {
+                    pool.release(entry, result.isSuccess() && isKeptAlive(result.value()));
+                    return result;
+                }));
+    }
+
+    private static boolean isKeptAlive(final HttpClientResponse response) {
+        final var connection = response.headers().get("connection").orElse(null);
+        return connection == null || !connection.equalsIgnoreCase("close");
+    }
+
+    /**
+     * @return Snapshot of the current state of this pool.
+     */
+    public HttpClientConnectionPoolStatistics statistics() {
+        var connectionCount = 0;
+        var idleConnectionCount = 0;
+        for (final var pool : pools.values()) {
+            synchronized (pool) {
+                connectionCount += pool.connectionCount;
+                idleConnectionCount += pool.idleEntries.size();
+            }
+        }
+        final var acquisitionCount = this.acquisitionCount.sum();
+        return new HttpClientConnectionPoolStatistics(
+            connectionCount,
+            idleConnectionCount,
+            pendingAcquisitionCount.get(),
+            acquisitionCount,
+            timedOutAcquisitionCount.sum(),
+            Duration.ofNanos(acquisitionCount > 0 ? acquisitionNanos.sum() / acquisitionCount : 0),
+            Duration.ofNanos(maxAcquisitionNanos.get()));
+    }
+
+    private void recordAcquisition(final long startNanos) {
+        final var nanos = System.nanoTime() - startNanos;
+        acquisitionCount.increment();
+        acquisitionNanos.add(nanos);
+        maxAcquisitionNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private class Pool {
+        private final InetSocketAddress remoteSocketAddress;
+        private final ArrayDeque<Entry> idleEntries = new ArrayDeque<>();
+        private final ArrayDeque<Promise<Entry>> waiters = new ArrayDeque<>();
+
+        private int connectionCount = 0;
+
+        private Pool(final InetSocketAddress remoteSocketAddress) {
+            this.remoteSocketAddress = remoteSocketAddress;
+        }
+
+        Promise<Entry> acquire() {
+            final var startNanos = System.nanoTime();
+            final var promise = eventLoopGroup.next().<Entry>newPromise();
+            promise.addListener(future -> {
+                if (future.isSuccess()) {
+                    recordAcquisition(startNanos);
+                }
+            });
+
+            final var expiredEntries = new ArrayList<Entry>(0);
+            Entry entry;
+            var isToConnect = false;
+            synchronized (this) {
+                while ((entry = idleEntries.pollLast()) != null) {
+                    if (entry.isReusableAt(startNanos)) {
+                        break;
+                    }
+                    connectionCount -= 1;
+                    expiredEntries.add(entry);
+                }
+                if (entry == null) {
+                    if (connectionCount < maxConnectionsPerAddress) {
+                        connectionCount += 1;
+                        isToConnect = true;
+                    }
+                    else {
+                        enqueue(promise);
+                    }
+                }
+            }
+            for (final var expiredEntry : expiredEntries) {
+                expiredEntry.connection.close();
+            }
+            if (entry != null) {
+                promise.trySuccess(entry);
+            }
+            else if (isToConnect) {
+                connect(promise);
+            }
+            return promise;
+        }
+
+        private void enqueue(final Promise<Entry> promise) {
+            waiters.add(promise);
+            pendingAcquisitionCount.incrementAndGet();
+            final var timeout = eventLoopGroup.schedule(() -> {
+                if (promise.tryFailure(new HttpClientConnectionException("Timed out " +
+                    "waiting for pooled connection to " + remoteSocketAddress)))
+                {
+                    timedOutAcquisitionCount.increment();
+                }
+            }, acquisitionTimeoutNanos, TimeUnit.NANOSECONDS);
+            promise.addListener(ignored -> {
+                timeout.cancel(false);
+                pendingAcquisitionCount.decrementAndGet();
+            });
+        }
+
+        private void connect(final Promise<Entry> promise) {
+            connector.apply(remoteSocketAddress).onResult(result -> {
+                if (result.isFailure()) {
+                    promise.tryFailure(result.fault());
+                    release(null, false);
+                    return;
+                }
+                final var entry = new Entry(result.value());
+                if (!promise.trySuccess(entry)) {
+                    release(entry, true);
+                }
+            });
+        }
+
+        /*
+         * Hands given entry to the next waiter, if any, or puts it back among
+         * the idle entries. If the entry is not reusable, it is closed and the
+         * next waiter, if any, is given a new connection instead.
+         */
+        void release(final Entry entry, final boolean isReusable) {
+            final var isLive = isReusable && entry.connection.isLive();
+            Promise<Entry> waiter;
+            synchronized (this) {
+                do {
+                    waiter = waiters.poll();
+                } while (waiter != null && waiter.isDone());
+
+                if (!isLive) {
+                    if (waiter == null) {
+                        connectionCount -= 1;
+                    }
+                }
+                else if (waiter == null) {
+                    entry.idleSinceNanos = System.nanoTime();
+                    entry.idleGeneration += 1;
+                    idleEntries.addLast(entry);
+                    scheduleIdleTimeout(entry, entry.idleGeneration);
+                }
+            }
+            if (!isLive) {
+                if (entry != null) {
+                    entry.connection.close();
+                }
+                if (waiter != null) {
+                    connect(waiter);
+                }
+            }
+            else if (waiter != null && !waiter.trySuccess(entry)) {
+                release(entry, true);
+            }
+        }
+
+        private void scheduleIdleTimeout(final Entry entry, final long idleGeneration) {
+            eventLoopGroup.schedule(() -> {
+                synchronized (this) {
+                    if (entry.idleGeneration != idleGeneration || !idleEntries.remove(entry)) {
+                        return;
+                    }
+                    connectionCount -= 1;
+                }
+                entry.connection.close();
+            }, idleTimeoutNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private class Entry {
+        private final HttpClientConnection connection;
+        private final long createdAtNanos = System.nanoTime();
+
+        private long idleSinceNanos;
+        private long idleGeneration = 0;
+
+        private Entry(final HttpClientConnection connection) {
+            this.connection = connection;
+        }
+
+        boolean isReusableAt(final long nanos) {
+            return nanos - createdAtNanos < maxLifetimeNanos
+                && nanos - idleSinceNanos < idleTimeoutNanos
+                && connection.isLive();
+        }
+    }
+
+    /**
+     * Builder useful for creating {@link HttpClientConnectionPool} instances.
+     */
+    public static class Builder {
+        private Function<InetSocketAddress, Future<HttpClientConnection>> connector;
+        private EventLoopGroup eventLoopGroup;
+        private int maxConnectionsPerAddress;
+        private Duration idleTimeout;
+        private Duration maxLifetime;
+        private Duration acquisitionTimeout;
+
+        public Builder connector(final Function<InetSocketAddress, Future<HttpClientConnection>> connector) {
+            this.connector = connector;
+            return this;
+        }
+
+        public Builder eventLoopGroup(final EventLoopGroup eventLoopGroup) {
+            this.eventLoopGroup = eventLoopGroup;
+            return this;
+        }
+
+        public Builder maxConnectionsPerAddress(final int maxConnectionsPerAddress) {
+            this.maxConnectionsPerAddress = maxConnectionsPerAddress;
+            return this;
+        }
+
+        public Builder idleTimeout(final Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+            return this;
+        }
+
+        public Builder maxLifetime(final Duration maxLifetime) {
+            this.maxLifetime = maxLifetime;
+            return this;
+        }
+
+        public Builder acquisitionTimeout(final Duration acquisitionTimeout) {
+            this.acquisitionTimeout = acquisitionTimeout;
+            return this;
+        }
+
+        public HttpClientConnectionPool build() {
+            return new HttpClientConnectionPool(this);
+        }
+    }
+}
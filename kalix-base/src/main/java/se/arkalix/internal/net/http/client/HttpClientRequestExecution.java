@@ -0,0 +1,277 @@
+package se.arkalix.internal.net.http.client;
+
+import se.arkalix.internal.util.concurrent.NettyFutures;
+import se.arkalix.net.http.client.HttpClientRequest;
+import se.arkalix.net.http.client.HttpClientRequestPolicy;
+import se.arkalix.net.http.client.HttpClientResponse;
+import se.arkalix.net.http.client.HttpClientTimeoutException;
+import se.arkalix.util.Result;
+import se.arkalix.util.annotation.Internal;
+import se.arkalix.util.concurrent.Future;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Sends one HTTP request, as many times as permitted by some
+ * {@link HttpClientRequestPolicy}, until a response is received, the
+ * deadline of the request is passed or the request is cancelled.
+ * <p>
+ * Attempts may complete on different threads, which is why all state of an
+ * execution is guarded by its monitor. Attempts are never started while that
+ * monitor is held, as attempts may complete before they are returned.
+ */
+@Internal
+public class HttpClientRequestExecution {
+    private final HttpClientRequestPolicy policy;
+    private final HttpClientRequest request;
+    private final InetSocketAddress remoteSocketAddress;
+    private final Supplier<Future<HttpClientResponse>> sender;
+    private final EventExecutorGroup timerExecutor;
+    private final Promise<HttpClientResponse> promise = ImmediateEventExecutor.INSTANCE.newPromise();
+    private final List<Attempt> attempts = new ArrayList<>(2);
+
+    private boolean isDone = false;
+    private int retries = 0;
+    private long deadlineNanos = Long.MAX_VALUE;
+    private ScheduledFuture<?> deadlineTimer = null;
+    private ScheduledFuture<?> hedgeTimer = null;
+    private ScheduledFuture<?> retryTimer = null;
+
+    private HttpClientRequestExecution(
+        final HttpClientRequestPolicy policy,
+        final HttpClientRequest request,
+        final InetSocketAddress remoteSocketAddress,
+        final Supplier<Future<HttpClientResponse>> sender,
+        final EventExecutorGroup timerExecutor)
+    {
+        this.policy = policy;
+        this.request = request;
+        this.remoteSocketAddress = remoteSocketAddress;
+        this.sender = sender;
+        this.timerExecutor = timerExecutor;
+    }
+
+    /**
+     * Uses {@code sender} to send {@code request} at least once, and then
+     * more times if permitted by {@code policy}.
+     *
+     * @param policy              Policy determining deadline, retries and
+     *                            hedging.
+     * @param request             Request to send.
+     * @param remoteSocketAddress Address of receiver of request, only used
+     *                            to describe failures.
+     * @param sender              Function sending {@code request} once.
+     * @param timerExecutor       Executor used to schedule deadlines,
+     *                            retries and hedged attempts.
+     * @return Future completed with the first acceptable response received
+     * or the last failure encountered.
+     */
+    public static Future<HttpClientResponse> execute(
+        final HttpClientRequestPolicy policy,
+        final HttpClientRequest request,
+        final InetSocketAddress remoteSocketAddress,
+        final Supplier<Future<HttpClientResponse>> sender,
+        final EventExecutorGroup timerExecutor)
+    {
+        Objects.requireNonNull(policy, "Expected policy");
+        Objects.requireNonNull(request, "Expected request");
+        Objects.requireNonNull(sender, "Expected sender");
+        Objects.requireNonNull(timerExecutor, "Expected timerExecutor");
+
+        if (policy.timeout() == null && !policy.isRetryable(request, 0) && !policy.isHedgeable(request)) {
+            return sender.get();
+        }
+        return new HttpClientRequestExecution(policy, request, remoteSocketAddress, sender, timerExecutor)
+            .start();
+    }
+
+    private Future<HttpClientResponse> start() {
+        final var timeout = policy.timeout();
+        if (timeout != null) {
+            synchronized (this) {
+                deadlineNanos = System.nanoTime() + timeout.toNanos();
+                deadlineTimer = timerExecutor.schedule(this::onDeadline, timeout.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+        sendAttempt(false);
+
+        final var future = NettyFutures.adapt(promise);
+        return new Future<>() {
+            @Override
+            public void onResult(final Consumer<Result<HttpClientResponse>> consumer) {
+                future.onResult(consumer);
+            }
+
+            @Override
+            public void cancel(final boolean mayInterruptIfRunning) {
+                finish(Result.failure(new CancellationException()));
+                future.cancel(mayInterruptIfRunning);
+            }
+        };
+    }
+
+    private void sendAttempt(final boolean isHedge) {
+        final var attempt = new Attempt();
+        synchronized (this) {
+            if (isDone) {
+                return;
+            }
+            attempts.add(attempt);
+            if (!isHedge && policy.isHedgeable(request)) {
+                final var delayNanos = policy.hedgeDelayNanos();
+                if (delayNanos >= 0 && System.nanoTime() + delayNanos < deadlineNanos) {
+                    hedgeTimer = timerExecutor.schedule(this::onHedgeDelay, delayNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+
+        Future<HttpClientResponse> future;
+        try {
+            future = sender.get();
+        }
+        catch (final Throwable throwable) {
+            future = Future.failure(throwable);
+        }
+        future.onResult(result -> onAttemptResult(attempt, result));
+
+        final boolean isCancelling;
+        synchronized (this) {
+            attempt.future = future;
+            isCancelling = isDone && !attempt.isFinished;
+        }
+        if (isCancelling) {
+            future.cancel(false);
+        }
+    }
+
+    private void onHedgeDelay() {
+        synchronized (this) {
+            hedgeTimer = null;
+            if (isDone || attempts.size() != 1) {
+                return;
+            }
+        }
+        sendAttempt(true);
+    }
+
+    private void onAttemptResult(final Attempt attempt, final Result<HttpClientResponse> result) {
+        final var nowNanos = System.nanoTime();
+        final var response = result.isSuccess() ? result.value() : null;
+        if (response != null) {
+            policy.recordLatency(nowNanos - attempt.startNanos);
+        }
+
+        final var isRetryCandidate = response != null
+            ? policy.isRetryStatus(response)
+            : !(result.fault() instanceof CancellationException);
+
+        synchronized (this) {
+            attempt.isFinished = true;
+            attempts.remove(attempt);
+            if (isDone) {
+                discard(response);
+                return;
+            }
+            if (isRetryCandidate) {
+                if (!attempts.isEmpty()) {
+                    // Another attempt is in flight; its result decides.
+                    discard(response);
+                    return;
+                }
+                if (policy.isRetryable(request, retries)) {
+                    final var backoffNanos = policy.nextBackoffNanos(retries);
+                    if (nowNanos + backoffNanos < deadlineNanos) {
+                        retries += 1;
+                        if (hedgeTimer != null) {
+                            hedgeTimer.cancel(false);
+                            hedgeTimer = null;
+                        }
+                        discard(response);
+                        retryTimer = timerExecutor.schedule(() -> {
+                            synchronized (this) {
+                                retryTimer = null;
+                            }
+                            sendAttempt(false);
+                        }, backoffNanos, TimeUnit.NANOSECONDS);
+                        return;
+                    }
+                }
+            }
+        }
+        finish(result);
+    }
+
+    private void onDeadline() {
+        finish(Result.failure(new HttpClientTimeoutException("No response " +
+            "received from " + remoteSocketAddress + " within " + policy.timeout())));
+    }
+
+    private void finish(final Result<HttpClientResponse> result) {
+        final List<Future<HttpClientResponse>> futuresToCancel = new ArrayList<>(2);
+        synchronized (this) {
+            if (isDone) {
+                if (result.isSuccess()) {
+                    discard(result.value());
+                }
+                return;
+            }
+            isDone = true;
+            for (final var attempt : attempts) {
+                if (attempt.future != null) {
+                    futuresToCancel.add(attempt.future);
+                }
+            }
+            attempts.clear();
+            for (final var timer : new ScheduledFuture<?>[]{deadlineTimer, hedgeTimer, retryTimer}) {
+                if (timer != null) {
+                    timer.cancel(false);
+                }
+            }
+            deadlineTimer = hedgeTimer = retryTimer = null;
+        }
+        for (final var future : futuresToCancel) {
+            future.cancel(false);
+        }
+        if (result.isSuccess()) {
+            promise.trySuccess(result.value());
+        }
+        else {
+            promise.tryFailure(result.fault());
+        }
+    }
+
+    /*
+     * Responses that are not handed to the caller have their bodies consumed,
+     * as unconsumed bodies could otherwise keep their connections from being
+     * read from or reused.
+     */
+    private static void discard(final HttpClientResponse response) {
+        if (response == null) {
+            return;
+        }
+        try {
+            response.bodyAsByteArray().onResult(ignored -> {});
+        }
+        catch (final Throwable ignored) {
+            // The body may already be consumed or the connection closed.
+        }
+    }
+
+    private static class Attempt {
+        private final long startNanos = System.nanoTime();
+
+        private Future<HttpClientResponse> future = null;
+        private boolean isFinished = false;
+    }
+}
@@ -4,6 +4,7 @@ import se.arkalix.dto.DtoWritable;
 import se.arkalix.dto.DtoWriter;
 import se.arkalix.dto.DtoWriteException;
 import se.arkalix.internal.dto.binary.ByteBufWriter;
+import se.arkalix.internal.jfr.HttpClientSendEvent;
 import se.arkalix.internal.net.http.HttpMediaTypes;
 import se.arkalix.internal.util.concurrent.NettyFutures;
 import se.arkalix.net.http.HttpVersion;
@@ -18,6 +19,8 @@ import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.DefaultFileRegion;
 import io.netty.handler.codec.http.*;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.stream.ChunkedNioFile;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
@@ -78,13 +81,17 @@ public class NettyHttpClientConnection implements HttpClientConnection {
     }
 
     private Future<HttpClientResponse> send(final HttpClientRequest request, final boolean keepAlive) {
+        final var pendingResponse = new FutureResponse();
+        if (new HttpClientSendEvent().isEnabled()) {
+            pendingResponse.beginEvent(request, channel);
+        }
         try {
             writeRequestToChannel(request, keepAlive);
         }
         catch (final Throwable throwable) {
+            pendingResponse.commitEvent(Result.failure(throwable));
             return Future.failure(throwable);
         }
-        final var pendingResponse = new FutureResponse();
         pendingResponseQueue.add(pendingResponse);
         return pendingResponse;
     }
@@ -152,6 +159,13 @@ public class NettyHttpClientConnection implements HttpClientConnection {
             headers.set(CONTENT_LENGTH, length);
 
             channel.write(new DefaultHttpRequest(version, method, uri, headers));
+
+            // File regions cannot be sent via HTTP/2 streams, as their
+            // contents must be wrapped in DATA frames.
+            if (channel instanceof Http2StreamChannel) {
+                channel.writeAndFlush(new HttpChunkedInput(new ChunkedNioFile(file.getChannel())));
+                return;
+            }
             channel.write(new DefaultFileRegion(file.getChannel(), 0, length));
             channel.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
             return;
@@ -174,6 +188,10 @@ public class NettyHttpClientConnection implements HttpClientConnection {
         return NettyFutures.adapt(channel.close());
     }
 
+    public boolean isAwaitingResponse() {
+        return !pendingResponseQueue.isEmpty();
+    }
+
     public boolean onResponseResult(final Result<HttpClientResponse> result) {
         final var pendingResponse = pendingResponseQueue.poll();
         if (pendingResponse == null) {
@@ -188,6 +206,29 @@ public class NettyHttpClientConnection implements HttpClientConnection {
         private Consumer<Result<HttpClientResponse>> consumer = null;
         private boolean isDone = false;
         private Result<HttpClientResponse> pendingResult = null;
+        private HttpClientSendEvent event = null;
+
+        void beginEvent(final HttpClientRequest request, final Channel channel) {
+            event = new HttpClientSendEvent();
+            event.begin();
+            event.remoteAddress = String.valueOf(channel.remoteAddress());
+            event.method = request.method().map(Object::toString).orElse(null);
+            event.uri = request.uri().orElse(null);
+        }
+
+        void commitEvent(final Result<HttpClientResponse> result) {
+            if (event == null) {
+                return;
+            }
+            if (result.isSuccess()) {
+                event.status = result.value().status().code();
+            }
+            else {
+                event.failure = String.valueOf(result.fault());
+            }
+            event.commit();
+            event = null;
+        }
 
         @Override
         public void onResult(final Consumer<Result<HttpClientResponse>> consumer) {
@@ -219,6 +260,7 @@ public class NettyHttpClientConnection implements HttpClientConnection {
             if (isDone) {
                 return false;
             }
+            commitEvent(result);
             if (consumer != null) {
                 consumer.accept(result);
                 isDone = true;
@@ -1,5 +1,6 @@
 package se.arkalix.internal.net.http.client;
 
+import se.arkalix.internal.net.NettyAutoReadController;
 import se.arkalix.internal.net.http.NettyHttpBodyReceiver;
 import se.arkalix.net.http.client.HttpClientConnectionException;
 import se.arkalix.net.http.client.HttpClientResponseException;
@@ -18,6 +19,7 @@ import java.util.Objects;
 public class NettyHttpClientConnectionHandler extends SimpleChannelInboundHandler<HttpObject> {
     private final SslHandler sslHandler;
 
+    private NettyAutoReadController autoReadController;
     private FutureHttpClientConnection futureConnection;
     private NettyHttpClientConnection connection;
     private NettyHttpBodyReceiver body = null;
@@ -30,6 +32,11 @@ public class NettyHttpClientConnectionHandler extends SimpleChannelInboundHandle
         this.sslHandler = sslHandler;
     }
 
+    @Override
+    public void handlerAdded(final ChannelHandlerContext ctx) {
+        autoReadController = new NettyAutoReadController(ctx.channel());
+    }
+
     @Override
     public void channelActive(final ChannelHandlerContext ctx) throws Exception {
         if (futureConnection != null) {
@@ -68,15 +75,12 @@ public class NettyHttpClientConnectionHandler extends SimpleChannelInboundHandle
     @Override
     public void channelReadComplete(final ChannelHandlerContext ctx) {
         ctx.flush();
-        if (body != null) {
-            body.finish();
-        }
     }
 
     private void handleResponseHead(final ChannelHandlerContext ctx, final HttpResponse response) {
         // TODO: Enable and check size restrictions.
 
-        final var serviceResponseBody = new NettyHttpBodyReceiver(ctx.alloc(), response.headers());
+        final var serviceResponseBody = new NettyHttpBodyReceiver(ctx.alloc(), autoReadController, response.headers());
         final var serviceResponse = new NettyHttpClientResponse(serviceResponseBody, response);
 
         this.body = serviceResponseBody;
@@ -91,6 +95,7 @@ public class NettyHttpClientConnectionHandler extends SimpleChannelInboundHandle
         body.append(content);
         if (content instanceof LastHttpContent) {
             body.finish((LastHttpContent) content);
+            body = null;
         }
     }
 
@@ -106,7 +111,7 @@ public class NettyHttpClientConnectionHandler extends SimpleChannelInboundHandle
             body.abort(cause);
             return;
         }
-        if (connection.onResponseResult(Result.failure(cause))) {
+        if (connection.isAwaitingResponse() && connection.onResponseResult(Result.failure(cause))) {
             return;
         }
         ctx.fireExceptionCaught(cause);
@@ -125,7 +130,7 @@ public class NettyHttpClientConnectionHandler extends SimpleChannelInboundHandle
                     if (body != null) {
                         body.abort(exception);
                     }
-                    else {
+                    else if (connection.isAwaitingResponse()) {
                         connection.onResponseResult(Result.failure(exception));
                     }
                 }
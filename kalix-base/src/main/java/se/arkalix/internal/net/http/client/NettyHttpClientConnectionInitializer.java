@@ -1,5 +1,8 @@
 package se.arkalix.internal.net.http.client;
 
+import se.arkalix.internal.jfr.TlsHandshakeEvent;
+import se.arkalix.internal.net.NettySslContexts;
+import se.arkalix.security.TlsHandshakePool;
 import se.arkalix.util.annotation.Internal;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.socket.SocketChannel;
@@ -8,6 +11,8 @@ import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.timeout.IdleStateHandler;
 
+import java.net.InetSocketAddress;
+import java.time.Duration;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
@@ -15,13 +20,25 @@ import java.util.concurrent.TimeUnit;
 public class NettyHttpClientConnectionInitializer extends ChannelInitializer<SocketChannel> {
     private final FutureHttpClientConnection futureConnection;
     private final SslContext sslContext;
+    private final InetSocketAddress remoteSocketAddress;
+    private final TlsHandshakePool handshakePool;
+    private final Duration readIdleTimeout;
+    private final Duration writeIdleTimeout;
 
     public NettyHttpClientConnectionInitializer(
         final FutureHttpClientConnection futureConnection,
-        final SslContext sslContext)
+        final SslContext sslContext,
+        final InetSocketAddress remoteSocketAddress,
+        final TlsHandshakePool handshakePool,
+        final Duration readIdleTimeout,
+        final Duration writeIdleTimeout)
     {
         this.futureConnection = Objects.requireNonNull(futureConnection, "Expected futureConnection");
         this.sslContext = sslContext;
+        this.remoteSocketAddress = Objects.requireNonNull(remoteSocketAddress, "Expected remoteSocketAddress");
+        this.handshakePool = handshakePool;
+        this.readIdleTimeout = Objects.requireNonNull(readIdleTimeout, "Expected readIdleTimeout");
+        this.writeIdleTimeout = Objects.requireNonNull(writeIdleTimeout, "Expected writeIdleTimeout");
     }
 
     @Override
@@ -33,12 +50,16 @@ public class NettyHttpClientConnectionInitializer extends ChannelInitializer<Soc
         final var pipeline = ch.pipeline();
         SslHandler sslHandler = null;
         if (sslContext != null) {
-            sslHandler = sslContext.newHandler(ch.alloc());
+            // Providing the remote host and port allows for the TLS session
+            // of a previous connection to the same address to be resumed.
+            sslHandler = NettySslContexts.newHandler(sslContext, ch.alloc(), remoteSocketAddress, handshakePool);
             pipeline.addLast(sslHandler);
+            TlsHandshakeEvent.monitor(sslHandler, ch, true);
         }
         pipeline
             //.addLast(new LoggingHandler(LogLevel.INFO))
-            .addLast(new IdleStateHandler(30, 120, 0, TimeUnit.SECONDS)) // TODO: Make configurable.
+            .addLast(new IdleStateHandler(readIdleTimeout.toNanos(), writeIdleTimeout.toNanos(), 0,
+                TimeUnit.NANOSECONDS))
             .addLast(new HttpClientCodec()) // TODO: Make message size restrictions configurable.
             .addLast(new NettyHttpClientConnectionHandler(futureConnection, sslHandler));
     }
@@ -0,0 +1,324 @@
+package se.arkalix.internal.net.http.client;
+
+import se.arkalix.internal.net.NettySslContexts;
+import se.arkalix.net.http.client.HttpClientConnection;
+import se.arkalix.net.http.client.HttpClientConnectionException;
+import se.arkalix.security.TlsHandshakePool;
+import se.arkalix.util.annotation.Internal;
+import se.arkalix.util.concurrent.Future;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.concurrent.Promise;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static se.arkalix.internal.util.concurrent.NettyFutures.adapt;
+
+/**
+ * Maintains at most one HTTP/2 connection per remote socket address, through
+ * which any number of concurrent requests can be sent as separate streams.
+ * <p>
+ * If an SSL/TLS context is provided, HTTP/2 is negotiated using the TLS
+ * Application-Layer Protocol Negotiation (ALPN) extension. Remote hosts that
+ * only support HTTP/1.1 are remembered as such for a configurable duration,
+ * during which no more HTTP/2 connections are attempted to those hosts. If
+ * no SSL/TLS context is
+ * provided, remote hosts are assumed to support HTTP/2 with prior knowledge,
+ * as described in RFC 7540, Section 3.4.
+ */
+@Internal
+public class NettyHttpClientMultiplexer {
+    private final ConcurrentHashMap<InetSocketAddress, Promise<Channel>> channels = new ConcurrentHashMap<>();
+
+    private final Bootstrap bootstrap;
+    private final InetSocketAddress localSocketAddress;
+    private final SslContext sslContext;
+    private final TlsHandshakePool handshakePool;
+    private final long readIdleTimeoutNanos;
+    private final long writeIdleTimeoutNanos;
+    private final long http2RetryIntervalNanos;
+
+    private NettyHttpClientMultiplexer(final Builder builder) {
+        bootstrap = Objects.requireNonNull(builder.bootstrap, "Expected bootstrap");
+        localSocketAddress = builder.localSocketAddress;
+        sslContext = builder.sslContext;
+        handshakePool = builder.handshakePool;
+        readIdleTimeoutNanos = Objects.requireNonNull(builder.readIdleTimeout, "Expected readIdleTimeout")
+            .toNanos();
+        writeIdleTimeoutNanos = Objects.requireNonNull(builder.writeIdleTimeout, "Expected writeIdleTimeout")
+            .toNanos();
+        http2RetryIntervalNanos = Objects.requireNonNull(builder.http2RetryInterval, "Expected http2RetryInterval")
+            .toNanos();
+    }
+
+    /**
+     * Opens new HTTP/2 stream to remote host at given socket address,
+     * connecting to it first if no live HTTP/2 connection exists.
+     * <p>
+     * Each returned connection can be used to send exactly one request, after
+     * which it is closed automatically when the response has been received.
+     *
+     * @param remoteSocketAddress Remote socket address.
+     * @return Future completed with stream connection, or with an empty
+     * optional if the remote host does not support HTTP/2.
+     */
+    public Future<Optional<HttpClientConnection>> openStream(final InetSocketAddress remoteSocketAddress) {
+        Objects.requireNonNull(remoteSocketAddress, "Expected remoteSocketAddress");
+
+        Promise<Channel> promise;
+        while (true) {
+            promise = channels.get(remoteSocketAddress);
+            if (promise != null && isUsable(promise)) {
+                break;
+            }
+            final var promise1 = bootstrap.config().group().next().<Channel>newPromise();
+            final var isReplaced = promise == null
+                ? channels.putIfAbsent(remoteSocketAddress, promise1) == null
+                : channels.replace(remoteSocketAddress, promise, promise1);
+            if (isReplaced) {
+                connect(remoteSocketAddress, promise1);
+                promise = promise1;
+                break;
+            }
+        }
+        return adapt(promise).flatMap(channel -> channel == null
+            ? Future.success(Optional.empty())
+            : openStreamOn(channel).map(Optional::of));
+    }
+
+    private static boolean isUsable(final Promise<Channel> promise) {
+        if (!promise.isDone()) {
+            return true;
+        }
+        if (!promise.isSuccess()) {
+            return false;
+        }
+        final var channel = promise.getNow();
+        return channel == null || channel.isActive();
+    }
+
+    private void connect(final InetSocketAddress remoteSocketAddress, final Promise<Channel> promise) {
+        bootstrap.clone()
+            .handler(new ConnectionInitializer(remoteSocketAddress, promise))
+            .connect(remoteSocketAddress, localSocketAddress)
+            .addListener((ChannelFutureListener) future -> {
+                if (!future.isSuccess()) {
+                    promise.tryFailure(future.cause());
+                    return;
+                }
+                final var channel = future.channel();
+                if (sslContext == null) {
+                    promise.trySuccess(channel);
+                }
+                channel.closeFuture().addListener(ignored -> {
+                    promise.tryFailure(new HttpClientConnectionException("Connection closed"));
+
+                    // Remote hosts known not to support HTTP/2 are remembered.
+                    if (!promise.isSuccess() || promise.getNow() != null) {
+                        channels.remove(remoteSocketAddress, promise);
+                    }
+                });
+            });
+    }
+
+    private Future<HttpClientConnection> openStreamOn(final Channel channel) {
+        final var futureConnection = new FutureHttpClientConnection();
+        final var sslHandler = channel.pipeline().get(SslHandler.class);
+        return adapt(new Http2StreamChannelBootstrap(channel)
+            .handler(new ChannelInitializer<Http2StreamChannel>() {
+                @Override
+                protected void initChannel(final Http2StreamChannel ch) {
+                    ch.pipeline()
+                        .addLast(new Http2StreamFrameToHttpObjectCodec(false))
+                        .addLast(new ChunkedWriteHandler())
+                        .addLast(new NettyHttpClientConnectionHandler(futureConnection, sslHandler));
+                }
+            })
+            .open())
+            .flatMap(ignored -> futureConnection);
+    }
+
+    private class ConnectionInitializer extends ChannelInitializer<SocketChannel> {
+        private final InetSocketAddress remoteSocketAddress;
+        private final Promise<Channel> promise;
+
+        private ConnectionInitializer(final InetSocketAddress remoteSocketAddress, final Promise<Channel> promise) {
+            this.remoteSocketAddress = remoteSocketAddress;
+            this.promise = promise;
+        }
+
+        @Override
+        protected void initChannel(final SocketChannel ch) {
+            final var pipeline = ch.pipeline();
+            if (sslContext == null) {
+                pipeline.addLast(createIdleStateHandler());
+                configureHttp2(pipeline);
+                return;
+            }
+            pipeline
+                .addLast(NettySslContexts.newHandler(sslContext, ch.alloc(), remoteSocketAddress, handshakePool))
+                .addLast(createIdleStateHandler())
+                .addLast(new ApplicationProtocolNegotiationHandler(ApplicationProtocolNames.HTTP_1_1) {
+                    @Override
+                    protected void configurePipeline(final ChannelHandlerContext ctx, final String protocol) {
+                        if (ApplicationProtocolNames.HTTP_2.equals(protocol)) {
+                            configureHttp2(ctx.pipeline());
+                            promise.trySuccess(ctx.channel());
+                        }
+                        else {
+                            promise.trySuccess(null);
+                            ctx.close();
+
+                            // The remote host may be upgraded to support
+                            // HTTP/2 at a later time.
+                            ctx.channel().eventLoop().schedule(
+                                () -> channels.remove(remoteSocketAddress, promise),
+                                http2RetryIntervalNanos, TimeUnit.NANOSECONDS);
+                        }
+                    }
+
+                    @Override
+                    protected void handshakeFailure(final ChannelHandlerContext ctx, final Throwable cause) {
+                        promise.tryFailure(cause);
+                        ctx.close();
+                    }
+                });
+        }
+
+        private IdleStateHandler createIdleStateHandler() {
+            return new IdleStateHandler(readIdleTimeoutNanos, writeIdleTimeoutNanos, 0, TimeUnit.NANOSECONDS);
+        }
+
+        private void configureHttp2(final ChannelPipeline pipeline) {
+            final var frameCodec = Http2FrameCodecBuilder.forClient()
+                .initialSettings(Http2Settings.defaultSettings().pushEnabled(false))
+                .build();
+            pipeline
+                .addLast(frameCodec)
+                .addLast(new Http2MultiplexHandler(new ChannelInboundHandlerAdapter()))
+                .addLast(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void userEventTriggered(final ChannelHandlerContext ctx, final Object evt) {
+                        if (!(evt instanceof IdleStateEvent)) {
+                            ctx.fireUserEventTriggered(evt);
+                            return;
+                        }
+                        // Streams awaiting responses keep the connection open.
+                        if (frameCodec.connection().numActiveStreams() == 0) {
+                            ctx.close();
+                        }
+                    }
+                });
+        }
+    }
+
+    public static class Builder {
+        private Bootstrap bootstrap;
+        private InetSocketAddress localSocketAddress;
+        private SslContext sslContext;
+        private TlsHandshakePool handshakePool;
+        private Duration readIdleTimeout;
+        private Duration writeIdleTimeout;
+        private Duration http2RetryInterval;
+
+        /**
+         * @param bootstrap Netty bootstrap to clone when establishing new
+         *                  connections.
+         * @return This builder.
+         */
+        public Builder bootstrap(final Bootstrap bootstrap) {
+            this.bootstrap = bootstrap;
+            return this;
+        }
+
+        /**
+         * @param localSocketAddress Socket address of local network interface
+         *                           to use when connecting, or {@code null}.
+         * @return This builder.
+         */
+        public Builder localSocketAddress(final InetSocketAddress localSocketAddress) {
+            this.localSocketAddress = localSocketAddress;
+            return this;
+        }
+
+        /**
+         * @param sslContext SSL/TLS context with ALPN support, or
+         *                   {@code null} if connections are not to be secured.
+         * @return This builder.
+         */
+        public Builder sslContext(final SslContext sslContext) {
+            this.sslContext = sslContext;
+            return this;
+        }
+
+        /**
+         * @param handshakePool Pool to execute TLS handshake tasks with, or
+         *                      {@code null}.
+         * @return This builder.
+         */
+        public Builder handshakePool(final TlsHandshakePool handshakePool) {
+            this.handshakePool = handshakePool;
+            return this;
+        }
+
+        /**
+         * @param readIdleTimeout Duration without any data being received
+         *                        after which connections without active
+         *                        streams are closed.
+         * @return This builder.
+         */
+        public Builder readIdleTimeout(final Duration readIdleTimeout) {
+            this.readIdleTimeout = readIdleTimeout;
+            return this;
+        }
+
+        /**
+         * @param writeIdleTimeout Duration without any data being sent after
+         *                         which connections without active streams
+         *                         are closed.
+         * @return This builder.
+         */
+        public Builder writeIdleTimeout(final Duration writeIdleTimeout) {
+            this.writeIdleTimeout = writeIdleTimeout;
+            return this;
+        }
+
+        /**
+         * @param http2RetryInterval Duration for which remote hosts found not
+         *                           to support HTTP/2 are remembered as such.
+         * @return This builder.
+         */
+        public Builder http2RetryInterval(final Duration http2RetryInterval) {
+            this.http2RetryInterval = http2RetryInterval;
+            return this;
+        }
+
+        public NettyHttpClientMultiplexer build() {
+            return new NettyHttpClientMultiplexer(this);
+        }
+    }
+}
@@ -12,8 +12,10 @@ import se.arkalix.util.concurrent.FutureProgress;
 import io.netty.handler.codec.http.HttpResponse;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.Objects;
+import java.util.concurrent.Flow;
 
 import static se.arkalix.internal.net.http.NettyHttpAdapters.adapt;
 
@@ -46,6 +48,11 @@ public class NettyHttpClientResponse implements HttpClientResponse {
         return body.bodyAsStream();
     }
 
+    @Override
+    public Flow.Publisher<ByteBuffer> bodyAsPublisher() {
+        return body.bodyAsPublisher();
+    }
+
     @Override
     public FutureProgress<String> bodyAsString() {
         return body.bodyAsString();
@@ -0,0 +1,296 @@
+package se.arkalix.internal.net.http.service;
+
+import se.arkalix.net.http.HttpStatus;
+import se.arkalix.net.http.service.HttpAdaptiveConcurrencyLimit;
+import se.arkalix.net.http.service.HttpServiceRequestException;
+import se.arkalix.util.annotation.Internal;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Promise;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the number of requests being handled at the same time.
+ * <p>
+ * A request is admitted immediately if fewer than a configured number of
+ * requests are in flight. Otherwise, it is placed in a bounded queue, in which
+ * it waits until another request completes or a configured time passes. If
+ * the queue is full, or if the request waits for too long, it is rejected.
+ * <p>
+ * A controller may have a parent, in which case a request is only admitted
+ * when admitted by both the controller and its parent. This makes it possible
+ * to enforce both per-service and per-system limits. Requests are admitted by
+ * the parent first, which means that requests waiting for the parent do not
+ * occupy any capacity of the controller itself. A request that is admitted by
+ * the parent but then rejected by the controller gives its admission back to
+ * the parent.
+ * <p>
+ * The maximum number of requests in flight is either fixed or determined by
+ * an {@link HttpAdaptiveConcurrencyLimit}, which is then updated with the
+ * latencies of all requests released via {@link #release(long)}.
+ */
+@Internal
+public class HttpAdmissionController {
+    private final HttpAdmissionController parent;
+    private final int maxInFlight;
+    private final HttpAdaptiveConcurrencyLimit adaptiveLimit;
+    private final int maxQueued;
+    private final long maxQueueTimeNanos;
+    private final Duration retryAfter;
+    private final ArrayDeque<Promise<Void>> waiters = new ArrayDeque<>();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private int inFlightCount = 0;
+
+    /**
+     * @param parent       Controller that must also admit requests, or
+     *                     {@code null}.
+     * @param maxInFlight  Maximum number of requests allowed to be handled
+     *                     at the same time.
+     * @param maxQueued    Maximum number of requests allowed to wait for
+     *                     admission at the same time.
+     * @param maxQueueTime Maximum time a request may wait for admission.
+     * @param retryAfter   Time after which rejected requesters are told that
+     *                     they may retry.
+     */
+    public HttpAdmissionController(
+        final HttpAdmissionController parent,
+        final int maxInFlight,
+        final int maxQueued,
+        final Duration maxQueueTime,
+        final Duration retryAfter)
+    {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Expected maxInFlight > 0");
+        }
+        if (maxQueued < 0) {
+            throw new IllegalArgumentException("Expected maxQueued >= 0");
+        }
+        this.parent = parent;
+        this.maxInFlight = maxInFlight;
+        this.adaptiveLimit = null;
+        this.maxQueued = maxQueued;
+        this.maxQueueTimeNanos = Objects.requireNonNull(maxQueueTime, "Expected maxQueueTime").toNanos();
+        this.retryAfter = Objects.requireNonNull(retryAfter, "Expected retryAfter");
+    }
+
+    /**
+     * @param parent        Controller that must also admit requests, or
+     *                      {@code null}.
+     * @param adaptiveLimit Limit determining the maximum number of requests
+     *                      allowed to be handled at the same time.
+     * @param maxQueued     Maximum number of requests allowed to wait for
+     *                      admission at the same time.
+     * @param maxQueueTime  Maximum time a request may wait for admission.
+     * @param retryAfter    Time after which rejected requesters are told that
+     *                      they may retry.
+     */
+    public HttpAdmissionController(
+        final HttpAdmissionController parent,
+        final HttpAdaptiveConcurrencyLimit adaptiveLimit,
+        final int maxQueued,
+        final Duration maxQueueTime,
+        final Duration retryAfter)
+    {
+        if (maxQueued < 0) {
+            throw new IllegalArgumentException("Expected maxQueued >= 0");
+        }
+        this.parent = parent;
+        this.maxInFlight = 0;
+        this.adaptiveLimit = Objects.requireNonNull(adaptiveLimit, "Expected adaptiveLimit");
+        this.maxQueued = maxQueued;
+        this.maxQueueTimeNanos = Objects.requireNonNull(maxQueueTime, "Expected maxQueueTime").toNanos();
+        this.retryAfter = Objects.requireNonNull(retryAfter, "Expected retryAfter");
+    }
+
+    /**
+     * Requests admission for one request.
+     * <p>
+     * If the returned promise succeeds, {@link #release()} or
+     * {@link #release(long)} must be called exactly once when the admitted request has been handled. If it fails,
+     * the request was rejected and must be responded to with status
+     * {@code 503 Service Unavailable}.
+     *
+     * @param executor Executor to notify listeners of the returned promise
+     *                 and to use for scheduling queue timeouts.
+     * @return Promise completed when the request is admitted or rejected.
+     */
+    public Promise<Void> admit(final EventExecutor executor) {
+        final var promise = executor.<Void>newPromise();
+        if (parent == null) {
+            enter(executor, promise);
+            return promise;
+        }
+        final var parentPromise = parent.admit(executor);
+        parentPromise.addListener(ignored0 -> {
+            if (!parentPromise.isSuccess()) {
+                promise.setFailure(parentPromise.cause());
+                return;
+            }
+            final var ownPromise = executor.<Void>newPromise();
+            enter(executor, ownPromise);
+            ownPromise.addListener(ignored1 -> {
+                if (ownPromise.isSuccess()) {
+                    promise.setSuccess(null);
+                }
+                else {
+                    parent.release();
+                    promise.setFailure(ownPromise.cause());
+                }
+            });
+        });
+        return promise;
+    }
+
+    private void enter(final EventExecutor executor, final Promise<Void> promise) {
+        final boolean isAdmitted;
+        synchronized (this) {
+            if (inFlightCount < limit()) {
+                inFlightCount += 1;
+                isAdmitted = true;
+            }
+            else if (waiters.size() < maxQueued) {
+                waiters.addLast(promise);
+                isAdmitted = false;
+            }
+            else {
+                onRejected();
+                promise.setFailure(newRejection());
+                return;
+            }
+        }
+        if (isAdmitted) {
+            promise.setSuccess(null);
+            return;
+        }
+        final var timeout = executor.schedule(() -> {
+            synchronized (this) {
+                if (!waiters.remove(promise)) {
+                    return;
+                }
+            }
+            onRejected();
+            promise.tryFailure(newRejection());
+        }, maxQueueTimeNanos, TimeUnit.NANOSECONDS);
+        promise.addListener(ignored -> timeout.cancel(false));
+    }
+
+    /*
+     * A new exception is created for every rejection, as exceptions are
+     * mutable. The created exceptions have no stack traces, which makes them
+     * cheap to create.
+     */
+    private static HttpServiceRequestException newRejection() {
+        return new HttpServiceRequestException(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    private void onRejected() {
+        rejectedCount.increment();
+        if (adaptiveLimit != null) {
+            adaptiveLimit.onRejected();
+        }
+    }
+
+    /**
+     * Signals that a previously admitted request has been handled, allowing
+     * for another request to be admitted.
+     */
+    public void release() {
+        exit();
+        if (parent != null) {
+            parent.release();
+        }
+    }
+
+    /**
+     * Signals that a previously admitted request has been handled, allowing
+     * for another request to be admitted.
+     * <p>
+     * If this controller uses an adaptive limit, it is updated with the given
+     * latency before any other request is admitted.
+     *
+     * @param latencyNanos Time, in nanoseconds, it took to handle the
+     *                     request.
+     */
+    public void release(final long latencyNanos) {
+        if (adaptiveLimit != null) {
+            adaptiveLimit.onSample(latencyNanos, inFlightCount());
+        }
+        release();
+    }
+
+    private void exit() {
+        synchronized (this) {
+            inFlightCount -= 1;
+        }
+        // An adaptive limit may have grown by more than one, which is why more
+        // than one waiter may be admitted.
+        while (true) {
+            final Promise<Void> waiter;
+            synchronized (this) {
+                if (inFlightCount >= limit()) {
+                    return;
+                }
+                waiter = waiters.pollFirst();
+                if (waiter == null) {
+                    return;
+                }
+                inFlightCount += 1;
+            }
+            if (!waiter.trySuccess(null)) {
+                synchronized (this) {
+                    inFlightCount -= 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Maximum number of requests currently allowed to be handled at
+     * the same time.
+     */
+    public int limit() {
+        return adaptiveLimit != null ? adaptiveLimit.limit() : maxInFlight;
+    }
+
+    /**
+     * @return Adaptive limit determining the maximum number of requests
+     * allowed to be handled at the same time, if any.
+     */
+    public Optional<HttpAdaptiveConcurrencyLimit> adaptiveLimit() {
+        return Optional.ofNullable(adaptiveLimit);
+    }
+
+    /**
+     * @return Time after which rejected requesters may retry.
+     */
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * @return Number of requests currently being handled.
+     */
+    public synchronized int inFlightCount() {
+        return inFlightCount;
+    }
+
+    /**
+     * @return Number of requests currently waiting for admission.
+     */
+    public synchronized int queuedCount() {
+        return waiters.size();
+    }
+
+    /**
+     * @return Number of requests rejected since this controller was created.
+     */
+    public long rejectedCount() {
+        return rejectedCount.sum();
+    }
+}
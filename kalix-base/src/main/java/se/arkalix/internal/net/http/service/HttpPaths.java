@@ -1,7 +1,12 @@
 package se.arkalix.internal.net.http.service;
 
+import se.arkalix.net.http.service.HttpPattern;
 import se.arkalix.util.annotation.Internal;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Various helper functions for managing URL paths.
  */
@@ -37,6 +42,25 @@ public class HttpPaths {
         return true;
     }
 
+    /**
+     * Creates list suitable for collecting the path parameters of paths
+     * matched against given {@code pattern}.
+     * <p>
+     * Patterns without path parameters that are not prefixes never collect
+     * any parameters. For such patterns, as well as for {@code null}, a
+     * shared immutable empty list is returned rather than a new list being
+     * allocated.
+     *
+     * @param pattern Pattern to create list for, or {@code null}.
+     * @return New or shared empty list.
+     */
+    public static List<String> newParameterListFor(final HttpPattern pattern) {
+        if (pattern == null || pattern.nParameters() == 0 && !pattern.isPrefix()) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(pattern.isPrefix() ? pattern.nParameters() + 1 : pattern.nParameters());
+    }
+
     /**
      * Tests whether given character {@code c} is any valid RFC 3986 path
      * character.
@@ -54,4 +78,35 @@ public class HttpPaths {
         return c >= 'a' && c <= 'z' || c >= '$' && c <= ';' || c >= '@' && c <= 'Z' ||
             c == '_' || c == '~' || c == '=' || c == '!';
     }
+
+    /**
+     * Compares given {@code segment} to the region of {@code path} between
+     * {@code p0} and {@code p1}, in the same way as
+     * {@link String#compareTo(String)} would have compared {@code segment} to
+     * a string only containing that region.
+     * <p>
+     * This method is useful for looking up path segments in sorted arrays
+     * without having to create substrings of the looked up paths.
+     *
+     * @param segment Segment to compare.
+     * @param path    Path containing region to compare.
+     * @param p0      Start of path region, inclusive.
+     * @param p1      End of path region, exclusive.
+     * @return A negative integer, zero, or a positive integer depending on
+     * whether {@code segment} is less than, equal to, or greater than the
+     * path region, respectively.
+     */
+    public static int compareSegment(final String segment, final String path, final int p0, final int p1) {
+        final var s1 = segment.length();
+        final var px = p1 - p0;
+        final var limit = Math.min(s1, px);
+        for (var i = 0; i < limit; ++i) {
+            final var c0 = segment.charAt(i);
+            final var c1 = path.charAt(p0 + i);
+            if (c0 != c1) {
+                return c0 - c1;
+            }
+        }
+        return s1 - px;
+    }
 }
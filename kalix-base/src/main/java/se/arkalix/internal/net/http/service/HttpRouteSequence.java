@@ -3,8 +3,11 @@ package se.arkalix.internal.net.http.service;
 import se.arkalix.net.http.service.*;
 import se.arkalix.util.annotation.Internal;
 import se.arkalix.util.concurrent.Future;
+import se.arkalix.util.concurrent.FutureFailure;
+import se.arkalix.util.concurrent.FutureSuccess;
 
-import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * A sequence of {@link HttpValidator}s, a {@link HttpRoute} and
@@ -13,9 +16,14 @@ import java.util.ArrayList;
  */
 @Internal
 public class HttpRouteSequence {
+    private static final Future<Boolean> FALSE = Future.success(false);
+    private static final Future<Boolean> TRUE = Future.success(true);
+
     private final HttpValidator[] validators;
     private final HttpRoute route;
     private final HttpCatcher<?>[] catchers;
+    private final boolean isBlocking;
+    private final HttpRouteMetrics metrics;
 
     /**
      * Creates new route sequence from given components.
@@ -27,66 +35,132 @@ public class HttpRouteSequence {
      * @param validators Validators to include in route sequence.
      * @param route      Target route.
      * @param catchers   Catchers to include in route sequence.
+     * @param isBlocking Whether or not the sequence may block when invoked.
+     * @param metrics    Object to record the latencies of requests handled
+     *                   by the sequence in, or {@code null}.
      */
     public HttpRouteSequence(
         final HttpValidator[] validators,
         final HttpRoute route,
-        final HttpCatcher<?>[] catchers)
+        final HttpCatcher<?>[] catchers,
+        final boolean isBlocking,
+        final HttpRouteMetrics metrics)
     {
         this.validators = validators;
         this.route = route;
         this.catchers = catchers;
+        this.isBlocking = isBlocking;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return Route of this sequence.
+     */
+    public HttpRoute route() {
+        return route;
+    }
+
+    /**
+     * @return {@code true} only if this sequence may block when invoked, and
+     * must therefore be invoked by a {@link HttpWorkerPool}.
+     */
+    public boolean isBlocking() {
+        return isBlocking;
+    }
+
+    /**
+     * @return Object to record the latencies of requests handled by this
+     * sequence in, if any.
+     */
+    public Optional<HttpRouteMetrics> metrics() {
+        return Optional.ofNullable(metrics);
     }
 
     /**
      * Offers this route sequence the opportunity to handle given request.
+     * <p>
+     * Validators, route handler and catchers are invoked one after the other
+     * in a plain loop for as long as they return {@code Future}s that are
+     * already completed, such as those created via
+     * {@link Future#success(Object)} or {@link Future#failure(Throwable)}.
+     * Only when a pending {@code Future} is returned is the remainder of the
+     * sequence chained onto that {@code Future}.
      *
      * @param task Incoming HTTP request route task.
      * @return Future completed with {@code true} only if given request was
      * handled.
      */
+    @SuppressWarnings("unchecked")
     public Future<Boolean> tryHandle(final HttpRouteTask task) {
-        final var pathParameters = new ArrayList<String>(route.pattern().map(HttpPattern::nParameters).orElse(0));
+        final var pathParameters = HttpPaths.newParameterListFor(route.pattern().orElse(null));
         if (!route.match(task, pathParameters)) {
-            return Future.success(false);
+            return FALSE;
         }
-        return tryValidators(task, 0)
-            .flatMap(isHandled -> {
-                if (isHandled) {
-                    return Future.success(true);
-                }
-                return route
-                    .handle(task.request().cloneAndSet(pathParameters), task.response())
-                    .map(ignored -> true);
-            })
-            .flatMapCatch(Throwable.class, throwable -> tryCatchers(throwable, task, 0));
-    }
-
-    private Future<Boolean> tryValidators(final HttpRouteTask task, final int index) {
-        if (index >= validators.length) {
-            return Future.success(false);
+        final var future = tryValidatorsAndRoute(task, pathParameters, 0);
+        if (future instanceof FutureSuccess) {
+            return future;
         }
-        final var validator = validators[index];
-        return validator.tryHandle(task)
-            .flatMap(isHandled -> {
-                if (isHandled) {
-                    return Future.success(true);
-                }
-                return tryValidators(task, index + 1);
-            });
+        if (future instanceof FutureFailure) {
+            return tryCatchers(((FutureFailure<Boolean>) future).fault(), task, 0);
+        }
+        return future.flatMapCatch(Throwable.class, throwable -> tryCatchers(throwable, task, 0));
     }
 
-    private Future<Boolean> tryCatchers(final Throwable throwable, final HttpRouteTask task, final int index) {
-        if (index >= catchers.length) {
+    @SuppressWarnings("unchecked")
+    private Future<Boolean> tryValidatorsAndRoute(
+        final HttpRouteTask task,
+        final List<String> pathParameters,
+        final int offset)
+    {
+        for (var index = offset; index < validators.length; ++index) {
+            final var future = validators[index].tryHandle(task);
+            if (future instanceof FutureSuccess) {
+                if (((FutureSuccess<Boolean>) future).value()) {
+                    return TRUE;
+                }
+                continue;
+            }
+            if (future instanceof FutureFailure) {
+                return future;
+            }
+            final var next = index + 1;
+            return future.flatMap(isHandled -> isHandled
+                ? TRUE
+                : tryValidatorsAndRoute(task, pathParameters, next));
+        }
+        try {
+            final var future = route.handle(task.request().cloneAndSet(pathParameters), task.response());
+            if (future instanceof FutureSuccess) {
+                return TRUE;
+            }
+            if (future instanceof FutureFailure) {
+                return Future.failure(((FutureFailure<?>) future).fault());
+            }
+            return future.map(ignored -> true);
+        }
+        catch (final Throwable throwable) {
             return Future.failure(throwable);
         }
-        final var catcher = catchers[index];
-        return catcher.tryHandle(throwable, task)
-            .flatMap(isHandled -> {
-                if (isHandled) {
-                    return Future.success(true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Future<Boolean> tryCatchers(final Throwable throwable, final HttpRouteTask task, final int offset) {
+        for (var index = offset; index < catchers.length; ++index) {
+            final var future = catchers[index].tryHandle(throwable, task);
+            if (future instanceof FutureSuccess) {
+                if (((FutureSuccess<Boolean>) future).value()) {
+                    return TRUE;
                 }
-                return tryCatchers(throwable, task, index + 1);
-            });
+                continue;
+            }
+            if (future instanceof FutureFailure) {
+                return future;
+            }
+            final var next = index + 1;
+            return future.flatMap(isHandled -> isHandled
+                ? TRUE
+                : tryCatchers(throwable, task, next));
+        }
+        return Future.failure(throwable);
     }
 }
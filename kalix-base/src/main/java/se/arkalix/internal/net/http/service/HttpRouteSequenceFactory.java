@@ -1,8 +1,6 @@
 package se.arkalix.internal.net.http.service;
 
-import se.arkalix.net.http.service.HttpCatcher;
-import se.arkalix.net.http.service.HttpRoute;
-import se.arkalix.net.http.service.HttpValidator;
+import se.arkalix.net.http.service.*;
 import se.arkalix.util.annotation.Internal;
 
 import java.util.ArrayList;
@@ -16,6 +14,9 @@ import java.util.List;
 public class HttpRouteSequenceFactory {
     private final List<HttpCatcher<?>> catchers;
     private final List<HttpValidator> validators;
+    private final boolean isBlocking;
+    private final HttpServerMetrics metrics;
+    private final String serviceName;
 
     /**
      * Creates new factory containing given {@code catchers} and
@@ -25,12 +26,26 @@ public class HttpRouteSequenceFactory {
      * to all catchers and validators that could, potentially, match incoming
      * HTTP requests targeted at certain {@link HttpRoute}s.
      *
-     * @param catchers   Route exception handlers.
-     * @param validators Route validation handlers.
+     * @param catchers    Route exception handlers.
+     * @param validators  Route validation handlers.
+     * @param isBlocking  Whether or not to treat all created sequences as
+     *                    blocking, regardless of their routes.
+     * @param metrics     Metrics registry to get route metrics objects from,
+     *                    or {@code null} if no metrics are to be recorded.
+     * @param serviceName Name of service owning created sequences.
      */
-    public HttpRouteSequenceFactory(final List<HttpCatcher<?>> catchers, final List<HttpValidator> validators) {
+    public HttpRouteSequenceFactory(
+        final List<HttpCatcher<?>> catchers,
+        final List<HttpValidator> validators,
+        final boolean isBlocking,
+        final HttpServerMetrics metrics,
+        final String serviceName)
+    {
         this.catchers = new ArrayList<>(catchers);
         this.validators = new ArrayList<>(validators);
+        this.isBlocking = isBlocking;
+        this.metrics = metrics;
+        this.serviceName = serviceName;
 
         this.catchers.sort(HttpRoutables::compareCatchers);
         this.validators.sort(HttpRoutables::compareValidators);
@@ -53,6 +68,11 @@ public class HttpRouteSequenceFactory {
             .filter(catcher -> HttpRoutables.intersect(catcher, route))
             .toArray(HttpCatcher[]::new);
 
-        return new HttpRouteSequence(routeValidators, route, routeCatchers);
+        final var routeMetrics = metrics != null
+            ? metrics.routeMetricsFor(serviceName, route.pattern().map(HttpPattern::text).orElse("*"))
+            : null;
+
+        return new HttpRouteSequence(routeValidators, route, routeCatchers, isBlocking || route.isBlocking(),
+            routeMetrics);
     }
 }
@@ -0,0 +1,223 @@
+package se.arkalix.internal.net.http.service;
+
+import se.arkalix.net.http.HttpMethod;
+import se.arkalix.util.annotation.Internal;
+
+import java.util.*;
+
+/**
+ * A compiled collection of {@link HttpRouteSequence}s, organized as a trie of
+ * path segments.
+ * <p>
+ * Each trie node represents one segment of one or more route patterns. Edges
+ * are either keyed by literal segments or represent path parameters
+ * ({@code #}). Each node owns one table of route sequences whose patterns end
+ * at that node, and one table of route sequences whose prefix patterns
+ * ({@code >}) end at that node. Each such table maps HTTP methods to the most
+ * specialized route sequence matching it.
+ * <p>
+ * The cost of looking up a route sequence depends on the number of segments
+ * in the looked up path rather than on the number of route sequences. The
+ * route sequence returned for any given method and path is always the same as
+ * would be found by testing every route sequence, in the order dictated by
+ * {@link HttpRoutables#compare(se.arkalix.net.http.service.HttpRoutable,
+ * se.arkalix.net.http.service.HttpRoutable)}, until one matches.
+ */
+@Internal
+public class HttpRouter {
+    private final Node root = new Node();
+    private final Table anyPath = new Table();
+
+    /**
+     * Creates new router from given route sequences.
+     *
+     * @param routeSequences Route sequences, sorted such that the most
+     *                       specialized sequences come first.
+     */
+    public HttpRouter(final List<HttpRouteSequence> routeSequences) {
+        var rank = 0;
+        for (final var routeSequence : routeSequences) {
+            final var route = routeSequence.route();
+            final var entry = new Entry(rank++, routeSequence);
+            final var method = route.method().orElse(null);
+            final var optionalPattern = route.pattern();
+            if (optionalPattern.isEmpty()) {
+                anyPath.put(method, entry);
+                continue;
+            }
+            final var pattern = optionalPattern.get();
+            final var text = pattern.text();
+            final var isPrefix = text.charAt(text.length() - 1) == '>';
+
+            // Prefix patterns always end with "/>", which is not part of any
+            // segment.
+            final var q1 = isPrefix ? text.length() - 2 : text.length();
+
+            var node = root;
+            var q0 = 0;
+            while (q0 < q1) {
+                var qx = text.indexOf('/', q0 + 1);
+                if (qx == -1 || qx > q1) {
+                    qx = q1;
+                }
+                node = node.childFor(text.substring(q0 + 1, qx));
+                q0 = qx;
+            }
+            (isPrefix ? node.prefix : node.exact).put(method, entry);
+        }
+    }
+
+    /**
+     * Finds the most specialized route sequence matching given HTTP method
+     * and path.
+     *
+     * @param method HTTP method of request to route.
+     * @param path   Path of request to route.
+     * @param offset Offset, from beginning of path, from which to start
+     *               matching. Typically the length of the service base path.
+     * @return Route sequence, if any matches.
+     */
+    public Optional<HttpRouteSequence> route(final HttpMethod method, final String path, final int offset) {
+        // p0 = start of path; p1 = end of path.
+        var p1 = path.length();
+        if (p1 > 1 && path.charAt(p1 - 1) == '/') {
+            p1 -= 1;
+        }
+        Entry best = null;
+        if (offset < p1 && path.charAt(offset) == '/') {
+            best = find(root, method, path, offset, p1, null);
+        }
+        best = Entry.min(best, anyPath.get(method));
+        return best != null
+            ? Optional.of(best.routeSequence)
+            : Optional.empty();
+    }
+
+    private static Entry find(
+        final Node node,
+        final HttpMethod method,
+        final String path,
+        final int p0,
+        final int p1,
+        Entry best)
+    {
+        // p0 is either at the end of the path or at the '/' beginning the
+        // next segment.
+        if (p0 == p1) {
+            return Entry.min(best, node.exact.get(method));
+        }
+        best = Entry.min(best, node.prefix.get(method));
+        var px = path.indexOf('/', p0 + 1);
+        if (px == -1 || px > p1) {
+            px = p1;
+        }
+        final var literal = node.literalChild(path, p0 + 1, px);
+        if (literal != null) {
+            best = find(literal, method, path, px, p1, best);
+        }
+        // Path parameters may be empty, unless they are the last segment of
+        // the path, as trailing forward slashes are ignored.
+        if (node.parameter != null && (px > p0 + 1 || px < p1)) {
+            best = find(node.parameter, method, path, px, p1, best);
+        }
+        return best;
+    }
+
+    private static class Node {
+        private final Table exact = new Table();
+        private final Table prefix = new Table();
+
+        private String[] literalKeys = new String[0];
+        private Node[] literalNodes = new Node[0];
+        private Node parameter = null;
+
+        Node childFor(final String segment) {
+            if (segment.length() > 0 && segment.charAt(0) == '#') {
+                if (parameter == null) {
+                    parameter = new Node();
+                }
+                return parameter;
+            }
+            final var index = Arrays.binarySearch(literalKeys, segment);
+            if (index >= 0) {
+                return literalNodes[index];
+            }
+            final var insertionPoint = -(index + 1);
+            final var length = literalKeys.length;
+
+            final var keys = new String[length + 1];
+            System.arraycopy(literalKeys, 0, keys, 0, insertionPoint);
+            System.arraycopy(literalKeys, insertionPoint, keys, insertionPoint + 1, length - insertionPoint);
+            keys[insertionPoint] = segment;
+
+            final var nodes = new Node[length + 1];
+            System.arraycopy(literalNodes, 0, nodes, 0, insertionPoint);
+            System.arraycopy(literalNodes, insertionPoint, nodes, insertionPoint + 1, length - insertionPoint);
+            final var node = new Node();
+            nodes[insertionPoint] = node;
+
+            literalKeys = keys;
+            literalNodes = nodes;
+            return node;
+        }
+
+        Node literalChild(final String path, final int p0, final int p1) {
+            var low = 0;
+            var high = literalKeys.length - 1;
+            while (low <= high) {
+                final var middle = (low + high) >>> 1;
+                final var c = HttpPaths.compareSegment(literalKeys[middle], path, p0, p1);
+                if (c < 0) {
+                    low = middle + 1;
+                }
+                else if (c > 0) {
+                    high = middle - 1;
+                }
+                else {
+                    return literalNodes[middle];
+                }
+            }
+            return null;
+        }
+    }
+
+    private static class Table {
+        private final Map<HttpMethod, Entry> methods = new HashMap<>(0);
+        private Entry anyMethod = null;
+
+        void put(final HttpMethod method, final Entry entry) {
+            if (method == null) {
+                if (anyMethod == null) {
+                    anyMethod = entry;
+                }
+            }
+            else {
+                methods.putIfAbsent(method, entry);
+            }
+        }
+
+        Entry get(final HttpMethod method) {
+            return Entry.min(methods.get(method), anyMethod);
+        }
+    }
+
+    private static class Entry {
+        private final int rank;
+        private final HttpRouteSequence routeSequence;
+
+        private Entry(final int rank, final HttpRouteSequence routeSequence) {
+            this.rank = rank;
+            this.routeSequence = routeSequence;
+        }
+
+        static Entry min(final Entry a, final Entry b) {
+            if (a == null) {
+                return b;
+            }
+            if (b == null) {
+                return a;
+            }
+            return a.rank <= b.rank ? a : b;
+        }
+    }
+}
@@ -7,60 +7,92 @@ import se.arkalix.description.ServiceDescription;
 import se.arkalix.descriptor.AccessDescriptor;
 import se.arkalix.internal.ArServer;
 import se.arkalix.internal.net.NettyBootstraps;
+import se.arkalix.internal.net.NettySslContexts;
 import se.arkalix.internal.plugin.PluginNotifier;
+import se.arkalix.internal.security.identity.ArSystemCertificateChainCache;
 import se.arkalix.net.http.service.HttpService;
 import se.arkalix.util.Result;
 import se.arkalix.util.annotation.Internal;
 import se.arkalix.util.concurrent.Future;
 import io.netty.channel.Channel;
 import io.netty.handler.logging.LoggingHandler;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
 import io.netty.handler.ssl.ClientAuth;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 
 import java.net.InetSocketAddress;
 import java.util.*;
-import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
 
 import static se.arkalix.internal.util.concurrent.NettyFutures.adapt;
 
 @Internal
 public class HttpServer implements ArServer {
+    /*
+     * Maximum number of distinct consumer certificate chains remembered by
+     * each server, which is also roughly the number of consumers that can
+     * connect repeatedly without their certificates being parsed again.
+     */
+    private static final int CONSUMER_CHAIN_CACHE_CAPACITY = 1024;
+
     private final AtomicBoolean isShuttingDown = new AtomicBoolean(false);
 
     private final Set<ArServiceHandle> handles = Collections.synchronizedSet(new HashSet<>());
-    private final Map<String, HttpServiceInternal> services = new ConcurrentSkipListMap<>(Comparator.reverseOrder());
+    private final AtomicReference<HttpServiceIndex> serviceIndex = new AtomicReference<>(HttpServiceIndex.EMPTY);
 
     private final PluginNotifier pluginNotifier;
     private final ArSystem system;
+    private final HttpAdmissionController admissionController;
 
     private Channel channel;
 
     private HttpServer(final ArSystem system, final PluginNotifier pluginNotifier) {
         this.pluginNotifier = Objects.requireNonNull(pluginNotifier, "Expected pluginNotifier");
         this.system = Objects.requireNonNull(system, "Expected system");
+
+        final var limits = system.httpServerLimits();
+        if (limits.maxInFlightRequests() > 0) {
+            admissionController = new HttpAdmissionController(null, limits.maxInFlightRequests(),
+                limits.maxQueuedRequests(), limits.maxQueueTime(), limits.retryAfter());
+            system.httpServerMetrics().registerAdmissionController("", admissionController);
+        }
+        else {
+            admissionController = null;
+        }
     }
 
     public static Future<ArServer> create(final ArSystem system, final PluginNotifier pluginNotifier) {
         final var server = new HttpServer(system, pluginNotifier);
         try {
             SslContext sslContext = null;
+            ArSystemCertificateChainCache consumerChainCache = null;
             if (system.isSecure()) {
                 final var keyStore = system.keyStore();
-                sslContext = SslContextBuilder
+                sslContext = NettySslContexts.build(SslContextBuilder
                     .forServer(keyStore.privateKey(), keyStore.systemChain())
                     .trustManager(system.trustStore().certificates())
                     .clientAuth(ClientAuth.REQUIRE)
                     .startTls(false)
-                    .build();
+                    .applicationProtocolConfig(new ApplicationProtocolConfig(
+                        ApplicationProtocolConfig.Protocol.ALPN,
+                        ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+                        ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+                        ApplicationProtocolNames.HTTP_2,
+                        ApplicationProtocolNames.HTTP_1_1)),
+                    system.tlsSettings(), true);
+                consumerChainCache = new ArSystemCertificateChainCache(CONSUMER_CHAIN_CACHE_CAPACITY);
             }
 
             final var bootstrap = NettyBootstraps
                 .createServerBootstrapUsing(system.scheduler())
                 .handler(new LoggingHandler()) // TODO: Better logging/error handling
-                .childHandler(new NettyHttpServiceConnectionInitializer(server::getServiceByPath, sslContext));
+                .childHandler(new NettyHttpServiceConnectionInitializer(server::getServiceByPath, sslContext,
+                    system.httpServerLimits(), system.httpServerMetrics(), consumerChainCache,
+                    system.tlsHandshakePool().orElse(null)));
 
             return adapt(bootstrap.bind(system.localAddress(), system.localPort()))
                 .map(channel -> {
@@ -114,22 +146,33 @@ public class HttpServer implements ArServer {
             if (result0.isFailure()) {
                 return Future.failure(result0.fault());
             }
-            final var httpService = new HttpServiceInternal(system, (HttpService) service);
+            final var httpService = new HttpServiceInternal(system, (HttpService) service, admissionController);
             final var basePath = httpService.basePath();
 
-            final var existingService = services.putIfAbsent(basePath, httpService);
-            if (existingService != null) {
-                return Future.failure(new IllegalStateException("Base path " +
-                    "(qualifier) \"" + basePath + "\" already in use by  \"" +
-                    existingService.name() + "\"; cannot provide service \"" +
-                    httpService.name() + "\""));
+            HttpServiceIndex index0, index1;
+            do {
+                index0 = serviceIndex.get();
+                final var existingService = index0.getServiceByBasePath(basePath);
+                if (existingService.isPresent()) {
+                    return Future.failure(new IllegalStateException("Base path " +
+                        "(qualifier) \"" + basePath + "\" already in use by  \"" +
+                        existingService.get().name() + "\"; cannot provide service \"" +
+                        httpService.name() + "\""));
+                }
+                index1 = index0.with(httpService);
             }
+            while (!serviceIndex.compareAndSet(index0, index1));
 
             if (isShuttingDown.get()) {
-                services.remove(basePath);
+                serviceIndex.updateAndGet(index -> index.without(basePath));
                 return Future.failure(cannotProvideServiceShuttingDownException());
             }
 
+            httpService.admissionController()
+                .filter(controller -> controller != admissionController)
+                .ifPresent(controller -> system.httpServerMetrics()
+                    .registerAdmissionController(httpService.name(), controller));
+
             final var handle = new ServiceHandle(httpService, basePath);
 
             return pluginNotifier.onServiceProvided(httpService.description())
@@ -154,13 +197,7 @@ public class HttpServer implements ArServer {
     }
 
     private Optional<HttpServiceInternal> getServiceByPath(final String path) {
-        for (final var entry : services.entrySet()) {
-            final var service = entry.getValue();
-            if (path.startsWith(service.basePath())) {
-                return Optional.of(service);
-            }
-        }
-        return Optional.empty();
+        return serviceIndex.get().getServiceByPath(path);
     }
 
     @Override
@@ -171,6 +208,9 @@ public class HttpServer implements ArServer {
         for (final var handle : handles) {
             handle.dismiss();
         }
+        if (admissionController != null) {
+            system.httpServerMetrics().unregisterAdmissionController("", admissionController);
+        }
         return adapt(channel.close());
     }
 
@@ -193,7 +233,11 @@ public class HttpServer implements ArServer {
         public void dismiss() {
             if (isDismissed.compareAndSet(false, true)) {
                 pluginNotifier.onServiceDismissed(description());
-                services.remove(basePath);
+                serviceIndex.updateAndGet(index -> index.without(basePath));
+                httpService.admissionController()
+                    .filter(controller -> controller != admissionController)
+                    .ifPresent(controller -> system.httpServerMetrics()
+                        .unregisterAdmissionController(httpService.name(), controller));
             }
         }
 
@@ -0,0 +1,215 @@
+package se.arkalix.internal.net.http.service;
+
+import se.arkalix.util.annotation.Internal;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * An immutable index of {@link HttpServiceInternal}s, organized as a trie of
+ * the path segments of their base paths.
+ * <p>
+ * Looking up the service responsible for a given path requires one step per
+ * segment of that path, regardless of the number of indexed services. As
+ * instances of this class are immutable, they may be read from any number of
+ * threads without synchronization. Adding or removing services produces new
+ * indexes, which share all unmodified trie nodes with the index they were
+ * created from.
+ */
+@Internal
+public class HttpServiceIndex {
+    /**
+     * An index without any services.
+     */
+    public static final HttpServiceIndex EMPTY = new HttpServiceIndex(Node.EMPTY);
+
+    private final Node root;
+
+    private HttpServiceIndex(final Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Finds the service with the longest base path that is a segment-wise
+     * prefix of the given {@code path}.
+     * <p>
+     * A base path is a segment-wise prefix of a path if each of its segments
+     * are equal to the segment at the same position in the path. The base
+     * path {@code "/base"} is, for example, a prefix of the path
+     * {@code "/base/x"} but not of {@code "/basement"}.
+     *
+     * @param path Path of incoming HTTP request.
+     * @return Designated service, if any.
+     */
+    public Optional<HttpServiceInternal> getServiceByPath(final String path) {
+        // p0 = start of path segment; p1 = end of path.
+        final var p1 = path.length();
+        if (p1 == 0 || path.charAt(0) != '/') {
+            return Optional.empty();
+        }
+        var node = root;
+        var service = node.service;
+        var p0 = 0;
+        while (p0 < p1) {
+            var px = path.indexOf('/', p0 + 1);
+            if (px == -1) {
+                px = p1;
+            }
+            node = node.child(path, p0 + 1, px);
+            if (node == null) {
+                break;
+            }
+            if (node.service != null) {
+                service = node.service;
+            }
+            p0 = px;
+        }
+        return Optional.ofNullable(service);
+    }
+
+    /**
+     * Gets service with exactly the given base path, if any.
+     *
+     * @param basePath Base path of desired service.
+     * @return Service with given base path, if any.
+     */
+    public Optional<HttpServiceInternal> getServiceByBasePath(final String basePath) {
+        var node = root;
+        for (final var segment : segmentsOf(basePath)) {
+            node = node.child(segment, 0, segment.length());
+            if (node == null) {
+                return Optional.empty();
+            }
+        }
+        return Optional.ofNullable(node.service);
+    }
+
+    /**
+     * Creates copy of this index that also contains the given
+     * {@code service}, replacing any existing service with the same base
+     * path.
+     *
+     * @param service Service to add.
+     * @return New index.
+     */
+    public HttpServiceIndex with(final HttpServiceInternal service) {
+        Objects.requireNonNull(service, "Expected service");
+        return new HttpServiceIndex(root.with(segmentsOf(service.basePath()), 0, service));
+    }
+
+    /**
+     * Creates copy of this index without the service with the given
+     * {@code basePath}, if any.
+     *
+     * @param basePath Base path of service to remove.
+     * @return New index.
+     */
+    public HttpServiceIndex without(final String basePath) {
+        final var root = this.root.with(segmentsOf(basePath), 0, null);
+        return new HttpServiceIndex(root != null ? root : Node.EMPTY);
+    }
+
+    private static String[] segmentsOf(final String basePath) {
+        // The root path "/" has no segments.
+        if (basePath.length() <= 1) {
+            return new String[0];
+        }
+        return basePath.substring(1).split("/", -1);
+    }
+
+    private static class Node {
+        static final Node EMPTY = new Node(null, new String[0], new Node[0]);
+
+        private final HttpServiceInternal service;
+        private final String[] keys;
+        private final Node[] children;
+
+        private Node(final HttpServiceInternal service, final String[] keys, final Node[] children) {
+            this.service = service;
+            this.keys = keys;
+            this.children = children;
+        }
+
+        Node child(final String path, final int p0, final int p1) {
+            final var index = indexOf(path, p0, p1);
+            return index >= 0 ? children[index] : null;
+        }
+
+        /*
+         * Returns copy of this node, with the node at the end of the given
+         * segments being given the provided service, or null if the copy
+         * would neither contain a service nor any children.
+         */
+        Node with(final String[] segments, final int offset, final HttpServiceInternal service) {
+            if (offset == segments.length) {
+                return keys.length == 0 && service == null
+                    ? null
+                    : new Node(service, keys, children);
+            }
+            final var segment = segments[offset];
+            final var index = indexOf(segment, 0, segment.length());
+            final Node child0;
+            if (index >= 0) {
+                child0 = children[index];
+            }
+            else if (service != null) {
+                child0 = EMPTY;
+            }
+            else {
+                return this; // Nothing to remove.
+            }
+            final var child1 = child0.with(segments, offset + 1, service);
+
+            final String[] keys;
+            final Node[] children;
+            if (index >= 0) {
+                if (child1 != null) {
+                    keys = this.keys;
+                    children = this.children.clone();
+                    children[index] = child1;
+                }
+                else {
+                    keys = new String[this.keys.length - 1];
+                    System.arraycopy(this.keys, 0, keys, 0, index);
+                    System.arraycopy(this.keys, index + 1, keys, index, keys.length - index);
+                    children = new Node[this.children.length - 1];
+                    System.arraycopy(this.children, 0, children, 0, index);
+                    System.arraycopy(this.children, index + 1, children, index, children.length - index);
+                }
+            }
+            else {
+                final var insertionPoint = -(index + 1);
+                keys = new String[this.keys.length + 1];
+                System.arraycopy(this.keys, 0, keys, 0, insertionPoint);
+                System.arraycopy(this.keys, insertionPoint, keys, insertionPoint + 1, this.keys.length - insertionPoint);
+                keys[insertionPoint] = segment;
+                children = new Node[this.children.length + 1];
+                System.arraycopy(this.children, 0, children, 0, insertionPoint);
+                System.arraycopy(this.children, insertionPoint, children, insertionPoint + 1, this.children.length - insertionPoint);
+                children[insertionPoint] = child1;
+            }
+            return keys.length == 0 && this.service == null
+                ? null
+                : new Node(this.service, keys, children);
+        }
+
+        private int indexOf(final String path, final int p0, final int p1) {
+            var low = 0;
+            var high = keys.length - 1;
+            while (low <= high) {
+                final var middle = (low + high) >>> 1;
+                final var c = HttpPaths.compareSegment(keys[middle], path, p0, p1);
+                if (c < 0) {
+                    low = middle + 1;
+                }
+                else if (c > 0) {
+                    high = middle - 1;
+                }
+                else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+}
@@ -2,23 +2,39 @@ package se.arkalix.internal.net.http.service;
 
 import se.arkalix.ArSystem;
 import se.arkalix.description.ServiceDescription;
+import se.arkalix.descriptor.AccessDescriptor;
 import se.arkalix.descriptor.EncodingDescriptor;
+import se.arkalix.internal.jfr.HttpRouteDispatchEvent;
+import se.arkalix.net.http.HttpMethod;
 import se.arkalix.net.http.HttpStatus;
 import se.arkalix.net.http.service.*;
 import se.arkalix.security.access.AccessPolicy;
+import se.arkalix.security.access.AccessVerificationPool;
 import se.arkalix.util.annotation.Internal;
 import se.arkalix.util.concurrent.Future;
+import se.arkalix.util.concurrent.FutureSuccess;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Internal
 public class HttpServiceInternal {
     private final AccessPolicy accessPolicy;
     private final ServiceDescription description;
     private final List<EncodingDescriptor> encodings;
-    private final HttpRouteSequence[] routeSequences;
+    private final HttpRouter router;
+    private final long maxRequestBodySize;
+    private final HttpCompression compression;
+    private final HttpAdmissionController admissionController;
+    private final HttpWorkerPool workerPool;
+    private final AccessVerificationPool accessVerificationPool;
+    private final HttpRouteMetrics unroutedMetrics;
 
-    public HttpServiceInternal(final ArSystem system, final HttpService service) {
+    public HttpServiceInternal(
+        final ArSystem system,
+        final HttpService service,
+        final HttpAdmissionController systemAdmissionController)
+    {
         accessPolicy = Objects.requireNonNull(service.accessPolicy(), "Expected accessPolicy");
         description = service.describeAsIfProvidedBy(system);
 
@@ -40,11 +56,47 @@ public class HttpServiceInternal {
             throw new IllegalArgumentException("Expected HttpService encodings.size() > 0");
         }
 
-        final var routeSequenceFactory = new HttpRouteSequenceFactory(service.catchers(), service.validators());
-        routeSequences = service.routes().stream()
+        maxRequestBodySize = service.maxRequestBodySize() > 0
+            ? service.maxRequestBodySize()
+            : system.httpServerLimits().maxRequestBodySize();
+
+        compression = service.compression().orElse(null);
+
+        final var adaptiveConcurrencyLimit = service.adaptiveConcurrencyLimit();
+        if (adaptiveConcurrencyLimit.isPresent()) {
+            final var limits = system.httpServerLimits();
+            admissionController = new HttpAdmissionController(systemAdmissionController,
+                adaptiveConcurrencyLimit.get(), limits.maxQueuedRequests(), limits.maxQueueTime(),
+                limits.retryAfter());
+        }
+        else if (service.maxInFlightRequests() > 0) {
+            final var limits = system.httpServerLimits();
+            admissionController = new HttpAdmissionController(systemAdmissionController,
+                service.maxInFlightRequests(), limits.maxQueuedRequests(), limits.maxQueueTime(),
+                limits.retryAfter());
+        }
+        else {
+            admissionController = systemAdmissionController;
+        }
+
+        final var metrics = system.httpServerMetrics();
+        final var routeSequenceFactory = new HttpRouteSequenceFactory(service.catchers(), service.validators(),
+            service.isBlocking(), metrics, name());
+        final var routeSequences = service.routes().stream()
             .sorted(HttpRoutables::compare)
             .map(routeSequenceFactory::createRouteSequenceFor)
-            .toArray(HttpRouteSequence[]::new);
+            .collect(Collectors.toList());
+        router = new HttpRouter(routeSequences);
+
+        workerPool = routeSequences.stream().anyMatch(HttpRouteSequence::isBlocking)
+            ? system.httpWorkerPool()
+            : null;
+
+        accessVerificationPool = accessPolicy.descriptor() == AccessDescriptor.TOKEN
+            ? system.accessVerificationPool()
+            : null;
+
+        unroutedMetrics = metrics.routeMetricsFor(name(), "");
     }
 
     /**
@@ -83,6 +135,68 @@ public class HttpServiceInternal {
         return encodings;
     }
 
+    /**
+     * @return Maximum number of bytes permitted in request bodies.
+     */
+    public long maxRequestBodySize() {
+        return maxRequestBodySize;
+    }
+
+    /**
+     * @return Response compression settings, if response compression is
+     * enabled.
+     */
+    public Optional<HttpCompression> compression() {
+        return Optional.ofNullable(compression);
+    }
+
+    /**
+     * @return Controller to use for admitting requests to this service, if
+     * the number of requests it may handle at the same time is limited.
+     */
+    public Optional<HttpAdmissionController> admissionController() {
+        return Optional.ofNullable(admissionController);
+    }
+
+    /**
+     * @return Pool to use for handling requests routed to blocking routes, if
+     * this service has any such routes.
+     */
+    public Optional<HttpWorkerPool> workerPool() {
+        return Optional.ofNullable(workerPool);
+    }
+
+    /**
+     * @return Pool to use for verifying the access tokens of requests, if the
+     * access policy of this service uses token access control.
+     */
+    public Optional<AccessVerificationPool> accessVerificationPool() {
+        return Optional.ofNullable(accessVerificationPool);
+    }
+
+    /**
+     * @return Object to record the latencies of requests not matching any
+     * route of this service in.
+     */
+    public HttpRouteMetrics unroutedMetrics() {
+        return unroutedMetrics;
+    }
+
+    /**
+     * Finds the route sequence that would handle a request with given
+     * {@code method} and {@code path}, if any.
+     * <p>
+     * If the sequence is blocking, the request must be handled by the pool
+     * returned by {@link #workerPool()}.
+     *
+     * @param method Request method.
+     * @param path   Request path, including the base path of this service.
+     * @return Route sequence, if any matches.
+     */
+    public Optional<HttpRouteSequence> route(final HttpMethod method, final String path) {
+        return router.route(method, path, basePath().length());
+    }
+
     /**
      * Delegates handling of an {@link HttpServiceRequest} to this service.
      *
@@ -93,13 +207,67 @@ public class HttpServiceInternal {
      * finished.
      */
     public Future<?> handle(final HttpServiceRequest request, final HttpServiceResponse response) {
+        return handle(route(request.method(), request.path()).orElse(null), request, response);
+    }
+
+    /**
+     * Delegates handling of an {@link HttpServiceRequest} to given route
+     * sequence of this service.
+     *
+     * @param routeSequence Route sequence previously returned by
+     *                      {@link #route(HttpMethod, String)}, or
+     *                      {@code null} if no route matches the request.
+     * @param request       Incoming HTTP request.
+     * @param response      Modifiable HTTP response object, destined to be
+     *                      sent back to the original request sender.
+     * @return Future completed with {@code null} value when handling has
+     * finished.
+     */
+    @SuppressWarnings("unchecked")
+    public Future<?> handle(
+        final HttpRouteSequence routeSequence,
+        final HttpServiceRequest request,
+        final HttpServiceResponse response)
+    {
+        if (routeSequence == null) {
+            response
+                .status(HttpStatus.NOT_FOUND)
+                .clearHeaders()
+                .clearBody();
+            return Future.done();
+        }
+
         final var task = new HttpRouteTask.Builder()
             .basePath(basePath())
             .request(request)
             .response(response)
             .build();
 
-        return trySequences(task, 0)
+        final Future<Boolean> future;
+        final var event = new HttpRouteDispatchEvent();
+        event.begin();
+        try {
+            future = routeSequence.tryHandle(task);
+        }
+        finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.service = name();
+                event.route = routeSequence.metrics().map(HttpRouteMetrics::route).orElse("*");
+                event.isBlocking = workerPool != null && routeSequence.isBlocking();
+                event.commit();
+            }
+        }
+        if (future instanceof FutureSuccess) {
+            if (!((FutureSuccess<Boolean>) future).value()) {
+                response
+                    .status(HttpStatus.NOT_FOUND)
+                    .clearHeaders()
+                    .clearBody();
+            }
+            return Future.done();
+        }
+        return future
             .map(isHandled -> {
                 if (!isHandled) {
                     response
@@ -111,20 +279,6 @@ public class HttpServiceInternal {
             });
     }
 
-    private Future<Boolean> trySequences(final HttpRouteTask task, final int index) {
-        if (index >= routeSequences.length) {
-            return Future.success(false);
-        }
-        final var routeSequence = routeSequences[index];
-        return routeSequence.tryHandle(task)
-            .flatMap(isHandled -> {
-                if (isHandled) {
-                    return Future.success(true);
-                }
-                return trySequences(task, index + 1);
-            });
-    }
-
     public ServiceDescription description() {
         return description;
     }
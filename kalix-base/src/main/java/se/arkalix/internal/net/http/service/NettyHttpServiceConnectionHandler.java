@@ -4,122 +4,370 @@ import io.netty.handler.ssl.SslHandler;
 import se.arkalix.description.SystemDescription;
 import se.arkalix.descriptor.EncodingDescriptor;
 import se.arkalix.dto.DtoReadException;
+import se.arkalix.dto.DtoWriteException;
+import se.arkalix.internal.jfr.HttpServerRequestEvent;
+import se.arkalix.internal.net.NettyAutoReadController;
+import se.arkalix.internal.net.http.HttpContentCodings;
 import se.arkalix.internal.net.http.HttpMediaTypes;
+import se.arkalix.internal.net.http.NettyHttpAdapters;
+import se.arkalix.internal.net.http.NettyHttpBodyDecompressor;
 import se.arkalix.internal.net.http.NettyHttpBodyReceiver;
+import se.arkalix.internal.security.identity.ArSystemCertificateChainCache;
 import se.arkalix.net.http.HttpStatus;
+import se.arkalix.net.http.service.HttpRequestTimings;
+import se.arkalix.net.http.service.HttpRequestTimings.Stage;
+import se.arkalix.net.http.service.HttpRouteMetrics;
+import se.arkalix.net.http.service.HttpServerMetrics;
 import se.arkalix.net.http.service.HttpServiceRequestException;
 import se.arkalix.security.access.AccessTokenException;
+import se.arkalix.security.identity.ArSystemCertificateChain;
+import se.arkalix.util.Result;
 import se.arkalix.util.annotation.Internal;
+import se.arkalix.util.concurrent.Future;
+import se.arkalix.util.concurrent.FutureFailure;
+import se.arkalix.util.concurrent.FutureSuccess;
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.TooLongFrameException;
 import io.netty.handler.codec.http.*;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.ReferenceCountUtil;
 
 import javax.net.ssl.SSLPeerUnverifiedException;
+import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
 
 import static io.netty.handler.codec.http.HttpResponseStatus.*;
 
+/**
+ * Handles incoming HTTP requests on a single connection.
+ * <p>
+ * Clients may pipeline requests, which means that they may send more requests
+ * before receiving responses to those already sent. Each received request is
+ * associated with a {@link PendingResponse} placed last in a queue, and
+ * responses are only written to the connection when they are at the head of
+ * that queue, which guarantees that they are sent in the same order as their
+ * requests were received. If the queue grows full, reading from the
+ * connection is suspended until responses have been written.
+ * <p>
+ * Reading may also be suspended while the body of a request is being
+ * streamed to a service slower than the body arrives, as described in
+ * {@link se.arkalix.net.http.HttpBodyReceiver#bodyAsPublisher()}, while a
+ * request waits for being admitted by an {@link HttpAdmissionController},
+ * while an access policy decides asynchronously whether or not a request is
+ * authorized, or while a blocking route handler is being executed by a
+ * {@link se.arkalix.net.http.service.HttpWorkerPool}.
+ */
 @Internal
 public class NettyHttpServiceConnectionHandler extends SimpleChannelInboundHandler<Object> {
+    /**
+     * Maximum number of pipelined requests that may await responses before
+     * the handler stops reading from its connection.
+     */
+    public static final int MAX_PENDING_RESPONSES = 16;
+
     private final HttpServiceLookup serviceLookup;
     private final SslHandler sslHandler;
+    private final HttpServerMetrics metrics;
+    private final ArSystemCertificateChainCache consumerChainCache;
+    private final Deque<PendingResponse> pendingResponseQueue = new ArrayDeque<>();
 
+    private NettyAutoReadController autoReadController = null;
     private SystemDescription consumer = null;
-    private HttpRequest request = null;
     private NettyHttpBodyReceiver body = null;
+    private NettyHttpBodyDecompressor bodyDecompressor = null;
+    private PendingResponse bodyPendingResponse = null;
+    private long bodySize = 0;
+    private long maxBodySize = 0;
+    private boolean isClosing = false;
+    private boolean isSuspendingReads = false;
+    private boolean isWritingStreamedResponse = false;
+    private boolean isDeferringMessages = false;
+    private final Queue<Object> deferredMessages = new ArrayDeque<>(0);
 
-    public NettyHttpServiceConnectionHandler(final HttpServiceLookup serviceLookup, final SslHandler sslHandler) {
+    public NettyHttpServiceConnectionHandler(
+        final HttpServiceLookup serviceLookup,
+        final SslHandler sslHandler,
+        final HttpServerMetrics metrics,
+        final ArSystemCertificateChainCache consumerChainCache)
+    {
         this.serviceLookup = serviceLookup;
         this.sslHandler = sslHandler;
+        this.metrics = metrics;
+        this.consumerChainCache = consumerChainCache;
+    }
+
+    @Override
+    public void handlerAdded(final ChannelHandlerContext ctx) {
+        autoReadController = new NettyAutoReadController(ctx.channel());
+    }
+
+    @Override
+    public void handlerRemoved(final ChannelHandlerContext ctx) {
+        closeBodyDecompressor();
+        Object msg;
+        while ((msg = deferredMessages.poll()) != null) {
+            ReferenceCountUtil.release(msg);
+        }
     }
 
     @Override
     protected void channelRead0(final ChannelHandlerContext ctx, final Object msg) {
+        if (isDeferringMessages) {
+            deferredMessages.add(ReferenceCountUtil.retain(msg));
+            return;
+        }
+        readMessage(ctx, msg);
+    }
+
+    private void readDeferredMessages(final ChannelHandlerContext ctx) {
+        Object msg;
+        while (!isDeferringMessages && (msg = deferredMessages.poll()) != null) {
+            try {
+                readMessage(ctx, msg);
+            }
+            finally {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+        ctx.flush();
+    }
+
+    private void readMessage(final ChannelHandlerContext ctx, final Object msg) {
         if (msg instanceof HttpRequest) {
             readRequest(ctx, (HttpRequest) msg);
         }
         if (msg instanceof HttpContent) {
-            readContent((HttpContent) msg);
+            readContent(ctx, (HttpContent) msg);
         }
     }
 
     private void readRequest(final ChannelHandlerContext ctx, final HttpRequest request) {
-        // TODO: Enable and check size restrictions.
+        body = null;
+        closeBodyDecompressor();
+        if (isClosing) {
+            return;
+        }
 
-        this.request = request;
         final var keepAlive = HttpUtil.isKeepAlive(request);
+        final var pendingResponse = new PendingResponse(request.protocolVersion(), keepAlive,
+            new HttpRequestTimings(NettyHttpAdapters.adapt(request.method()), request.uri()),
+            metrics.unmatchedMetrics());
+        if (new HttpServerRequestEvent().isEnabled()) {
+            pendingResponse.beginEvent();
+        }
+        pendingResponseQueue.add(pendingResponse);
+        if (!keepAlive) {
+            isClosing = true;
+        }
+        if (pendingResponseQueue.size() >= MAX_PENDING_RESPONSES && !isSuspendingReads) {
+            isSuspendingReads = true;
+            autoReadController.suspend();
+        }
+
+        // Reject requests the decoder failed to parse, such as those with too
+        // long initial lines or headers.
+        final var decoderResult = request.decoderResult();
+        if (decoderResult.isFailure()) {
+            respondWithError(ctx, pendingResponse, statusOf(decoderResult.cause()), false);
+            return;
+        }
+
         final var queryStringDecoder = new QueryStringDecoder(request.uri());
         final var path = queryStringDecoder.path();
 
-        // Resolve service.
+        // Resolve service and route.
         final HttpServiceInternal service;
+        final HttpRouteSequence routeSequence;
         {
             final var optionalService = serviceLookup.getServiceByPath(path);
             if (optionalService.isEmpty()) {
-                sendErrorAndCleanup(ctx, NOT_FOUND, keepAlive);
+                pendingResponse.timings.mark(Stage.LOOKUP);
+                respondWithError(ctx, pendingResponse, NOT_FOUND, keepAlive);
                 return;
             }
             service = optionalService.get();
+            routeSequence = service.route(pendingResponse.timings.method(), path).orElse(null);
+            pendingResponse.setRouteMetrics(routeSequence != null
+                ? routeSequence.metrics().orElseGet(service::unroutedMetrics)
+                : service.unroutedMetrics());
+            pendingResponse.timings.mark(Stage.LOOKUP);
         }
 
-        // Authorize.
-        {
-            var token = request.headers().get("authorization");
-            if (token.regionMatches(true, 0, "bearer ", 0, 7)) {
-                token = token.substring(7).stripLeading();
-            }
-            try {
-                if (consumer == null && sslHandler != null) {
-                    final var optionalConsumer = SystemDescription.tryFrom(
-                        sslHandler.engine().getSession().getPeerCertificates(),
-                        (InetSocketAddress) ctx.channel().remoteAddress());
-
-                    if (optionalConsumer.isEmpty()) {
-                        sendErrorAndCleanup(ctx, UNAUTHORIZED, false);
-                        return;
-                    }
-                    consumer = optionalConsumer.get();
-                }
+        // Reject request early if its declared body is too large, before any
+        // part of it is received.
+        if (HttpUtil.getContentLength(request, -1L) > service.maxRequestBodySize()) {
+            respondWithError(ctx, pendingResponse, REQUEST_ENTITY_TOO_LARGE, false);
+            return;
+        }
 
-                if (!service.accessPolicy().isAuthorized(consumer, service.description(), token)) {
-                    sendErrorAndCleanup(ctx, UNAUTHORIZED, false);
-                    return;
-                }
+        // Admit request, unless too many requests are already being handled.
+        // Until the request is admitted or rejected, reading is suspended
+        // and any further messages already read are deferred.
+        final var optionalAdmissionController = service.admissionController();
+        if (optionalAdmissionController.isEmpty()) {
+            handleRequest(ctx, request, pendingResponse, queryStringDecoder, service, routeSequence, null);
+            return;
+        }
+        final var admissionController = optionalAdmissionController.get();
+        final var admission = admissionController.admit(ctx.executor());
+        if (admission.isDone()) {
+            admitRequest(ctx, request, pendingResponse, queryStringDecoder, service, routeSequence,
+                admissionController, admission.isSuccess());
+            return;
+        }
+        isDeferringMessages = true;
+        autoReadController.suspend();
+        admission.addListener(ignored -> {
+            isDeferringMessages = false;
+            autoReadController.resume();
+            admitRequest(ctx, request, pendingResponse, queryStringDecoder, service, routeSequence,
+                admissionController, admission.isSuccess());
+            readDeferredMessages(ctx);
+        });
+    }
+
+    private void admitRequest(
+        final ChannelHandlerContext ctx,
+        final HttpRequest request,
+        final PendingResponse pendingResponse,
+        final QueryStringDecoder queryStringDecoder,
+        final HttpServiceInternal service,
+        final HttpRouteSequence routeSequence,
+        final HttpAdmissionController admissionController,
+        final boolean isAdmitted)
+    {
+        pendingResponse.timings.mark(Stage.ADMISSION);
+        if (!isAdmitted) {
+            pendingResponse.setRetryAfter(admissionController.retryAfter());
+            respondWithError(ctx, pendingResponse, SERVICE_UNAVAILABLE, pendingResponse.keepAlive);
+            return;
+        }
+        handleRequest(ctx, request, pendingResponse, queryStringDecoder, service, routeSequence,
+            admissionController);
+    }
+
+    /*
+     * Authorizes and hands given request to given service, which is to use
+     * given route sequence to handle it, unless no route matched the request.
+     * If an admission controller is provided, it is released exactly once
+     * when the request has either been rejected or handled by the service.
+     * In the latter case, the time taken to handle the request is provided
+     * when releasing.
+     */
+    private void handleRequest(
+        final ChannelHandlerContext ctx,
+        final HttpRequest request,
+        final PendingResponse pendingResponse,
+        final QueryStringDecoder queryStringDecoder,
+        final HttpServiceInternal service,
+        final HttpRouteSequence routeSequence,
+        final HttpAdmissionController admissionController)
+    {
+        // Authorize. If the access policy of the service does not decide
+        // right away, reading is suspended and any further messages are
+        // deferred until it has.
+        final var authorization = authorize(ctx, request, service);
+        if (authorization instanceof FutureSuccess || authorization instanceof FutureFailure) {
+            authorization.onResult(result -> handleAuthorizedRequest(ctx, request, pendingResponse,
+                queryStringDecoder, service, routeSequence, admissionController, result));
+            return;
+        }
+        isDeferringMessages = true;
+        autoReadController.suspend();
+        authorization.onResult(result -> ctx.executor().execute(() -> {
+            isDeferringMessages = false;
+            autoReadController.resume();
+            handleAuthorizedRequest(ctx, request, pendingResponse, queryStringDecoder, service, routeSequence,
+                admissionController, result);
+            readDeferredMessages(ctx);
+        }));
+    }
+
+    private void handleAuthorizedRequest(
+        final ChannelHandlerContext ctx,
+        final HttpRequest request,
+        final PendingResponse pendingResponse,
+        final QueryStringDecoder queryStringDecoder,
+        final HttpServiceInternal service,
+        final HttpRouteSequence routeSequence,
+        final HttpAdmissionController admissionController,
+        final Result<Boolean> authorization)
+    {
+        final Runnable release = admissionController != null
+            ? admissionController::release
+            : () -> {};
+
+        final var keepAlive = pendingResponse.keepAlive;
+
+        pendingResponse.timings.mark(Stage.AUTHORIZATION);
+        if (authorization.isFailure()) {
+            final var fault = authorization.fault();
+            if (fault instanceof AccessTokenException || fault instanceof SSLPeerUnverifiedException) {
+                respondWithError(ctx, pendingResponse, UNAUTHORIZED, false);
             }
-            catch (final AccessTokenException | SSLPeerUnverifiedException exception) {
-                sendErrorAndCleanup(ctx, UNAUTHORIZED, false);
-                return;
+            else if (fault instanceof RejectedExecutionException) {
+                respondWithError(ctx, pendingResponse, SERVICE_UNAVAILABLE, keepAlive);
             }
-            catch (final Exception exception) {
-                ctx.fireExceptionCaught(exception);
-                sendErrorAndCleanup(ctx, INTERNAL_SERVER_ERROR, false);
-                return;
+            else {
+                ctx.fireExceptionCaught(fault);
+                respondWithError(ctx, pendingResponse, INTERNAL_SERVER_ERROR, false);
             }
+            release.run();
+            return;
+        }
+        if (!authorization.value()) {
+            respondWithError(ctx, pendingResponse, UNAUTHORIZED, false);
+            release.run();
+            return;
         }
 
         // Resolve encoding.
         final EncodingDescriptor encoding;
         {
             final var optionalEncoding = determineEncodingFrom(service, request.headers());
+            pendingResponse.timings.mark(Stage.NEGOTIATION);
             if (optionalEncoding.isEmpty()) {
-                sendErrorAndCleanup(ctx, UNSUPPORTED_MEDIA_TYPE, keepAlive);
+                respondWithError(ctx, pendingResponse, UNSUPPORTED_MEDIA_TYPE, keepAlive);
+                release.run();
                 return;
             }
             encoding = optionalEncoding.get();
         }
 
-        // Manage `expect: continue` header, if present.
-        if (HttpUtil.is100ContinueExpected(request)) {
+        // Manage `expect: continue` header, if present. The interim response
+        // is only sent if no earlier responses are pending, as it would
+        // otherwise be received before those.
+        if (HttpUtil.is100ContinueExpected(request) && pendingResponseQueue.peek() == pendingResponse) {
             ctx.writeAndFlush(new DefaultFullHttpResponse(request.protocolVersion(), CONTINUE, Unpooled.EMPTY_BUFFER));
         }
 
+        // Compressed request bodies are only inflated after their requests
+        // have been routed and admitted, which is why no decompressor is part
+        // of the channel pipeline.
+        final var compression = HttpContentCodings.findCompressionOf(request.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+        if (compression.isPresent()) {
+            request.headers()
+                .remove(HttpHeaderNames.CONTENT_ENCODING)
+                .remove(HttpHeaderNames.CONTENT_LENGTH);
+            bodyDecompressor = new NettyHttpBodyDecompressor(compression.get());
+        }
+
         // Prepare for receiving HTTP request body and Assemble Kalix request.
-        final var serviceRequestBody = new NettyHttpBodyReceiver(ctx.alloc(), request.headers(), encoding);
+        final var serviceRequestBody = new NettyHttpBodyReceiver(ctx.alloc(), autoReadController,
+            request.headers(), encoding);
         final var serviceRequest = new NettyHttpServiceRequest.Builder()
             .body(serviceRequestBody)
             .queryStringDecoder(queryStringDecoder)
@@ -127,31 +375,202 @@ public class NettyHttpServiceConnectionHandler extends SimpleChannelInboundHandl
             .consumer(consumer)
             .build();
         final var serviceResponseHeaders = new DefaultHttpHeaders();
-        final var serviceResponse = new NettyHttpServiceResponse(request, serviceResponseHeaders, encoding);
+        final var serviceResponse = new NettyHttpServiceResponse(request, serviceResponseHeaders, encoding,
+            service.compression().orElse(null));
         this.body = serviceRequestBody;
+        this.bodyPendingResponse = pendingResponse;
+        pendingResponse.setBody(serviceRequestBody);
+        this.bodySize = 0;
+        this.maxBodySize = service.maxRequestBodySize();
 
-        // Tell service to handle request and then respond to the connected client.
-        service.handle(serviceRequest, serviceResponse).onResult(result -> {
-            try {
-                if (result.isSuccess()) {
-                    HttpUtil.setKeepAlive(serviceResponseHeaders, request.protocolVersion(), keepAlive);
-                    final var channelFuture = serviceResponse.write(ctx.channel());
-                    if (!keepAlive) {
-                        channelFuture.addListener(ChannelFutureListener.CLOSE);
-                    }
-                    return;
+        // Tell service to handle request and then respond to the connected
+        // client, making sure to do so on the event loop of the connection.
+        final var handleStartNanos = System.nanoTime();
+        final var workerPool = service.workerPool();
+        if (workerPool.isEmpty() || routeSequence == null || !routeSequence.isBlocking()) {
+            awaitResponse(ctx, pendingResponse, serviceResponse, admissionController, handleStartNanos,
+                service.handle(routeSequence, serviceRequest, serviceResponse));
+            return;
+        }
+
+        // Hand request to worker pool, as its route may block. Until the
+        // route handler returns, reading is suspended and any further
+        // messages are deferred, as the handler must get the chance to
+        // request the body of the request before any of it is received. The
+        // body is handed to the pool when received, as the continuations of
+        // the handler may block as well.
+        isDeferringMessages = true;
+        autoReadController.suspend();
+        serviceRequestBody.completionExecutor(workerPool.get()::execute);
+        final var submission = workerPool.get()
+            .submit(() -> service.handle(routeSequence, serviceRequest, serviceResponse), ctx.executor());
+        submission.addListener(ignored -> {
+            isDeferringMessages = false;
+            autoReadController.resume();
+            if (submission.isSuccess()) {
+                awaitResponse(ctx, pendingResponse, serviceResponse, admissionController, handleStartNanos,
+                    submission.getNow());
+            }
+            else if (submission.cause() instanceof RejectedExecutionException) {
+                release.run();
+                respondWithError(ctx, pendingResponse, SERVICE_UNAVAILABLE, keepAlive);
+            }
+            else {
+                awaitResponse(ctx, pendingResponse, serviceResponse, admissionController, handleStartNanos,
+                    Future.failure(submission.cause()));
+            }
+            readDeferredMessages(ctx);
+        });
+    }
+
+    /*
+     * Identifies the consumer of the connection, if not already identified,
+     * reusing any cached parsed certificate chain equal to that presented,
+     * and asks the access policy of given service if the request may be
+     * handled. The returned future is failed if the consumer cannot be
+     * identified or the policy is unable to make a decision.
+     */
+    private Future<Boolean> authorize(
+        final ChannelHandlerContext ctx,
+        final HttpRequest request,
+        final HttpServiceInternal service)
+    {
+        try {
+            var token = request.headers().get("authorization");
+            if (token != null && token.regionMatches(true, 0, "bearer ", 0, 7)) {
+                token = token.substring(7).stripLeading();
+            }
+
+            if (consumer == null && sslHandler != null) {
+                final var peerCertificates = sslHandler.engine().getSession().getPeerCertificates();
+                final var optionalChain = consumerChainCache != null
+                    ? consumerChainCache.tryConvert(peerCertificates)
+                    : ArSystemCertificateChain.tryConvert(peerCertificates);
+
+                if (optionalChain.isEmpty()) {
+                    return Future.success(false);
                 }
-                final var fault = result.fault();
-                final var status = (fault instanceof HttpServiceRequestException || fault instanceof DtoReadException)
-                    ? BAD_REQUEST
-                    : INTERNAL_SERVER_ERROR;
-                sendErrorAndCleanup(ctx, status, keepAlive);
-                ctx.fireExceptionCaught(result.fault());
+                consumer = new SystemDescription(optionalChain.get(),
+                    (InetSocketAddress) ctx.channel().remoteAddress());
+            }
+
+            final var accessPolicy = service.accessPolicy();
+            final var verificationPool = service.accessVerificationPool();
+            return verificationPool.isPresent()
+                ? accessPolicy.isAuthorizedAsync(consumer, service.description(), token, verificationPool.get())
+                : accessPolicy.isAuthorizedAsync(consumer, service.description(), token);
+        }
+        catch (final Throwable throwable) {
+            return Future.failure(throwable);
+        }
+    }
+
+    private void awaitResponse(
+        final ChannelHandlerContext ctx,
+        final PendingResponse pendingResponse,
+        final NettyHttpServiceResponse serviceResponse,
+        final HttpAdmissionController admissionController,
+        final long handleStartNanos,
+        final Future<?> future)
+    {
+        future.onResult(result -> {
+            if (admissionController != null) {
+                admissionController.release(System.nanoTime() - handleStartNanos);
+            }
+            if (ctx.executor().inEventLoop()) {
+                completeResponse(ctx, pendingResponse, serviceResponse, result);
+            }
+            else {
+                ctx.executor().execute(() -> completeResponse(ctx, pendingResponse, serviceResponse, result));
+            }
+        });
+    }
+
+    private void completeResponse(
+        final ChannelHandlerContext ctx,
+        final PendingResponse pendingResponse,
+        final NettyHttpServiceResponse serviceResponse,
+        final Result<?> result)
+    {
+        if (pendingResponse.isCompleted()) {
+            return; // Already responded to with an error.
+        }
+        pendingResponse.markHandled();
+        if (result.isSuccess()) {
+            pendingResponse.setServiceResponse(serviceResponse);
+            writePendingResponses(ctx);
+            return;
+        }
+        final var fault = result.fault();
+        final var status = (fault instanceof HttpServiceRequestException || fault instanceof DtoReadException)
+            ? BAD_REQUEST
+            : fault instanceof RejectedExecutionException
+            ? SERVICE_UNAVAILABLE
+            : INTERNAL_SERVER_ERROR;
+        respondWithError(ctx, pendingResponse, status, pendingResponse.keepAlive);
+        ctx.fireExceptionCaught(fault);
+    }
+
+    private void respondWithError(
+        final ChannelHandlerContext ctx,
+        final PendingResponse pendingResponse,
+        final HttpResponseStatus status,
+        final boolean keepAlive)
+    {
+        if (!keepAlive) {
+            isClosing = true;
+        }
+        pendingResponse.setErrorStatus(status, keepAlive);
+        writePendingResponses(ctx);
+    }
+
+    /*
+     * Writes all completed responses at the head of the pending response
+     * queue, in order, and resumes reading from the connection if the queue
+     * is no longer full. If a response with a streamed body is written, no
+     * further responses are written until that body has been sent in full.
+     */
+    private void writePendingResponses(final ChannelHandlerContext ctx) {
+        if (isWritingStreamedResponse) {
+            return;
+        }
+        PendingResponse pendingResponse;
+        while ((pendingResponse = pendingResponseQueue.peek()) != null && pendingResponse.isCompleted()) {
+            pendingResponseQueue.poll();
+            pendingResponse.record();
+            final ChannelFuture channelFuture;
+            try {
+                channelFuture = pendingResponse.write(ctx.channel());
             }
             catch (final Throwable throwable) {
+                pendingResponse.end(metrics);
                 ctx.fireExceptionCaught(throwable);
+                sendErrorAndCleanup(ctx, pendingResponse.version, INTERNAL_SERVER_ERROR, pendingResponse.keepAlive);
+                if (!pendingResponse.keepAlive) {
+                    pendingResponseQueue.clear();
+                    return;
+                }
+                continue;
             }
-        });
+            pendingResponse.endWhenFlushed(channelFuture, metrics);
+            if (!pendingResponse.keepAlive) {
+                channelFuture.addListener(ChannelFutureListener.CLOSE);
+                pendingResponseQueue.clear();
+                return;
+            }
+            if (pendingResponse.isStreaming() && !channelFuture.isDone()) {
+                isWritingStreamedResponse = true;
+                channelFuture.addListener(ignored -> {
+                    isWritingStreamedResponse = false;
+                    writePendingResponses(ctx);
+                });
+                break;
+            }
+        }
+        if (isSuspendingReads && pendingResponseQueue.size() < MAX_PENDING_RESPONSES) {
+            isSuspendingReads = false;
+            autoReadController.resume();
+        }
     }
 
     /**
@@ -180,13 +599,87 @@ public class NettyHttpServiceConnectionHandler extends SimpleChannelInboundHandl
         return Optional.of(service.defaultEncoding());
     }
 
-    private void readContent(final HttpContent content) {
+    /*
+     * The decoder fails with the same exception type whether the request line
+     * or the header section exceeds its limit, and the request line is lost
+     * if it is the one being too long. As the two cases cannot be reliably
+     * told apart, both are reported as the head of the request being too
+     * large.
+     */
+    private static HttpResponseStatus statusOf(final Throwable decoderFailure) {
+        return decoderFailure instanceof TooLongFrameException
+            ? REQUEST_HEADER_FIELDS_TOO_LARGE
+            : BAD_REQUEST;
+    }
+
+    private void readContent(final ChannelHandlerContext ctx, final HttpContent content) {
         if (body == null) {
             return;
         }
-        body.append(content);
-        if (content instanceof LastHttpContent) {
+        final var isLast = content instanceof LastHttpContent;
+        if (bodyDecompressor != null) {
+            final var decompressor = bodyDecompressor;
+            if (!decompressor.decompress(content.content(), inflated -> appendContent(ctx, inflated))) {
+                return;
+            }
+            if (isLast && !decompressor.finish(inflated -> appendContent(ctx, inflated))) {
+                return;
+            }
+        }
+        else if (!appendContent(ctx, content.content())) {
+            return;
+        }
+        if (isLast) {
+            bodyDecompressor = null;
             body.finish((LastHttpContent) content);
+            body = null;
+        }
+    }
+
+    /*
+     * Appends given content to the current request body, unless the body
+     * would become too large, in which case the body is rejected.
+     */
+    private boolean appendContent(final ChannelHandlerContext ctx, final ByteBuf content) {
+        bodySize += content.readableBytes();
+        if (bodySize > maxBodySize) {
+            rejectBody(ctx);
+            return false;
+        }
+        body.append(new DefaultHttpContent(content));
+        return true;
+    }
+
+    private void closeBodyDecompressor() {
+        if (bodyDecompressor != null) {
+            bodyDecompressor.close();
+            bodyDecompressor = null;
+        }
+    }
+
+    /*
+     * Stops receiving the current request body, responds with status 413
+     * unless a response already has been decided upon, and ensures the
+     * connection is closed after the response has been sent.
+     */
+    private void rejectBody(final ChannelHandlerContext ctx) {
+        final var body = this.body;
+        this.body = null;
+        closeBodyDecompressor();
+        isClosing = true;
+
+        final var pendingResponse = bodyPendingResponse;
+        if (!pendingResponse.isCompleted()) {
+            respondWithError(ctx, pendingResponse, REQUEST_ENTITY_TOO_LARGE, false);
+        }
+        else if (pendingResponseQueue.contains(pendingResponse)) {
+            pendingResponse.keepAlive = false;
+        }
+        else {
+            ctx.close();
+        }
+        if (body.isBodyRequested()) {
+            body.abort(new HttpServiceRequestException(HttpStatus.PAYLOAD_TOO_LARGE));
         }
     }
 
@@ -211,37 +704,211 @@ public class NettyHttpServiceConnectionHandler extends SimpleChannelInboundHandl
         if (evt instanceof IdleStateEvent) {
             final var idleStateEvent = (IdleStateEvent) evt;
             if (idleStateEvent.state() == IdleState.READER_IDLE) {
-                if (body != null) {
-                    body.abort(new HttpServiceRequestException(HttpStatus.REQUEST_TIMEOUT));
-                    sendErrorAndCleanup(ctx, REQUEST_TIMEOUT, false);
-                }
+                timeOutReading(ctx);
+                return;
             }
             ctx.close();
         }
     }
 
-    private void sendErrorAndCleanup(
+    /*
+     * Stops receiving any current request body and closes the connection
+     * after all pending responses have been sent. If a request body was
+     * being received, its response is replaced by one with status 408,
+     * unless a response already has been decided upon. The 408 response
+     * keeps its place in the pending response queue.
+     */
+    private void timeOutReading(final ChannelHandlerContext ctx) {
+        final var body = this.body;
+        this.body = null;
+        closeBodyDecompressor();
+        isClosing = true;
+
+        if (body != null && !bodyPendingResponse.isCompleted()) {
+            respondWithError(ctx, bodyPendingResponse, REQUEST_TIMEOUT, false);
+        }
+        else {
+            final var lastPendingResponse = pendingResponseQueue.peekLast();
+            if (lastPendingResponse != null) {
+                lastPendingResponse.keepAlive = false;
+            }
+            else {
+                ctx.close();
+            }
+        }
+        if (body != null) {
+            body.abort(new HttpServiceRequestException(HttpStatus.REQUEST_TIMEOUT));
+        }
+    }
+
+    private static void sendErrorAndCleanup(
         final ChannelHandlerContext ctx,
+        final HttpVersion version,
         final HttpResponseStatus status,
         final boolean keepAlive)
     {
-        final HttpHeaders headers;
-        final var version = request != null
-            ? request.protocolVersion()
-            : HttpVersion.HTTP_1_1;
+        final var future = ctx.writeAndFlush(createErrorResponse(version, status, keepAlive));
+        if (!keepAlive) {
+            future.addListener(ChannelFutureListener.CLOSE);
+        }
+    }
 
-        headers = new DefaultHttpHeaders(false)
+    private static FullHttpResponse createErrorResponse(
+        final HttpVersion version,
+        final HttpResponseStatus status,
+        final boolean keepAlive)
+    {
+        final var headers = new DefaultHttpHeaders(false)
             .add("content-length", "0");
 
         if (keepAlive) {
             HttpUtil.setKeepAlive(headers, version, true);
         }
 
-        final var future = ctx.writeAndFlush(new DefaultFullHttpResponse(
-            version, status, Unpooled.EMPTY_BUFFER, headers, EmptyHttpHeaders.INSTANCE));
+        return new DefaultFullHttpResponse(version, status, Unpooled.EMPTY_BUFFER, headers, EmptyHttpHeaders.INSTANCE);
+    }
 
-        if (!keepAlive) {
-            future.addListener(ChannelFutureListener.CLOSE);
+    /**
+     * The state of a received request that is yet to be responded to.
+     */
+    private static class PendingResponse {
+        private final HttpVersion version;
+        private final HttpRequestTimings timings;
+
+        private boolean keepAlive;
+        private HttpRouteMetrics routeMetrics;
+        private HttpServerRequestEvent event = null;
+        private NettyHttpBodyReceiver body = null;
+        private NettyHttpServiceResponse serviceResponse = null;
+        private HttpResponseStatus errorStatus = null;
+        private Duration retryAfter = null;
+
+        private PendingResponse(
+            final HttpVersion version,
+            final boolean keepAlive,
+            final HttpRequestTimings timings,
+            final HttpRouteMetrics routeMetrics)
+        {
+            this.version = version;
+            this.keepAlive = keepAlive;
+            this.timings = timings;
+            this.routeMetrics = routeMetrics;
+        }
+
+        void setRouteMetrics(final HttpRouteMetrics routeMetrics) {
+            this.routeMetrics = routeMetrics;
+        }
+
+        void beginEvent() {
+            event = new HttpServerRequestEvent();
+            event.begin();
+        }
+
+        void setBody(final NettyHttpBodyReceiver body) {
+            this.body = body;
+        }
+
+        void markHandled() {
+            timings.mark(Stage.HANDLING);
+            if (body != null) {
+                final var decodingNanos = body.decodingNanos();
+                if (decodingNanos > 0L) {
+                    timings.add(Stage.DECODING, decodingNanos);
+                }
+            }
+        }
+
+        /*
+         * Records the time passed since the request of this response was
+         * received, which is expected to be done when the response is about
+         * to be written.
+         */
+        void record() {
+            final int status;
+            if (errorStatus != null) {
+                status = errorStatus.code();
+            }
+            else {
+                status = serviceResponse.status().map(HttpStatus::code).orElse(500);
+            }
+            routeMetrics.record(timings.method(), status, timings.total().toNanos());
+            timings.outcome(routeMetrics.service(), routeMetrics.route(), status);
+        }
+
+        /*
+         * Records the time spent writing this response, which is expected to
+         * have just been written to given channel future, and ends its
+         * timings once it has been flushed.
+         */
+        void endWhenFlushed(final ChannelFuture channelFuture, final HttpServerMetrics metrics) {
+            final var flushStartNanos = System.nanoTime();
+            channelFuture.addListener(ignored -> {
+                timings.add(Stage.FLUSHING, System.nanoTime() - flushStartNanos);
+                end(metrics);
+            });
+        }
+
+        void end(final HttpServerMetrics metrics) {
+            timings.end();
+            metrics.record(timings);
+            if (event != null) {
+                event.method = timings.method().name();
+                event.uri = timings.uri();
+                event.service = timings.service();
+                event.route = timings.route();
+                event.status = timings.status();
+                event.commit();
+            }
+        }
+
+        boolean isCompleted() {
+            return serviceResponse != null || errorStatus != null;
+        }
+
+        void setServiceResponse(final NettyHttpServiceResponse serviceResponse) {
+            this.serviceResponse = serviceResponse;
+        }
+
+        void setErrorStatus(final HttpResponseStatus errorStatus, final boolean keepAlive) {
+            this.serviceResponse = null;
+            this.errorStatus = errorStatus;
+            this.keepAlive = keepAlive;
+        }
+
+        void setRetryAfter(final Duration retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+
+        boolean isStreaming() {
+            return serviceResponse != null && serviceResponse.isStreaming();
+        }
+
+        ChannelFuture write(final Channel channel) throws DtoWriteException, IOException {
+            final var encodeStartNanos = System.nanoTime();
+            try {
+                return write0(channel);
+            }
+            finally {
+                timings.add(Stage.ENCODING, System.nanoTime() - encodeStartNanos);
+            }
+        }
+
+        private ChannelFuture write0(final Channel channel) throws DtoWriteException, IOException {
+            if (errorStatus != null) {
+                final var response = createErrorResponse(version, errorStatus, keepAlive);
+                if (retryAfter != null) {
+                    final var seconds = (retryAfter.toMillis() + 999) / 1000;
+                    response.headers().set(HttpHeaderNames.RETRY_AFTER, seconds);
+                }
+                return channel.writeAndFlush(response);
+            }
+            if (isStreaming() && version.equals(HttpVersion.HTTP_1_0)) {
+                // Streamed HTTP/1.0 bodies are terminated by closing the
+                // connection.
+                keepAlive = false;
+            }
+            HttpUtil.setKeepAlive(serviceResponse.headers().unwrap(), version, keepAlive);
+            return serviceResponse.write(channel);
         }
     }
 }
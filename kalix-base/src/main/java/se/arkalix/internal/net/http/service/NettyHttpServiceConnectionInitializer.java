@@ -1,48 +1,192 @@
 package se.arkalix.internal.net.http.service;
 
-import io.netty.handler.ssl.SslHandler;
+import se.arkalix.internal.jfr.HttpServerConnectionEvent;
+import se.arkalix.internal.jfr.TlsHandshakeEvent;
+import se.arkalix.internal.net.NettySslContexts;
+import se.arkalix.internal.security.identity.ArSystemCertificateChainCache;
+import se.arkalix.net.http.service.HttpServerLimits;
+import se.arkalix.net.http.service.HttpServerMetrics;
+import se.arkalix.security.TlsHandshakePool;
 import se.arkalix.util.annotation.Internal;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
-import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
 import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.handler.timeout.IdleStateHandler;
 
-import javax.net.ssl.SSLEngine;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
 /**
  * {@link ChannelInitializer} useful for managing incoming HTTP connections.
+ * <p>
+ * Both HTTP/1.1 and HTTP/2 connections are accepted. If an SSL/TLS context is
+ * provided, the protocol to use is negotiated via the TLS Application-Layer
+ * Protocol Negotiation (ALPN) extension. Otherwise, HTTP/2 is used only if a
+ * connecting client immediately sends the HTTP/2 connection preface, which is
+ * referred to as "prior knowledge" in RFC 7540, Section 3.4. Every HTTP/2
+ * stream is handled as if it was a separate HTTP/1.1 connection receiving a
+ * single request. Compressed request bodies are decompressed by
+ * {@link NettyHttpServiceConnectionHandler} once their requests have been
+ * routed and admitted.
  */
 @Internal
-public class NettyHttpServiceConnectionInitializer extends ChannelInitializer<SocketChannel> {
+public class NettyHttpServiceConnectionInitializer extends ChannelInitializer<Channel> {
+    private static final ByteBuf HTTP2_CONNECTION_PREFACE =
+        Unpooled.unreleasableBuffer(Http2CodecUtil.connectionPrefaceBuf());
+
     private final HttpServiceLookup serviceLookup;
     private final SslContext sslContext;
+    private final HttpServerLimits limits;
+    private final HttpServerMetrics metrics;
+    private final ArSystemCertificateChainCache consumerChainCache;
+    private final TlsHandshakePool handshakePool;
 
     /**
-     * @param serviceLookup Function to use for determining what
-     *                      {@link HttpServiceInternal HttpService}
-     *                      to forward received requests to.
-     * @param sslContext    SSL/TLS context from Netty bootstrap used to
+     * @param serviceLookup      Function to use for determining what
+     *                           {@link HttpServiceInternal HttpService}
+     *                           to forward received requests to.
+     * @param sslContext         SSL/TLS context from Netty bootstrap used to
+     *                           secure and negotiate the protocols of
+     *                           accepted connections, or {@code null}.
+     * @param limits             Limits to apply to accepted connections and
+     *                           the requests received through them.
+     * @param metrics            Metrics registry to record request latencies
+     *                           in.
+     * @param consumerChainCache Cache of consumer certificate chains verified
+     *                           using the trust manager of
+     *                           {@code sslContext}, or {@code null}.
+     * @param handshakePool      Pool to execute TLS handshake tasks with, or
+     *                           {@code null} if such tasks are to be executed
+     *                           by the I/O threads of accepted connections.
      */
-    public NettyHttpServiceConnectionInitializer(final HttpServiceLookup serviceLookup, final SslContext sslContext) {
+    public NettyHttpServiceConnectionInitializer(
+        final HttpServiceLookup serviceLookup,
+        final SslContext sslContext,
+        final HttpServerLimits limits,
+        final HttpServerMetrics metrics,
+        final ArSystemCertificateChainCache consumerChainCache,
+        final TlsHandshakePool handshakePool)
+    {
         this.serviceLookup = Objects.requireNonNull(serviceLookup, "Expected serviceLookup");
         this.sslContext = sslContext;
+        this.limits = Objects.requireNonNull(limits, "Expected limits");
+        this.metrics = Objects.requireNonNull(metrics, "Expected metrics");
+        this.consumerChainCache = consumerChainCache;
+        this.handshakePool = handshakePool;
     }
 
     @Override
-    protected void initChannel(final SocketChannel ch) {
+    protected void initChannel(final Channel ch) {
+        HttpServerConnectionEvent.monitor(ch, sslContext != null);
         final var pipeline = ch.pipeline();
-        SslHandler sslHandler = null;
         if (sslContext != null) {
-            sslHandler = sslContext.newHandler(ch.alloc());
-            pipeline.addLast(sslHandler);
+            final var sslHandler = NettySslContexts.newHandler(sslContext, ch.alloc(), null, handshakePool);
+            TlsHandshakeEvent.monitor(sslHandler, ch, false);
+            pipeline
+                .addLast(sslHandler)
+                .addLast(createIdleStateHandler())
+                .addLast(new ApplicationProtocolNegotiationHandler(ApplicationProtocolNames.HTTP_1_1) {
+                    @Override
+                    protected void configurePipeline(final ChannelHandlerContext ctx, final String protocol) {
+                        if (ApplicationProtocolNames.HTTP_2.equals(protocol)) {
+                            configureHttp2(ctx.pipeline(), sslHandler);
+                        }
+                        else {
+                            configureHttp1(ctx.pipeline(), sslHandler);
+                        }
+                    }
+                });
+        }
+        else {
+            pipeline
+                //.addLast(new LoggingHandler(LogLevel.INFO))
+                .addLast(createIdleStateHandler())
+                .addLast(new PriorKnowledgeHandler());
         }
+    }
+
+    private IdleStateHandler createIdleStateHandler() {
+        return new IdleStateHandler(
+            limits.readerIdleTimeout().toMillis(),
+            limits.writerIdleTimeout().toMillis(),
+            limits.allIdleTimeout().toMillis(),
+            TimeUnit.MILLISECONDS);
+    }
+
+    private void configureHttp1(final ChannelPipeline pipeline, final SslHandler sslHandler) {
         pipeline
-            //.addLast(new LoggingHandler(LogLevel.INFO))
-            .addLast(new IdleStateHandler(30, 90, 0, TimeUnit.SECONDS)) // TODO: Make configurable.
-            .addLast(new HttpServerCodec()) // TODO: Make message size restrictions configurable.
-            .addLast(new NettyHttpServiceConnectionHandler(serviceLookup, sslHandler));
+            .addLast(new HttpServerCodec(limits.maxInitialLineLength(), limits.maxHeaderSize(), limits.maxChunkSize()))
+            .addLast(new NettyHttpServiceConnectionHandler(serviceLookup, sslHandler, metrics,
+                consumerChainCache));
+    }
+
+    private void configureHttp2(final ChannelPipeline pipeline, final SslHandler sslHandler) {
+        pipeline
+            .addLast(Http2FrameCodecBuilder.forServer()
+                .initialSettings(Http2Settings.defaultSettings().maxHeaderListSize(limits.maxHeaderSize()))
+                .build())
+            .addLast(new Http2MultiplexHandler(new ChannelInitializer<Http2StreamChannel>() {
+                @Override
+                protected void initChannel(final Http2StreamChannel ch) {
+                    ch.pipeline()
+                        .addLast(new Http2StreamFrameToHttpObjectCodec(true))
+                        .addLast(new ChunkedWriteHandler())
+                        .addLast(new NettyHttpServiceConnectionHandler(serviceLookup, sslHandler, metrics,
+                            consumerChainCache));
+                }
+            }))
+            .addLast(new ChannelInboundHandlerAdapter() {
+                @Override
+                public void userEventTriggered(final ChannelHandlerContext ctx, final Object evt) {
+                    if (evt instanceof IdleStateEvent) {
+                        ctx.close();
+                    }
+                    else {
+                        ctx.fireUserEventTriggered(evt);
+                    }
+                }
+            });
+    }
+
+    /*
+     * Configures the pipeline for HTTP/2 if the first bytes received are the
+     * HTTP/2 connection preface, or for HTTP/1.1 otherwise.
+     */
+    private class PriorKnowledgeHandler extends ByteToMessageDecoder {
+        @Override
+        protected void decode(final ChannelHandlerContext ctx, final ByteBuf in, final List<Object> out) {
+            final var preface = HTTP2_CONNECTION_PREFACE;
+            final var length = Math.min(in.readableBytes(), preface.readableBytes());
+            if (!ByteBufUtil.equals(preface, preface.readerIndex(), in, in.readerIndex(), length)) {
+                configureHttp1(ctx.pipeline(), null);
+            }
+            else if (length == preface.readableBytes()) {
+                configureHttp2(ctx.pipeline(), null);
+            }
+            else {
+                return; // Await more bytes.
+            }
+            ctx.pipeline().remove(this);
+        }
     }
 }
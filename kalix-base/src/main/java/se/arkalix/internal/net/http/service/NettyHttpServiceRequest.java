@@ -14,11 +14,13 @@ import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.QueryStringDecoder;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Flow;
 
 import static se.arkalix.internal.net.http.NettyHttpAdapters.adapt;
 
@@ -37,7 +39,7 @@ public class NettyHttpServiceRequest implements HttpServiceRequest {
         body = Objects.requireNonNull(builder.body, "Expected body");
         queryStringDecoder = Objects.requireNonNull(builder.queryStringDecoder, "Expected queryStringDecoder");
         request = Objects.requireNonNull(builder.request, "Expected request");
-        consumer = Objects.requireNonNull(builder.consumer, "Expected consumer");
+        consumer = builder.consumer;
     }
 
     @Override
@@ -60,6 +62,11 @@ public class NettyHttpServiceRequest implements HttpServiceRequest {
         return body.bodyAsStream();
     }
 
+    @Override
+    public Flow.Publisher<ByteBuffer> bodyAsPublisher() {
+        return body.bodyAsPublisher();
+    }
+
     @Override
     public FutureProgress<String> bodyAsString() {
         return body.bodyAsString();
@@ -6,24 +6,34 @@ import se.arkalix.dto.DtoWritable;
 import se.arkalix.dto.DtoWriteException;
 import se.arkalix.dto.DtoWriter;
 import se.arkalix.internal.dto.binary.ByteBufWriter;
+import se.arkalix.internal.net.http.HttpContentCodings;
 import se.arkalix.internal.net.http.HttpMediaTypes;
 import se.arkalix.net.http.HttpHeaders;
 import se.arkalix.net.http.HttpStatus;
 import se.arkalix.net.http.HttpVersion;
+import se.arkalix.net.http.service.HttpCompression;
 import se.arkalix.net.http.service.HttpServiceResponse;
 import se.arkalix.util.annotation.Internal;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelPromise;
 import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
 import io.netty.handler.codec.http.*;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.stream.ChunkedNioFile;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Flow;
 
 import static se.arkalix.internal.net.http.NettyHttpAdapters.adapt;
 import static io.netty.handler.codec.http.HttpHeaderNames.*;
@@ -31,6 +41,7 @@ import static io.netty.handler.codec.http.HttpHeaderNames.*;
 @Internal
 public class NettyHttpServiceResponse implements HttpServiceResponse {
     private final EncodingDescriptor encoding;
+    private final HttpCompression compression;
     private final HttpRequest request;
     private final io.netty.handler.codec.http.HttpHeaders nettyHeaders;
 
@@ -43,20 +54,40 @@ public class NettyHttpServiceResponse implements HttpServiceResponse {
     public NettyHttpServiceResponse(
         final HttpRequest request,
         final io.netty.handler.codec.http.HttpHeaders headers,
-        final EncodingDescriptor encoding)
+        final EncodingDescriptor encoding,
+        final HttpCompression compression)
     {
         this.encoding = encoding;
+        this.compression = compression;
         this.nettyHeaders = headers;
         this.request = request;
     }
 
+    /**
+     * @return {@code true} only if the body of this response is set to a
+     * {@link Flow.Publisher}, which means that the future returned by
+     * {@link #write(Channel)} completes only after the last published chunk
+     * has been written.
+     */
+    public boolean isStreaming() {
+        return body instanceof Flow.Publisher;
+    }
+
     public ChannelFuture write(final Channel channel)
         throws DtoWriteException, IOException
     {
         final var nettyStatus = adapt(status);
         final var nettyVersion = request.protocolVersion();
 
-        final ByteBuf content;
+        if (isStreaming()) {
+            return writeStreaming(channel, nettyVersion, nettyStatus);
+        }
+
+        if (compression != null) {
+            nettyHeaders.add(VARY, ACCEPT_ENCODING);
+        }
+
+        ByteBuf content;
         if (body == null) {
             content = Unpooled.EMPTY_BUFFER;
         }
@@ -79,6 +110,12 @@ public class NettyHttpServiceResponse implements HttpServiceResponse {
             nettyHeaders.set(CONTENT_LENGTH, length);
 
             channel.write(new DefaultHttpResponse(nettyVersion, nettyStatus, nettyHeaders));
+
+            // File regions cannot be sent via HTTP/2 streams, as their
+            // contents must be wrapped in DATA frames.
+            if (channel instanceof Http2StreamChannel) {
+                return channel.writeAndFlush(new HttpChunkedInput(new ChunkedNioFile(file.getChannel())));
+            }
             channel.write(new DefaultFileRegion(file.getChannel(), 0, length));
             return channel.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
         }
@@ -89,6 +126,7 @@ public class NettyHttpServiceResponse implements HttpServiceResponse {
         else {
             throw new IllegalStateException("Invalid response body supplied \"" + body + "\"");
         }
+        content = compressIfAppropriate(channel, content);
         nettyHeaders.set(CONTENT_LENGTH, content.readableBytes());
 
         if (!nettyHeaders.contains(CONTENT_TYPE)) {
@@ -99,6 +137,59 @@ public class NettyHttpServiceResponse implements HttpServiceResponse {
             EmptyHttpHeaders.INSTANCE));
     }
 
+    private ByteBuf compressIfAppropriate(final Channel channel, final ByteBuf content) {
+        if (compression == null
+            || content.readableBytes() < compression.threshold()
+            || nettyHeaders.contains(CONTENT_ENCODING))
+        {
+            return content;
+        }
+        final var optionalWrapper = HttpContentCodings
+            .findCompressionAcceptedBy(request.headers().get(ACCEPT_ENCODING));
+        if (optionalWrapper.isEmpty()) {
+            return content;
+        }
+        final var wrapper = optionalWrapper.get();
+
+        final var encoder = new EmbeddedChannel(channel.id(), channel.metadata().hasDisconnect(), channel.config(),
+            ZlibCodecFactory.newZlibEncoder(wrapper, compression.level()));
+        encoder.writeOutbound(content);
+        encoder.finish();
+
+        final var compressed = channel.alloc().compositeBuffer();
+        ByteBuf buffer;
+        while ((buffer = encoder.readOutbound()) != null) {
+            compressed.addComponent(true, buffer);
+        }
+        nettyHeaders.set(CONTENT_ENCODING, HttpContentCodings.nameOf(wrapper));
+        return compressed;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ChannelFuture writeStreaming(
+        final Channel channel,
+        final io.netty.handler.codec.http.HttpVersion nettyVersion,
+        final HttpResponseStatus nettyStatus)
+    {
+        nettyHeaders.remove(CONTENT_LENGTH);
+
+        // HTTP/1.0 does not support chunked transfer encoding. The end of the
+        // body is signalled by closing the connection instead.
+        if (!nettyVersion.equals(io.netty.handler.codec.http.HttpVersion.HTTP_1_0)) {
+            nettyHeaders.set(TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+        }
+
+        if (!nettyHeaders.contains(CONTENT_TYPE)) {
+            nettyHeaders.set(CONTENT_TYPE, HttpMediaTypes.toMediaType(encoding));
+        }
+
+        channel.writeAndFlush(new DefaultHttpResponse(nettyVersion, nettyStatus, nettyHeaders));
+
+        final var promise = channel.newPromise();
+        ((Flow.Publisher<ByteBuffer>) body).subscribe(new ChunkWriter(channel, promise));
+        return promise;
+    }
+
     @Override
     public Optional<Object> body() {
         return Optional.ofNullable(body);
@@ -135,6 +226,12 @@ public class NettyHttpServiceResponse implements HttpServiceResponse {
         return this;
     }
 
+    @Override
+    public HttpServiceResponse body(final Flow.Publisher<ByteBuffer> publisher) {
+        body = Objects.requireNonNull(publisher, "Expected publisher");
+        return this;
+    }
+
     @Override
     public HttpServiceResponse clearBody() {
         body = null;
@@ -184,4 +281,78 @@ public class NettyHttpServiceResponse implements HttpServiceResponse {
         }
         return version;
     }
+
+    /*
+     * Writes each published buffer as a separate HTTP chunk. A new buffer is
+     * only requested while the channel remains writable, or when the write of
+     * the previous buffer has completed, which bounds the amount of memory
+     * occupied by outgoing chunks to roughly the high water mark of the
+     * channel.
+     */
+    private static class ChunkWriter implements Flow.Subscriber<ByteBuffer> {
+        private final Channel channel;
+        private final ChannelPromise promise;
+
+        private Flow.Subscription subscription = null;
+
+        private ChunkWriter(final Channel channel, final ChannelPromise promise) {
+            this.channel = channel;
+            this.promise = promise;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            if (this.subscription != null) {
+                subscription.cancel();
+                return;
+            }
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(final ByteBuffer item) {
+            final var future = channel.writeAndFlush(new DefaultHttpContent(Unpooled.wrappedBuffer(item)));
+            final var isWritable = channel.isWritable();
+            future.addListener(ignored -> {
+                if (!future.isSuccess()) {
+                    subscription.cancel();
+                    abort(future.cause());
+                }
+                else if (!isWritable) {
+                    subscription.request(1);
+                }
+            });
+            if (isWritable) {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            abort(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            final var future = channel.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+            future.addListener(ignored -> {
+                if (future.isSuccess()) {
+                    promise.trySuccess();
+                }
+                else {
+                    abort(future.cause());
+                }
+            });
+        }
+
+        // The response head has already been sent, which means that the only
+        // way left to signal a failure to the receiver is to close the
+        // connection, or stream, before the body is complete.
+        private void abort(final Throwable cause) {
+            if (promise.tryFailure(cause)) {
+                channel.close();
+            }
+        }
+    }
 }
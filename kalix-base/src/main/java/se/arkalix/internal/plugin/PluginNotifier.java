@@ -3,6 +3,7 @@ package se.arkalix.internal.plugin;
 import se.arkalix.ArService;
 import se.arkalix.ArSystem;
 import se.arkalix.description.ServiceDescription;
+import se.arkalix.internal.jfr.PluginCallbackEvent;
 import se.arkalix.plugin.Plug;
 import se.arkalix.plugin.Plugin;
 import se.arkalix.util.annotation.Internal;
@@ -50,34 +51,38 @@ public class PluginNotifier {
                 },
             plugin -> plugin)
         );
-        forEach((plug, plugin) -> plugin.onAttach(plug));
+        forEach("onAttach", (plug, plugin) -> plugin.onAttach(plug));
     }
 
     public void clear() {
-        forEach((plug, plugin) -> plugin.onDetach(plug));
+        forEach("onDetach", (plug, plugin) -> plugin.onDetach(plug));
         plugins.clear();
     }
 
     public Future<?> onServicePrepared(final ArService service) {
-        return serialize((plug, plugin) -> plugin.onServicePrepared(plug, service));
+        return serialize("onServicePrepared", (plug, plugin) -> plugin.onServicePrepared(plug, service));
     }
 
     public Future<?> onServiceProvided(final ServiceDescription service) {
-        return serialize((plug, plugin) -> plugin.onServiceProvided(plug, service));
+        return serialize("onServiceProvided", (plug, plugin) -> plugin.onServiceProvided(plug, service));
     }
 
     public void onServiceDismissed(final ServiceDescription service) {
-        forEach((plug, plugin) -> plugin.onServiceDismissed(plug, service));
+        forEach("onServiceDismissed", (plug, plugin) -> plugin.onServiceDismissed(plug, service));
     }
 
-    private void forEach(final ThrowingBiConsumer<Plug, Plugin> consumer) {
+    private void forEach(final String callback, final ThrowingBiConsumer<Plug, Plugin> consumer) {
         for (final var entry : plugins.entrySet()) {
             final var plugin = entry.getValue();
             final var plug = entry.getKey();
+            final var event = new PluginCallbackEvent();
+            event.begin();
             try {
                 consumer.accept(plug, plugin);
+                commit(event, plugin, callback, false);
             }
             catch (final Throwable throwable) {
+                commit(event, plugin, callback, true);
                 plugins.remove(plug);
                 try {
                     plugin.onDetach(plug, throwable);
@@ -90,16 +95,37 @@ public class PluginNotifier {
         }
     }
 
-    private Future<?> serialize(final ThrowingBiFunction<Plug, Plugin, Future<?>> function) {
+    private Future<?> serialize(final String callback, final ThrowingBiFunction<Plug, Plugin, Future<?>> function) {
         return Futures.serialize(plugins.entrySet()
             .stream()
             .map(entry -> {
+                final var plugin = entry.getValue();
+                final var event = new PluginCallbackEvent();
+                event.begin();
                 try {
-                    return function.apply(entry.getKey(), entry.getValue());
+                    final var future = function.apply(entry.getKey(), plugin);
+                    commit(event, plugin, callback, false);
+                    return future;
                 }
                 catch (final Throwable throwable) {
+                    commit(event, plugin, callback, true);
                     return Future.failure(throwable);
                 }
             }));
     }
+
+    private static void commit(
+        final PluginCallbackEvent event,
+        final Plugin plugin,
+        final String callback,
+        final boolean isFailure)
+    {
+        event.end();
+        if (event.shouldCommit()) {
+            event.pluginClass = plugin.getClass();
+            event.callback = callback;
+            event.isFailure = isFailure;
+            event.commit();
+        }
+    }
 }
@@ -0,0 +1,100 @@
+package se.arkalix.internal.security.access;
+
+import se.arkalix.internal.util.concurrent.BoundedCache;
+import se.arkalix.util.annotation.Internal;
+
+import java.security.PrivateKey;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded cache of verified {@link AccessToken}s, keyed by the encrypted
+ * tokens they were read from.
+ * <p>
+ * Reading a token requires it to be decrypted and its signature to be
+ * verified, both of which are expensive. As consumers tend to present the same
+ * token for as long as it remains valid, remembering the outcome of reading
+ * each token saves most of that effort. Only successfully read tokens are
+ * cached, and each is only returned until it expires. A token is also only
+ * returned if it was read with the same receiver key as the one it is looked
+ * up with, as the same cache may be used for services with different keys.
+ * <p>
+ * Tokens are evicted from the cache as described by {@link BoundedCache},
+ * with expired tokens being considered stale.
+ */
+@Internal
+public class AccessTokenCache {
+    private final LongSupplier clock;
+    private final BoundedCache<String, Entry> entries;
+
+    /**
+     * Creates new access token cache.
+     *
+     * @param capacity Maximum number of tokens to hold.
+     * @throws IllegalArgumentException If {@code capacity} is not positive.
+     */
+    public AccessTokenCache(final int capacity) {
+        this(capacity, System::currentTimeMillis);
+    }
+
+    AccessTokenCache(final int capacity, final LongSupplier clock) {
+        this.clock = Objects.requireNonNull(clock, "Expected clock");
+        entries = new BoundedCache<>(capacity, entry -> entry.accessToken.expiresAtMillis() <= clock.getAsLong());
+    }
+
+    /**
+     * Gets cached and not yet expired token read from given {@code token}
+     * using given {@code receiverKey}, if any.
+     *
+     * @param token       Encrypted token.
+     * @param receiverKey Private key of receiver of token.
+     * @return Cached token, or {@code null}.
+     */
+    public AccessToken get(final String token, final PrivateKey receiverKey) {
+        final var entry = entries.get(token);
+        if (entry == null || entry.receiverKey != receiverKey) {
+            return null;
+        }
+        if (entry.accessToken.expiresAtMillis() <= clock.getAsLong()) {
+            entries.remove(token, entry);
+            return null;
+        }
+        return entry.accessToken;
+    }
+
+    /**
+     * Caches given {@code accessToken}, read from given {@code token} using
+     * given {@code receiverKey}.
+     *
+     * @param token       Encrypted token.
+     * @param receiverKey Private key of receiver of token.
+     * @param accessToken Token read and verified from {@code token}.
+     */
+    public void put(final String token, final PrivateKey receiverKey, final AccessToken accessToken) {
+        entries.put(token, new Entry(receiverKey, accessToken));
+    }
+
+    /**
+     * @return Number of cached tokens, some of which may have expired.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes all cached tokens.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    private static class Entry {
+        private final PrivateKey receiverKey;
+        private final AccessToken accessToken;
+
+        private Entry(final PrivateKey receiverKey, final AccessToken accessToken) {
+            this.receiverKey = receiverKey;
+            this.accessToken = accessToken;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package se.arkalix.internal.security.identity;
+
+import se.arkalix.internal.util.concurrent.BoundedCache;
+import se.arkalix.security.identity.ArSystemCertificateChain;
+import se.arkalix.util.annotation.Internal;
+
+import java.security.cert.Certificate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A bounded cache of {@link ArSystemCertificateChain}s, keyed by the
+ * certificate chains they were converted from.
+ * <p>
+ * The names of Arrowhead systems are determined by parsing the Distinguished
+ * Names of their certificates, which is done lazily by each
+ * {@link ArSystemCertificateChain} and then remembered by it. As the same
+ * consumers tend to connect repeatedly, and every HTTP/2 stream is handled as
+ * if it was a separate connection, handing out the same chain object for the
+ * same certificates avoids most of that parsing. Two chains are considered to
+ * be the same only if all of their certificates have identical encodings.
+ * <p>
+ * Only chains already verified by a trust manager are expected to be given
+ * to the cache, which means that a cache must not outlive the trust store it
+ * is used with. Chains are evicted from the cache as described by
+ * {@link BoundedCache}.
+ */
+@Internal
+public class ArSystemCertificateChainCache {
+    private final BoundedCache<List<Certificate>, ArSystemCertificateChain> entries;
+
+    /**
+     * Creates new Arrowhead system certificate chain cache.
+     *
+     * @param capacity Maximum number of chains to hold.
+     * @throws IllegalArgumentException If {@code capacity} is not positive.
+     */
+    public ArSystemCertificateChainCache(final int capacity) {
+        entries = new BoundedCache<>(capacity);
+    }
+
+    /**
+     * Gets cached Arrowhead system certificate chain equal to given
+     * {@code chain}, or attempts to convert and cache {@code chain} if no such
+     * is cached.
+     *
+     * @param chain Certificate chain.
+     * @return Cached or new Arrowhead system certificate chain, unless
+     * {@code chain} cannot be converted.
+     * @see ArSystemCertificateChain#tryConvert(Certificate[])
+     */
+    public Optional<ArSystemCertificateChain> tryConvert(final Certificate[] chain) {
+        final var key = List.of(chain);
+        final var cached = entries.get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        final var optionalChain = ArSystemCertificateChain.tryConvert(chain);
+        optionalChain.ifPresent(chain0 -> entries.put(key, chain0));
+        return optionalChain;
+    }
+
+    /**
+     * @return Number of cached chains.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes all cached chains.
+     */
+    public void clear() {
+        entries.clear();
+    }
+}
@@ -0,0 +1,189 @@
+package se.arkalix.internal.util.concurrent;
+
+import se.arkalix.util.annotation.Internal;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A thread-safe map holding at most a fixed number of entries.
+ * <p>
+ * When an entry is added to a full cache, any entries whose values are stale,
+ * as determined by an optional predicate, are removed first. If that does not
+ * free enough room, arbitrary entries are removed until a quarter of the
+ * cache is free. Entries whose values are to be retained, as determined by
+ * another optional predicate, are only removed if removing all other entries
+ * would not free enough room. Only one thread performs such an eviction at a
+ * time, while
+ * other threads adding entries meanwhile may cause the cache to briefly hold
+ * more entries than its capacity.
+ *
+ * @param <K> Type of keys.
+ * @param <V> Type of values.
+ */
+@Internal
+public class BoundedCache<K, V> {
+    private final int capacity;
+    private final Predicate<? super V> isStale;
+    private final Predicate<? super V> isRetained;
+    private final ConcurrentHashMap<K, V> entries;
+    private final AtomicBoolean isEvicting = new AtomicBoolean(false);
+
+    /**
+     * Creates new bounded cache without any notion of stale values.
+     *
+     * @param capacity Maximum number of entries to hold.
+     * @throws IllegalArgumentException If {@code capacity} is not positive.
+     */
+    public BoundedCache(final int capacity) {
+        this(capacity, null, null);
+    }
+
+    /**
+     * Creates new bounded cache without any values to retain.
+     *
+     * @param capacity Maximum number of entries to hold.
+     * @param isStale  Function determining whether a value is stale and
+     *                 should be removed before any other entries when the
+     *                 cache is full, or {@code null}.
+     * @throws IllegalArgumentException If {@code capacity} is not positive.
+     */
+    public BoundedCache(final int capacity, final Predicate<? super V> isStale) {
+        this(capacity, isStale, null);
+    }
+
+    /**
+     * Creates new bounded cache.
+     *
+     * @param capacity   Maximum number of entries to hold.
+     * @param isStale    Function determining whether a value is stale and
+     *                   should be removed before any other entries when the
+     *                   cache is full, or {@code null}.
+     * @param isRetained Function determining whether a value should only be
+     *                   removed after all values for which it returns
+     *                   {@code false}, or {@code null}.
+     * @throws IllegalArgumentException If {@code capacity} is not positive.
+     */
+    public BoundedCache(
+        final int capacity,
+        final Predicate<? super V> isStale,
+        final Predicate<? super V> isRetained)
+    {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Expected capacity > 0");
+        }
+        this.capacity = capacity;
+        this.isStale = isStale;
+        this.isRetained = isRetained;
+        entries = new ConcurrentHashMap<>(Math.min(capacity, 1024));
+    }
+
+    /**
+     * @return Maximum number of entries held by this cache.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @param key Key of desired value.
+     * @return Value associated with {@code key}, or {@code null}.
+     */
+    public V get(final K key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Associates given {@code value} with given {@code key}, first evicting
+     * entries if this cache is full.
+     *
+     * @param key   Key to associate {@code value} with.
+     * @param value Value to cache.
+     */
+    public void put(final K key, final V value) {
+        Objects.requireNonNull(value, "Expected value");
+        if (entries.size() >= capacity) {
+            evict();
+        }
+        entries.put(key, value);
+    }
+
+    /**
+     * Gets value associated with given {@code key} or, if no such value
+     * exists, uses {@code function} to create and cache one, first evicting
+     * entries if this cache is full.
+     *
+     * @param key      Key of desired value.
+     * @param function Function creating value if none is associated with
+     *                 {@code key}.
+     * @return Value associated with {@code key}.
+     */
+    public V computeIfAbsent(final K key, final Function<? super K, ? extends V> function) {
+        final var value = entries.get(key);
+        if (value != null) {
+            return value;
+        }
+        if (entries.size() >= capacity) {
+            evict();
+        }
+        return entries.computeIfAbsent(key, function);
+    }
+
+    /**
+     * Removes the entry of given {@code key}, but only if it is currently
+     * associated with given {@code value}.
+     *
+     * @param key   Key of entry to remove.
+     * @param value Value expected to be associated with {@code key}.
+     * @return {@code true} only if an entry was removed.
+     */
+    public boolean remove(final K key, final V value) {
+        return entries.remove(key, value);
+    }
+
+    /**
+     * @return Number of cached entries.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes all cached entries.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    private void evict() {
+        if (!isEvicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (isStale != null) {
+                entries.values().removeIf(isStale);
+            }
+            final var target = capacity - Math.max(capacity / 4, 1);
+            evictUntil(target, isRetained);
+            if (isRetained != null) {
+                evictUntil(target, null);
+            }
+        }
+        finally {
+            isEvicting.set(false);
+        }
+    }
+
+    private void evictUntil(final int target, final Predicate<? super V> isToKeep) {
+        final var iterator = entries.values().iterator();
+        while (entries.size() > target && iterator.hasNext()) {
+            final var value = iterator.next();
+            if (isToKeep == null || !isToKeep.test(value)) {
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package se.arkalix.internal.util.concurrent;
+
+import se.arkalix.util.annotation.Internal;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of threads with a fixed maximum number of threads and a bounded
+ * queue of tasks waiting for a thread to become available, which keeps track
+ * of how long tasks spend in that queue.
+ * <p>
+ * Threads are created when first needed and are stopped after having been
+ * idle for a while. Tasks submitted while the queue is full are rejected.
+ * <p>
+ * Instances of this class are held by the public pool classes of this
+ * library, which determine how tasks are submitted and how rejections are
+ * reported.
+ */
+@Internal
+public class BoundedThreadPool implements Executor {
+    private static final AtomicInteger poolCount = new AtomicInteger(0);
+
+    private final int nThreads;
+    private final int maxQueued;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder startedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder totalQueueTimeNanos = new LongAdder();
+    private final LongAccumulator maxQueueTimeNanos = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * @param nThreads         Maximum number of threads.
+     * @param maxQueued        Maximum number of tasks allowed to wait for a
+     *                         thread to become available.
+     * @param threadFactory    Factory to use for creating threads, or
+     *                         {@code null} if daemon threads named
+     *                         {@code <threadNamePrefix><pool>-<thread>} are
+     *                         to be created.
+     * @param threadNamePrefix Prefix of the names of threads created if no
+     *                         {@code threadFactory} is given.
+     * @throws IllegalArgumentException If {@code nThreads} or
+     *                                  {@code maxQueued} is not positive.
+     */
+    public BoundedThreadPool(
+        final int nThreads,
+        final int maxQueued,
+        final ThreadFactory threadFactory,
+        final String threadNamePrefix)
+    {
+        if (nThreads <= 0) {
+            throw new IllegalArgumentException("Expected nThreads > 0");
+        }
+        if (maxQueued <= 0) {
+            throw new IllegalArgumentException("Expected maxQueued > 0");
+        }
+        this.nThreads = nThreads;
+        this.maxQueued = maxQueued;
+        executor = new ThreadPoolExecutor(nThreads, nThreads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(maxQueued), threadFactory != null
+            ? threadFactory
+            : new NamedThreadFactory(Objects.requireNonNull(threadNamePrefix, "Expected threadNamePrefix")));
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @return Maximum number of threads in this pool.
+     */
+    public int nThreads() {
+        return nThreads;
+    }
+
+    /**
+     * @return Maximum number of tasks allowed to wait for a thread to become
+     * available.
+     */
+    public int maxQueued() {
+        return maxQueued;
+    }
+
+    /**
+     * @return Number of threads currently executing tasks.
+     */
+    public int activeCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * @return Number of tasks currently waiting for a thread to become
+     * available.
+     */
+    public int queuedCount() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return Number of tasks that have started executing since this pool
+     * was created.
+     */
+    public long startedCount() {
+        return startedCount.sum();
+    }
+
+    /**
+     * @return Number of tasks rejected due to the queue being full, or this
+     * pool having been shut down, since this pool was created.
+     */
+    public long rejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * @return Average time started tasks have spent waiting in the queue.
+     */
+    public Duration averageQueueTime() {
+        final var started = startedCount.sum();
+        return started > 0
+            ? Duration.ofNanos(totalQueueTimeNanos.sum() / started)
+            : Duration.ZERO;
+    }
+
+    /**
+     * @return Longest time any started task has spent waiting in the queue.
+     */
+    public Duration maxQueueTime() {
+        return Duration.ofNanos(maxQueueTimeNanos.get());
+    }
+
+    /**
+     * Prevents further tasks from being submitted to this pool. Already
+     * submitted tasks are still executed.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * @return {@code true} only if {@link #shutdown()} has been called.
+     */
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+
+    /**
+     * Executes given {@code task} on a thread of this pool, recording the
+     * time it spends waiting in the queue.
+     *
+     * @param task Task to execute.
+     * @throws RejectedExecutionException If the queue of this pool is full
+     *                                    or the pool has been shut down.
+     */
+    @Override
+    public void execute(final Runnable task) {
+        Objects.requireNonNull(task, "Expected task");
+        final var submittedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                final var queueTimeNanos = System.nanoTime() - submittedAt;
+                startedCount.increment();
+                totalQueueTimeNanos.add(queueTimeNanos);
+                maxQueueTimeNanos.accumulate(queueTimeNanos);
+                task.run();
+            });
+        }
+        catch (final RejectedExecutionException exception) {
+            rejectedCount.increment();
+            throw exception;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BoundedThreadPool{" +
+            "nThreads=" + nThreads +
+            ", maxQueued=" + maxQueued +
+            ", activeCount=" + activeCount() +
+            ", queuedCount=" + queuedCount() +
+            ", rejectedCount=" + rejectedCount() +
+            ", averageQueueTime=" + averageQueueTime() +
+            ", maxQueueTime=" + maxQueueTime() +
+            '}';
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger(0);
+        private final String prefix;
+
+        private NamedThreadFactory(final String threadNamePrefix) {
+            prefix = threadNamePrefix + poolCount.incrementAndGet() + "-";
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final var thread = new Thread(runnable, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
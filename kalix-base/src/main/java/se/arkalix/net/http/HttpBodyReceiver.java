@@ -5,7 +5,9 @@ import se.arkalix.dto.DtoReadable;
 import se.arkalix.util.concurrent.FutureProgress;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
+import java.util.concurrent.Flow;
 
 /**
  * Some handler useful for receiving an incoming HTTP body.
@@ -75,6 +77,34 @@ public interface HttpBodyReceiver {
      */
     FutureProgress<? extends InputStream> bodyAsStream();
 
+    /**
+     * Requests that the incoming HTTP body be published to a subscriber as it
+     * arrives, one chunk at a time.
+     * <p>
+     * In contrast to the other methods of this interface, the body is never
+     * collected in full. Rather, each received chunk is passed on to the
+     * subscriber of the returned publisher as soon as it has signalled demand
+     * for more chunks. While chunks are waiting for demand to be signalled,
+     * no more data is read from the underlying connection, which eventually
+     * causes the sender to stop sending. Subscribers can, in other words,
+     * control how fast the body is received by controlling how many chunks
+     * they request. The body is, consequently, only kept in memory to the
+     * extent the subscriber requests more chunks than it processes.
+     * <p>
+     * The returned publisher accepts only one subscriber. Its subscriber is
+     * always notified on the thread handling the connection of the incoming
+     * body, and must, therefore, never block. Each published
+     * {@link ByteBuffer} is owned by the subscriber once received.
+     * <p>
+     * Note that a body can typically only be requested once via this
+     * interface. Any further requests will likely cause exceptions to be
+     * thrown.
+     *
+     * @return Publisher of incoming HTTP body chunks.
+     * @throws IllegalStateException If the body has already been requested.
+     */
+    Flow.Publisher<ByteBuffer> bodyAsPublisher();
+
     /**
      * Requests that the incoming HTTP body be collected into a regular Java
      * {@code String}.
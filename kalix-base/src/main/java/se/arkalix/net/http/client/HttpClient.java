@@ -1,23 +1,36 @@
 package se.arkalix.net.http.client;
 
 import se.arkalix.ArSystem;
+import se.arkalix.internal.jfr.HttpClientConnectEvent;
 import se.arkalix.internal.net.NettyBootstraps;
+import se.arkalix.internal.net.NettySslContexts;
 import se.arkalix.internal.net.http.client.FutureHttpClientConnection;
+import se.arkalix.internal.net.http.client.HttpClientCircuitBreakers;
+import se.arkalix.internal.net.http.client.HttpClientConnectionPool;
+import se.arkalix.internal.net.http.client.HttpClientRequestExecution;
 import se.arkalix.internal.net.http.client.NettyHttpClientConnectionInitializer;
+import se.arkalix.internal.net.http.client.NettyHttpClientMultiplexer;
+import se.arkalix.security.TlsHandshakePool;
+import se.arkalix.security.TlsSettings;
 import se.arkalix.security.identity.ArSystemKeyStore;
 import se.arkalix.security.identity.ArTrustStore;
 import se.arkalix.util.concurrent.Future;
 import se.arkalix.util.concurrent.FutureScheduler;
 import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.EventLoopGroup;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
 import io.netty.handler.ssl.ClientAuth;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 
 import javax.net.ssl.SSLException;
 import java.net.InetSocketAddress;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.WeakHashMap;
 
 import static se.arkalix.internal.util.concurrent.NettyFutures.adapt;
@@ -25,35 +38,121 @@ import static se.arkalix.internal.util.concurrent.NettyFutures.adapt;
 /**
  * Allows for the creation of TCP connections through which HTTP messages can
  * be sent.
+ * <p>
+ * If {@link Builder#http2() HTTP/2 mode} is enabled, requests sent via
+ * {@link #send(InetSocketAddress, HttpClientRequest)} are sent as streams of
+ * shared HTTP/2 connections, of which at most one is maintained per remote
+ * socket address. Connections created via
+ * {@link #connect(InetSocketAddress)} always use HTTP/1.1.
+ * <p>
+ * If {@link Builder#connectionPoolSize(int) connection pooling} is enabled,
+ * HTTP/1.1 connections used by
+ * {@link #send(InetSocketAddress, HttpClientRequest)} are kept open and
+ * reused for subsequent requests to the same remote socket addresses.
+ * <p>
+ * If a {@link Builder#requestPolicy(HttpClientRequestPolicy) request policy}
+ * is set, requests sent via
+ * {@link #send(InetSocketAddress, HttpClientRequest)} are subject to its
+ * deadlines, retries and hedging.
+ * <p>
+ * If a {@link Builder#circuitBreaker(HttpClientCircuitBreaker) circuit
+ * breaker} is set, requests sent via
+ * {@link #send(InetSocketAddress, HttpClientRequest)} to remote hosts that
+ * appear to be unavailable fail immediately.
  */
 public class HttpClient {
     private static final Map<ArSystem, HttpClient> cache = Collections.synchronizedMap(new WeakHashMap<>());
 
     private final Bootstrap bootstrap;
+    private final EventLoopGroup eventLoopGroup;
     private final InetSocketAddress localSocketAddress;
     private final SslContext sslContext;
+    private final TlsHandshakePool handshakePool;
+    private final Duration readIdleTimeout;
+    private final Duration writeIdleTimeout;
+    private final NettyHttpClientMultiplexer multiplexer;
+    private final HttpClientConnectionPool connectionPool;
+    private final HttpClientRequestPolicy requestPolicy;
+    private final HttpClientCircuitBreakers circuitBreakers;
 
     private HttpClient(final Builder builder) throws SSLException {
-        bootstrap = NettyBootstraps.createBootstrapUsing(builder.scheduler != null
+        final var scheduler = builder.scheduler != null
             ? builder.scheduler
-            : FutureScheduler.getDefault());
+            : FutureScheduler.getDefault();
+        bootstrap = NettyBootstraps.createBootstrapUsing(scheduler);
+        eventLoopGroup = scheduler.eventLoopGroup();
+        requestPolicy = builder.requestPolicy;
+        circuitBreakers = builder.circuitBreaker != null
+            ? new HttpClientCircuitBreakers(builder.circuitBreaker)
+            : null;
         localSocketAddress = builder.localSocketAddress;
+        handshakePool = builder.tlsHandshakePool;
+        readIdleTimeout = builder.connectionReadIdleTimeout;
+        writeIdleTimeout = builder.connectionWriteIdleTimeout;
+
+        final var multiplexerBuilder = new NettyHttpClientMultiplexer.Builder()
+            .bootstrap(bootstrap)
+            .localSocketAddress(localSocketAddress)
+            .readIdleTimeout(readIdleTimeout)
+            .writeIdleTimeout(writeIdleTimeout)
+            .http2RetryInterval(builder.http2RetryInterval);
 
         if (builder.isInsecure) {
             sslContext = null;
+            multiplexer = builder.isHttp2
+                ? multiplexerBuilder.build()
+                : null;
         }
         else {
-            final var sslContextBuilder = SslContextBuilder.forClient()
-                .trustManager(builder.trustStore != null ? builder.trustStore.certificates() : null)
-                .startTls(false);
-
-            if (builder.keyStore != null) {
-                sslContextBuilder
-                    .keyManager(builder.keyStore.privateKey(), builder.keyStore.systemChain())
-                    .clientAuth(ClientAuth.REQUIRE);
+            final var tlsSettings = builder.tlsSettings != null
+                ? builder.tlsSettings
+                : TlsSettings.getDefault();
+            sslContext = NettySslContexts.build(createSslContextBuilder(builder), tlsSettings, false);
+            if (builder.isHttp2) {
+                final var alpnSslContext = NettySslContexts.build(createSslContextBuilder(builder)
+                    .applicationProtocolConfig(new ApplicationProtocolConfig(
+                        ApplicationProtocolConfig.Protocol.ALPN,
+                        ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+                        ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+                        ApplicationProtocolNames.HTTP_2,
+                        ApplicationProtocolNames.HTTP_1_1)),
+                    tlsSettings, true);
+                multiplexer = multiplexerBuilder
+                    .sslContext(alpnSslContext)
+                    .handshakePool(handshakePool)
+                    .build();
+            }
+            else {
+                multiplexer = null;
             }
-            sslContext = sslContextBuilder.build();
         }
+
+        if (builder.connectionPoolSize > 0) {
+            connectionPool = new HttpClientConnectionPool.Builder()
+                .connector(this::connect)
+                .eventLoopGroup(scheduler.eventLoopGroup())
+                .maxConnectionsPerAddress(builder.connectionPoolSize)
+                .idleTimeout(builder.connectionIdleTimeout)
+                .maxLifetime(builder.connectionMaxLifetime)
+                .acquisitionTimeout(builder.connectionAcquisitionTimeout)
+                .build();
+        }
+        else {
+            connectionPool = null;
+        }
+    }
+
+    private static SslContextBuilder createSslContextBuilder(final Builder builder) {
+        final var sslContextBuilder = SslContextBuilder.forClient()
+            .trustManager(builder.trustStore != null ? builder.trustStore.certificates() : null)
+            .startTls(false);
+
+        if (builder.keyStore != null) {
+            sslContextBuilder
+                .keyManager(builder.keyStore.privateKey(), builder.keyStore.systemChain())
+                .clientAuth(ClientAuth.REQUIRE);
+        }
+        return sslContextBuilder;
     }
 
     /**
@@ -62,7 +161,8 @@ public class HttpClient {
      * <p>
      * The return HTTP client will use the same key store, trust store,
      * security mode, local network interface and scheduler as the given
-     * system.
+     * system. It pools connections as specified by
+     * {@link ArSystem#httpClientConnectionPoolSize()}.
      *
      * @param system Arrowhead system from which to extract configuration.
      * @return Created or cached client.
@@ -79,7 +179,9 @@ public class HttpClient {
         if (system.isSecure()) {
             builder
                 .keyStore(system.keyStore())
-                .trustStore(system.trustStore());
+                .trustStore(system.trustStore())
+                .tlsSettings(system.tlsSettings())
+                .tlsHandshakePool(system.tlsHandshakePool().orElse(null));
         }
         else {
             builder.insecure();
@@ -88,6 +190,7 @@ public class HttpClient {
         client = builder
             .localSocketAddress(new InetSocketAddress(system.localAddress(), 0))
             .scheduler(system.scheduler())
+            .connectionPoolSize(system.httpClientConnectionPoolSize())
             .build();
 
         cache.put(system, client);
@@ -126,35 +229,187 @@ public class HttpClient {
     {
         Objects.requireNonNull(remoteSocketAddress, "Expected remoteSocketAddress");
 
+        final var event = new HttpClientConnectEvent().isEnabled()
+            ? new HttpClientConnectEvent()
+            : null;
+        if (event != null) {
+            event.begin();
+        }
         final var futureConnection = new FutureHttpClientConnection();
-        return adapt(bootstrap.clone()
-            .handler(new NettyHttpClientConnectionInitializer(futureConnection, sslContext))
+        final var future = adapt(bootstrap.clone()
+            .handler(new NettyHttpClientConnectionInitializer(futureConnection, sslContext, remoteSocketAddress,
+                handshakePool, readIdleTimeout, writeIdleTimeout))
             .connect(remoteSocketAddress, localSocketAddress != null
                 ? localSocketAddress
                 : this.localSocketAddress))
             .flatMap(ignored -> futureConnection);
+        if (event == null) {
+            return future;
+        }
+        return future.mapResult(result -> {
+            event.remoteAddress = remoteSocketAddress.toString();
+            event.isSuccess = result.isSuccess();
+            if (result.isFailure()) {
+                event.failure = String.valueOf(result.fault());
+            }
+            event.commit();
+            return result;
+        });
     }
 
     /**
      * Connects to remote host at {@code remoteSocketAddress}, sends
      * {@code request}, closes connection and then completes the returned
      * {@code Future} with the result.
+     * <p>
+     * If HTTP/2 mode is enabled, the request is instead sent as a new stream
+     * of an existing connection to the remote host, if any, which is left
+     * open after the response has been received. If the remote host turns
+     * out not to support HTTP/2, HTTP/1.1 is used instead.
+     * <p>
+     * If connection pooling is enabled, any HTTP/1.1 connection used is
+     * taken from and returned to the connection pool of this client rather
+     * than being established and closed.
+     * <p>
+     * If this client has a request policy, the request is sent as determined
+     * by that policy.
      *
      * @param remoteSocketAddress Remote socket address.
      * @param request             Request to send.
      * @return Future completed with the request response or an error.
      * @throws NullPointerException If {@code remoteSocketAddress} or
      *                              {@code request} is {@code null}.
+     * @see Builder#requestPolicy(HttpClientRequestPolicy)
      */
     public Future<HttpClientResponse> send(
         final InetSocketAddress remoteSocketAddress,
         final HttpClientRequest request)
     {
         Objects.requireNonNull(request, "Expected request");
+        if (requestPolicy != null) {
+            return send(remoteSocketAddress, request, requestPolicy);
+        }
+        return sendOnce(remoteSocketAddress, request);
+    }
+
+    /**
+     * Sends {@code request} to remote host at {@code remoteSocketAddress} as
+     * determined by given request {@code policy}, which takes precedence over
+     * any request policy of this client.
+     * <p>
+     * Deadline, retry backoff and hedge delay timers are executed by the
+     * event loops of the scheduler of this client.
+     *
+     * @param remoteSocketAddress Remote socket address.
+     * @param request             Request to send.
+     * @param policy              Policy determining deadline, retries and
+     *                            hedging of request.
+     * @return Future completed with the request response or an error. If the
+     * deadline of the request is passed before a response is received, the
+     * future is failed with a {@link HttpClientTimeoutException}.
+     * @throws NullPointerException If {@code remoteSocketAddress},
+     *                              {@code request} or {@code policy} is
+     *                              {@code null}.
+     * @see HttpClientRequestPolicy
+     */
+    public Future<HttpClientResponse> send(
+        final InetSocketAddress remoteSocketAddress,
+        final HttpClientRequest request,
+        final HttpClientRequestPolicy policy)
+    {
+        Objects.requireNonNull(request, "Expected request");
+        return HttpClientRequestExecution.execute(policy, request, remoteSocketAddress,
+            () -> sendOnce(remoteSocketAddress, request), eventLoopGroup);
+    }
+
+    private Future<HttpClientResponse> sendOnce(
+        final InetSocketAddress remoteSocketAddress,
+        final HttpClientRequest request)
+    {
+        if (circuitBreakers != null) {
+            return circuitBreakers.send(remoteSocketAddress, request,
+                () -> sendViaConnection(remoteSocketAddress, request));
+        }
+        return sendViaConnection(remoteSocketAddress, request);
+    }
+
+    private Future<HttpClientResponse> sendViaConnection(
+        final InetSocketAddress remoteSocketAddress,
+        final HttpClientRequest request)
+    {
+        if (multiplexer != null) {
+            return multiplexer.openStream(remoteSocketAddress)
+                .flatMap(optionalStream -> optionalStream.isPresent()
+                    ? optionalStream.get().send(request)
+                    : sendViaHttp11(remoteSocketAddress, request));
+        }
+        return sendViaHttp11(remoteSocketAddress, request);
+    }
+
+    private Future<HttpClientResponse> sendViaHttp11(
+        final InetSocketAddress remoteSocketAddress,
+        final HttpClientRequest request)
+    {
+        if (connectionPool != null) {
+            return connectionPool.send(remoteSocketAddress, request);
+        }
         return connect(remoteSocketAddress)
             .flatMap(connection -> connection.sendAndClose(request));
     }
 
+    /**
+     * Gets state of the circuit of given remote socket address, as
+     * maintained by the circuit breaker of this client.
+     * <p>
+     * This method is useful for avoiding sending requests to remote hosts
+     * that are not available, such as by using it as the provider filter of
+     * an {@link se.arkalix.ArServiceBalancer ArServiceBalancer}.
+     *
+     * @param remoteSocketAddress Remote socket address.
+     * @return Current circuit state. {@link HttpClientCircuitBreaker.State#CLOSED
+     * CLOSED} if this client has no circuit breaker or no requests have been
+     * sent to {@code remoteSocketAddress}.
+     * @see Builder#circuitBreaker(HttpClientCircuitBreaker)
+     */
+    public HttpClientCircuitBreaker.State circuitState(final InetSocketAddress remoteSocketAddress) {
+        return circuitState(remoteSocketAddress, null);
+    }
+
+    /**
+     * Gets state of the circuit of given remote socket address and service,
+     * as maintained by the circuit breaker of this client.
+     *
+     * @param remoteSocketAddress Remote socket address.
+     * @param service             Service key, as returned by the
+     *                            {@link HttpClientCircuitBreaker#serviceKey()
+     *                            service key function} of the circuit breaker
+     *                            of this client, or {@code null}.
+     * @return Current circuit state. {@link HttpClientCircuitBreaker.State#CLOSED
+     * CLOSED} if this client has no circuit breaker or no requests have been
+     * sent to the identified circuit.
+     */
+    public HttpClientCircuitBreaker.State circuitState(
+        final InetSocketAddress remoteSocketAddress,
+        final String service)
+    {
+        Objects.requireNonNull(remoteSocketAddress, "Expected remoteSocketAddress");
+        return circuitBreakers != null
+            ? circuitBreakers.stateOf(remoteSocketAddress, service)
+            : HttpClientCircuitBreaker.State.CLOSED;
+    }
+
+    /**
+     * Gets snapshot of the current state of the connection pool of this
+     * client, if connection pooling is enabled.
+     *
+     * @return Connection pool statistics, if connection pooling is enabled.
+     */
+    public Optional<HttpClientConnectionPoolStatistics> connectionPoolStatistics() {
+        return connectionPool != null
+            ? Optional.of(connectionPool.statistics())
+            : Optional.empty();
+    }
+
     /**
      * Builder useful for creating {@link HttpClient} instances.
      */
@@ -163,6 +418,18 @@ public class HttpClient {
         private ArSystemKeyStore keyStore;
         private ArTrustStore trustStore;
         private boolean isInsecure = false;
+        private TlsSettings tlsSettings;
+        private TlsHandshakePool tlsHandshakePool;
+        private boolean isHttp2 = false;
+        private Duration http2RetryInterval = Duration.ofMinutes(5);
+        private Duration connectionReadIdleTimeout = Duration.ofSeconds(30);
+        private Duration connectionWriteIdleTimeout = Duration.ofSeconds(120);
+        private int connectionPoolSize = 0;
+        private Duration connectionIdleTimeout = Duration.ofSeconds(20);
+        private Duration connectionMaxLifetime = Duration.ofMinutes(10);
+        private Duration connectionAcquisitionTimeout = Duration.ofSeconds(10);
+        private HttpClientRequestPolicy requestPolicy;
+        private HttpClientCircuitBreaker circuitBreaker;
         private FutureScheduler scheduler;
 
         /**
@@ -210,6 +477,40 @@ public class HttpClient {
             return this;
         }
 
+        /**
+         * Sets settings to use when establishing TLS connections. Not used in
+         * insecure mode.
+         * <p>
+         * TLS sessions are remembered per remote host and port, which allows
+         * for them to be resumed when reconnecting to the same remote socket
+         * addresses. If no settings are explicitly specified, the ones
+         * returned by {@link TlsSettings#getDefault()} are used.
+         *
+         * @param tlsSettings TLS settings.
+         * @return This builder.
+         */
+        public final Builder tlsSettings(final TlsSettings tlsSettings) {
+            this.tlsSettings = tlsSettings;
+            return this;
+        }
+
+        /**
+         * Sets pool of threads to use for executing TLS handshake tasks. Not
+         * used in insecure mode.
+         * <p>
+         * It is the responsibility of the caller to ensure that the pool is
+         * shut down when no longer in use. If no pool is specified, handshake
+         * tasks are executed by the I/O threads of the connections they
+         * belong to.
+         *
+         * @param tlsHandshakePool TLS handshake pool.
+         * @return This builder.
+         */
+        public final Builder tlsHandshakePool(final TlsHandshakePool tlsHandshakePool) {
+            this.tlsHandshakePool = tlsHandshakePool;
+            return this;
+        }
+
         /**
          * Explicitly enables insecure mode for this client.
          * <p>
@@ -224,6 +525,174 @@ public class HttpClient {
             return this;
         }
 
+        /**
+         * Enables HTTP/2 mode for created HTTP clients.
+         * <p>
+         * In HTTP/2 mode, requests sent via
+         * {@link HttpClient#send(InetSocketAddress, HttpClientRequest)} are
+         * sent as concurrent streams of one shared connection per remote
+         * socket address, which saves both TCP and TLS handshakes when many
+         * requests are sent to the same remote hosts. In secure mode, HTTP/2
+         * is negotiated with each remote host, which falls back to HTTP/1.1 if
+         * not supported. In insecure mode, all remote hosts are assumed to
+         * support HTTP/2 without negotiation.
+         *
+         * @return This builder.
+         */
+        public final Builder http2() {
+            this.isHttp2 = true;
+            return this;
+        }
+
+        /**
+         * Sets duration for which remote hosts found not to support HTTP/2
+         * are remembered as such, if {@link #http2() HTTP/2 mode} is enabled.
+         * Requests to such hosts are sent using HTTP/1.1 until the duration
+         * expires, after which support for HTTP/2 is negotiated anew.
+         * Defaults to 5 minutes.
+         *
+         * @param interval Duration to remember lack of HTTP/2 support.
+         * @return This builder.
+         * @see #http2()
+         */
+        public final Builder http2RetryInterval(final Duration interval) {
+            this.http2RetryInterval = Objects.requireNonNull(interval, "Expected interval");
+            return this;
+        }
+
+        /**
+         * Sets duration without any data being received after which
+         * connections are considered idle. Idle HTTP/1.1 connections are
+         * closed, failing any response being awaited, while idle HTTP/2
+         * connections are only closed if no streams are active. Defaults to
+         * 30 seconds.
+         *
+         * @param timeout Read idle timeout.
+         * @return This builder.
+         */
+        public final Builder connectionReadIdleTimeout(final Duration timeout) {
+            this.connectionReadIdleTimeout = Objects.requireNonNull(timeout, "Expected timeout");
+            return this;
+        }
+
+        /**
+         * Sets duration without any data being sent after which connections
+         * are considered idle. Defaults to 120 seconds.
+         *
+         * @param timeout Write idle timeout.
+         * @return This builder.
+         * @see #connectionReadIdleTimeout(Duration)
+         */
+        public final Builder connectionWriteIdleTimeout(final Duration timeout) {
+            this.connectionWriteIdleTimeout = Objects.requireNonNull(timeout, "Expected timeout");
+            return this;
+        }
+
+        /**
+         * Enables connection pooling for created HTTP clients, limiting the
+         * number of pooled connections to each remote socket address to
+         * given {@code size}.
+         * <p>
+         * When connection pooling is enabled, HTTP/1.1 connections used to
+         * send requests via
+         * {@link HttpClient#send(InetSocketAddress, HttpClientRequest)} are
+         * kept open after their responses have been received, allowing for
+         * them to be reused by subsequent requests to the same remote hosts.
+         * If all connections to a remote host are in use when a request is to
+         * be sent, the request is delayed until a connection becomes
+         * available. Pooling is disabled by default, which causes every call
+         * to {@code send()} to establish and close its own connection.
+         *
+         * @param size Maximum number of connections to open to any one remote
+         *             socket address, or {@code 0} to disable pooling.
+         * @return This builder.
+         * @throws IllegalArgumentException If {@code size} is negative.
+         */
+        public final Builder connectionPoolSize(final int size) {
+            if (size < 0) {
+                throw new IllegalArgumentException("Expected size >= 0");
+            }
+            this.connectionPoolSize = size;
+            return this;
+        }
+
+        /**
+         * Sets duration after which pooled connections not in use are closed.
+         * Defaults to 20 seconds.
+         * <p>
+         * The duration should be shorter than the time after which remote
+         * hosts close idle connections, as connections closed by remote
+         * hosts while not in use have to be replaced.
+         *
+         * @param timeout Idle connection timeout.
+         * @return This builder.
+         * @see #connectionPoolSize(int)
+         */
+        public final Builder connectionIdleTimeout(final Duration timeout) {
+            this.connectionIdleTimeout = Objects.requireNonNull(timeout, "Expected timeout");
+            return this;
+        }
+
+        /**
+         * Sets duration after which pooled connections are replaced, whether
+         * or not they have been in use. Defaults to 10 minutes.
+         *
+         * @param lifetime Maximum connection lifetime.
+         * @return This builder.
+         * @see #connectionPoolSize(int)
+         */
+        public final Builder connectionMaxLifetime(final Duration lifetime) {
+            this.connectionMaxLifetime = Objects.requireNonNull(lifetime, "Expected lifetime");
+            return this;
+        }
+
+        /**
+         * Sets duration after which requests waiting for pooled connections
+         * to become available are failed with a
+         * {@link HttpClientConnectionException}. Defaults to 10 seconds.
+         *
+         * @param timeout Connection acquisition timeout.
+         * @return This builder.
+         * @see #connectionPoolSize(int)
+         */
+        public final Builder connectionAcquisitionTimeout(final Duration timeout) {
+            this.connectionAcquisitionTimeout = Objects.requireNonNull(timeout, "Expected timeout");
+            return this;
+        }
+
+        /**
+         * Sets policy determining the deadlines, retries and hedging of
+         * requests sent via
+         * {@link HttpClient#send(InetSocketAddress, HttpClientRequest)}. No
+         * policy is used by default, which means that every request is sent
+         * exactly once and that its response may be awaited indefinitely.
+         *
+         * @param requestPolicy Request policy.
+         * @return This builder.
+         * @see HttpClient#send(InetSocketAddress, HttpClientRequest, HttpClientRequestPolicy)
+         */
+        public final Builder requestPolicy(final HttpClientRequestPolicy requestPolicy) {
+            this.requestPolicy = requestPolicy;
+            return this;
+        }
+
+        /**
+         * Sets circuit breaker settings, determining when requests sent via
+         * {@link HttpClient#send(InetSocketAddress, HttpClientRequest)} fail
+         * immediately rather than being sent to remote hosts that appear to
+         * be unavailable. If a request policy is used, every retry and hedged
+         * attempt passes through the circuit breaker. No circuit breaker is
+         * used by default.
+         *
+         * @param circuitBreaker Circuit breaker settings.
+         * @return This builder.
+         * @see HttpClient#circuitState(InetSocketAddress)
+         */
+        public final Builder circuitBreaker(final HttpClientCircuitBreaker circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+            return this;
+        }
+
         /**
          * Sets scheduler to be used by created HTTP clients.
          * <p>
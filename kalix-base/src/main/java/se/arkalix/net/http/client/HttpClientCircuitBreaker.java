@@ -0,0 +1,377 @@
+package se.arkalix.net.http.client;
+
+import se.arkalix.net.http.HttpStatus;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Settings determining when an {@link HttpClient} stops sending requests to
+ * remote hosts that appear to be unavailable.
+ * <p>
+ * A client with a circuit breaker maintains one <i>circuit</i> per remote
+ * socket address and, optionally, {@link Builder#serviceKey(Function)
+ * service}. Every circuit is in one of three {@link State states}:
+ * <ol>
+ *     <li>{@link State#CLOSED CLOSED}, in which requests are sent as usual
+ *         and the outcomes of the most recent requests are remembered in a
+ *         sliding window. If enough of the remembered requests failed or
+ *         were slow, the circuit is opened.</li>
+ *     <li>{@link State#OPEN OPEN}, in which requests fail immediately with a
+ *         {@link HttpClientCircuitOpenException}, without any connection
+ *         being established. After the {@link Builder#openDuration(Duration)
+ *         open duration} has passed, the circuit becomes half-open.</li>
+ *     <li>{@link State#HALF_OPEN HALF_OPEN}, in which a limited number of
+ *         trial requests are sent. If all of them succeed, the circuit is
+ *         closed. If any of them fails or is slow, the circuit is opened
+ *         again.</li>
+ * </ol>
+ * A request fails if sending it or receiving its response fails, or if its
+ * response has one of the {@link Builder#failureStatuses(HttpStatus...)
+ * failure statuses}, which by default are the same as the default
+ * {@link HttpClientRequestPolicy.Builder#retryStatuses(HttpStatus...) retry
+ * statuses} of request policies. Responses with failure statuses are still
+ * passed on to the senders of their requests. A request is slow if its
+ * response takes longer than the {@link Builder#slowCallDuration(Duration)
+ * slow call duration} to arrive, or if it is cancelled after having waited
+ * that long, such as due to the deadline of a
+ * {@link HttpClientRequestPolicy request policy} being passed.
+ * <p>
+ * At most {@link Builder#maxCircuits(int) a limited number} of circuits are
+ * kept. If a new circuit is needed while that many exist, closed circuits
+ * that remember no failed or slow requests are forgotten first. Should that
+ * not free enough room, arbitrary closed circuits are forgotten. Open and
+ * half-open circuits are only forgotten, and thereby closed, if all circuits
+ * are open or half-open.
+ *
+ * @see HttpClient.Builder#circuitBreaker(HttpClientCircuitBreaker)
+ * @see HttpClient#circuitState(InetSocketAddress)
+ */
+public class HttpClientCircuitBreaker {
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final Duration slowCallDuration;
+    private final double slowCallRateThreshold;
+    private final Duration openDuration;
+    private final int halfOpenCalls;
+    private final Set<HttpStatus> failureStatuses;
+    private final int maxCircuits;
+    private final Function<HttpClientRequest, String> serviceKey;
+
+    private HttpClientCircuitBreaker(final Builder builder) {
+        windowSize = builder.windowSize;
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Expected windowSize > 0");
+        }
+        minimumCalls = builder.minimumCalls;
+        if (minimumCalls <= 0 || minimumCalls > windowSize) {
+            throw new IllegalArgumentException("Expected 0 < minimumCalls <= windowSize");
+        }
+        failureRateThreshold = builder.failureRateThreshold;
+        if (!(failureRateThreshold > 0.0 && failureRateThreshold <= 1.0)) {
+            throw new IllegalArgumentException("Expected 0.0 < failureRateThreshold <= 1.0");
+        }
+        slowCallDuration = builder.slowCallDuration;
+        if (slowCallDuration != null && (slowCallDuration.isNegative() || slowCallDuration.isZero())) {
+            throw new IllegalArgumentException("Expected slowCallDuration > 0");
+        }
+        slowCallRateThreshold = builder.slowCallRateThreshold;
+        if (!(slowCallRateThreshold > 0.0 && slowCallRateThreshold <= 1.0)) {
+            throw new IllegalArgumentException("Expected 0.0 < slowCallRateThreshold <= 1.0");
+        }
+        openDuration = Objects.requireNonNull(builder.openDuration, "Expected openDuration");
+        if (openDuration.isNegative()) {
+            throw new IllegalArgumentException("Expected openDuration >= 0");
+        }
+        halfOpenCalls = builder.halfOpenCalls;
+        if (halfOpenCalls <= 0) {
+            throw new IllegalArgumentException("Expected halfOpenCalls > 0");
+        }
+        failureStatuses = Set.of(builder.failureStatuses);
+        maxCircuits = builder.maxCircuits;
+        if (maxCircuits <= 0) {
+            throw new IllegalArgumentException("Expected maxCircuits > 0");
+        }
+        serviceKey = builder.serviceKey;
+    }
+
+    /**
+     * @return Number of most recent requests remembered by closed circuits.
+     */
+    public int windowSize() {
+        return windowSize;
+    }
+
+    /**
+     * @return Number of requests that must be remembered before a closed
+     * circuit may be opened.
+     */
+    public int minimumCalls() {
+        return minimumCalls;
+    }
+
+    /**
+     * @return Fraction of failed remembered requests at which a closed
+     * circuit is opened.
+     */
+    public double failureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    /**
+     * @return Duration after which requests are considered slow, or
+     * {@code null} if requests are never considered slow.
+     */
+    public Duration slowCallDuration() {
+        return slowCallDuration;
+    }
+
+    /**
+     * @return Fraction of slow remembered requests at which a closed circuit
+     * is opened.
+     */
+    public double slowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    /**
+     * @return Duration an open circuit remains open before becoming
+     * half-open.
+     */
+    public Duration openDuration() {
+        return openDuration;
+    }
+
+    /**
+     * @return Number of trial requests that must succeed for a half-open
+     * circuit to be closed.
+     */
+    public int halfOpenCalls() {
+        return halfOpenCalls;
+    }
+
+    /**
+     * @return Response statuses causing requests to be considered failed.
+     */
+    public Set<HttpStatus> failureStatuses() {
+        return failureStatuses;
+    }
+
+    /**
+     * @return Maximum number of circuits kept.
+     */
+    public int maxCircuits() {
+        return maxCircuits;
+    }
+
+    /**
+     * @return Function mapping requests to the services they target, or
+     * {@code null} if circuits are only kept per remote socket address.
+     */
+    public Function<HttpClientRequest, String> serviceKey() {
+        return serviceKey;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpClientCircuitBreaker{" +
+            "windowSize=" + windowSize +
+            ", minimumCalls=" + minimumCalls +
+            ", failureRateThreshold=" + failureRateThreshold +
+            ", slowCallDuration=" + slowCallDuration +
+            ", slowCallRateThreshold=" + slowCallRateThreshold +
+            ", openDuration=" + openDuration +
+            ", halfOpenCalls=" + halfOpenCalls +
+            ", failureStatuses=" + failureStatuses +
+            ", maxCircuits=" + maxCircuits +
+            ", isKeyedByService=" + (serviceKey != null) +
+            '}';
+    }
+
+    /**
+     * The state of a circuit.
+     */
+    public enum State {
+        /**
+         * Requests are sent as usual.
+         */
+        CLOSED,
+
+        /**
+         * Requests fail immediately.
+         */
+        OPEN,
+
+        /**
+         * A limited number of trial requests are sent, while others fail
+         * immediately.
+         */
+        HALF_OPEN,
+    }
+
+    /**
+     * Builder useful for creating {@link HttpClientCircuitBreaker} instances.
+     */
+    public static class Builder {
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private double failureRateThreshold = 0.5;
+        private Duration slowCallDuration;
+        private double slowCallRateThreshold = 0.5;
+        private Duration openDuration = Duration.ofSeconds(10);
+        private int halfOpenCalls = 3;
+        private HttpStatus[] failureStatuses = new HttpStatus[]{
+            HttpStatus.BAD_GATEWAY,
+            HttpStatus.SERVICE_UNAVAILABLE,
+            HttpStatus.GATEWAY_TIMEOUT};
+        private int maxCircuits = 1024;
+        private Function<HttpClientRequest, String> serviceKey;
+
+        /**
+         * Sets number of most recent requests remembered by closed circuits.
+         * Defaults to 20.
+         *
+         * @param windowSize Sliding window size.
+         * @return This builder.
+         */
+        public Builder windowSize(final int windowSize) {
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        /**
+         * Sets number of requests that must be remembered before a closed
+         * circuit may be opened. Defaults to 10.
+         *
+         * @param minimumCalls Minimum number of remembered requests.
+         * @return This builder.
+         */
+        public Builder minimumCalls(final int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        /**
+         * Sets fraction of failed remembered requests at which a closed
+         * circuit is opened. Defaults to 0.5.
+         *
+         * @param failureRateThreshold Failure rate, in the range (0.0, 1.0].
+         * @return This builder.
+         */
+        public Builder failureRateThreshold(final double failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        /**
+         * Sets duration after which requests are considered slow. Not set by
+         * default, which means that requests are never considered slow.
+         *
+         * @param slowCallDuration Slow request duration.
+         * @return This builder.
+         */
+        public Builder slowCallDuration(final Duration slowCallDuration) {
+            this.slowCallDuration = slowCallDuration;
+            return this;
+        }
+
+        /**
+         * Sets fraction of slow remembered requests at which a closed circuit
+         * is opened. Only used if a
+         * {@link #slowCallDuration(Duration) slow call duration} is set.
+         * Defaults to 0.5.
+         *
+         * @param slowCallRateThreshold Slow request rate, in the range
+         *                              (0.0, 1.0].
+         * @return This builder.
+         */
+        public Builder slowCallRateThreshold(final double slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            return this;
+        }
+
+        /**
+         * Sets duration an open circuit remains open before becoming
+         * half-open. Defaults to 10 seconds.
+         *
+         * @param openDuration Open circuit duration.
+         * @return This builder.
+         */
+        public Builder openDuration(final Duration openDuration) {
+            this.openDuration = openDuration;
+            return this;
+        }
+
+        /**
+         * Sets number of trial requests that must succeed for a half-open
+         * circuit to be closed. Defaults to 3.
+         *
+         * @param halfOpenCalls Number of trial requests.
+         * @return This builder.
+         */
+        public Builder halfOpenCalls(final int halfOpenCalls) {
+            this.halfOpenCalls = halfOpenCalls;
+            return this;
+        }
+
+        /**
+         * Sets response statuses causing requests to be considered failed.
+         * Defaults to {@link HttpStatus#BAD_GATEWAY},
+         * {@link HttpStatus#SERVICE_UNAVAILABLE} and
+         * {@link HttpStatus#GATEWAY_TIMEOUT}. Requests are also always
+         * considered failed if sending them or receiving their responses
+         * fails.
+         *
+         * @param failureStatuses Statuses causing requests to fail.
+         * @return This builder.
+         */
+        public Builder failureStatuses(final HttpStatus... failureStatuses) {
+            this.failureStatuses = failureStatuses;
+            return this;
+        }
+
+        /**
+         * Sets maximum number of circuits kept. Defaults to 1024.
+         *
+         * @param maxCircuits Maximum number of circuits.
+         * @return This builder.
+         */
+        public Builder maxCircuits(final int maxCircuits) {
+            this.maxCircuits = maxCircuits;
+            return this;
+        }
+
+        /**
+         * Sets function mapping requests to the services they target, such
+         * as by returning the base paths of their URIs. If set, circuits are
+         * kept per remote socket address and service, which means that one
+         * failing service does not prevent requests from being sent to other
+         * services of the same provider. Requests mapped to {@code null} use
+         * the circuit of their remote socket address only. Not set by
+         * default.
+         *
+         * @param serviceKey Function mapping requests to service keys.
+         * @return This builder.
+         */
+        public Builder serviceKey(final Function<HttpClientRequest, String> serviceKey) {
+            this.serviceKey = serviceKey;
+            return this;
+        }
+
+        /**
+         * @return New {@link HttpClientCircuitBreaker}.
+         * @throws IllegalArgumentException If any count, duration or
+         *                                  threshold is out of range.
+         * @throws NullPointerException     If {@code openDuration} is not
+         *                                  set, or if {@code failureStatuses}
+         *                                  is or contains {@code null}.
+         */
+        public HttpClientCircuitBreaker build() {
+            return new HttpClientCircuitBreaker(this);
+        }
+    }
+}
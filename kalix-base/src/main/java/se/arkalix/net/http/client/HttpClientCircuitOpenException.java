@@ -0,0 +1,23 @@
+package se.arkalix.net.http.client;
+
+/**
+ * Signifies that some HTTP request was not sent, as the circuit of its
+ * remote host is open.
+ * <p>
+ * As these exceptions are expected to be quite common, and are caused by
+ * external rather than internal mistakes, <i>they do not produce stack
+ * traces</i>. If an HTTP response causes an error that should generate a stack
+ * trace, some other exception type should be used instead.
+ *
+ * @see HttpClientCircuitBreaker
+ */
+public class HttpClientCircuitOpenException extends HttpClientException {
+    /**
+     * Creates new HTTP client circuit open exception with given message.
+     *
+     * @param message Human-readable description of issue.
+     */
+    public HttpClientCircuitOpenException(final String message) {
+        super(message);
+    }
+}
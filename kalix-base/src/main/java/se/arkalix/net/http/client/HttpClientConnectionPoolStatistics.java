@@ -0,0 +1,118 @@
+package se.arkalix.net.http.client;
+
+import java.time.Duration;
+
+/**
+ * A snapshot of the state of the connection pool of some {@link HttpClient}.
+ *
+ * @see HttpClient.Builder#connectionPoolSize(int)
+ */
+public class HttpClientConnectionPoolStatistics {
+    private final int connectionCount;
+    private final int idleConnectionCount;
+    private final int pendingAcquisitionCount;
+    private final long acquisitionCount;
+    private final long timedOutAcquisitionCount;
+    private final Duration averageAcquisitionTime;
+    private final Duration maxAcquisitionTime;
+
+    /**
+     * Creates new HTTP client connection pool statistics snapshot.
+     *
+     * @param connectionCount          Number of open or opening connections.
+     * @param idleConnectionCount      Number of open connections not in use.
+     * @param pendingAcquisitionCount  Number of requests waiting for
+     *                                 connections to become available.
+     * @param acquisitionCount         Number of successful connection
+     *                                 acquisitions since pool creation.
+     * @param timedOutAcquisitionCount Number of connection acquisitions that
+     *                                 timed out since pool creation.
+     * @param averageAcquisitionTime   Average time required to acquire a
+     *                                 connection.
+     * @param maxAcquisitionTime       Longest time required to acquire a
+     *                                 connection.
+     */
+    public HttpClientConnectionPoolStatistics(
+        final int connectionCount,
+        final int idleConnectionCount,
+        final int pendingAcquisitionCount,
+        final long acquisitionCount,
+        final long timedOutAcquisitionCount,
+        final Duration averageAcquisitionTime,
+        final Duration maxAcquisitionTime)
+    {
+        this.connectionCount = connectionCount;
+        this.idleConnectionCount = idleConnectionCount;
+        this.pendingAcquisitionCount = pendingAcquisitionCount;
+        this.acquisitionCount = acquisitionCount;
+        this.timedOutAcquisitionCount = timedOutAcquisitionCount;
+        this.averageAcquisitionTime = averageAcquisitionTime;
+        this.maxAcquisitionTime = maxAcquisitionTime;
+    }
+
+    /**
+     * @return Number of open or opening connections, whether in use or not.
+     */
+    public int connectionCount() {
+        return connectionCount;
+    }
+
+    /**
+     * @return Number of open connections not currently in use.
+     */
+    public int idleConnectionCount() {
+        return idleConnectionCount;
+    }
+
+    /**
+     * @return Number of requests currently waiting for connections to become
+     * available.
+     */
+    public int pendingAcquisitionCount() {
+        return pendingAcquisitionCount;
+    }
+
+    /**
+     * @return Number of successful connection acquisitions since the pool was
+     * created.
+     */
+    public long acquisitionCount() {
+        return acquisitionCount;
+    }
+
+    /**
+     * @return Number of connection acquisitions that timed out since the pool
+     * was created.
+     */
+    public long timedOutAcquisitionCount() {
+        return timedOutAcquisitionCount;
+    }
+
+    /**
+     * @return Average time required to acquire a connection, including the
+     * time spent establishing new connections.
+     */
+    public Duration averageAcquisitionTime() {
+        return averageAcquisitionTime;
+    }
+
+    /**
+     * @return Longest time required to acquire a connection.
+     */
+    public Duration maxAcquisitionTime() {
+        return maxAcquisitionTime;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpClientConnectionPoolStatistics{" +
+            "connectionCount=" + connectionCount +
+            ", idleConnectionCount=" + idleConnectionCount +
+            ", pendingAcquisitionCount=" + pendingAcquisitionCount +
+            ", acquisitionCount=" + acquisitionCount +
+            ", timedOutAcquisitionCount=" + timedOutAcquisitionCount +
+            ", averageAcquisitionTime=" + averageAcquisitionTime +
+            ", maxAcquisitionTime=" + maxAcquisitionTime +
+            '}';
+    }
+}
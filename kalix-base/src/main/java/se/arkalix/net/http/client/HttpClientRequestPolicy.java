@@ -0,0 +1,398 @@
+package se.arkalix.net.http.client;
+
+import se.arkalix.net.http.HttpMethod;
+import se.arkalix.net.http.HttpStatus;
+import se.arkalix.util.annotation.Internal;
+import se.arkalix.util.metrics.LatencyHistogram;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A policy determining how long an {@link HttpClient} may wait for the
+ * response of a request, as well as if and when the request may be sent more
+ * than once.
+ * <p>
+ * A policy may specify any combination of the following:
+ * <ol>
+ *     <li>A <i>timeout</i>, which is used to determine an absolute deadline
+ *         when a request is sent. If no response has been received when the
+ *         deadline is passed, any outstanding attempts to send the request
+ *         are cancelled and the request fails with a
+ *         {@link HttpClientTimeoutException}. The deadline covers all
+ *         retries and hedged attempts of the request.</li>
+ *     <li><i>Retries</i>, which are made if sending a request fails, or if a
+ *         response has a {@link Builder#retryStatuses(HttpStatus...)
+ *         retryable status}. Retries are delayed using exponential backoff
+ *         with full jitter, which means that the delay before retry
+ *         {@code n} is a random duration between zero and
+ *         {@code min(maxBackoff, initialBackoff * 2^n)}.</li>
+ *     <li><i>Hedging</i>, which means that if no response has been received
+ *         within a certain delay after sending a request, the request is sent
+ *         a second time. Whichever response is received first is used, while
+ *         the other attempt is cancelled. The delay may either be fixed or be
+ *         a percentile of the latencies of previous responses, which limits
+ *         the number of hedged requests to a predictable fraction of all
+ *         requests.</li>
+ * </ol>
+ * Retries and hedging only ever apply to requests with idempotent methods,
+ * as determined by {@link HttpMethod#isIdempotent()}. A policy keeps track of
+ * the response latencies of the requests sent with it, which is why separate
+ * policies should be used for services with different latency
+ * characteristics.
+ *
+ * @see HttpClient.Builder#requestPolicy(HttpClientRequestPolicy)
+ * @see HttpClient#send(InetSocketAddress, HttpClientRequest, HttpClientRequestPolicy)
+ */
+public class HttpClientRequestPolicy {
+    private static final int HEDGE_DELAY_MIN_SAMPLES = 100;
+    private static final int HEDGE_DELAY_MAX_SAMPLES = 10_000;
+    private static final long HEDGE_DELAY_REFRESH_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final Duration timeout;
+    private final int maxRetries;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Set<HttpStatus> retryStatuses;
+    private final Duration hedgeDelay;
+    private final double hedgePercentile;
+
+    private final AtomicReference<LatencyHistogram> latencies = new AtomicReference<>(new LatencyHistogram());
+    private volatile long hedgeDelayNanos;
+    private volatile long hedgeDelayRefreshedAtNanos = System.nanoTime();
+
+    private HttpClientRequestPolicy(final Builder builder) {
+        timeout = builder.timeout;
+        if (timeout != null && (timeout.isNegative() || timeout.isZero())) {
+            throw new IllegalArgumentException("Expected timeout > 0");
+        }
+        maxRetries = builder.maxRetries;
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("Expected maxRetries >= 0");
+        }
+        initialBackoff = Objects.requireNonNull(builder.initialBackoff, "Expected initialBackoff");
+        maxBackoff = Objects.requireNonNull(builder.maxBackoff, "Expected maxBackoff");
+        if (initialBackoff.isNegative() || maxBackoff.compareTo(initialBackoff) < 0) {
+            throw new IllegalArgumentException("Expected 0 <= initialBackoff <= maxBackoff");
+        }
+        retryStatuses = Set.of(builder.retryStatuses);
+        hedgeDelay = builder.hedgeDelay;
+        if (hedgeDelay != null && hedgeDelay.isNegative()) {
+            throw new IllegalArgumentException("Expected hedgeDelay >= 0");
+        }
+        hedgePercentile = builder.hedgePercentile;
+        if (hedgePercentile != 0.0) {
+            if (!(hedgePercentile > 0.0 && hedgePercentile < 100.0)) {
+                throw new IllegalArgumentException("Expected 0.0 < hedgePercentile < 100.0");
+            }
+            if (hedgeDelay == null) {
+                throw new IllegalArgumentException("Expected hedgeDelay to " +
+                    "be set when hedgePercentile is");
+            }
+        }
+        hedgeDelayNanos = hedgeDelay != null ? hedgeDelay.toNanos() : -1;
+    }
+
+    /**
+     * @return Duration after sending a request within which its response
+     * must be received, if any.
+     */
+    public Duration timeout() {
+        return timeout;
+    }
+
+    /**
+     * @return Maximum number of times a request may be retried.
+     */
+    public int maxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * @return Upper bound of the delay before the first retry.
+     */
+    public Duration initialBackoff() {
+        return initialBackoff;
+    }
+
+    /**
+     * @return Upper bound of the delay before any retry.
+     */
+    public Duration maxBackoff() {
+        return maxBackoff;
+    }
+
+    /**
+     * @return Response statuses causing requests to be retried.
+     */
+    public Set<HttpStatus> retryStatuses() {
+        return retryStatuses;
+    }
+
+    /**
+     * @return Delay after which requests are hedged, or, if a
+     * {@link #hedgePercentile() hedge percentile} is set, the delay used until
+     * enough responses have been received to determine that percentile.
+     * {@code null} if hedging is disabled.
+     */
+    public Duration hedgeDelay() {
+        return hedgeDelay;
+    }
+
+    /**
+     * @return Percentile of previous response latencies after which requests
+     * are hedged, or {@code 0.0} if a fixed hedge delay is used.
+     */
+    public double hedgePercentile() {
+        return hedgePercentile;
+    }
+
+    /**
+     * Determines if given request may be retried after having failed
+     * {@code retries} times.
+     *
+     * @param request Request to test.
+     * @param retries Number of retries already made.
+     * @return {@code true} only if a retry may be made.
+     */
+    @Internal
+    public boolean isRetryable(final HttpClientRequest request, final int retries) {
+        return retries < maxRetries && isIdempotent(request);
+    }
+
+    /**
+     * Determines if given response should cause its request to be retried,
+     * if permitted.
+     *
+     * @param response Response to test.
+     * @return {@code true} only if the status of {@code response} is among
+     * the retry statuses of this policy.
+     */
+    @Internal
+    public boolean isRetryStatus(final HttpClientResponse response) {
+        return !retryStatuses.isEmpty() && retryStatuses.contains(response.status());
+    }
+
+    /**
+     * Determines if given request may be hedged.
+     *
+     * @param request Request to test.
+     * @return {@code true} only if hedging is enabled and the method of
+     * {@code request} is idempotent.
+     */
+    @Internal
+    public boolean isHedgeable(final HttpClientRequest request) {
+        return hedgeDelay != null && isIdempotent(request);
+    }
+
+    private static boolean isIdempotent(final HttpClientRequest request) {
+        return request.method().map(HttpMethod::isIdempotent).orElse(false);
+    }
+
+    /**
+     * Calculates delay before retry number {@code retries + 1}.
+     *
+     * @param retries Number of retries already made.
+     * @return Random delay, in nanoseconds.
+     */
+    @Internal
+    public long nextBackoffNanos(final int retries) {
+        final var initialNanos = initialBackoff.toNanos();
+        final var maxNanos = maxBackoff.toNanos();
+        final var boundNanos = retries >= 62 || initialNanos > (maxNanos >> retries)
+            ? maxNanos
+            : initialNanos << retries;
+        return boundNanos > 0
+            ? ThreadLocalRandom.current().nextLong(boundNanos + 1)
+            : 0;
+    }
+
+    /**
+     * @return Current hedge delay, in nanoseconds, or {@code -1} if hedging
+     * is disabled.
+     */
+    @Internal
+    public long hedgeDelayNanos() {
+        if (hedgePercentile == 0.0) {
+            return hedgeDelayNanos;
+        }
+        final var now = System.nanoTime();
+        if (now - hedgeDelayRefreshedAtNanos >= HEDGE_DELAY_REFRESH_INTERVAL_NANOS) {
+            hedgeDelayRefreshedAtNanos = now;
+            final var histogram = latencies.get();
+            final var snapshot = histogram.snapshot();
+            if (snapshot.count() >= HEDGE_DELAY_MIN_SAMPLES) {
+                hedgeDelayNanos = snapshot.percentile(hedgePercentile).toNanos();
+            }
+            // Starting over once enough samples have been seen lets the
+            // delay follow changes in latency.
+            if (snapshot.count() >= HEDGE_DELAY_MAX_SAMPLES) {
+                latencies.compareAndSet(histogram, new LatencyHistogram());
+            }
+        }
+        return hedgeDelayNanos;
+    }
+
+    /**
+     * Records the latency of a received response.
+     *
+     * @param nanos Latency, in nanoseconds.
+     */
+    @Internal
+    public void recordLatency(final long nanos) {
+        if (hedgePercentile != 0.0) {
+            latencies.get().record(nanos);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HttpClientRequestPolicy{" +
+            "timeout=" + timeout +
+            ", maxRetries=" + maxRetries +
+            ", initialBackoff=" + initialBackoff +
+            ", maxBackoff=" + maxBackoff +
+            ", retryStatuses=" + retryStatuses +
+            ", hedgeDelay=" + hedgeDelay +
+            ", hedgePercentile=" + hedgePercentile +
+            '}';
+    }
+
+    /**
+     * Builder useful for creating {@link HttpClientRequestPolicy} instances.
+     */
+    public static class Builder {
+        private Duration timeout;
+        private int maxRetries = 0;
+        private Duration initialBackoff = Duration.ofMillis(100);
+        private Duration maxBackoff = Duration.ofSeconds(10);
+        private HttpStatus[] retryStatuses = new HttpStatus[]{
+            HttpStatus.BAD_GATEWAY,
+            HttpStatus.SERVICE_UNAVAILABLE,
+            HttpStatus.GATEWAY_TIMEOUT};
+        private Duration hedgeDelay;
+        private double hedgePercentile = 0.0;
+
+        /**
+         * Sets duration after sending a request within which its response
+         * must be received, including any time spent on retries and hedged
+         * attempts. Not set by default, which means that requests may wait
+         * for their responses indefinitely.
+         *
+         * @param timeout Request timeout.
+         * @return This builder.
+         */
+        public Builder timeout(final Duration timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * Sets maximum number of times a request with an idempotent method
+         * may be retried. Defaults to 0.
+         *
+         * @param maxRetries Maximum number of retries.
+         * @return This builder.
+         */
+        public Builder maxRetries(final int maxRetries) {
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        /**
+         * Sets upper bound of the random delay before the first retry of a
+         * request. The bound is doubled for every subsequent retry. Defaults
+         * to 100 milliseconds.
+         *
+         * @param initialBackoff Initial backoff.
+         * @return This builder.
+         */
+        public Builder initialBackoff(final Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+            return this;
+        }
+
+        /**
+         * Sets upper bound of the random delay before any retry of a
+         * request. Defaults to 10 seconds.
+         *
+         * @param maxBackoff Maximum backoff.
+         * @return This builder.
+         */
+        public Builder maxBackoff(final Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        /**
+         * Sets response statuses that cause their requests to be retried,
+         * if permitted. Defaults to {@link HttpStatus#BAD_GATEWAY},
+         * {@link HttpStatus#SERVICE_UNAVAILABLE} and
+         * {@link HttpStatus#GATEWAY_TIMEOUT}. Requests are also always
+         * retried, if permitted, if sending them or receiving their responses
+         * fails.
+         * <p>
+         * If the response of the last permitted retry has one of these
+         * statuses, that response is used as the response of the request.
+         *
+         * @param retryStatuses Statuses causing retries.
+         * @return This builder.
+         */
+        public Builder retryStatuses(final HttpStatus... retryStatuses) {
+            this.retryStatuses = retryStatuses;
+            return this;
+        }
+
+        /**
+         * Enables hedging of requests with idempotent methods, making a
+         * second attempt to send each such request if no response has been
+         * received within given {@code delay}. Disabled by default.
+         * <p>
+         * If a {@link #hedgePercentile(double) hedge percentile} is set, the
+         * delay is only used until enough responses have been received to
+         * determine that percentile.
+         *
+         * @param hedgeDelay Delay before hedging.
+         * @return This builder.
+         */
+        public Builder hedgeDelay(final Duration hedgeDelay) {
+            this.hedgeDelay = hedgeDelay;
+            return this;
+        }
+
+        /**
+         * Makes the hedge delay of created policies equal to given
+         * percentile of the latencies of previously received responses, such
+         * as {@code 95.0}, which causes about 5% of all requests to be
+         * hedged. Requires a {@link #hedgeDelay(Duration) hedge delay} to be
+         * set, which is used until enough responses have been received.
+         *
+         * @param hedgePercentile Percentile, between 0.0 and 100.0.
+         * @return This builder.
+         */
+        public Builder hedgePercentile(final double hedgePercentile) {
+            this.hedgePercentile = hedgePercentile;
+            return this;
+        }
+
+        /**
+         * @return New {@link HttpClientRequestPolicy}.
+         * @throws IllegalArgumentException If {@code timeout} is not
+         *                                  positive, {@code maxRetries} is
+         *                                  negative, the backoffs are
+         *                                  negative or out of order, or if
+         *                                  the hedge delay or percentile is
+         *                                  invalid.
+         * @throws NullPointerException     If {@code initialBackoff},
+         *                                  {@code maxBackoff} or any retry
+         *                                  status is {@code null}.
+         */
+        public HttpClientRequestPolicy build() {
+            return new HttpClientRequestPolicy(this);
+        }
+    }
+}
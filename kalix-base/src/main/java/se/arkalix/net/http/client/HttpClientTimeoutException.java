@@ -0,0 +1,22 @@
+package se.arkalix.net.http.client;
+
+/**
+ * Signifies that the response of some HTTP request was not received before
+ * the deadline determined by the {@link HttpClientRequestPolicy} of the
+ * request was passed.
+ * <p>
+ * As these exceptions are expected to be quite common, and are caused by
+ * external rather than internal mistakes, <i>they do not produce stack
+ * traces</i>. If an HTTP response causes an error that should generate a stack
+ * trace, some other exception type should be used instead.
+ */
+public class HttpClientTimeoutException extends HttpClientException {
+    /**
+     * Creates new HTTP client timeout exception with given message.
+     *
+     * @param message Human-readable description of issue.
+     */
+    public HttpClientTimeoutException(final String message) {
+        super(message);
+    }
+}
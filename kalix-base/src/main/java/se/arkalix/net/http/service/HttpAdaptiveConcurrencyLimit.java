@@ -0,0 +1,295 @@
+package se.arkalix.net.http.service;
+
+import se.arkalix.util.annotation.Internal;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A limit on the number of requests an {@link HttpService} may handle at the
+ * same time, which adapts itself to the observed latencies of the service.
+ * <p>
+ * Two moving averages of the time required to handle requests are
+ * maintained, one short-term and one long-term. As long as the short-term
+ * average stays within a tolerated ratio of the long-term average, the limit
+ * is allowed to grow. If the short-term average becomes significantly larger
+ * than the long-term average, which is taken as a sign of requests beginning
+ * to queue up inside the service or its dependencies, the limit shrinks in
+ * proportion. The limit is never lowered below or raised above configured
+ * bounds, and it is not raised while the service is handling much fewer
+ * requests than currently allowed, as such latencies say nothing about how
+ * the service would perform with more requests.
+ * <p>
+ * Requests exceeding the limit are queued and, eventually, rejected as
+ * described in {@link HttpServerLimits.Builder#maxInFlightRequests(int)}.
+ * <p>
+ * Instances of this class hold state and must not be shared between
+ * services. Setting the same instance as the limit of more than one service
+ * causes an {@link IllegalStateException} to be thrown.
+ *
+ * @see HttpService#adaptiveConcurrencyLimit(HttpAdaptiveConcurrencyLimit)
+ */
+public class HttpAdaptiveConcurrencyLimit {
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final double shortAlpha;
+    private final double longAlpha;
+    private final LongAdder rejectedCount = new LongAdder();
+    private final AtomicReference<HttpService> owner = new AtomicReference<>(null);
+
+    private volatile double limit;
+    private double shortRttNanos = 0;
+    private double longRttNanos = 0;
+    private long sampleCount = 0;
+
+    private HttpAdaptiveConcurrencyLimit(final Builder builder) {
+        minLimit = builder.minLimit;
+        maxLimit = builder.maxLimit;
+        if (minLimit <= 0 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Expected 0 < minLimit <= maxLimit");
+        }
+        if (builder.initialLimit < minLimit || builder.initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Expected minLimit <= initialLimit <= maxLimit");
+        }
+        limit = builder.initialLimit;
+        tolerance = builder.tolerance;
+        if (!(tolerance >= 1.0)) {
+            throw new IllegalArgumentException("Expected tolerance >= 1.0");
+        }
+        smoothing = builder.smoothing;
+        if (!(smoothing > 0.0 && smoothing <= 1.0)) {
+            throw new IllegalArgumentException("Expected 0.0 < smoothing <= 1.0");
+        }
+        if (builder.shortWindow <= 0 || builder.longWindow < builder.shortWindow) {
+            throw new IllegalArgumentException("Expected 0 < shortWindow <= longWindow");
+        }
+        shortAlpha = 2.0 / (builder.shortWindow + 1);
+        longAlpha = 2.0 / (builder.longWindow + 1);
+    }
+
+    /**
+     * @return Number of requests currently allowed to be handled at the same
+     * time.
+     */
+    public int limit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return Short-term average time required to handle a request.
+     */
+    public synchronized Duration shortRtt() {
+        return Duration.ofNanos((long) shortRttNanos);
+    }
+
+    /**
+     * @return Long-term average time required to handle a request.
+     */
+    public synchronized Duration longRtt() {
+        return Duration.ofNanos((long) longRttNanos);
+    }
+
+    /**
+     * @return Number of handled requests whose latencies have been used to
+     * update this limit.
+     */
+    public synchronized long sampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * @return Number of requests rejected due to this limit, or due to the
+     * queue of requests waiting for admission being full.
+     */
+    public long rejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * Updates limit with the latency of a request that was just handled.
+     *
+     * @param rttNanos Time required to handle request, in nanoseconds.
+     * @param inFlight Number of requests being handled, including the one
+     *                 just handled, at the time of the request completing.
+     */
+    @Internal
+    public synchronized void onSample(final long rttNanos, final int inFlight) {
+        if (rttNanos <= 0) {
+            return;
+        }
+        if (sampleCount++ == 0) {
+            shortRttNanos = rttNanos;
+            longRttNanos = rttNanos;
+        }
+        else {
+            shortRttNanos += (rttNanos - shortRttNanos) * shortAlpha;
+            longRttNanos += (rttNanos - longRttNanos) * longAlpha;
+        }
+
+        // If latencies have dropped significantly, let the long-term average
+        // catch up faster, as it would otherwise hold the limit back for a
+        // long time.
+        if (longRttNanos > shortRttNanos * 2.0) {
+            longRttNanos *= 0.95;
+        }
+
+        final var limit = this.limit;
+
+        // Latencies observed when far from the limit do not tell anything
+        // about how the service would perform closer to it.
+        if (inFlight < limit / 2.0) {
+            return;
+        }
+
+        final var gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / shortRttNanos));
+        final var newLimit = limit * gradient + Math.sqrt(limit);
+        final var smoothedLimit = limit * (1.0 - smoothing) + newLimit * smoothing;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, smoothedLimit));
+    }
+
+    /*
+     * Makes given service the only one this limit may be used by. Called when
+     * the limit is set, rather than when the service is provided, as the same
+     * service may be provided, dismissed and provided again.
+     */
+    void claimBy(final HttpService service) {
+        if (!owner.compareAndSet(null, service) && owner.get() != service) {
+            throw new IllegalStateException("HttpAdaptiveConcurrencyLimit " +
+                "already used by another service; limits must not be shared " +
+                "between services");
+        }
+    }
+
+    void releaseBy(final HttpService service) {
+        owner.compareAndSet(service, null);
+    }
+
+    /**
+     * Signals that a request was rejected.
+     */
+    @Internal
+    public void onRejected() {
+        rejectedCount.increment();
+    }
+
+    @Override
+    public String toString() {
+        return "HttpAdaptiveConcurrencyLimit{" +
+            "limit=" + limit() +
+            ", shortRtt=" + shortRtt() +
+            ", longRtt=" + longRtt() +
+            ", sampleCount=" + sampleCount() +
+            ", rejectedCount=" + rejectedCount() +
+            '}';
+    }
+
+    /**
+     * Builder useful for creating {@link HttpAdaptiveConcurrencyLimit}
+     * instances.
+     */
+    public static class Builder {
+        private int initialLimit = 20;
+        private int minLimit = 1;
+        private int maxLimit = 200;
+        private double tolerance = 1.5;
+        private double smoothing = 0.2;
+        private int shortWindow = 10;
+        private int longWindow = 600;
+
+        /**
+         * Sets limit to use before any latencies have been observed. Defaults
+         * to 20.
+         *
+         * @param initialLimit Initial limit.
+         * @return This builder.
+         */
+        public Builder initialLimit(final int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        /**
+         * Sets smallest allowed limit. Defaults to 1.
+         *
+         * @param minLimit Minimum limit.
+         * @return This builder.
+         */
+        public Builder minLimit(final int minLimit) {
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        /**
+         * Sets largest allowed limit. Defaults to 200.
+         *
+         * @param maxLimit Maximum limit.
+         * @return This builder.
+         */
+        public Builder maxLimit(final int maxLimit) {
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * Sets how many times larger the short-term average latency may be
+         * than the long-term average before the limit starts to shrink.
+         * Defaults to 1.5.
+         *
+         * @param tolerance Latency tolerance ratio, at least 1.0.
+         * @return This builder.
+         */
+        public Builder tolerance(final double tolerance) {
+            this.tolerance = tolerance;
+            return this;
+        }
+
+        /**
+         * Sets how much of each calculated limit change is applied, where
+         * 1.0 means that the entire change is applied. Defaults to 0.2.
+         *
+         * @param smoothing Smoothing factor, larger than 0.0 and at most
+         *                  1.0.
+         * @return This builder.
+         */
+        public Builder smoothing(final double smoothing) {
+            this.smoothing = smoothing;
+            return this;
+        }
+
+        /**
+         * Sets approximate number of requests the short-term average latency
+         * is calculated over. Defaults to 10.
+         *
+         * @param shortWindow Short-term window size, in requests.
+         * @return This builder.
+         */
+        public Builder shortWindow(final int shortWindow) {
+            this.shortWindow = shortWindow;
+            return this;
+        }
+
+        /**
+         * Sets approximate number of requests the long-term average latency
+         * is calculated over. Defaults to 600.
+         *
+         * @param longWindow Long-term window size, in requests.
+         * @return This builder.
+         */
+        public Builder longWindow(final int longWindow) {
+            this.longWindow = longWindow;
+            return this;
+        }
+
+        /**
+         * @return New {@link HttpAdaptiveConcurrencyLimit}.
+         * @throws IllegalArgumentException If any of the configured values
+         *                                  are out of range.
+         */
+        public HttpAdaptiveConcurrencyLimit build() {
+            return new HttpAdaptiveConcurrencyLimit(this);
+        }
+    }
+}
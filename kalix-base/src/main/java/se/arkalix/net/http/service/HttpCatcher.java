@@ -1,8 +1,10 @@
 package se.arkalix.net.http.service;
 
+import se.arkalix.internal.net.http.service.HttpPaths;
 import se.arkalix.internal.net.http.service.HttpServiceInternal;
 import se.arkalix.net.http.HttpMethod;
 import se.arkalix.util.concurrent.Future;
+import se.arkalix.util.concurrent.FutureSuccess;
 
 import java.util.*;
 
@@ -11,6 +13,9 @@ import java.util.*;
  * occurring while receiving or responding to HTTP requests.
  */
 public class HttpCatcher<T extends Throwable> implements HttpRoutable {
+    private static final Future<Boolean> FALSE = Future.success(false);
+    private static final Future<Boolean> TRUE = Future.success(true);
+
     private final int ordinal;
     private final HttpMethod method;
     private final HttpPattern pattern;
@@ -100,27 +105,24 @@ public class HttpCatcher<T extends Throwable> implements HttpRoutable {
             if (!exceptionClass.isAssignableFrom(throwable.getClass())) {
                 break mismatch;
             }
-            final List<String> pathParameters;
-            if (pattern != null) {
-                pathParameters = new ArrayList<>(pattern.nParameters());
-                if (!pattern.match(task.request().path(), task.basePath().length(), pathParameters)) {
-                    break mismatch;
-                }
-            }
-            else {
-                pathParameters = Collections.emptyList();
+            final var pathParameters = HttpPaths.newParameterListFor(pattern);
+            if (pattern != null && !pattern.match(task.request().path(), task.basePath().length(), pathParameters)) {
+                break mismatch;
             }
             final var response = task.response();
             try {
-                return handler.handle(exceptionClass.cast(throwable),
-                    task.request().cloneAndSet(pathParameters), response)
-                    .map(ignored -> response.status().isPresent());
+                final var future = handler.handle(exceptionClass.cast(throwable),
+                    task.request().cloneAndSet(pathParameters), response);
+                if (future instanceof FutureSuccess) {
+                    return response.status().isPresent() ? TRUE : FALSE;
+                }
+                return future.map(ignored -> response.status().isPresent());
             }
             catch (final Throwable throwable1) {
                 throwable1.addSuppressed(throwable);
                 return Future.failure(throwable);
             }
         }
-        return Future.success(false);
+        return FALSE;
     }
 }
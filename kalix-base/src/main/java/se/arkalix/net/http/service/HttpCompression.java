@@ -0,0 +1,107 @@
+package se.arkalix.net.http.service;
+
+/**
+ * Describes how the response bodies of some {@link HttpService} are to be
+ * compressed.
+ * <p>
+ * A response body is compressed only if (1) its receiver has indicated, via
+ * the {@code accept-encoding} header of its request, that it accepts the
+ * {@code gzip} or {@code deflate} content codings, (2) the body is at least
+ * as large as the configured threshold, and (3) no {@code content-encoding}
+ * header has been set explicitly on the response. Bodies set via
+ * {@link HttpServiceResponse#body(java.nio.file.Path)} or
+ * {@link HttpServiceResponse#body(java.util.concurrent.Flow.Publisher)} are
+ * never compressed, as the former are sent without being copied into memory
+ * and the sizes of the latter are not known in advance.
+ * <p>
+ * Compressed request bodies are decompressed automatically, regardless of
+ * whether or not the receiving service compresses its responses. The
+ * {@link HttpService#maxRequestBodySize(long) request body size limit} of a
+ * service applies to the decompressed size of the bodies it receives.
+ *
+ * @see HttpService#compression(HttpCompression)
+ * @see <a href="https://tools.ietf.org/html/rfc7231#section-5.3.4">RFC 7231, Section 5.3.4</a>
+ */
+public class HttpCompression {
+    private static final HttpCompression DEFAULT = new Builder().build();
+
+    private final int level;
+    private final int threshold;
+
+    private HttpCompression(final Builder builder) {
+        level = builder.level;
+        if (level < 1 || level > 9) {
+            throw new IllegalArgumentException("Expected 1 <= level <= 9");
+        }
+        threshold = builder.threshold;
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Expected threshold >= 0");
+        }
+    }
+
+    /**
+     * @return Default response compression settings.
+     */
+    public static HttpCompression getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @return Compression level, ranging from 1, which is the fastest, to 9,
+     * which yields the smallest bodies.
+     */
+    public int level() {
+        return level;
+    }
+
+    /**
+     * @return Size, in bytes, response bodies must have, at least, to be
+     * compressed.
+     */
+    public int threshold() {
+        return threshold;
+    }
+
+    /**
+     * Builder useful for creating {@link HttpCompression} instances.
+     */
+    public static class Builder {
+        private int level = 6;
+        private int threshold = 1024;
+
+        /**
+         * Sets compression level, ranging from 1, which is the fastest, to 9,
+         * which yields the smallest bodies. Defaults to 6.
+         *
+         * @param level Compression level.
+         * @return This builder.
+         */
+        public Builder level(final int level) {
+            this.level = level;
+            return this;
+        }
+
+        /**
+         * Sets size, in bytes, response bodies must have, at least, to be
+         * compressed. Very small bodies tend not to become any smaller when
+         * compressed. Defaults to 1024.
+         *
+         * @param threshold Compression threshold.
+         * @return This builder.
+         */
+        public Builder threshold(final int threshold) {
+            this.threshold = threshold;
+            return this;
+        }
+
+        /**
+         * @return New {@link HttpCompression}.
+         * @throws IllegalArgumentException If {@code level} is not between 1
+         *                                  and 9, or if {@code threshold} is
+         *                                  negative.
+         */
+        public HttpCompression build() {
+            return new HttpCompression(this);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package se.arkalix.net.http.service;
+
+import se.arkalix.ArSystem;
+import se.arkalix.descriptor.EncodingDescriptor;
+import se.arkalix.net.http.HttpMethod;
+import se.arkalix.net.http.HttpStatus;
+import se.arkalix.security.access.AccessPolicy;
+import se.arkalix.util.concurrent.Future;
+
+import java.util.Objects;
+
+/**
+ * Factory for creating {@link HttpService}s that expose the
+ * {@link HttpServerMetrics} of their systems in the Prometheus text
+ * exposition format.
+ * <p>
+ * No such service is provided unless explicitly created and provided, as in
+ * the following example:
+ * <pre>
+ *     system.provide(HttpMetricsService.create(system, AccessPolicy.unrestricted()));
+ * </pre>
+ * Any {@code GET} request received by the service is responded to with the
+ * current metrics of the system. As the service uses the
+ * {@link EncodingDescriptor#TEXT TEXT} encoding, requests must either accept
+ * {@code text/plain} or not specify what media types they accept.
+ *
+ * @see <a href="https://prometheus.io/docs/instrumenting/exposition_formats/">Prometheus Exposition Formats</a>
+ */
+public final class HttpMetricsService {
+    /**
+     * Default name of created services.
+     */
+    public static final String NAME = "kalix-metrics";
+
+    /**
+     * Default base path of created services.
+     */
+    public static final String BASE_PATH = "/metrics";
+
+    private HttpMetricsService() {}
+
+    /**
+     * Creates new metrics service with the default name and base path.
+     *
+     * @param system       System whose metrics are to be exposed.
+     * @param accessPolicy Policy determining who may read the metrics.
+     * @return New HTTP service, not yet provided by any system.
+     */
+    public static HttpService create(final ArSystem system, final AccessPolicy accessPolicy) {
+        return create(system, accessPolicy, NAME, BASE_PATH);
+    }
+
+    /**
+     * Creates new metrics service.
+     *
+     * @param system       System whose metrics are to be exposed.
+     * @param accessPolicy Policy determining who may read the metrics.
+     * @param name         Name of created service.
+     * @param basePath     Base path of created service.
+     * @return New HTTP service, not yet provided by any system.
+     */
+    public static HttpService create(
+        final ArSystem system,
+        final AccessPolicy accessPolicy,
+        final String name,
+        final String basePath)
+    {
+        Objects.requireNonNull(system, "Expected system");
+        final var metrics = system.httpServerMetrics();
+        return new HttpService()
+            .name(name)
+            .basePath(basePath)
+            .encodings(EncodingDescriptor.TEXT)
+            .accessPolicy(accessPolicy)
+            .route(new HttpRoute(HttpMethod.GET, null, (request, response) -> {
+                final var builder = new StringBuilder();
+                metrics.writePrometheusTextTo(builder);
+                response
+                    .status(HttpStatus.OK)
+                    .header("content-type", "text/plain; version=0.0.4; charset=utf-8")
+                    .body(builder.toString());
+                return Future.done();
+            }));
+    }
+}
@@ -90,7 +90,7 @@ public class HttpPattern implements Comparable<HttpPattern> {
         if (nParameters == 0) { // Fast path for patterns without parameters.
             final var px = p1 - offset;
             if (isPrefix && px > q1 && pattern.regionMatches(0, path, offset, q1)) {
-                parameters.add(path.substring(q1 - 1));
+                parameters.add(path.substring(offset + q1 - 1));
                 return true;
             }
             return px == q1 && pattern.regionMatches(0, path, offset, q1);
@@ -198,6 +198,14 @@ public class HttpPattern implements Comparable<HttpPattern> {
         return nParameters;
     }
 
+    /**
+     * @return {@code true} only if this pattern is a prefix, which means
+     * that it ends with a right angle bracket ({@code >}).
+     */
+    public boolean isPrefix() {
+        return isPrefix;
+    }
+
     /**
      * @return Text representation of this pattern.
      */
@@ -0,0 +1,242 @@
+package se.arkalix.net.http.service;
+
+import se.arkalix.net.http.HttpMethod;
+import se.arkalix.util.annotation.Internal;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A breakdown of the time taken to receive, handle and respond to a single
+ * HTTP request, as observed by the HTTP server of some
+ * {@link se.arkalix.ArSystem ArSystem}.
+ * <p>
+ * The time from when the head of the request was received until its response
+ * was flushed to its connection is divided into the {@link Stage stages}
+ * it passed through, in order. Stages not passed through, such as if the
+ * request was rejected early, are not part of the breakdown.
+ *
+ * @see HttpServerMetrics
+ * @see HttpSlowRequestLog
+ */
+public class HttpRequestTimings {
+    private static final Stage[] STAGES = Stage.values();
+
+    private final HttpMethod method;
+    private final String uri;
+    private final long startNanos;
+    private final long[] stageNanos = new long[STAGES.length];
+
+    private long lastNanos;
+    private long endNanos = -1L;
+    private String service = "";
+    private String route = "";
+    private int status = 0;
+
+    /**
+     * Creates new timing record, the time of the creation of which is taken
+     * as the time at which the head of the identified request was received.
+     *
+     * @param method Request method.
+     * @param uri    Request URI.
+     */
+    @Internal
+    public HttpRequestTimings(final HttpMethod method, final String uri) {
+        this.method = Objects.requireNonNull(method, "Expected method");
+        this.uri = Objects.requireNonNull(uri, "Expected uri");
+        startNanos = lastNanos = System.nanoTime();
+        Arrays.fill(stageNanos, -1L);
+    }
+
+    /**
+     * Records the end of given {@code stage}, which is taken as having
+     * started when the previous stage ended, or when the request was
+     * received if no other stage has ended.
+     *
+     * @param stage Stage that ended.
+     */
+    @Internal
+    public void mark(final Stage stage) {
+        final var now = System.nanoTime();
+        add(stage, now - lastNanos);
+        lastNanos = now;
+    }
+
+    /**
+     * Adds given number of nanoseconds to given {@code stage}, without
+     * affecting when the next stage is taken to have started.
+     *
+     * @param stage Stage to add time to.
+     * @param nanos Time to add, in nanoseconds.
+     */
+    @Internal
+    public void add(final Stage stage, final long nanos) {
+        final var index = stage.ordinal();
+        stageNanos[index] = Math.max(stageNanos[index], 0L) + Math.max(nanos, 0L);
+    }
+
+    /**
+     * Records the outcome of the request.
+     *
+     * @param service Name of service that received the request.
+     * @param route   Pattern of route that handled the request.
+     * @param status  Response status code.
+     */
+    @Internal
+    public void outcome(final String service, final String route, final int status) {
+        this.service = service;
+        this.route = route;
+        this.status = status;
+    }
+
+    /**
+     * Records the end of the request, which is expected to happen after its
+     * response has been flushed, or has failed to be.
+     */
+    @Internal
+    public void end() {
+        endNanos = System.nanoTime();
+    }
+
+    /**
+     * @return Request method.
+     */
+    public HttpMethod method() {
+        return method;
+    }
+
+    /**
+     * @return Request URI, including any query string.
+     */
+    public String uri() {
+        return uri;
+    }
+
+    /**
+     * @return Name of service that received the request, or an empty string
+     * if not matching any service.
+     */
+    public String service() {
+        return service;
+    }
+
+    /**
+     * @return Pattern of route that handled the request, {@code "*"} if the
+     * route has no pattern, or an empty string if the request did not match
+     * any route.
+     */
+    public String route() {
+        return route;
+    }
+
+    /**
+     * @return Response status code, or {@code 0} if no response has been
+     * decided upon.
+     */
+    public int status() {
+        return status;
+    }
+
+    /**
+     * @param stage Stage of interest.
+     * @return Time spent in {@code stage}, if it was passed through.
+     */
+    public Optional<Duration> stage(final Stage stage) {
+        final var nanos = stageNanos[stage.ordinal()];
+        return nanos >= 0L ? Optional.of(Duration.ofNanos(nanos)) : Optional.empty();
+    }
+
+    /**
+     * @return Time from the request being received until its response was
+     * flushed, or until now if the request has not yet ended.
+     */
+    public Duration total() {
+        return Duration.ofNanos((endNanos >= 0L ? endNanos : System.nanoTime()) - startNanos);
+    }
+
+    @Override
+    public String toString() {
+        final var builder = new StringBuilder()
+            .append(method).append(' ').append(uri)
+            .append(" -> ").append(status)
+            .append(" [service=").append(service)
+            .append(", route=").append(route)
+            .append("] total=").append(total().toNanos() / 1000L).append("us");
+        for (final var stage : STAGES) {
+            final var nanos = stageNanos[stage.ordinal()];
+            if (nanos >= 0L) {
+                builder.append(' ').append(stage.label()).append('=').append(nanos / 1000L).append("us");
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * A stage in the life of an HTTP request.
+     */
+    public enum Stage {
+        /**
+         * Resolving the service and route matching the request.
+         */
+        LOOKUP("lookup"),
+
+        /**
+         * Waiting for being admitted by the admission controller of the
+         * service, if it has one.
+         *
+         * @see HttpService#maxInFlightRequests(int)
+         * @see HttpService#adaptiveConcurrencyLimit(HttpAdaptiveConcurrencyLimit)
+         */
+        ADMISSION("admission"),
+
+        /**
+         * Identifying the consumer and consulting the access policy of the
+         * service.
+         */
+        AUTHORIZATION("authorization"),
+
+        /**
+         * Determining the encoding of the request and response bodies.
+         */
+        NEGOTIATION("negotiation"),
+
+        /**
+         * Executing the route handler, including receiving any request body
+         * and waiting for the handler to complete. If the route is blocking,
+         * any time spent waiting for a worker thread is included.
+         */
+        HANDLING("handling"),
+
+        /**
+         * Assembling and decoding the request body, if it was requested as
+         * a DTO, string or byte array. This time is also part of
+         * {@link #HANDLING}.
+         */
+        DECODING("decoding"),
+
+        /**
+         * Encoding the response and handing it to the connection.
+         */
+        ENCODING("encoding"),
+
+        /**
+         * Waiting for the response to be flushed to the connection.
+         */
+        FLUSHING("flushing");
+
+        private final String label;
+
+        Stage(final String label) {
+            this.label = label;
+        }
+
+        /**
+         * @return Lowercase name of stage.
+         */
+        public String label() {
+            return label;
+        }
+    }
+}
@@ -15,6 +15,7 @@ public class HttpRoute implements HttpRoutable {
     private final HttpMethod method;
     private final HttpPattern pattern;
     private final HttpRouteHandler handler;
+    private final boolean isBlocking;
 
     /**
      * Creates new {@link HttpServiceInternal} route.
@@ -26,9 +27,49 @@ public class HttpRoute implements HttpRoutable {
      * @param handler The handler to execute with matching requests.
      */
     public HttpRoute(final HttpMethod method, final HttpPattern pattern, final HttpRouteHandler handler) {
+        this(method, pattern, handler, false);
+    }
+
+    /**
+     * Creates new {@link HttpServiceInternal} route, which may be blocking.
+     * <p>
+     * The handler of a blocking route is executed by the
+     * {@link HttpWorkerPool} of the system providing the service owning the
+     * route, rather than by the thread handling the network I/O of the
+     * connection the request was received via. Such routes may perform
+     * blocking operations, such as synchronous file or database I/O, without
+     * preventing other connections from being served.
+     * <p>
+     * If the handler requests the body of its request, such as via
+     * {@link HttpServiceRequest#bodyAs(Class)}, the returned future is
+     * completed by a worker pool thread as well, which means that any
+     * continuations registered on it, such as via
+     * {@link Future#map(se.arkalix.util.function.ThrowingFunction) map()},
+     * may also block. <b>This does not apply to any other futures.</b>
+     * Continuations of, for example, responses received by HTTP clients are
+     * executed by I/O threads, and must not block even if registered by the
+     * handler of a blocking route. Neither may the progress listeners of body
+     * futures, nor the subscribers of bodies requested via
+     * {@link HttpServiceRequest#bodyAsPublisher()}, block, as these are
+     * notified by the I/O thread receiving the body.
+     *
+     * @param method     HTTP method to require for given requests to match
+     *                   this route. Use {@code null} to allow any method.
+     * @param pattern    HTTP pattern to require for given request paths to
+     *                   match this route. Use {@code null} to allow any path.
+     * @param handler    The handler to execute with matching requests.
+     * @param isBlocking Whether or not {@code handler} may block.
+     */
+    public HttpRoute(
+        final HttpMethod method,
+        final HttpPattern pattern,
+        final HttpRouteHandler handler,
+        final boolean isBlocking)
+    {
         this.method = method;
         this.pattern = pattern;
         this.handler = handler;
+        this.isBlocking = isBlocking;
     }
 
     /**
@@ -49,6 +90,14 @@ public class HttpRoute implements HttpRoutable {
         return Optional.ofNullable(pattern);
     }
 
+    /**
+     * @return {@code true} only if the handler of this route may block, and
+     * must therefore be executed by a {@link HttpWorkerPool}.
+     */
+    public boolean isBlocking() {
+        return isBlocking;
+    }
+
     /**
      * Checks whether the request in the given task matches this route, without
      * providing the request to the handler owned by this route.
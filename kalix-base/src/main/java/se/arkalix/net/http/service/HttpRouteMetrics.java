@@ -0,0 +1,138 @@
+package se.arkalix.net.http.service;
+
+import se.arkalix.net.http.HttpMethod;
+import se.arkalix.util.annotation.Internal;
+import se.arkalix.util.metrics.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Request latencies recorded for one route of one {@link HttpService}.
+ * <p>
+ * Latencies are measured from the moment a request is received to the
+ * moment its response is handed over for being sent, and are recorded
+ * separately for every combination of request method and response status
+ * class, such as {@code GET} and {@code 2xx}. Non-standard request methods
+ * are all recorded as {@code OTHER}.
+ *
+ * @see HttpServerMetrics
+ */
+public class HttpRouteMetrics {
+    private static final String[] STATUS_CLASSES = {"1xx", "2xx", "3xx", "4xx", "5xx"};
+    private static final String OTHER_METHOD = "OTHER";
+
+    private final String service;
+    private final String route;
+    private final ConcurrentHashMap<String, AtomicReferenceArray<LatencyHistogram>> histogramsByMethod =
+        new ConcurrentHashMap<>();
+
+    HttpRouteMetrics(final String service, final String route) {
+        this.service = Objects.requireNonNull(service, "Expected service");
+        this.route = Objects.requireNonNull(route, "Expected route");
+    }
+
+    /**
+     * @return Name of service owning route, or an empty string if these
+     * metrics concern requests not matching any service.
+     */
+    public String service() {
+        return service;
+    }
+
+    /**
+     * @return Pattern of route, {@code "*"} if the route has no pattern, or
+     * an empty string if these metrics concern requests not matching any
+     * route.
+     */
+    public String route() {
+        return route;
+    }
+
+    /**
+     * Records the latency of one request.
+     *
+     * @param method Request method.
+     * @param status Response status code.
+     * @param nanos  Request latency, in nanoseconds.
+     */
+    @Internal
+    public void record(final HttpMethod method, final int status, final long nanos) {
+        var histograms = histogramsByMethod.get(method.name());
+        if (histograms == null) {
+            histograms = histogramsByMethod.computeIfAbsent(method.isStandard() ? method.name() : OTHER_METHOD,
+                ignored -> new AtomicReferenceArray<>(STATUS_CLASSES.length));
+        }
+        final var index = Math.max(0, Math.min(STATUS_CLASSES.length - 1, status / 100 - 1));
+        var histogram = histograms.get(index);
+        if (histogram == null) {
+            final var newHistogram = new LatencyHistogram();
+            histogram = histograms.compareAndSet(index, null, newHistogram)
+                ? newHistogram
+                : histograms.get(index);
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * @return Snapshots of all latency histograms recorded for this route,
+     * sorted by method and status class.
+     */
+    public List<Series> series() {
+        final var series = new ArrayList<Series>();
+        histogramsByMethod.forEach((method, histograms) -> {
+            for (var index = 0; index < histograms.length(); ++index) {
+                final var histogram = histograms.get(index);
+                if (histogram != null) {
+                    series.add(new Series(method, STATUS_CLASSES[index], histogram.snapshot()));
+                }
+            }
+        });
+        series.sort((a, b) -> {
+            final var c = a.method.compareTo(b.method);
+            return c != 0 ? c : a.statusClass.compareTo(b.statusClass);
+        });
+        return Collections.unmodifiableList(series);
+    }
+
+    /**
+     * Latencies recorded for one combination of request method and response
+     * status class.
+     */
+    public static class Series {
+        private final String method;
+        private final String statusClass;
+        private final LatencyHistogram.Snapshot snapshot;
+
+        private Series(final String method, final String statusClass, final LatencyHistogram.Snapshot snapshot) {
+            this.method = method;
+            this.statusClass = statusClass;
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * @return Request method name, or {@code "OTHER"}.
+         */
+        public String method() {
+            return method;
+        }
+
+        /**
+         * @return Response status class, such as {@code "2xx"}.
+         */
+        public String statusClass() {
+            return statusClass;
+        }
+
+        /**
+         * @return Recorded latencies.
+         */
+        public LatencyHistogram.Snapshot snapshot() {
+            return snapshot;
+        }
+    }
+}
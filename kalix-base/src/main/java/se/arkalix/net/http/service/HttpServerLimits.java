@@ -0,0 +1,347 @@
+package se.arkalix.net.http.service;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Resource limits applied to the connections and requests received by the
+ * HTTP server of some {@link se.arkalix.ArSystem ArSystem}.
+ * <p>
+ * Requests exceeding any of these limits are rejected with a suitable error
+ * status and cause their connections to be closed. This prevents any single
+ * misbehaving consumer from occupying an unreasonable amount of memory or
+ * connection resources.
+ *
+ * @see se.arkalix.ArSystem.Builder#httpServerLimits(HttpServerLimits)
+ */
+public class HttpServerLimits {
+    private static final HttpServerLimits DEFAULT = new Builder().build();
+
+    private final int maxInitialLineLength;
+    private final int maxHeaderSize;
+    private final int maxChunkSize;
+    private final long maxRequestBodySize;
+    private final Duration readerIdleTimeout;
+    private final Duration writerIdleTimeout;
+    private final Duration allIdleTimeout;
+    private final int maxInFlightRequests;
+    private final int maxQueuedRequests;
+    private final Duration maxQueueTime;
+    private final Duration retryAfter;
+
+    private HttpServerLimits(final Builder builder) {
+        maxInitialLineLength = (int) requirePositive(builder.maxInitialLineLength, "maxInitialLineLength");
+        maxHeaderSize = (int) requirePositive(builder.maxHeaderSize, "maxHeaderSize");
+        maxChunkSize = (int) requirePositive(builder.maxChunkSize, "maxChunkSize");
+        maxRequestBodySize = requirePositive(builder.maxRequestBodySize, "maxRequestBodySize");
+        readerIdleTimeout = requireNonNegative(builder.readerIdleTimeout, "readerIdleTimeout");
+        writerIdleTimeout = requireNonNegative(builder.writerIdleTimeout, "writerIdleTimeout");
+        allIdleTimeout = requireNonNegative(builder.allIdleTimeout, "allIdleTimeout");
+        maxInFlightRequests = (int) requireNonNegative(builder.maxInFlightRequests, "maxInFlightRequests");
+        maxQueuedRequests = (int) requireNonNegative(builder.maxQueuedRequests, "maxQueuedRequests");
+        maxQueueTime = requireNonNegative(builder.maxQueueTime, "maxQueueTime");
+        retryAfter = requireNonNegative(builder.retryAfter, "retryAfter");
+    }
+
+    private static long requireNonNegative(final long value, final String name) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Expected " + name + " >= 0");
+        }
+        return value;
+    }
+
+    private static long requirePositive(final long value, final String name) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("Expected " + name + " > 0");
+        }
+        return value;
+    }
+
+    private static Duration requireNonNegative(final Duration value, final String name) {
+        Objects.requireNonNull(value, "Expected " + name);
+        if (value.isNegative()) {
+            throw new IllegalArgumentException("Expected " + name + " >= 0");
+        }
+        return value;
+    }
+
+    /**
+     * @return Default HTTP server limits.
+     */
+    public static HttpServerLimits getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @return Maximum number of bytes permitted in the initial line of a
+     * request, which contains its method, path and version.
+     */
+    public int maxInitialLineLength() {
+        return maxInitialLineLength;
+    }
+
+    /**
+     * @return Maximum number of bytes permitted in the headers of a request.
+     */
+    public int maxHeaderSize() {
+        return maxHeaderSize;
+    }
+
+    /**
+     * @return Maximum number of bytes of request body data passed on to a
+     * service at a time. Larger chunks are split up.
+     */
+    public int maxChunkSize() {
+        return maxChunkSize;
+    }
+
+    /**
+     * @return Maximum number of bytes permitted in request bodies, unless a
+     * different limit is set by the receiving service.
+     * @see HttpService#maxRequestBodySize(long)
+     */
+    public long maxRequestBodySize() {
+        return maxRequestBodySize;
+    }
+
+    /**
+     * @return Time after which a connection is closed if nothing has been
+     * read from it, or {@link Duration#ZERO} if disabled.
+     */
+    public Duration readerIdleTimeout() {
+        return readerIdleTimeout;
+    }
+
+    /**
+     * @return Time after which a connection is closed if nothing has been
+     * written to it, or {@link Duration#ZERO} if disabled.
+     */
+    public Duration writerIdleTimeout() {
+        return writerIdleTimeout;
+    }
+
+    /**
+     * @return Time after which a connection is closed if nothing has been
+     * read from or written to it, or {@link Duration#ZERO} if disabled.
+     */
+    public Duration allIdleTimeout() {
+        return allIdleTimeout;
+    }
+
+    /**
+     * @return Maximum number of requests handled at the same time by all
+     * services of the server, or zero if unlimited.
+     * @see HttpService#maxInFlightRequests(int)
+     */
+    public int maxInFlightRequests() {
+        return maxInFlightRequests;
+    }
+
+    /**
+     * @return Maximum number of requests that may wait for being handled
+     * when the in-flight request limit of the server, or of a service, has
+     * been reached.
+     */
+    public int maxQueuedRequests() {
+        return maxQueuedRequests;
+    }
+
+    /**
+     * @return Maximum time a request may wait for being handled before
+     * being rejected.
+     */
+    public Duration maxQueueTime() {
+        return maxQueueTime;
+    }
+
+    /**
+     * @return Time after which the senders of rejected requests are told
+     * that they may retry.
+     */
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Builder useful for creating {@link HttpServerLimits} instances.
+     */
+    public static class Builder {
+        private int maxInitialLineLength = 4096;
+        private int maxHeaderSize = 8192;
+        private int maxChunkSize = 8192;
+        private long maxRequestBodySize = 16L * 1024 * 1024;
+        private Duration readerIdleTimeout = Duration.ofSeconds(30);
+        private Duration writerIdleTimeout = Duration.ofSeconds(90);
+        private Duration allIdleTimeout = Duration.ZERO;
+        private int maxInFlightRequests = 0;
+        private int maxQueuedRequests = 64;
+        private Duration maxQueueTime = Duration.ofMillis(500);
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        /**
+         * Sets maximum number of bytes permitted in the initial line of a
+         * request. Requests with longer initial lines are rejected with status
+         * {@code 431 Request Header Fields Too Large}, as such requests cannot
+         * be told apart from those with too large headers. Defaults to 4096.
+         *
+         * @param maxInitialLineLength Maximum initial line length, in bytes.
+         * @return This builder.
+         */
+        public Builder maxInitialLineLength(final int maxInitialLineLength) {
+            this.maxInitialLineLength = maxInitialLineLength;
+            return this;
+        }
+
+        /**
+         * Sets maximum number of bytes permitted in the headers of a request.
+         * Requests with larger headers are rejected with status {@code 431
+         * Request Header Fields Too Large}. Defaults to 8192.
+         *
+         * @param maxHeaderSize Maximum header size, in bytes.
+         * @return This builder.
+         */
+        public Builder maxHeaderSize(final int maxHeaderSize) {
+            this.maxHeaderSize = maxHeaderSize;
+            return this;
+        }
+
+        /**
+         * Sets maximum number of bytes of request body data passed on to a
+         * service at a time. Larger chunks are split up into smaller chunks.
+         * Defaults to 8192.
+         *
+         * @param maxChunkSize Maximum chunk size, in bytes.
+         * @return This builder.
+         */
+        public Builder maxChunkSize(final int maxChunkSize) {
+            this.maxChunkSize = maxChunkSize;
+            return this;
+        }
+
+        /**
+         * Sets maximum number of bytes permitted in request bodies, unless a
+         * different limit is set by the receiving service. Requests that
+         * declare larger bodies in their {@code content-length} headers are
+         * rejected with status {@code 413 Payload Too Large} before any part
+         * of their bodies are received. Requests without such headers are
+         * rejected as soon as their bodies grow too large. Defaults to 16
+         * MiB.
+         *
+         * @param maxRequestBodySize Maximum request body size, in bytes.
+         * @return This builder.
+         * @see HttpService#maxRequestBodySize(long)
+         */
+        public Builder maxRequestBodySize(final long maxRequestBodySize) {
+            this.maxRequestBodySize = maxRequestBodySize;
+            return this;
+        }
+
+        /**
+         * Sets time after which a connection is closed if nothing has been
+         * read from it. If a request body is being received when the timeout
+         * expires, the request is responded to with status {@code 408 Request
+         * Timeout}. Defaults to 30 seconds.
+         *
+         * @param readerIdleTimeout Reader idle timeout, or
+         *                          {@link Duration#ZERO} to disable.
+         * @return This builder.
+         */
+        public Builder readerIdleTimeout(final Duration readerIdleTimeout) {
+            this.readerIdleTimeout = readerIdleTimeout;
+            return this;
+        }
+
+        /**
+         * Sets time after which a connection is closed if nothing has been
+         * written to it. Defaults to 90 seconds.
+         *
+         * @param writerIdleTimeout Writer idle timeout, or
+         *                          {@link Duration#ZERO} to disable.
+         * @return This builder.
+         */
+        public Builder writerIdleTimeout(final Duration writerIdleTimeout) {
+            this.writerIdleTimeout = writerIdleTimeout;
+            return this;
+        }
+
+        /**
+         * Sets time after which a connection is closed if nothing has been
+         * read from or written to it. Disabled by default.
+         *
+         * @param allIdleTimeout Reader/writer idle timeout, or
+         *                       {@link Duration#ZERO} to disable.
+         * @return This builder.
+         */
+        public Builder allIdleTimeout(final Duration allIdleTimeout) {
+            this.allIdleTimeout = allIdleTimeout;
+            return this;
+        }
+
+        /**
+         * Sets maximum number of requests handled at the same time by all
+         * services of the server. Requests exceeding this limit, or the limit
+         * of their service, are queued until they can be handled. If the
+         * queue is full, or if a request waits in it for too long, the request
+         * is rejected with status {@code 503 Service Unavailable} before any
+         * part of its body is received. Unlimited by default.
+         *
+         * @param maxInFlightRequests Maximum number of concurrently handled
+         *                            requests, or zero to disable.
+         * @return This builder.
+         * @see HttpService#maxInFlightRequests(int)
+         */
+        public Builder maxInFlightRequests(final int maxInFlightRequests) {
+            this.maxInFlightRequests = maxInFlightRequests;
+            return this;
+        }
+
+        /**
+         * Sets maximum number of requests that may wait for being handled when
+         * the in-flight request limit of the server, or of a service, has been
+         * reached. Defaults to 64.
+         *
+         * @param maxQueuedRequests Maximum number of waiting requests.
+         * @return This builder.
+         */
+        public Builder maxQueuedRequests(final int maxQueuedRequests) {
+            this.maxQueuedRequests = maxQueuedRequests;
+            return this;
+        }
+
+        /**
+         * Sets maximum time a request may wait for being handled before being
+         * rejected. Defaults to 500 milliseconds.
+         *
+         * @param maxQueueTime Maximum queue time.
+         * @return This builder.
+         */
+        public Builder maxQueueTime(final Duration maxQueueTime) {
+            this.maxQueueTime = maxQueueTime;
+            return this;
+        }
+
+        /**
+         * Sets time after which the senders of rejected requests are told
+         * that they may retry, via the {@code retry-after} header. Defaults
+         * to 1 second.
+         *
+         * @param retryAfter Retry delay. Rounded up to whole seconds.
+         * @return This builder.
+         */
+        public Builder retryAfter(final Duration retryAfter) {
+            this.retryAfter = retryAfter;
+            return this;
+        }
+
+        /**
+         * @return New {@link HttpServerLimits}.
+         * @throws IllegalArgumentException If any size limit is zero or
+         *                                  negative, or if any timeout or
+         *                                  request count is negative.
+         * @throws NullPointerException     If any timeout is {@code null}.
+         */
+        public HttpServerLimits build() {
+            return new HttpServerLimits(this);
+        }
+    }
+}
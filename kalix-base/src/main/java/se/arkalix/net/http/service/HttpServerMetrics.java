@@ -0,0 +1,324 @@
+package se.arkalix.net.http.service;
+
+import se.arkalix.internal.net.http.service.HttpAdmissionController;
+import se.arkalix.util.annotation.Internal;
+import se.arkalix.util.metrics.LatencyHistogram;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Request metrics recorded by the HTTP server of an
+ * {@link se.arkalix.ArSystem ArSystem}.
+ * <p>
+ * Every request received by the server has its latency recorded in a
+ * {@link HttpRouteMetrics} object, identified by the name of the service and
+ * the pattern of the route that handled it. Recording is always enabled and
+ * is designed to be cheap enough not to have any noticeable impact on request
+ * handling performance. The metrics can be made available to other systems
+ * via a {@link HttpMetricsService}.
+ * <p>
+ * The time spent in each {@link HttpRequestTimings.Stage stage} of handling
+ * a request is also recorded, although only for the server as a whole. If a
+ * {@link HttpSlowRequestLog} is configured, the complete timings of every
+ * request are also offered to it.
+ * <p>
+ * Lastly, the number of requests in flight, waiting for admission and
+ * rejected are exported for every service with a
+ * {@link HttpService#maxInFlightRequests(int) limit} on how many requests it
+ * may handle at the same time, as well as for the server as a whole if
+ * {@link HttpServerLimits.Builder#maxInFlightRequests(int) it is limited}.
+ * The limits and latency estimates of
+ * {@link HttpAdaptiveConcurrencyLimit adaptive limits} are exported as well.
+ *
+ * @see se.arkalix.ArSystem#httpServerMetrics()
+ */
+public class HttpServerMetrics {
+    private static final String NAME = "kalix_http_server_request_duration_seconds";
+    private static final String STAGE_NAME = "kalix_http_server_request_stage_duration_seconds";
+    private static final String LIMIT_NAME = "kalix_http_server_concurrency_limit";
+    private static final String IN_FLIGHT_NAME = "kalix_http_server_in_flight_requests";
+    private static final String QUEUED_NAME = "kalix_http_server_queued_requests";
+    private static final String REJECTED_NAME = "kalix_http_server_rejected_requests_total";
+    private static final String SHORT_RTT_NAME = "kalix_http_server_adaptive_limit_short_rtt_seconds";
+    private static final String LONG_RTT_NAME = "kalix_http_server_adaptive_limit_long_rtt_seconds";
+    private static final String ADAPTIVE_REJECTED_NAME = "kalix_http_server_adaptive_limit_rejected_requests_total";
+    private static final HttpRequestTimings.Stage[] STAGES = HttpRequestTimings.Stage.values();
+
+    private final ConcurrentHashMap<String, HttpRouteMetrics> routeMetrics = new ConcurrentHashMap<>();
+    private final HttpRouteMetrics unmatchedMetrics = routeMetricsFor("", "");
+    private final ConcurrentHashMap<String, HttpAdmissionController> admissionControllers = new ConcurrentHashMap<>();
+    private final LatencyHistogram[] stageHistograms = new LatencyHistogram[STAGES.length];
+    private final HttpSlowRequestLog slowRequestLog;
+
+    /**
+     * Creates new metrics registry without a slow request log.
+     */
+    public HttpServerMetrics() {
+        this(null);
+    }
+
+    /**
+     * Creates new metrics registry.
+     *
+     * @param slowRequestLog Log to offer request timings to, or {@code null}.
+     */
+    public HttpServerMetrics(final HttpSlowRequestLog slowRequestLog) {
+        for (var i = 0; i < stageHistograms.length; ++i) {
+            stageHistograms[i] = new LatencyHistogram();
+        }
+        this.slowRequestLog = slowRequestLog;
+    }
+
+    /**
+     * Gets object used to record request latencies of the identified route,
+     * creating it if it does not already exist.
+     *
+     * @param service Name of service owning route.
+     * @param route   Route pattern, {@code "*"} if the route has no pattern,
+     *                or an empty string to get the metrics of requests not
+     *                matching any route of the service.
+     * @return Route metrics.
+     */
+    @Internal
+    public HttpRouteMetrics routeMetricsFor(final String service, final String route) {
+        return routeMetrics.computeIfAbsent(service + '\n' + route, ignored -> new HttpRouteMetrics(service, route));
+    }
+
+    /**
+     * @return Object used to record latencies of requests not matching any
+     * service.
+     */
+    @Internal
+    public HttpRouteMetrics unmatchedMetrics() {
+        return unmatchedMetrics;
+    }
+
+    /**
+     * Registers controller admitting requests to the named service, making
+     * its counts part of the metrics written by
+     * {@link #writePrometheusTextTo(StringBuilder)}. Any controller already
+     * registered for the same service is replaced.
+     *
+     * @param service    Name of service, or an empty string if the
+     *                   controller limits the server as a whole.
+     * @param controller Admission controller.
+     */
+    @Internal
+    public void registerAdmissionController(final String service, final HttpAdmissionController controller) {
+        admissionControllers.put(service, controller);
+    }
+
+    /**
+     * Unregisters controller previously registered via
+     * {@link #registerAdmissionController(String, HttpAdmissionController)}.
+     *
+     * @param service    Name of service, or an empty string.
+     * @param controller Admission controller.
+     */
+    @Internal
+    public void unregisterAdmissionController(final String service, final HttpAdmissionController controller) {
+        admissionControllers.remove(service, controller);
+    }
+
+    /**
+     * Records the time spent in each stage of a request, and offers its
+     * timings to the slow request log, if any.
+     *
+     * @param timings Timings of request that has ended.
+     */
+    @Internal
+    public void record(final HttpRequestTimings timings) {
+        for (final var stage : STAGES) {
+            final var duration = timings.stage(stage);
+            if (duration.isPresent()) {
+                stageHistograms[stage.ordinal()].record(duration.get());
+            }
+        }
+        if (slowRequestLog != null) {
+            slowRequestLog.offer(timings);
+        }
+    }
+
+    /**
+     * @param stage Request handling stage.
+     * @return Snapshot of the times spent in given {@code stage} by all
+     * requests that passed through it.
+     */
+    public LatencyHistogram.Snapshot stage(final HttpRequestTimings.Stage stage) {
+        return stageHistograms[stage.ordinal()].snapshot();
+    }
+
+    /**
+     * @return Slow request log, if any.
+     */
+    public Optional<HttpSlowRequestLog> slowRequestLog() {
+        return Optional.ofNullable(slowRequestLog);
+    }
+
+    /**
+     * @return Metrics of all routes having received requests, sorted by
+     * service name and route pattern.
+     */
+    public List<HttpRouteMetrics> routes() {
+        final var routes = new ArrayList<>(routeMetrics.values());
+        routes.sort(Comparator.comparing(HttpRouteMetrics::service).thenComparing(HttpRouteMetrics::route));
+        return routes;
+    }
+
+    /**
+     * Writes all recorded metrics to given {@code builder} in the Prometheus
+     * text exposition format, version 0.0.4.
+     * <p>
+     * Each combination of service, route, method and status class is written
+     * as a histogram with buckets at every power of two microseconds. So is
+     * each request handling stage. Admission controller counts and adaptive
+     * limit estimates are written as gauges and counters labeled with the
+     * names of their services. An empty service label denotes the limit of
+     * the server as a whole.
+     *
+     * @param builder String builder to write to.
+     * @see <a href="https://prometheus.io/docs/instrumenting/exposition_formats/">Prometheus Exposition Formats</a>
+     */
+    public void writePrometheusTextTo(final StringBuilder builder) {
+        appendHeader(builder, NAME, "Time taken to respond to HTTP requests.", "histogram");
+
+        for (final var route : routes()) {
+            for (final var series : route.series()) {
+                final var labels = new StringBuilder()
+                    .append("service=\"");
+                appendEscaped(labels, route.service());
+                labels.append("\",route=\"");
+                appendEscaped(labels, route.route());
+                labels.append("\",method=\"").append(series.method())
+                    .append("\",status=\"").append(series.statusClass())
+                    .append('"');
+
+                appendHistogram(builder, NAME, labels, series.snapshot());
+            }
+        }
+
+        appendHeader(builder, STAGE_NAME, "Time spent in each stage of handling HTTP requests.", "histogram");
+
+        for (final var stage : STAGES) {
+            final var snapshot = stage(stage);
+            if (snapshot.count() > 0) {
+                appendHistogram(builder, STAGE_NAME, "stage=\"" + stage.label() + '"', snapshot);
+            }
+        }
+
+        final var controllers = new ArrayList<>(admissionControllers.entrySet());
+        if (controllers.isEmpty()) {
+            return;
+        }
+        controllers.sort(Map.Entry.comparingByKey());
+
+        final var labels = new ArrayList<String>(controllers.size());
+        for (final var entry : controllers) {
+            final var label = new StringBuilder().append("service=\"");
+            appendEscaped(label, entry.getKey());
+            labels.add(label.append('"').toString());
+        }
+
+        appendHeader(builder, LIMIT_NAME, "Number of HTTP requests allowed to be handled at the same time.", "gauge");
+        for (var i = 0; i < controllers.size(); ++i) {
+            appendSample(builder, LIMIT_NAME, labels.get(i), controllers.get(i).getValue().limit());
+        }
+        appendHeader(builder, IN_FLIGHT_NAME, "Number of HTTP requests currently being handled.", "gauge");
+        for (var i = 0; i < controllers.size(); ++i) {
+            appendSample(builder, IN_FLIGHT_NAME, labels.get(i), controllers.get(i).getValue().inFlightCount());
+        }
+        appendHeader(builder, QUEUED_NAME, "Number of HTTP requests currently waiting for admission.", "gauge");
+        for (var i = 0; i < controllers.size(); ++i) {
+            appendSample(builder, QUEUED_NAME, labels.get(i), controllers.get(i).getValue().queuedCount());
+        }
+        appendHeader(builder, REJECTED_NAME, "Number of HTTP requests rejected due to limits being reached.",
+            "counter");
+        for (var i = 0; i < controllers.size(); ++i) {
+            appendSample(builder, REJECTED_NAME, labels.get(i), controllers.get(i).getValue().rejectedCount());
+        }
+
+        if (controllers.stream().noneMatch(entry -> entry.getValue().adaptiveLimit().isPresent())) {
+            return;
+        }
+        appendHeader(builder, SHORT_RTT_NAME, "Short-term average time required to handle HTTP requests.", "gauge");
+        for (var i = 0; i < controllers.size(); ++i) {
+            final var limit = controllers.get(i).getValue().adaptiveLimit();
+            if (limit.isPresent()) {
+                appendSample(builder, SHORT_RTT_NAME, labels.get(i), limit.get().shortRtt().toNanos() / 1e9);
+            }
+        }
+        appendHeader(builder, LONG_RTT_NAME, "Long-term average time required to handle HTTP requests.", "gauge");
+        for (var i = 0; i < controllers.size(); ++i) {
+            final var limit = controllers.get(i).getValue().adaptiveLimit();
+            if (limit.isPresent()) {
+                appendSample(builder, LONG_RTT_NAME, labels.get(i), limit.get().longRtt().toNanos() / 1e9);
+            }
+        }
+        appendHeader(builder, ADAPTIVE_REJECTED_NAME, "Number of HTTP requests rejected by adaptive limits.",
+            "counter");
+        for (var i = 0; i < controllers.size(); ++i) {
+            final var limit = controllers.get(i).getValue().adaptiveLimit();
+            if (limit.isPresent()) {
+                appendSample(builder, ADAPTIVE_REJECTED_NAME, labels.get(i), limit.get().rejectedCount());
+            }
+        }
+    }
+
+    private static void appendHeader(
+        final StringBuilder builder,
+        final String name,
+        final String help,
+        final String type)
+    {
+        builder
+            .append("# HELP ").append(name).append(' ').append(help).append('\n')
+            .append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void appendSample(
+        final StringBuilder builder,
+        final String name,
+        final String labels,
+        final Object value)
+    {
+        builder.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static void appendHistogram(
+        final StringBuilder builder,
+        final String name,
+        final CharSequence labels,
+        final LatencyHistogram.Snapshot snapshot)
+    {
+        for (var micros = 1L; micros <= 1L << 26; micros <<= 1) {
+            final var bound = Duration.ofNanos(micros * 1000L);
+            builder.append(name).append("_bucket{").append(labels)
+                .append(",le=\"").append(micros / 1e6).append("\"} ")
+                .append(snapshot.countBelow(bound)).append('\n');
+        }
+        builder.append(name).append("_bucket{").append(labels)
+            .append(",le=\"+Inf\"} ").append(snapshot.count()).append('\n');
+        builder.append(name).append("_sum{").append(labels).append("} ")
+            .append(snapshot.sum().toNanos() / 1e9).append('\n');
+        builder.append(name).append("_count{").append(labels).append("} ")
+            .append(snapshot.count()).append('\n');
+    }
+
+    private static void appendEscaped(final StringBuilder builder, final String value) {
+        for (var i = 0; i < value.length(); ++i) {
+            final var c = value.charAt(i);
+            switch (c) {
+            case '\\': builder.append("\\\\"); break;
+            case '"': builder.append("\\\""); break;
+            case '\n': builder.append("\\n"); break;
+            default: builder.append(c);
+            }
+        }
+    }
+}
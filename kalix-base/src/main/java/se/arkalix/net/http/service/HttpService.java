@@ -30,6 +30,11 @@ public final class HttpService implements ArService {
     private AccessPolicy accessPolicy;
     private Map<String, String> metadata;
     private int version = 0;
+    private long maxRequestBodySize = 0;
+    private HttpCompression compression = null;
+    private int maxInFlightRequests = 0;
+    private HttpAdaptiveConcurrencyLimit adaptiveConcurrencyLimit = null;
+    private boolean isBlocking = false;
 
     private int catcherOrdinal = 0;
     private int filterOrdinal = 0;
@@ -160,6 +165,117 @@ public final class HttpService implements ArService {
         return this;
     }
 
+    /**
+     * Enables compression of the response bodies of this service, given
+     * that their receivers accept compressed bodies.
+     * <p>
+     * Response compression is disabled by default. Setting compression to
+     * {@code null} disables it again.
+     *
+     * @param compression Response compression settings, or {@code null}.
+     * @return This service.
+     * @see HttpCompression#getDefault()
+     */
+    public HttpService compression(final HttpCompression compression) {
+        this.compression = compression;
+        return this;
+    }
+
+    /**
+     * Sets maximum number of requests this service may handle at the same
+     * time.
+     * <p>
+     * Requests exceeding this limit are queued, as described in
+     * {@link HttpServerLimits.Builder#maxInFlightRequests(int)}. Any limit
+     * set for the HTTP server providing this service applies as well. If no
+     * limit is explicitly set, or if the limit is set to zero, only the limit
+     * of the server applies.
+     *
+     * @param maxInFlightRequests Maximum number of concurrently handled
+     *                            requests.
+     * @return This service.
+     * @throws IllegalArgumentException If {@code maxInFlightRequests} is
+     *                                  negative.
+     */
+    public HttpService maxInFlightRequests(final int maxInFlightRequests) {
+        if (maxInFlightRequests < 0) {
+            throw new IllegalArgumentException("Expected maxInFlightRequests >= 0");
+        }
+        this.maxInFlightRequests = maxInFlightRequests;
+        return this;
+    }
+
+    /**
+     * Sets limit used to determine how many requests this service may handle
+     * at the same time, which adapts itself to how long it takes for this
+     * service to handle requests.
+     * <p>
+     * If set, this limit takes precedence over any limit set via
+     * {@link #maxInFlightRequests(int)}. Any limit set for the HTTP server
+     * providing this service applies as well. The given limit object is
+     * updated while this service is running and can be queried for its
+     * current limit, latency estimates and rejection count, all of which are
+     * also exported by {@link HttpServerMetrics}.
+     * <p>
+     * As a limit holds state about the service using it, the same limit
+     * object may not be set for more than one service.
+     *
+     * @param adaptiveConcurrencyLimit Adaptive concurrency limit, or
+     *                                 {@code null} if no such is to be used.
+     * @return This service.
+     * @throws IllegalStateException If {@code adaptiveConcurrencyLimit} is
+     *                               already used by another service.
+     */
+    public HttpService adaptiveConcurrencyLimit(final HttpAdaptiveConcurrencyLimit adaptiveConcurrencyLimit) {
+        if (adaptiveConcurrencyLimit != null) {
+            adaptiveConcurrencyLimit.claimBy(this);
+        }
+        if (this.adaptiveConcurrencyLimit != null && this.adaptiveConcurrencyLimit != adaptiveConcurrencyLimit) {
+            this.adaptiveConcurrencyLimit.releaseBy(this);
+        }
+        this.adaptiveConcurrencyLimit = adaptiveConcurrencyLimit;
+        return this;
+    }
+
+    /**
+     * Sets whether or not the route handlers of this service may block.
+     * <p>
+     * If {@code true}, all routes of this service are treated as if being
+     * blocking, as described in
+     * {@link HttpRoute#HttpRoute(HttpMethod, HttpPattern, HttpRouteHandler, boolean)}.
+     * Individual routes may also be marked as blocking. Defaults to
+     * {@code false}.
+     *
+     * @param isBlocking Whether or not route handlers may block.
+     * @return This service.
+     * @see HttpWorkerPool
+     */
+    public HttpService blocking(final boolean isBlocking) {
+        this.isBlocking = isBlocking;
+        return this;
+    }
+
+    /**
+     * Sets maximum number of bytes permitted in the bodies of requests
+     * received by this service.
+     * <p>
+     * If no limit is explicitly set, or if the limit is set to zero, the
+     * limit of the HTTP server providing this service is used.
+     *
+     * @param maxRequestBodySize Maximum request body size, in bytes.
+     * @return This service.
+     * @throws IllegalArgumentException If {@code maxRequestBodySize} is
+     *                                  negative.
+     * @see HttpServerLimits#maxRequestBodySize()
+     */
+    public HttpService maxRequestBodySize(final long maxRequestBodySize) {
+        if (maxRequestBodySize < 0) {
+            throw new IllegalArgumentException("Expected maxRequestBodySize >= 0");
+        }
+        this.maxRequestBodySize = maxRequestBodySize;
+        return this;
+    }
+
     /**
      * Adds incoming HTTP request route to this service, handling GET requests
      * matching given pattern.
@@ -759,7 +875,7 @@ public final class HttpService implements ArService {
      * @see #basePath(String)
      */
     public String basePath() {
-        return basePath != null ? name : "";
+        return basePath != null ? basePath : "";
     }
 
     /**
@@ -823,6 +939,50 @@ public final class HttpService implements ArService {
         return version;
     }
 
+    /**
+     * @return Currently set response compression settings, if any.
+     * @see #compression(HttpCompression)
+     */
+    public Optional<HttpCompression> compression() {
+        return Optional.ofNullable(compression);
+    }
+
+    /**
+     * @return Currently set maximum number of concurrently handled requests,
+     * or zero if only the limit of the HTTP server providing this service is
+     * to be used.
+     * @see #maxInFlightRequests(int)
+     */
+    public int maxInFlightRequests() {
+        return maxInFlightRequests;
+    }
+
+    /**
+     * @return Currently set adaptive concurrency limit, if any.
+     * @see #adaptiveConcurrencyLimit(HttpAdaptiveConcurrencyLimit)
+     */
+    public Optional<HttpAdaptiveConcurrencyLimit> adaptiveConcurrencyLimit() {
+        return Optional.ofNullable(adaptiveConcurrencyLimit);
+    }
+
+    /**
+     * @return {@code true} only if all route handlers of this service are to
+     * be treated as blocking.
+     * @see #blocking(boolean)
+     */
+    public boolean isBlocking() {
+        return isBlocking;
+    }
+
+    /**
+     * @return Currently set maximum request body size, or zero if the limit
+     * of the HTTP server providing this service is to be used.
+     * @see #maxRequestBodySize(long)
+     */
+    public long maxRequestBodySize() {
+        return maxRequestBodySize;
+    }
+
     /**
      * @return Unmodifiable list of all currently set
      * {@link HttpRoute routes}.
@@ -7,11 +7,13 @@ import se.arkalix.net.http.*;
 import se.arkalix.util.concurrent.FutureProgress;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Flow;
 
 /**
  * The head and body of an incoming HTTP request.
@@ -130,7 +132,9 @@ public interface HttpServiceRequest extends HttpBodyReceiver {
     Map<String, List<String>> queryParameters();
 
     /**
-     * @return Information about the Arrowhead system that sent this request.
+     * @return Information about the Arrowhead system that sent this request,
+     * or {@code null} if the request was received by a system running in
+     * insecure mode, in which case consumers cannot be identified.
      */
     SystemDescription consumer();
 
@@ -172,6 +176,11 @@ public interface HttpServiceRequest extends HttpBodyReceiver {
                 return self.bodyAsStream();
             }
 
+            @Override
+            public Flow.Publisher<ByteBuffer> bodyAsPublisher() {
+                return self.bodyAsPublisher();
+            }
+
             @Override
             public FutureProgress<String> bodyAsString() {
                 return self.bodyAsString();
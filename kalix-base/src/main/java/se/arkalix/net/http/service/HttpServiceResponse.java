@@ -8,7 +8,9 @@ import se.arkalix.net.http.HttpHeaders;
 import se.arkalix.net.http.HttpStatus;
 import se.arkalix.net.http.HttpVersion;
 
+import java.nio.ByteBuffer;
 import java.util.Optional;
+import java.util.concurrent.Flow;
 
 /**
  * An outgoing HTTP response, to be sent by an {@link HttpServiceInternal}.
@@ -31,6 +33,28 @@ public interface HttpServiceResponse extends HttpBodySender<HttpServiceResponse>
      */
     HttpServiceResponse body(final DtoWritable data);
 
+    /**
+     * Sets outgoing HTTP body, replacing any previously set such.
+     * <p>
+     * The response head is sent as soon as the response is ready to be sent,
+     * after which each buffer published by {@code publisher} is sent to the
+     * receiver of the body as a separate chunk, using chunked transfer
+     * encoding. Buffers are only requested from the publisher while the
+     * connection can accept more outgoing data, making it possible to send
+     * bodies of arbitrary size without having to hold them in memory. The
+     * response is complete when the publisher completes. If the publisher
+     * fails, the connection or stream of the response is closed, as the
+     * response status cannot be changed after the head has been sent.
+     * <p>
+     * No buffer provided to the publisher may be modified after being
+     * published.
+     *
+     * @param publisher Publisher of body chunks to send to receiver of body.
+     * @return This.
+     * @throws NullPointerException If {@code publisher} is {@code null}.
+     */
+    HttpServiceResponse body(final Flow.Publisher<ByteBuffer> publisher);
+
     /**
      * Removes all currently set headers.
      *
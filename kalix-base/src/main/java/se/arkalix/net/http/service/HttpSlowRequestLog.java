@@ -0,0 +1,141 @@
+package se.arkalix.net.http.service;
+
+import se.arkalix.util.annotation.Internal;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * A log of HTTP requests that took longer than some threshold to respond to,
+ * including a full {@link HttpRequestTimings breakdown} of where their time
+ * was spent.
+ * <p>
+ * To limit the cost of logging when a system is overloaded, and most requests
+ * consequently are slow, only a random sample of all slow requests may be
+ * logged. Logged requests are handed to a consumer that must be provided,
+ * which could, for example, forward them to the logging framework of the
+ * application.
+ *
+ * @see se.arkalix.ArSystem.Builder#httpSlowRequestLog(HttpSlowRequestLog)
+ */
+public class HttpSlowRequestLog {
+    private final long thresholdNanos;
+    private final double sampleRate;
+    private final Consumer<HttpRequestTimings> consumer;
+    private final LongAdder slowCount = new LongAdder();
+
+    private HttpSlowRequestLog(final Builder builder) {
+        Objects.requireNonNull(builder.threshold, "Expected threshold");
+        consumer = Objects.requireNonNull(builder.consumer, "Expected consumer");
+        if (builder.threshold.isNegative()) {
+            throw new IllegalArgumentException("Expected threshold >= 0");
+        }
+        if (!(builder.sampleRate > 0.0 && builder.sampleRate <= 1.0)) {
+            throw new IllegalArgumentException("Expected 0.0 < sampleRate <= 1.0");
+        }
+        thresholdNanos = builder.threshold.toNanos();
+        sampleRate = builder.sampleRate;
+    }
+
+    /**
+     * @return Latency above which requests are considered slow.
+     */
+    public Duration threshold() {
+        return Duration.ofNanos(thresholdNanos);
+    }
+
+    /**
+     * @return Fraction of slow requests being logged.
+     */
+    public double sampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @return Number of slow requests observed, whether logged or not.
+     */
+    public long slowCount() {
+        return slowCount.sum();
+    }
+
+    /**
+     * Logs given {@code timings}, if its request is slow and it is selected
+     * to be part of the logged sample.
+     *
+     * @param timings Timings of request that has ended.
+     */
+    @Internal
+    public void offer(final HttpRequestTimings timings) {
+        if (timings.total().toNanos() <= thresholdNanos) {
+            return;
+        }
+        slowCount.increment();
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        consumer.accept(timings);
+    }
+
+    /**
+     * Builder useful for creating {@link HttpSlowRequestLog} instances.
+     */
+    public static class Builder {
+        private Duration threshold = Duration.ofSeconds(1);
+        private double sampleRate = 1.0;
+        private Consumer<HttpRequestTimings> consumer;
+
+        /**
+         * Sets latency above which requests are considered slow. Defaults to
+         * one second.
+         *
+         * @param threshold Slow request threshold.
+         * @return This builder.
+         */
+        public Builder threshold(final Duration threshold) {
+            this.threshold = threshold;
+            return this;
+        }
+
+        /**
+         * Sets fraction of slow requests to log, which must be larger than
+         * 0.0 and no larger than 1.0. Defaults to 1.0, which means that all
+         * slow requests are logged.
+         *
+         * @param sampleRate Fraction of slow requests to log.
+         * @return This builder.
+         */
+        public Builder sampleRate(final double sampleRate) {
+            this.sampleRate = sampleRate;
+            return this;
+        }
+
+        /**
+         * Sets function to call with the timings of each logged request. The
+         * function is called on the I/O thread of the connection through
+         * which the request was received, and must not block. <b>Must be
+         * specified.</b>
+         *
+         * @param consumer Function receiving logged request timings.
+         * @return This builder.
+         */
+        public Builder consumer(final Consumer<HttpRequestTimings> consumer) {
+            this.consumer = consumer;
+            return this;
+        }
+
+        /**
+         * @return New {@link HttpSlowRequestLog}.
+         * @throws IllegalArgumentException If {@code threshold} is negative
+         *                                  or {@code sampleRate} is outside
+         *                                  its permitted range.
+         * @throws NullPointerException     If {@code threshold} or
+         *                                  {@code consumer} is not set.
+         */
+        public HttpSlowRequestLog build() {
+            return new HttpSlowRequestLog(this);
+        }
+    }
+}
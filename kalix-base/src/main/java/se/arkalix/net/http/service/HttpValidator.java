@@ -1,12 +1,11 @@
 package se.arkalix.net.http.service;
 
+import se.arkalix.internal.net.http.service.HttpPaths;
 import se.arkalix.internal.net.http.service.HttpServiceInternal;
 import se.arkalix.net.http.HttpMethod;
 import se.arkalix.util.concurrent.Future;
+import se.arkalix.util.concurrent.FutureSuccess;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
 import java.util.Optional;
 
 /**
@@ -15,6 +14,9 @@ import java.util.Optional;
  * {@link HttpRoute}s.
  */
 public class HttpValidator implements HttpRoutable {
+    private static final Future<Boolean> FALSE = Future.success(false);
+    private static final Future<Boolean> TRUE = Future.success(true);
+
     private final int ordinal;
     private final HttpMethod method;
     private final HttpPattern pattern;
@@ -87,25 +89,22 @@ public class HttpValidator implements HttpRoutable {
             if (method != null && !method.equals(task.request().method())) {
                 break mismatch;
             }
-            final List<String> pathParameters;
-            if (pattern != null) {
-                pathParameters = new ArrayList<>(pattern.nParameters());
-                if (!pattern.match(task.request().path(), task.basePath().length(), pathParameters)) {
-                    break mismatch;
-                }
-            }
-            else {
-                pathParameters = Collections.emptyList();
+            final var pathParameters = HttpPaths.newParameterListFor(pattern);
+            if (pattern != null && !pattern.match(task.request().path(), task.basePath().length(), pathParameters)) {
+                break mismatch;
             }
             final var response = task.response();
             try {
-                return handler.handle(task.request().cloneAndSet(pathParameters), response)
-                    .map(ignored -> response.status().isPresent());
+                final var future = handler.handle(task.request().cloneAndSet(pathParameters), response);
+                if (future instanceof FutureSuccess) {
+                    return response.status().isPresent() ? TRUE : FALSE;
+                }
+                return future.map(ignored -> response.status().isPresent());
             }
             catch (final Throwable throwable) {
                 return Future.failure(throwable);
             }
         }
-        return Future.success(false);
+        return FALSE;
     }
 }
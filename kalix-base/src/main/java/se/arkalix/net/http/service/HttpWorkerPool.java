@@ -0,0 +1,233 @@
+package se.arkalix.net.http.service;
+
+import se.arkalix.internal.util.concurrent.BoundedThreadPool;
+import se.arkalix.util.annotation.Internal;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Promise;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A bounded pool of threads used to execute the handlers of blocking
+ * {@link HttpRoute}s and {@link HttpService}s.
+ * <p>
+ * Route handlers are normally executed by the same threads that perform all
+ * network I/O of the HTTP servers of a system. A handler that blocks, such as
+ * by performing database queries or reading files synchronously, would
+ * prevent those threads from serving other connections for as long as it
+ * blocks. Handlers of routes or services marked as blocking are, for this
+ * reason, handed to a worker pool instead. So are the completions of any
+ * request bodies such handlers request, except for bodies requested as
+ * {@link java.util.concurrent.Flow.Publisher publishers}. Once the future
+ * returned by such a handler completes, the handling of its request
+ * continues on the I/O thread of its connection.
+ * <p>
+ * A worker pool has a fixed maximum number of threads and a bounded queue of
+ * tasks waiting for a thread to become available. If the queue is full, the
+ * request to be handled is rejected with status {@code 503 Service
+ * Unavailable}. The current queue depth and the times tasks have spent in the
+ * queue can be queried, which should be useful for sizing the pool.
+ *
+ * @see HttpRoute#HttpRoute(se.arkalix.net.http.HttpMethod, HttpPattern, HttpRouteHandler, boolean)
+ * @see HttpService#blocking(boolean)
+ * @see se.arkalix.ArSystem.Builder#httpWorkerPool(HttpWorkerPool)
+ */
+public class HttpWorkerPool {
+    private final BoundedThreadPool pool;
+
+    private HttpWorkerPool(final Builder builder) {
+        pool = new BoundedThreadPool(builder.nThreads > 0
+            ? builder.nThreads
+            : Math.max(8, Runtime.getRuntime().availableProcessors() * 2),
+            builder.maxQueued, builder.threadFactory, "kalix-http-worker-");
+    }
+
+    /**
+     * Executes given {@code task} on a thread of this pool, completing the
+     * returned promise with its result.
+     * <p>
+     * The returned promise notifies its listeners using given
+     * {@code executor}, which makes it possible to continue processing the
+     * result of the task on an I/O thread. If the queue of this pool is full,
+     * the returned promise is failed with a
+     * {@link RejectedExecutionException}.
+     *
+     * @param task     Task to execute.
+     * @param executor Executor used to notify promise listeners.
+     * @param <V>      Type of task result.
+     * @return Promise completed when the task has been executed.
+     */
+    @Internal
+    public <V> Promise<V> submit(final Callable<V> task, final EventExecutor executor) {
+        Objects.requireNonNull(task, "Expected task");
+        final var promise = executor.<V>newPromise();
+        try {
+            pool.execute(() -> {
+                if (!promise.setUncancellable()) {
+                    return;
+                }
+                try {
+                    promise.trySuccess(task.call());
+                }
+                catch (final Throwable throwable) {
+                    promise.tryFailure(throwable);
+                }
+            });
+        }
+        catch (final RejectedExecutionException exception) {
+            promise.setFailure(exception);
+        }
+        return promise;
+    }
+
+    /**
+     * Executes given {@code task} on a thread of this pool.
+     *
+     * @param task Task to execute.
+     * @throws RejectedExecutionException If the queue of this pool is full
+     *                                    or the pool has been shut down.
+     */
+    @Internal
+    public void execute(final Runnable task) {
+        pool.execute(task);
+    }
+
+    /**
+     * @return Maximum number of threads in this pool.
+     */
+    public int nThreads() {
+        return pool.nThreads();
+    }
+
+    /**
+     * @return Maximum number of tasks allowed to wait for a thread to become
+     * available.
+     */
+    public int maxQueued() {
+        return pool.maxQueued();
+    }
+
+    /**
+     * @return Number of threads currently executing tasks.
+     */
+    public int activeCount() {
+        return pool.activeCount();
+    }
+
+    /**
+     * @return Number of tasks currently waiting for a thread to become
+     * available.
+     */
+    public int queuedCount() {
+        return pool.queuedCount();
+    }
+
+    /**
+     * @return Number of tasks that have started executing since this pool
+     * was created.
+     */
+    public long startedCount() {
+        return pool.startedCount();
+    }
+
+    /**
+     * @return Number of tasks rejected due to the queue being full, or this
+     * pool having been shut down, since this pool was created.
+     */
+    public long rejectedCount() {
+        return pool.rejectedCount();
+    }
+
+    /**
+     * @return Average time started tasks have spent waiting in the queue.
+     */
+    public Duration averageQueueTime() {
+        return pool.averageQueueTime();
+    }
+
+    /**
+     * @return Longest time any started task has spent waiting in the queue.
+     */
+    public Duration maxQueueTime() {
+        return pool.maxQueueTime();
+    }
+
+    /**
+     * Prevents further tasks from being submitted to this pool. Already
+     * submitted tasks are still executed.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * @return {@code true} only if {@link #shutdown()} has been called.
+     */
+    public boolean isShutdown() {
+        return pool.isShutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "HttpWorkerPool{pool=" + pool + '}';
+    }
+
+    /**
+     * Builder useful for creating {@link HttpWorkerPool} instances.
+     */
+    public static class Builder {
+        private int nThreads = 0;
+        private int maxQueued = 256;
+        private ThreadFactory threadFactory;
+
+        /**
+         * Sets maximum number of threads in created pool. Defaults to twice
+         * the number of available CPU cores, but at least 8.
+         *
+         * @param nThreads Maximum number of threads.
+         * @return This builder.
+         */
+        public Builder nThreads(final int nThreads) {
+            this.nThreads = nThreads;
+            return this;
+        }
+
+        /**
+         * Sets maximum number of tasks allowed to wait for a thread to become
+         * available. Defaults to 256.
+         *
+         * @param maxQueued Maximum number of queued tasks.
+         * @return This builder.
+         */
+        public Builder maxQueued(final int maxQueued) {
+            this.maxQueued = maxQueued;
+            return this;
+        }
+
+        /**
+         * Sets factory to use for creating pool threads. If not set, daemon
+         * threads named {@code kalix-http-worker-<pool>-<thread>} are
+         * created.
+         *
+         * @param threadFactory Thread factory.
+         * @return This builder.
+         */
+        public Builder threadFactory(final ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+
+        /**
+         * @return New {@link HttpWorkerPool}.
+         * @throws IllegalArgumentException If {@code maxQueued} is not
+         *                                  positive.
+         */
+        public HttpWorkerPool build() {
+            return new HttpWorkerPool(this);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package se.arkalix.security;
+
+import se.arkalix.internal.util.concurrent.BoundedThreadPool;
+import se.arkalix.util.annotation.Internal;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A bounded pool of threads used to execute the CPU-intensive tasks of TLS
+ * handshakes, such as validating certificates and performing key exchanges.
+ * <p>
+ * Handshake tasks are normally executed by the same threads that perform all
+ * network I/O of the HTTP servers and clients of a system. When many
+ * connections are established at once, such as when many consumers reconnect
+ * after a provider has been restarted, those threads may spend so much time
+ * on handshakes that already established connections are left waiting. If a
+ * handshake pool is used, handshake tasks are handed to it instead, after
+ * which the handshakes continue on the I/O threads of their connections.
+ * <p>
+ * A handshake pool has a fixed maximum number of threads and a bounded queue
+ * of tasks waiting for a thread to become available. If the queue is full,
+ * the handshake to which a task belongs fails and its connection is closed.
+ * The current queue depth and the times tasks have spent in the queue can be
+ * queried, which makes it possible to tell when a pool is saturated.
+ * <p>
+ * Only the {@link TlsSettings.Provider#JDK JDK} TLS implementation hands
+ * handshake tasks to a pool. The {@link TlsSettings.Provider#OPENSSL OPENSSL}
+ * implementation always performs its handshakes on I/O threads.
+ *
+ * @see se.arkalix.ArSystem.Builder#tlsHandshakePool(TlsHandshakePool)
+ * @see se.arkalix.net.http.client.HttpClient.Builder#tlsHandshakePool(TlsHandshakePool)
+ */
+public class TlsHandshakePool {
+    private final BoundedThreadPool pool;
+
+    private TlsHandshakePool(final Builder builder) {
+        pool = new BoundedThreadPool(builder.nThreads > 0
+            ? builder.nThreads
+            : Runtime.getRuntime().availableProcessors(),
+            builder.maxQueued, builder.threadFactory, "kalix-tls-handshake-");
+    }
+
+    /**
+     * Executes given handshake {@code task} on a thread of this pool.
+     *
+     * @param task Task to execute.
+     * @throws RejectedExecutionException If the queue of this pool is full
+     *                                    or the pool has been shut down, in
+     *                                    which case the handshake fails.
+     */
+    @Internal
+    public void execute(final Runnable task) {
+        pool.execute(task);
+    }
+
+    /**
+     * @return Maximum number of threads in this pool.
+     */
+    public int nThreads() {
+        return pool.nThreads();
+    }
+
+    /**
+     * @return Maximum number of tasks allowed to wait for a thread to become
+     * available.
+     */
+    public int maxQueued() {
+        return pool.maxQueued();
+    }
+
+    /**
+     * @return Number of threads currently executing tasks.
+     */
+    public int activeCount() {
+        return pool.activeCount();
+    }
+
+    /**
+     * @return Number of tasks currently waiting for a thread to become
+     * available.
+     */
+    public int queuedCount() {
+        return pool.queuedCount();
+    }
+
+    /**
+     * @return Number of tasks that have started executing since this pool
+     * was created.
+     */
+    public long startedCount() {
+        return pool.startedCount();
+    }
+
+    /**
+     * @return Number of tasks rejected due to the queue being full, or this
+     * pool having been shut down, since this pool was created.
+     */
+    public long rejectedCount() {
+        return pool.rejectedCount();
+    }
+
+    /**
+     * @return Average time started tasks have spent waiting in the queue.
+     */
+    public Duration averageQueueTime() {
+        return pool.averageQueueTime();
+    }
+
+    /**
+     * @return Longest time any started task has spent waiting in the queue.
+     */
+    public Duration maxQueueTime() {
+        return pool.maxQueueTime();
+    }
+
+    /**
+     * Prevents further tasks from being submitted to this pool. Already
+     * submitted tasks are still executed.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * @return {@code true} only if {@link #shutdown()} has been called.
+     */
+    public boolean isShutdown() {
+        return pool.isShutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "TlsHandshakePool{pool=" + pool + '}';
+    }
+
+    /**
+     * Builder useful for creating {@link TlsHandshakePool} instances.
+     */
+    public static class Builder {
+        private int nThreads = 0;
+        private int maxQueued = 1024;
+        private ThreadFactory threadFactory;
+
+        /**
+         * Sets maximum number of threads in created pool. Defaults to the
+         * number of available CPU cores.
+         *
+         * @param nThreads Maximum number of threads.
+         * @return This builder.
+         */
+        public Builder nThreads(final int nThreads) {
+            this.nThreads = nThreads;
+            return this;
+        }
+
+        /**
+         * Sets maximum number of tasks allowed to wait for a thread to become
+         * available. Defaults to 1024.
+         *
+         * @param maxQueued Maximum number of queued tasks.
+         * @return This builder.
+         */
+        public Builder maxQueued(final int maxQueued) {
+            this.maxQueued = maxQueued;
+            return this;
+        }
+
+        /**
+         * Sets factory to use for creating pool threads. If not set, daemon
+         * threads named {@code kalix-tls-handshake-<pool>-<thread>} are
+         * created.
+         *
+         * @param threadFactory Thread factory.
+         * @return This builder.
+         */
+        public Builder threadFactory(final ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+
+        /**
+         * @return New {@link TlsHandshakePool}.
+         * @throws IllegalArgumentException If {@code maxQueued} is not
+         *                                  positive.
+         */
+        public TlsHandshakePool build() {
+            return new TlsHandshakePool(this);
+        }
+    }
+}
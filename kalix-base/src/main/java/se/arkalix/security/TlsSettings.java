@@ -0,0 +1,209 @@
+package se.arkalix.security;
+
+import io.netty.handler.ssl.OpenSsl;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Settings determining how the Transport Layer Security (TLS) connections of
+ * the HTTP servers and clients of secure Arrowhead systems are established.
+ * <p>
+ * Establishing a mutually authenticated TLS connection requires several
+ * expensive public key operations by both parties. When a client reconnects
+ * to a server it has recently communicated with, these operations can be
+ * avoided by resuming the TLS session of a previous connection. Servers may
+ * remember sessions in a session cache or hand them to clients as encrypted
+ * session tickets. Clients remember sessions per remote host and port.
+ *
+ * @see se.arkalix.ArSystem.Builder#tlsSettings(TlsSettings)
+ * @see se.arkalix.net.http.client.HttpClient.Builder#tlsSettings(TlsSettings)
+ */
+public class TlsSettings {
+    private static final TlsSettings DEFAULT = new Builder().build();
+
+    private final Provider provider;
+    private final long sessionCacheSize;
+    private final Duration sessionTimeout;
+    private final List<byte[]> sessionTicketKeys;
+
+    private TlsSettings(final Builder builder) {
+        provider = Objects.requireNonNull(builder.provider, "Expected provider");
+        if (builder.sessionCacheSize < 0) {
+            throw new IllegalArgumentException("Expected sessionCacheSize >= 0");
+        }
+        sessionCacheSize = builder.sessionCacheSize;
+        sessionTimeout = Objects.requireNonNull(builder.sessionTimeout, "Expected sessionTimeout");
+        if (sessionTimeout.isNegative()) {
+            throw new IllegalArgumentException("Expected sessionTimeout >= 0");
+        }
+        sessionTicketKeys = builder.sessionTicketKeys.stream()
+            .peek(key -> {
+                if (key.length != 48) {
+                    throw new IllegalArgumentException("Expected every " +
+                        "session ticket key to be 48 bytes long");
+                }
+            })
+            .map(byte[]::clone)
+            .collect(Collectors.toUnmodifiableList());
+    }
+
+    /**
+     * @return Default TLS settings.
+     */
+    public static TlsSettings getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @return Preferred TLS implementation.
+     */
+    public Provider provider() {
+        return provider;
+    }
+
+    /**
+     * @return Maximum number of TLS sessions to remember, or {@code 0} if
+     * the default of the TLS implementation is used.
+     */
+    public long sessionCacheSize() {
+        return sessionCacheSize;
+    }
+
+    /**
+     * @return Duration for which TLS sessions are remembered, or
+     * {@link Duration#ZERO} if the default of the TLS implementation is used.
+     */
+    public Duration sessionTimeout() {
+        return sessionTimeout;
+    }
+
+    /**
+     * @return Copies of server session ticket keys, if any.
+     */
+    public List<byte[]> sessionTicketKeys() {
+        return sessionTicketKeys.stream()
+            .map(byte[]::clone)
+            .collect(Collectors.toUnmodifiableList());
+    }
+
+    /**
+     * A TLS implementation.
+     */
+    public enum Provider {
+        /**
+         * The TLS implementation of the Java platform.
+         */
+        JDK,
+
+        /**
+         * A native OpenSSL-compatible TLS implementation, such as the
+         * BoringSSL library provided by the
+         * {@code io.netty:netty-tcnative-boringssl-static} artifact, which
+         * must be available on the class path of the application. If it is
+         * not, or if it cannot be loaded on the current platform,
+         * {@link #JDK} is used instead.
+         * <p>
+         * Full handshakes are considerably faster than with {@link #JDK}.
+         * However, clients using this implementation do not remember the
+         * sessions of servers they have connected to, which means that only
+         * servers benefit from session resumption.
+         */
+        OPENSSL;
+
+        /**
+         * @return {@code true} only if this TLS implementation can be used
+         * on the current platform.
+         */
+        public boolean isAvailable() {
+            return this == JDK || OpenSsl.isAvailable();
+        }
+    }
+
+    /**
+     * Builder useful for creating {@link TlsSettings} instances.
+     */
+    public static class Builder {
+        private Provider provider = Provider.JDK;
+        private long sessionCacheSize = 0;
+        private Duration sessionTimeout = Duration.ZERO;
+        private List<byte[]> sessionTicketKeys = List.of();
+
+        /**
+         * Sets preferred TLS implementation. Defaults to
+         * {@link Provider#JDK}.
+         *
+         * @param provider Preferred TLS implementation.
+         * @return This builder.
+         */
+        public Builder provider(final Provider provider) {
+            this.provider = provider;
+            return this;
+        }
+
+        /**
+         * Sets maximum number of TLS sessions to remember, either by a server
+         * for all its clients or by a client for all the servers it connects
+         * to. Defaults to {@code 0}, which means that the default of the TLS
+         * implementation is used.
+         *
+         * @param sessionCacheSize Maximum number of remembered sessions.
+         * @return This builder.
+         */
+        public Builder sessionCacheSize(final long sessionCacheSize) {
+            this.sessionCacheSize = sessionCacheSize;
+            return this;
+        }
+
+        /**
+         * Sets duration for which TLS sessions are remembered and may be
+         * resumed. Defaults to {@link Duration#ZERO}, which means that the
+         * default of the TLS implementation is used.
+         *
+         * @param sessionTimeout Remembered session timeout.
+         * @return This builder.
+         */
+        public Builder sessionTimeout(final Duration sessionTimeout) {
+            this.sessionTimeout = sessionTimeout;
+            return this;
+        }
+
+        /**
+         * Sets keys used by servers to encrypt and decrypt the TLS session
+         * tickets they hand to their clients, each of which must be exactly
+         * 48 bytes long. The first key is used to encrypt new tickets, while
+         * all keys are used to decrypt received tickets. Servers sharing the
+         * same keys can resume each other's sessions.
+         * <p>
+         * Keys are only used if the {@link Provider#OPENSSL OPENSSL}
+         * implementation is. If no keys are provided, that implementation
+         * generates its own when a server is started. Session tickets issued
+         * by the {@link Provider#JDK JDK} implementation are controlled by
+         * the {@code jdk.tls.server.enableSessionTicketExtension} system
+         * property.
+         *
+         * @param sessionTicketKeys Session ticket keys.
+         * @return This builder.
+         */
+        public Builder sessionTicketKeys(final byte[]... sessionTicketKeys) {
+            this.sessionTicketKeys = Arrays.asList(sessionTicketKeys);
+            return this;
+        }
+
+        /**
+         * @return New {@link TlsSettings}.
+         * @throws IllegalArgumentException If {@code sessionCacheSize} or
+         *                                  {@code sessionTimeout} is negative,
+         *                                  or if any session ticket key is
+         *                                  not 48 bytes long.
+         * @throws NullPointerException     If {@code provider} or
+         *                                  {@code sessionTimeout} is not set.
+         */
+        public TlsSettings build() {
+            return new TlsSettings(this);
+        }
+    }
+}
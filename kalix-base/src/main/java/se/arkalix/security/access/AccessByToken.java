@@ -4,10 +4,16 @@ import se.arkalix.description.ServiceDescription;
 import se.arkalix.description.SystemDescription;
 import se.arkalix.descriptor.AccessDescriptor;
 import se.arkalix.internal.security.access.AccessToken;
+import se.arkalix.internal.security.access.AccessTokenCache;
+import se.arkalix.internal.util.concurrent.NettyFutures;
 import se.arkalix.security.identity.ArSystemKeyStore;
+import se.arkalix.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
 
+import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -26,11 +32,29 @@ import java.util.concurrent.atomic.AtomicReference;
  * system key is set or replaced using the {@link #authorizationKey(PublicKey)}
  * method.
  * <p>
+ * As decrypting and verifying tokens is expensive, and consumers tend to
+ * present the same tokens repeatedly, successfully verified tokens are cached
+ * until they expire. The cache is emptied whenever the authorization key is
+ * replaced. When used via {@link #isAuthorizedAsync(SystemDescription,
+ * ServiceDescription, String, Executor)}, which is what HTTP services do,
+ * tokens not already cached are verified by a separate {@link Executor},
+ * which by default is the {@link AccessVerificationPool} of the system
+ * providing the service being consumed. Consumers presenting cached tokens
+ * are authorized directly by the calling thread.
+ * <p>
  * Note that access policy instances of this type can be shared by multiple
  * services.
  */
 public class AccessByToken implements AccessPolicy {
-    private final AtomicReference<PublicKey> authorizationKey;
+    /**
+     * Maximum number of verified tokens cached by policies not created with
+     * an explicit cache capacity.
+     */
+    public static final int DEFAULT_TOKEN_CACHE_CAPACITY = 1024;
+
+    private final int tokenCacheCapacity;
+    private final Executor verificationExecutor;
+    private final AtomicReference<State> state;
 
     /**
      * Creates new certificate and token access policy without an authorization
@@ -40,7 +64,7 @@ public class AccessByToken implements AccessPolicy {
      * method, or the access policy will throw exceptions when used.
      */
     public AccessByToken() {
-        authorizationKey = new AtomicReference<>(null);
+        this(null);
     }
 
     /**
@@ -54,7 +78,60 @@ public class AccessByToken implements AccessPolicy {
      *                         tokens.
      */
     public AccessByToken(final PublicKey authorizationKey) {
-        this.authorizationKey = new AtomicReference<>(authorizationKey);
+        this(authorizationKey, DEFAULT_TOKEN_CACHE_CAPACITY);
+    }
+
+    /**
+     * Creates new certificate and token access policy with the given
+     * authorization system public key and verified token cache capacity.
+     * <p>
+     * The key can be changed later via the
+     * {@link #authorizationKey(PublicKey)} method.
+     *
+     * @param authorizationKey   Public key of issuer of acceptable access
+     *                           tokens.
+     * @param tokenCacheCapacity Maximum number of verified tokens to cache,
+     *                           or 0 to disable caching.
+     * @throws IllegalArgumentException If {@code tokenCacheCapacity} is
+     *                                  negative.
+     */
+    public AccessByToken(final PublicKey authorizationKey, final int tokenCacheCapacity) {
+        this(authorizationKey, tokenCacheCapacity, null);
+    }
+
+    /**
+     * Creates new certificate and token access policy with the given
+     * authorization system public key, verified token cache capacity and
+     * token verification executor.
+     * <p>
+     * The key can be changed later via the
+     * {@link #authorizationKey(PublicKey)} method.
+     *
+     * @param authorizationKey     Public key of issuer of acceptable access
+     *                             tokens.
+     * @param tokenCacheCapacity   Maximum number of verified tokens to cache,
+     *                             or 0 to disable caching.
+     * @param verificationExecutor Executor to use for verifying tokens not
+     *                             already cached, or {@code null} if the
+     *                             executor provided by the caller of
+     *                             {@link #isAuthorizedAsync(SystemDescription,
+     *                             ServiceDescription, String, Executor)} is
+     *                             to be used. Use {@code Runnable::run} to
+     *                             verify tokens on the calling thread.
+     * @throws IllegalArgumentException If {@code tokenCacheCapacity} is
+     *                                  negative.
+     */
+    public AccessByToken(
+        final PublicKey authorizationKey,
+        final int tokenCacheCapacity,
+        final Executor verificationExecutor)
+    {
+        if (tokenCacheCapacity < 0) {
+            throw new IllegalArgumentException("Expected tokenCacheCapacity >= 0");
+        }
+        this.tokenCacheCapacity = tokenCacheCapacity;
+        this.verificationExecutor = verificationExecutor;
+        this.state = new AtomicReference<>(new State(authorizationKey, tokenCacheCapacity));
     }
 
     /**
@@ -65,12 +142,13 @@ public class AccessByToken implements AccessPolicy {
      * can be expected to be an authorization system belonging to the same
      * cloud as the service provider using this access policy.
      * <p>
-     * This method is thread-safe.
+     * Any cached tokens verified with a previous key are forgotten. This
+     * method is thread-safe.
      *
      * @param authorizationKey Public key of designated authorization system.
      */
     public void authorizationKey(final PublicKey authorizationKey) {
-        this.authorizationKey.set(authorizationKey);
+        state.set(new State(authorizationKey, tokenCacheCapacity));
     }
 
     @Override
@@ -89,23 +167,123 @@ public class AccessByToken implements AccessPolicy {
             return false;
         }
 
-        final var senderKey = authorizationKey.get();
-        if (senderKey == null) {
-            throw new IllegalStateException("Cannot verify token; no authorization key is available");
+        final var state = this.state.get();
+        final var receiverKey = receiverKeyOf(state, service);
+        final var token0 = verify(state, token, receiverKey);
+        return isPermitted(consumer, service, token0);
+    }
+
+    @Override
+    public Future<Boolean> isAuthorizedAsync(
+        final SystemDescription consumer,
+        final ServiceDescription service,
+        final String token)
+    {
+        return isAuthorizedAsync(consumer, service, token, Runnable::run);
+    }
+
+    @Override
+    public Future<Boolean> isAuthorizedAsync(
+        final SystemDescription consumer,
+        final ServiceDescription service,
+        final String token,
+        final Executor executor)
+    {
+        Objects.requireNonNull(consumer, "Expected consumer");
+        Objects.requireNonNull(service, "Expected service");
+
+        if (token == null) {
+            return Future.success(false);
+        }
+
+        final State state;
+        final PrivateKey receiverKey;
+        try {
+            state = this.state.get();
+            receiverKey = receiverKeyOf(state, service);
+            if (state.tokenCache != null) {
+                final var token0 = state.tokenCache.get(token, receiverKey);
+                if (token0 != null) {
+                    return Future.success(isPermitted(consumer, service, token0));
+                }
+            }
+        }
+        catch (final Throwable throwable) {
+            return Future.failure(throwable);
+        }
+
+        final var promise = ImmediateEventExecutor.INSTANCE.<Boolean>newPromise();
+        try {
+            final var executor0 = verificationExecutor != null
+                ? verificationExecutor
+                : Objects.requireNonNull(executor, "Expected executor");
+            executor0.execute(() -> {
+                try {
+                    final var token0 = verify(state, token, receiverKey);
+                    promise.setSuccess(isPermitted(consumer, service, token0));
+                }
+                catch (final Throwable throwable) {
+                    promise.setFailure(throwable);
+                }
+            });
+        }
+        catch (final Throwable throwable) {
+            return Future.failure(throwable);
         }
+        return NettyFutures.adapt(promise);
+    }
 
+    private static PrivateKey receiverKeyOf(final State state, final ServiceDescription service) {
+        if (state.authorizationKey == null) {
+            throw new IllegalStateException("Cannot verify token; no authorization key is available");
+        }
         final var systemCertificateChain = service.provider().certificateChain();
         if (!(systemCertificateChain instanceof ArSystemKeyStore)) {
             throw new IllegalStateException("Cannot verify token; no system private key is available");
         }
-        final var receiverKey = ((ArSystemKeyStore) systemCertificateChain).privateKey();
+        return ((ArSystemKeyStore) systemCertificateChain).privateKey();
+    }
 
-        final var token0 = AccessToken.read(token, receiverKey, senderKey);
+    private static AccessToken verify(final State state, final String token, final PrivateKey receiverKey)
+        throws AccessTokenException
+    {
+        final var tokenCache = state.tokenCache;
+        var token0 = tokenCache != null ? tokenCache.get(token, receiverKey) : null;
+        if (token0 == null) {
+            token0 = AccessToken.read(token, receiverKey, state.authorizationKey);
+            if (tokenCache != null) {
+                tokenCache.put(token, receiverKey, token0);
+            }
+        }
+        return token0;
+    }
 
-        final var cid = token0.cid();
+    private static boolean isPermitted(
+        final SystemDescription consumer,
+        final ServiceDescription service,
+        final AccessToken token)
+    {
+        final var cid = token.cid();
         final var cn = consumer.certificateChain().systemCommonName();
         return cn.startsWith(cid) && cn.charAt(cid.length()) == '.' &&
-            Objects.equals(token0.sid(), service.name()) &&
-            service.supportedInterfaces().contains(token0.iid());
+            Objects.equals(token.sid(), service.name()) &&
+            service.supportedInterfaces().contains(token.iid());
+    }
+
+    /*
+     * An authorization key and the cache of tokens verified with it, which
+     * are replaced together to prevent tokens verified with an old key from
+     * being cached after the key has been replaced.
+     */
+    private static class State {
+        private final PublicKey authorizationKey;
+        private final AccessTokenCache tokenCache;
+
+        private State(final PublicKey authorizationKey, final int tokenCacheCapacity) {
+            this.authorizationKey = authorizationKey;
+            this.tokenCache = tokenCacheCapacity > 0
+                ? new AccessTokenCache(tokenCacheCapacity)
+                : null;
+        }
     }
 }
@@ -3,10 +3,12 @@ package se.arkalix.security.access;
 import se.arkalix.description.ServiceDescription;
 import se.arkalix.description.SystemDescription;
 import se.arkalix.descriptor.AccessDescriptor;
+import se.arkalix.util.concurrent.Future;
 
 import java.security.PublicKey;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * An access control policy.
@@ -40,6 +42,75 @@ public interface AccessPolicy {
     boolean isAuthorized(SystemDescription consumer, ServiceDescription service, String token)
         throws AccessTokenException;
 
+    /**
+     * Determines whether or not the described {@code system} may consume the
+     * described {@code service} using the given access {@code token}, if any,
+     * without necessarily blocking the calling thread.
+     * <p>
+     * This method is called by HTTP servers on the I/O threads of their
+     * connections. Policies whose decisions may require expensive work, such
+     * as performing cryptographic operations, should override this method,
+     * as well as {@link #isAuthorizedAsync(SystemDescription,
+     * ServiceDescription, String, Executor)}, to perform that work on some
+     * other thread. The default implementation
+     * simply calls {@link #isAuthorized(SystemDescription,
+     * ServiceDescription, String)} and returns its outcome.
+     *
+     * @param consumer Description of system attempting to consume the
+     *                 {@code service} in question.
+     * @param service  Description of service that the {@code consumer}
+     *                 attempts to consume.
+     * @param token    Access token presented by the {@code consumer}, if any.
+     * @return Future completed with {@code true} only if {@code consumer} is
+     * permitted to consume {@code service}. The future may be failed with an
+     * {@link AccessTokenException} if {@code token} is invalid.
+     */
+    default Future<Boolean> isAuthorizedAsync(
+        final SystemDescription consumer,
+        final ServiceDescription service,
+        final String token)
+    {
+        try {
+            return Future.success(isAuthorized(consumer, service, token));
+        }
+        catch (final Throwable throwable) {
+            return Future.failure(throwable);
+        }
+    }
+
+    /**
+     * Determines whether or not the described {@code system} may consume the
+     * described {@code service} using the given access {@code token}, if any,
+     * performing any expensive work using the given {@code executor}.
+     * <p>
+     * This method is called by HTTP servers on the I/O threads of their
+     * connections, with the {@link AccessVerificationPool} of the system
+     * providing the service as {@code executor}, if the policy in question
+     * uses {@link AccessDescriptor#TOKEN token} access control. The default
+     * implementation ignores {@code executor} and calls {@link
+     * #isAuthorizedAsync(SystemDescription, ServiceDescription, String)}.
+     *
+     * @param consumer Description of system attempting to consume the
+     *                 {@code service} in question.
+     * @param service  Description of service that the {@code consumer}
+     *                 attempts to consume.
+     * @param token    Access token presented by the {@code consumer}, if any.
+     * @param executor Executor to use for performing expensive work.
+     * @return Future completed with {@code true} only if {@code consumer} is
+     * permitted to consume {@code service}. The future may be failed with an
+     * {@link AccessTokenException} if {@code token} is invalid, or with a
+     * {@link java.util.concurrent.RejectedExecutionException} if
+     * {@code executor} refuses to perform the work in question.
+     */
+    default Future<Boolean> isAuthorizedAsync(
+        final SystemDescription consumer,
+        final ServiceDescription service,
+        final String token,
+        final Executor executor)
+    {
+        return isAuthorizedAsync(consumer, service, token);
+    }
+
     /**
      * @return Access policy granting access to consumers originating from the
      * same cloud as the provider of the service being consumed.
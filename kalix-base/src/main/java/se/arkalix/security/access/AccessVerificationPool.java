@@ -0,0 +1,188 @@
+package se.arkalix.security.access;
+
+import se.arkalix.internal.util.concurrent.BoundedThreadPool;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A bounded pool of threads used to perform CPU-intensive access control
+ * work, such as decrypting and verifying access tokens.
+ * <p>
+ * Access policies are consulted by the same threads that perform all network
+ * I/O of the HTTP servers of a system. Policies whose decisions require
+ * expensive work, such as {@link AccessByToken}, hand that work to the
+ * verification pool of the system providing the service being consumed, after
+ * which the handling of the request being authorized continues on the I/O
+ * thread of its connection.
+ * <p>
+ * A verification pool has a fixed maximum number of threads and a bounded
+ * queue of tasks waiting for a thread to become available. If the queue is
+ * full, the request being authorized is rejected with status {@code 503
+ * Service Unavailable}. The current queue depth and the times tasks have
+ * spent in the queue can be queried, which should be useful for sizing the
+ * pool.
+ *
+ * @see AccessPolicy#isAuthorizedAsync(se.arkalix.description.SystemDescription,
+ * se.arkalix.description.ServiceDescription, String, Executor)
+ * @see se.arkalix.ArSystem.Builder#accessVerificationPool(AccessVerificationPool)
+ */
+public class AccessVerificationPool implements Executor {
+    private final BoundedThreadPool pool;
+
+    private AccessVerificationPool(final Builder builder) {
+        pool = new BoundedThreadPool(builder.nThreads > 0
+            ? builder.nThreads
+            : Runtime.getRuntime().availableProcessors(),
+            builder.maxQueued, builder.threadFactory, "kalix-access-verifier-");
+    }
+
+    /**
+     * Executes given verification {@code task} on a thread of this pool.
+     *
+     * @param task Task to execute.
+     * @throws RejectedExecutionException If the queue of this pool is full
+     *                                    or the pool has been shut down.
+     */
+    @Override
+    public void execute(final Runnable task) {
+        pool.execute(task);
+    }
+
+    /**
+     * @return Maximum number of threads in this pool.
+     */
+    public int nThreads() {
+        return pool.nThreads();
+    }
+
+    /**
+     * @return Maximum number of tasks allowed to wait for a thread to become
+     * available.
+     */
+    public int maxQueued() {
+        return pool.maxQueued();
+    }
+
+    /**
+     * @return Number of threads currently executing tasks.
+     */
+    public int activeCount() {
+        return pool.activeCount();
+    }
+
+    /**
+     * @return Number of tasks currently waiting for a thread to become
+     * available.
+     */
+    public int queuedCount() {
+        return pool.queuedCount();
+    }
+
+    /**
+     * @return Number of tasks that have started executing since this pool
+     * was created.
+     */
+    public long startedCount() {
+        return pool.startedCount();
+    }
+
+    /**
+     * @return Number of tasks rejected due to the queue being full, or this
+     * pool having been shut down, since this pool was created.
+     */
+    public long rejectedCount() {
+        return pool.rejectedCount();
+    }
+
+    /**
+     * @return Average time started tasks have spent waiting in the queue.
+     */
+    public Duration averageQueueTime() {
+        return pool.averageQueueTime();
+    }
+
+    /**
+     * @return Longest time any started task has spent waiting in the queue.
+     */
+    public Duration maxQueueTime() {
+        return pool.maxQueueTime();
+    }
+
+    /**
+     * Prevents further tasks from being submitted to this pool. Already
+     * submitted tasks are still executed.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * @return {@code true} only if {@link #shutdown()} has been called.
+     */
+    public boolean isShutdown() {
+        return pool.isShutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "AccessVerificationPool{pool=" + pool + '}';
+    }
+
+    /**
+     * Builder useful for creating {@link AccessVerificationPool} instances.
+     */
+    public static class Builder {
+        private int nThreads = 0;
+        private int maxQueued = 1024;
+        private ThreadFactory threadFactory;
+
+        /**
+         * Sets maximum number of threads in created pool. Defaults to the
+         * number of available CPU cores.
+         *
+         * @param nThreads Maximum number of threads.
+         * @return This builder.
+         */
+        public Builder nThreads(final int nThreads) {
+            this.nThreads = nThreads;
+            return this;
+        }
+
+        /**
+         * Sets maximum number of tasks allowed to wait for a thread to become
+         * available. Defaults to 1024.
+         *
+         * @param maxQueued Maximum number of queued tasks.
+         * @return This builder.
+         */
+        public Builder maxQueued(final int maxQueued) {
+            this.maxQueued = maxQueued;
+            return this;
+        }
+
+        /**
+         * Sets factory to use for creating pool threads. If not set, daemon
+         * threads named {@code kalix-access-verifier-<pool>-<thread>} are
+         * created.
+         *
+         * @param threadFactory Thread factory.
+         * @return This builder.
+         */
+        public Builder threadFactory(final ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+
+        /**
+         * @return New {@link AccessVerificationPool}.
+         * @throws IllegalArgumentException If {@code maxQueued} is not
+         *                                  positive.
+         */
+        public AccessVerificationPool build() {
+            return new AccessVerificationPool(this);
+        }
+    }
+}
@@ -8,10 +8,15 @@ import java.util.function.Consumer;
 
 /**
  * A {@code Future} that always fails with a predetermined error.
+ * <p>
+ * As instances of this class are completed from the moment they are created,
+ * it is possible to read their faults directly via {@link #fault()} rather
+ * than via listeners. This can be useful when wanting to avoid scheduling
+ * work that can be executed immediately.
  *
  * @param <V> Type of value that would have been included if successful.
  */
-class FutureFailure<V> implements FutureProgress<V> {
+public class FutureFailure<V> implements FutureProgress<V> {
     private final Throwable fault;
 
     /**
@@ -24,6 +29,13 @@ class FutureFailure<V> implements FutureProgress<V> {
         this.fault = Objects.requireNonNull(fault);
     }
 
+    /**
+     * @return Fault of this {@code Future}.
+     */
+    public Throwable fault() {
+        return fault;
+    }
+
     @Override
     public void onResult(final Consumer<Result<V>> consumer) {
         Objects.requireNonNull(consumer, "Expected consumer");
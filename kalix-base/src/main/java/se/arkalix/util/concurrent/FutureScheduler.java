@@ -1,5 +1,6 @@
 package se.arkalix.util.concurrent;
 
+import se.arkalix.internal.jfr.FutureSchedulerTaskEvent;
 import se.arkalix.util.Result;
 import se.arkalix.util.annotation.Internal;
 import io.netty.channel.EventLoopGroup;
@@ -200,7 +201,7 @@ public final class FutureScheduler {
      * @param command Command to execute.
      */
     public void execute(final Runnable command) {
-        eventLoopGroup.execute(command);
+        eventLoopGroup.execute(wrap(command));
     }
 
     /**
@@ -212,7 +213,7 @@ public final class FutureScheduler {
      * finishes.
      */
     public Future<?> submit(final Runnable task) {
-        return adapt(eventLoopGroup.submit(task));
+        return adapt(eventLoopGroup.submit(wrap(task)));
     }
 
     /**
@@ -225,7 +226,7 @@ public final class FutureScheduler {
      * @return Future completed with result of {@code callable} execution.
      */
     public <V> Future<V> submit(final Callable<V> task) {
-        return adapt(eventLoopGroup.submit(task));
+        return adapt(eventLoopGroup.submit(wrap(task)));
     }
 
     /**
@@ -239,7 +240,7 @@ public final class FutureScheduler {
      * @return Future completed when task execution finishes.
      */
     public <V> Future<V> submit(final Runnable task, V result) {
-        return adapt(eventLoopGroup.submit(task, result));
+        return adapt(eventLoopGroup.submit(wrap(task), result));
     }
 
     /**
@@ -251,7 +252,7 @@ public final class FutureScheduler {
      */
     public Future<?> scheduleAfter(final Runnable command, final Duration delay) {
         final var millis = delay.toMillis();
-        return adapt(eventLoopGroup.schedule(command, millis, TimeUnit.MILLISECONDS));
+        return adapt(eventLoopGroup.schedule(wrap(command), millis, TimeUnit.MILLISECONDS));
     }
 
     /**
@@ -264,7 +265,7 @@ public final class FutureScheduler {
      */
     public <V> Future<V> scheduleAfter(final Callable<V> callable, final Duration delay) {
         final var millis = delay.toMillis();
-        return adapt(eventLoopGroup.schedule(callable, millis, TimeUnit.MILLISECONDS));
+        return adapt(eventLoopGroup.schedule(wrap(callable), millis, TimeUnit.MILLISECONDS));
     }
 
     /**
@@ -287,7 +288,8 @@ public final class FutureScheduler {
     public Future<?> scheduleAtFixedRate(final Runnable command, final Duration delay, final Duration rate) {
         final var delayMillis = delay.toMillis();
         final var rateMillis = rate.toMillis();
-        return adapt(eventLoopGroup.scheduleAtFixedRate(command, delayMillis, rateMillis, TimeUnit.MILLISECONDS));
+        return adapt(eventLoopGroup.scheduleAtFixedRate(FutureSchedulerTaskEvent.wrap(command), delayMillis,
+            rateMillis, TimeUnit.MILLISECONDS));
     }
 
     /**
@@ -311,7 +313,28 @@ public final class FutureScheduler {
     public Future<?> scheduleWithFixedDelay(final Runnable command, final Duration delay, final Duration rate) {
         final var delayMillis = delay.toMillis();
         final var rateMillis = rate.toMillis();
-        return adapt(eventLoopGroup.scheduleWithFixedDelay(command, delayMillis, rateMillis, TimeUnit.MILLISECONDS));
+        return adapt(eventLoopGroup.scheduleWithFixedDelay(FutureSchedulerTaskEvent.wrap(command), delayMillis,
+            rateMillis, TimeUnit.MILLISECONDS));
+    }
+
+    /*
+     * Tasks executed once are only wrapped for being recorded by Java Flight
+     * Recorder if their event is enabled when they are scheduled, which saves
+     * an allocation per task when it is not. Repeating tasks are always
+     * wrapped, as they may outlive any number of recordings.
+     */
+    private static Runnable wrap(final Runnable task) {
+        Objects.requireNonNull(task, "Expected task");
+        return new FutureSchedulerTaskEvent().isEnabled()
+            ? FutureSchedulerTaskEvent.wrap(task)
+            : task;
+    }
+
+    private static <V> Callable<V> wrap(final Callable<V> task) {
+        Objects.requireNonNull(task, "Expected task");
+        return new FutureSchedulerTaskEvent().isEnabled()
+            ? FutureSchedulerTaskEvent.wrap(task)
+            : task;
     }
 
     /**
@@ -8,10 +8,15 @@ import java.util.function.Consumer;
 
 /**
  * A {@code Future} that always succeeds with a predetermined value.
+ * <p>
+ * As instances of this class are completed from the moment they are created,
+ * it is possible to read their values directly via {@link #value()} rather
+ * than via listeners. This can be useful when wanting to avoid scheduling
+ * work that can be executed immediately.
  *
  * @param <V> Type of value.
  */
-class FutureSuccess<V> implements FutureProgress<V> {
+public class FutureSuccess<V> implements FutureProgress<V> {
     static final FutureSuccess<?> NULL = new FutureSuccess<>(null);
 
     private final V value;
@@ -25,6 +30,13 @@ class FutureSuccess<V> implements FutureProgress<V> {
         this.value = value;
     }
 
+    /**
+     * @return Value of this {@code Future}.
+     */
+    public V value() {
+        return value;
+    }
+
     @Override
     public void onResult(final Consumer<Result<V>> consumer) {
         Objects.requireNonNull(consumer, "Expected consumer");
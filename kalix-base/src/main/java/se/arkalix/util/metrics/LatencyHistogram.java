@@ -0,0 +1,196 @@
+package se.arkalix.util.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies, suitable for being updated
+ * concurrently by many threads at a very low cost.
+ * <p>
+ * Recorded latencies are counted in log-linear buckets, meaning that every
+ * power of two microseconds is divided into 8 linear sub-buckets. The
+ * relative error of any bucket boundary is, as a consequence, at most 12.5%.
+ * Latencies shorter than 8 microseconds are counted in buckets of one
+ * microsecond each, while latencies of {@code 2^26} microseconds (about 67
+ * seconds) or more are counted in a single overflow bucket.
+ * <p>
+ * The buckets are striped, which means that every bucket has several
+ * counters, one of which is selected by the identifier of the recording
+ * thread. This keeps threads recording latencies at the same time from
+ * competing for the same memory, while making snapshots somewhat more
+ * expensive to create.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_MAGNITUDE = 25;
+    private static final int OVERFLOW_INDEX = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+    private static final int BUCKET_COUNT = OVERFLOW_INDEX + 1;
+
+    // Each stripe also has room for a running sum of recorded nanoseconds.
+    private static final int STRIPE_LENGTH = BUCKET_COUNT + 1;
+    private static final int STRIPE_COUNT;
+
+    static {
+        final var processors = Runtime.getRuntime().availableProcessors();
+        STRIPE_COUNT = Math.min(Integer.highestOneBit(Math.max(processors, 1) * 2 - 1), 8);
+    }
+
+    private final AtomicLongArray stripes = new AtomicLongArray(STRIPE_LENGTH * STRIPE_COUNT);
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos Latency, in nanoseconds. Negative values are treated as
+     *              zero.
+     */
+    public void record(final long nanos) {
+        final var value = Math.max(nanos, 0L);
+        final var offset = ((int) Thread.currentThread().getId() & (STRIPE_COUNT - 1)) * STRIPE_LENGTH;
+        stripes.getAndIncrement(offset + indexOf(value / 1000L));
+        stripes.getAndAdd(offset + BUCKET_COUNT, value);
+    }
+
+    /**
+     * Records one latency.
+     *
+     * @param latency Latency.
+     */
+    public void record(final Duration latency) {
+        record(latency.toNanos());
+    }
+
+    /**
+     * @return Snapshot of the current state of this histogram.
+     */
+    public Snapshot snapshot() {
+        final var counts = new long[BUCKET_COUNT];
+        var sumNanos = 0L;
+        for (var stripe = 0; stripe < STRIPE_COUNT; ++stripe) {
+            final var offset = stripe * STRIPE_LENGTH;
+            for (var index = 0; index < BUCKET_COUNT; ++index) {
+                counts[index] += stripes.get(offset + index);
+            }
+            sumNanos += stripes.get(offset + BUCKET_COUNT);
+        }
+        return new Snapshot(counts, sumNanos);
+    }
+
+    static int indexOf(final long micros) {
+        if (micros < SUB_BUCKET_COUNT) {
+            return (int) micros;
+        }
+        final var magnitude = 63 - Long.numberOfLeadingZeros(micros);
+        if (magnitude > MAX_MAGNITUDE) {
+            return OVERFLOW_INDEX;
+        }
+        final var subBucket = (int) (micros >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long upperBoundMicrosOf(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index + 1;
+        }
+        if (index >= OVERFLOW_INDEX) {
+            return Long.MAX_VALUE;
+        }
+        final var magnitude = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        final var subBucket = index % SUB_BUCKET_COUNT;
+        return (long) (SUB_BUCKET_COUNT + subBucket + 1) << (magnitude - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * An immutable copy of the state of a {@link LatencyHistogram} at a
+     * certain point in time.
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long sumNanos;
+        private final long count;
+
+        private Snapshot(final long[] counts, final long sumNanos) {
+            this.counts = counts;
+            this.sumNanos = sumNanos;
+            var count = 0L;
+            for (final var c : counts) {
+                count += c;
+            }
+            this.count = count;
+        }
+
+        /**
+         * @return Number of recorded latencies.
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * @return Sum of all recorded latencies.
+         */
+        public Duration sum() {
+            return Duration.ofNanos(sumNanos);
+        }
+
+        /**
+         * @return Average of all recorded latencies, or zero if none have
+         * been recorded.
+         */
+        public Duration mean() {
+            return count > 0 ? Duration.ofNanos(sumNanos / count) : Duration.ZERO;
+        }
+
+        /**
+         * Counts the latencies that are known to be shorter than given
+         * {@code bound}.
+         * <p>
+         * As latencies are only counted in buckets, the result is exact only
+         * if {@code bound} is a whole number of microseconds that is a power
+         * of two, or is smaller than 8 microseconds. Otherwise, latencies in
+         * the bucket containing {@code bound} are not included.
+         *
+         * @param bound Upper latency bound.
+         * @return Number of latencies shorter than {@code bound}.
+         */
+        public long countBelow(final Duration bound) {
+            final var boundMicros = bound.toNanos() / 1000L;
+            var result = 0L;
+            for (var index = 0; index < counts.length; ++index) {
+                if (upperBoundMicrosOf(index) > boundMicros) {
+                    break;
+                }
+                result += counts[index];
+            }
+            return result;
+        }
+
+        /**
+         * Estimates the latency at or below which given {@code percentile} of
+         * all recorded latencies are found.
+         * <p>
+         * The estimate is the upper bound of the bucket containing the
+         * latency in question, which means that it may be up to 12.5% larger
+         * than the actual latency. If the latency is found in the overflow
+         * bucket, the largest latency not counted in that bucket is returned.
+         *
+         * @param percentile Percentile, between 0.0 and 100.0.
+         * @return Estimated latency, or zero if no latencies were recorded.
+         */
+        public Duration percentile(final double percentile) {
+            if (count == 0) {
+                return Duration.ZERO;
+            }
+            final var target = Math.max(1L, (long) Math.ceil(count * Math.min(percentile, 100.0) / 100.0));
+            var seen = 0L;
+            for (var index = 0; index < counts.length; ++index) {
+                seen += counts[index];
+                if (seen >= target) {
+                    return Duration.ofNanos(Math.min(upperBoundMicrosOf(index), upperBoundMicrosOf(OVERFLOW_INDEX - 1))
+                        * 1000L);
+                }
+            }
+            return Duration.ofNanos(upperBoundMicrosOf(OVERFLOW_INDEX - 1) * 1000L);
+        }
+    }
+}
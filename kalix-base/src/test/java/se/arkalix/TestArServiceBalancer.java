@@ -0,0 +1,193 @@
+package se.arkalix;
+
+import org.junit.jupiter.api.Test;
+import se.arkalix.description.ServiceDescription;
+import se.arkalix.description.SystemDescription;
+import se.arkalix.descriptor.AccessDescriptor;
+import se.arkalix.descriptor.InterfaceDescriptor;
+import se.arkalix.util.Result;
+import se.arkalix.util.concurrent.Future;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestArServiceBalancer {
+    @Test
+    void shouldRoundRobinAndRefreshWhenCacheIsUpdated() {
+        final var cache = new ArServiceCache();
+        final var balancer = newBalancer(cache, ArServiceBalancer.Strategy.ROUND_ROBIN);
+
+        final var fault = new ArrayList<Throwable>();
+        balancer.consume(Future::success).onFailure(fault::add);
+        assertTrue(fault.get(0) instanceof NoSuchElementException);
+
+        cache.update(service("a", 9001), service("b", 9002), service("c", 9003),
+            service("d", 9004, InterfaceDescriptor.HTTP_SECURE_CBOR));
+        assertEquals(List.of("a", "b", "c", "a"), consume(balancer, 4));
+
+        cache.update(service("e", 9005));
+        assertEquals(4, balancer.providers().size());
+        assertEquals(4, consume(balancer, 4).stream().distinct().count());
+    }
+
+    @Test
+    void shouldReplaceProviderThatMovesToNewAddress() {
+        final var cache = new ArServiceCache();
+        cache.update(service("a", 9001), service("b", 9002));
+        final var balancer = newBalancer(cache, ArServiceBalancer.Strategy.ROUND_ROBIN);
+        assertEquals(2, balancer.providers().size());
+
+        cache.update(service("a", 9101));
+        assertEquals(2, cache.getAll().count());
+        assertEquals(2, balancer.providers().size());
+        final var ports = new HashSet<Integer>();
+        for (var i = 0; i < 4; ++i) {
+            balancer.consume(service -> Future.success(service.provider().remoteSocketAddress().getPort()))
+                .onResult(result -> ports.add(result.value()));
+        }
+        assertEquals(Set.of(9101, 9002), ports);
+
+        cache.remove(service("b", 9002));
+        assertEquals(List.of("a", "a"), consume(balancer, 2));
+        assertEquals(1, balancer.providers().size());
+    }
+
+    @Test
+    void shouldPreferProvidersWithFewestOutstandingRequests() {
+        final var cache = new ArServiceCache();
+        cache.update(service("a", 9001), service("b", 9002));
+        final var balancer = newBalancer(cache, ArServiceBalancer.Strategy.LEAST_OUTSTANDING);
+
+        final var pending = new PendingFuture<String>();
+        balancer.consume(service -> pending);
+        final var busy = balancer.providers().stream()
+            .filter(provider -> provider.outstandingRequests() == 1)
+            .findFirst()
+            .orElseThrow();
+        final var idle = busy.service().provider().name().equals("a") ? "b" : "a";
+
+        assertEquals(List.of(idle, idle, idle), consume(balancer, 3));
+
+        pending.complete(Result.success("done"));
+        assertEquals(0, busy.outstandingRequests());
+        assertEquals(1, busy.requestCount());
+        assertFalse(busy.latency().isZero());
+    }
+
+    @Test
+    void shouldMapEqualKeysToSameProvider() {
+        final var cache = new ArServiceCache();
+        cache.update(service("a", 9001), service("b", 9002), service("c", 9003));
+        final var balancer = newBalancer(cache, ArServiceBalancer.Strategy.POWER_OF_TWO_CHOICES);
+
+        final var before = new ArrayList<String>();
+        for (var i = 0; i < 100; ++i) {
+            before.add(consume(balancer, "key-" + i));
+            assertEquals(before.get(i), consume(balancer, "key-" + i));
+        }
+        assertEquals(3, before.stream().distinct().count());
+
+        cache.update(service("d", 9004));
+        var moved = 0;
+        for (var i = 0; i < 100; ++i) {
+            final var after = consume(balancer, "key-" + i);
+            if (!after.equals(before.get(i))) {
+                assertEquals("d", after);
+                moved += 1;
+            }
+        }
+        assertTrue(moved > 0 && moved < 50, "Unexpectedly many keys moved: " + moved);
+    }
+
+    @Test
+    void shouldSkipFilteredProvidersUnlessAllAreFiltered() {
+        final var cache = new ArServiceCache();
+        cache.update(service("a", 9001), service("b", 9002));
+        final var excluded = new HashSet<String>(Set.of("a"));
+        final var balancer = new ArServiceBalancer.Builder()
+            .cache(cache)
+            .serviceName("temperature")
+            .serviceInterface(InterfaceDescriptor.HTTP_SECURE_JSON)
+            .strategy(ArServiceBalancer.Strategy.ROUND_ROBIN)
+            .providerFilter(service -> !excluded.contains(service.provider().name()))
+            .build();
+
+        assertEquals(List.of("b", "b", "b"), consume(balancer, 3));
+        for (var i = 0; i < 20; ++i) {
+            assertEquals("b", consume(balancer, "key-" + i));
+        }
+
+        excluded.add("b");
+        assertEquals(2, consume(balancer, 20).stream().distinct().count());
+    }
+
+    private static ArServiceBalancer newBalancer(
+        final ArServiceCache cache,
+        final ArServiceBalancer.Strategy strategy)
+    {
+        return new ArServiceBalancer.Builder()
+            .cache(cache)
+            .serviceName("temperature")
+            .serviceInterface(InterfaceDescriptor.HTTP_SECURE_JSON)
+            .strategy(strategy)
+            .build();
+    }
+
+    private static List<String> consume(final ArServiceBalancer balancer, final int n) {
+        final var names = new ArrayList<String>();
+        for (var i = 0; i < n; ++i) {
+            names.add(consume(balancer, null));
+        }
+        return names;
+    }
+
+    private static String consume(final ArServiceBalancer balancer, final String key) {
+        final var names = new ArrayList<String>();
+        balancer.consume(key, service -> Future.success(service.provider().name()))
+            .onResult(result -> names.add(result.value()));
+        return names.get(0);
+    }
+
+    private static ServiceDescription service(final String provider, final int port) {
+        return service(provider, port, InterfaceDescriptor.HTTP_SECURE_JSON);
+    }
+
+    private static ServiceDescription service(
+        final String provider,
+        final int port,
+        final InterfaceDescriptor serviceInterface)
+    {
+        return new ServiceDescription.Builder()
+            .name("temperature")
+            .provider(new SystemDescription(provider, new InetSocketAddress("127.0.0.1", port)))
+            .qualifier("/temperature")
+            .security(AccessDescriptor.CERTIFICATE)
+            .supportedInterfaces(List.of(serviceInterface))
+            .build();
+    }
+
+    private static class PendingFuture<V> implements Future<V> {
+        private Consumer<Result<V>> consumer;
+
+        @Override
+        public void onResult(final Consumer<Result<V>> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void cancel(final boolean mayInterruptIfRunning) {
+            consumer = null;
+        }
+
+        void complete(final Result<V> result) {
+            consumer.accept(result);
+        }
+    }
+}
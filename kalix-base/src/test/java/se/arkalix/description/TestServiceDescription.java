@@ -0,0 +1,34 @@
+package se.arkalix.description;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import se.arkalix.descriptor.AccessDescriptor;
+import se.arkalix.descriptor.InterfaceDescriptor;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestServiceDescription {
+    @ParameterizedTest
+    @ValueSource(strings = {"x", "temperature", "temperature-1", "Service2"})
+    void shouldAcceptNamesThatAreDnsLabels(final String name) {
+        assertEquals(name, builderWithName(name).build().name());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "1temperature", "-temperature", "temperature-", "temp.erature", "temp_erature"})
+    void shouldRejectNamesThatAreNotDnsLabels(final String name) {
+        assertThrows(IllegalArgumentException.class, () -> builderWithName(name).build());
+    }
+
+    private static ServiceDescription.Builder builderWithName(final String name) {
+        return new ServiceDescription.Builder()
+            .name(name)
+            .provider(new SystemDescription("provider", new InetSocketAddress("127.0.0.1", 9001)))
+            .qualifier("/temperature")
+            .security(AccessDescriptor.NOT_SECURE)
+            .supportedInterfaces(List.of(InterfaceDescriptor.HTTP_SECURE_JSON));
+    }
+}
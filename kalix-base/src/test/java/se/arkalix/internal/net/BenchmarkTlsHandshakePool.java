@@ -0,0 +1,127 @@
+package se.arkalix.internal.net;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import se.arkalix.security.TlsHandshakePool;
+import se.arkalix.security.TlsSettings;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.ssl.ClientAuth;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Establishes mutually authenticated TLS connections over loopback sockets,
+ * using the {@link TlsSettings.Provider#JDK JDK} TLS implementation and a
+ * {@link TlsHandshakePool}, and reports the handshake throughput as well as
+ * the names of the threads that executed the handshake tasks of the server.
+ * Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+public class BenchmarkTlsHandshakePool {
+    private static final int WARMUP_CONNECTIONS = 100;
+    private static final int MEASURED_CONNECTIONS = 500;
+
+    @Test
+    void measureHandshakesExecutedByPool() throws Exception {
+        final var certificate = new SelfSignedCertificate("benchmark");
+        final var settings = new TlsSettings.Builder().provider(TlsSettings.Provider.JDK).build();
+        final var serverContext = NettySslContexts.build(SslContextBuilder
+            .forServer(certificate.key(), certificate.cert())
+            .trustManager(certificate.cert())
+            .clientAuth(ClientAuth.REQUIRE), settings, false);
+        final var clientContext = NettySslContexts.build(SslContextBuilder.forClient()
+            .keyManager(certificate.key(), certificate.cert())
+            .trustManager(certificate.cert()), settings, false);
+
+        final var pool = new TlsHandshakePool.Builder().build();
+        final var group = new NioEventLoopGroup(2);
+        try {
+            final var serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<>() {
+                    @Override
+                    protected void initChannel(final Channel ch) {
+                        ch.pipeline().addLast(NettySslContexts.newHandler(serverContext, ch.alloc(), null, pool));
+                    }
+                })
+                .bind(InetAddress.getLoopbackAddress(), 0)
+                .sync()
+                .channel();
+
+            // Clients use no handshake pool and do not resume sessions, which
+            // makes every handshake a full one and every server handshake
+            // task one executed by the pool.
+            final var clientBootstrap = new Bootstrap()
+                .group(group)
+                .channel(NioSocketChannel.class);
+            connect(clientBootstrap, serverChannel, clientContext, WARMUP_CONNECTIONS);
+            final var startedCount0 = pool.startedCount();
+            final var startNanos = System.nanoTime();
+            connect(clientBootstrap, serverChannel, clientContext, MEASURED_CONNECTIONS);
+            final var seconds = (System.nanoTime() - startNanos) / 1e9;
+
+            final var threadNames = Thread.getAllStackTraces()
+                .keySet()
+                .stream()
+                .map(Thread::getName)
+                .filter(name -> name.startsWith("kalix-tls-handshake-"))
+                .sorted()
+                .collect(Collectors.toList());
+
+            System.out.printf("JDK     pooled    %8.1f handshakes/s%n", MEASURED_CONNECTIONS / seconds);
+            System.out.println("Handshake tasks executed: " + (pool.startedCount() - startedCount0));
+            System.out.println("Handshake pool threads: " + threadNames);
+            System.out.println(pool);
+
+            assertTrue(pool.startedCount() - startedCount0 >= MEASURED_CONNECTIONS);
+            assertFalse(threadNames.isEmpty());
+            assertEquals(0, pool.rejectedCount());
+
+            serverChannel.close().sync();
+        }
+        finally {
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+            pool.shutdown();
+        }
+    }
+
+    private static void connect(
+        final Bootstrap bootstrap,
+        final Channel serverChannel,
+        final SslContext clientContext,
+        final int connections) throws InterruptedException
+    {
+        for (var i = 0; i < connections; ++i) {
+            final var sslHandler = new AtomicReference<SslHandler>();
+            final var channel = bootstrap
+                .handler(new ChannelInitializer<>() {
+                    @Override
+                    protected void initChannel(final Channel ch) {
+                        sslHandler.set(NettySslContexts.newHandler(clientContext, ch.alloc(), null, null));
+                        ch.pipeline().addLast(sslHandler.get());
+                    }
+                })
+                .connect(serverChannel.localAddress())
+                .sync()
+                .channel();
+            sslHandler.get().handshakeFuture().sync();
+            channel.close().sync();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package se.arkalix.internal.net;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import se.arkalix.security.TlsSettings;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.ssl.ClientAuth;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures how many mutually authenticated TLS handshakes can be performed
+ * per second by each TLS provider, both when every handshake is a full one
+ * and when clients are able to resume previous sessions. Run with
+ * {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+public class BenchmarkTlsHandshakes {
+    private static final int WARMUP_HANDSHAKES = 200;
+    private static final int MEASURED_HANDSHAKES = 1000;
+
+    @Test
+    void measureHandshakeThroughput() throws Exception {
+        final var certificate = new SelfSignedCertificate("benchmark");
+        System.out.println("OpenSSL available: " + TlsSettings.Provider.OPENSSL.isAvailable());
+        for (final var provider : TlsSettings.Provider.values()) {
+            if (!provider.isAvailable()) {
+                continue;
+            }
+            final var settings = new TlsSettings.Builder().provider(provider).build();
+            final var server = NettySslContexts.build(SslContextBuilder
+                .forServer(certificate.key(), certificate.cert())
+                .trustManager(certificate.cert())
+                .clientAuth(ClientAuth.REQUIRE), settings, false);
+            final var client = NettySslContexts.build(SslContextBuilder.forClient()
+                .keyManager(certificate.key(), certificate.cert())
+                .trustManager(certificate.cert()), settings, false);
+
+            for (final var isResuming : new boolean[]{false, true}) {
+                measure(server, client, isResuming, WARMUP_HANDSHAKES);
+                final var startNanos = System.nanoTime();
+                measure(server, client, isResuming, MEASURED_HANDSHAKES);
+                final var seconds = (System.nanoTime() - startNanos) / 1e9;
+                System.out.printf("%-7s %-9s %8.1f handshakes/s%n", provider,
+                    isResuming ? "resumable" : "full", MEASURED_HANDSHAKES / seconds);
+            }
+        }
+    }
+
+    private static void measure(
+        final SslContext server,
+        final SslContext client,
+        final boolean isResuming,
+        final int handshakes) throws SSLException
+    {
+        for (var i = 0; i < handshakes; ++i) {
+            // Clients only resume sessions with peers at the same port.
+            final var clientEngine = client.newEngine(ByteBufAllocator.DEFAULT, "localhost",
+                isResuming ? 1 : 1 + (i % 60000));
+            final var serverEngine = server.newEngine(ByteBufAllocator.DEFAULT);
+            handshake(clientEngine, serverEngine);
+        }
+    }
+
+    private static void handshake(final SSLEngine client, final SSLEngine server) throws SSLException {
+        final var clientToServer = ByteBuffer.allocate(1 << 16);
+        final var serverToClient = ByteBuffer.allocate(1 << 16);
+        client.beginHandshake();
+        server.beginHandshake();
+        for (var i = 0; i < 1000; ++i) {
+            final var isProgressing = step(client, serverToClient, clientToServer) |
+                step(server, clientToServer, serverToClient);
+            if (!isProgressing) {
+                assertTrue(isDone(client) && isDone(server), "Handshake stalled");
+                return;
+            }
+        }
+        fail("Handshake did not complete");
+    }
+
+    private static boolean step(final SSLEngine engine, final ByteBuffer in, final ByteBuffer out)
+        throws SSLException
+    {
+        final var application = ByteBuffer.allocate(1 << 16);
+        var isProgressing = false;
+        while (true) {
+            switch (engine.getHandshakeStatus()) {
+            case NEED_TASK:
+                Runnable task;
+                while ((task = engine.getDelegatedTask()) != null) {
+                    task.run();
+                }
+                break;
+
+            case NEED_WRAP:
+                engine.wrap(ByteBuffer.allocate(0), out);
+                break;
+
+            default:
+                // Some engines only report needing to wrap after having
+                // been asked to.
+                if (in.position() == 0) {
+                    return engine.wrap(ByteBuffer.allocate(0), out).bytesProduced() > 0 || isProgressing;
+                }
+                in.flip();
+                final var result = engine.unwrap(in, application);
+                in.compact();
+                if (result.bytesConsumed() == 0 && result.getHandshakeStatus() != HandshakeStatus.NEED_TASK) {
+                    return isProgressing;
+                }
+                break;
+            }
+            isProgressing = true;
+        }
+    }
+
+    private static boolean isDone(final SSLEngine engine) {
+        final var status = engine.getHandshakeStatus();
+        return status == HandshakeStatus.NOT_HANDSHAKING || status == HandshakeStatus.FINISHED;
+    }
+}
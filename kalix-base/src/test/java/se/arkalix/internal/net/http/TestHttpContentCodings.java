@@ -0,0 +1,54 @@
+package se.arkalix.internal.net.http;
+
+import io.netty.handler.codec.compression.ZlibWrapper;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+public class TestHttpContentCodings {
+    @ParameterizedTest
+    @MethodSource("acceptEncodingArguments")
+    void shouldFindAcceptedCompression(final String acceptEncoding, final ZlibWrapper expected) {
+        assertEquals(Optional.ofNullable(expected), HttpContentCodings.findCompressionAcceptedBy(acceptEncoding));
+    }
+
+    static Stream<Arguments> acceptEncodingArguments() {
+        return Stream.of(
+            arguments(null, null),
+            arguments("", null),
+            arguments("identity", null),
+            arguments("gzip", ZlibWrapper.GZIP),
+            arguments("x-gzip", ZlibWrapper.GZIP),
+            arguments("deflate", ZlibWrapper.ZLIB),
+            arguments("deflate, gzip", ZlibWrapper.GZIP),
+            arguments("gzip;q=0.5, deflate", ZlibWrapper.ZLIB),
+            arguments("GZIP; q=0", null),
+            arguments("*", ZlibWrapper.GZIP),
+            arguments("gzip;q=0, *", ZlibWrapper.ZLIB),
+            arguments("br, *;q=0", null)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("contentEncodingArguments")
+    void shouldFindCompressionOfContentEncoding(final String contentEncoding, final ZlibWrapper expected) {
+        assertEquals(Optional.ofNullable(expected), HttpContentCodings.findCompressionOf(contentEncoding));
+    }
+
+    static Stream<Arguments> contentEncodingArguments() {
+        return Stream.of(
+            arguments(null, null),
+            arguments("identity", null),
+            arguments("br", null),
+            arguments("gzip", ZlibWrapper.GZIP),
+            arguments(" X-GZIP ", ZlibWrapper.GZIP),
+            arguments("deflate", ZlibWrapper.ZLIB_OR_NONE)
+        );
+    }
+}
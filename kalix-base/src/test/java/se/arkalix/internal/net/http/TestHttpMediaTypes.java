@@ -54,7 +54,11 @@ public class TestHttpMediaTypes {
 
             arguments("application/senml+cbor", new EncodingDescriptor[]{
                 EncodingDescriptor.CBOR, EncodingDescriptor.XML
-            }, EncodingDescriptor.CBOR)
+            }, EncodingDescriptor.CBOR),
+
+            arguments("text/plain; charset=utf-8", new EncodingDescriptor[]{
+                EncodingDescriptor.JSON, EncodingDescriptor.TEXT
+            }, EncodingDescriptor.TEXT)
         );
     }
 
@@ -87,6 +91,14 @@ public class TestHttpMediaTypes {
                 EncodingDescriptor.JSON
             }),
 
+            arguments("text/xml", new EncodingDescriptor[]{
+                EncodingDescriptor.XML, EncodingDescriptor.TEXT
+            }),
+
+            arguments("text/plain", new EncodingDescriptor[]{
+                EncodingDescriptor.JSON
+            }),
+
             arguments("application/sensml+xml", new EncodingDescriptor[]{
                 EncodingDescriptor.JSON, EncodingDescriptor.CBOR,
             }),
@@ -141,7 +153,16 @@ public class TestHttpMediaTypes {
 
             arguments(Arrays.asList("*/json;q=1.0, */exi;q=0.9", "*/cbor;q=0.8"), new EncodingDescriptor[]{
                 EncodingDescriptor.EXI, EncodingDescriptor.CBOR
-            }, EncodingDescriptor.EXI)
+            }, EncodingDescriptor.EXI),
+
+            arguments(Collections.singletonList("text/plain;version=0.0.4;q=0.5, */*;q=0.1"),
+                new EncodingDescriptor[]{
+                    EncodingDescriptor.JSON, EncodingDescriptor.TEXT
+                }, EncodingDescriptor.TEXT),
+
+            arguments(Collections.singletonList("text/*"), new EncodingDescriptor[]{
+                EncodingDescriptor.JSON, EncodingDescriptor.TEXT
+            }, EncodingDescriptor.TEXT)
         );
     }
 
@@ -178,6 +199,14 @@ public class TestHttpMediaTypes {
 
             arguments(Arrays.asList("*/json;q=1.0, */exi;q=0.9", "*/cbor;q=0.8"), new EncodingDescriptor[]{
                 EncodingDescriptor.XML,
+            }),
+
+            arguments(Collections.singletonList("text/plain, text/html"), new EncodingDescriptor[]{
+                EncodingDescriptor.JSON,
+            }),
+
+            arguments(Collections.singletonList("text/html"), new EncodingDescriptor[]{
+                EncodingDescriptor.JSON, EncodingDescriptor.TEXT
             })
         );
     }
@@ -0,0 +1,80 @@
+package se.arkalix.internal.net.http;
+
+import org.junit.jupiter.api.Test;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.compression.ZlibWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Predicate;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestNettyHttpBodyDecompressor {
+    @Test
+    void shouldDecompressChunksOfGzipBody() throws IOException {
+        final var text = "Hello, compressed world! ".repeat(1000);
+        final var compressed = Unpooled.wrappedBuffer(gzip(text.getBytes(StandardCharsets.UTF_8)));
+        final var decompressor = new NettyHttpBodyDecompressor(ZlibWrapper.GZIP);
+        final var output = new StringBuilder();
+
+        // Deliver compressed data in two chunks of arbitrary sizes.
+        assertTrue(decompressor.decompress(compressed.readSlice(17), appendTo(output)));
+        assertTrue(decompressor.decompress(compressed, appendTo(output)));
+        assertTrue(decompressor.finish(appendTo(output)));
+        assertEquals(text, output.toString());
+    }
+
+    @Test
+    void shouldDecompressDeflateBodyWithoutZlibHeader() throws IOException {
+        final var raw = new ByteArrayOutputStream();
+        try (final var deflater = new DeflaterOutputStream(raw, new Deflater(6, true))) {
+            deflater.write("Raw deflate".getBytes(StandardCharsets.UTF_8));
+        }
+        final var decompressor = new NettyHttpBodyDecompressor(HttpContentCodings.findCompressionOf("deflate")
+            .orElseThrow());
+        final var output = new StringBuilder();
+        assertTrue(decompressor.decompress(Unpooled.wrappedBuffer(raw.toByteArray()), appendTo(output)));
+        assertTrue(decompressor.finish(appendTo(output)));
+        assertEquals("Raw deflate", output.toString());
+    }
+
+    @Test
+    void shouldStopInflatingWhenConsumerRejectsChunk() throws IOException {
+        final var limit = 64 * 1024;
+        final var compressed = Unpooled.wrappedBuffer(gzip(new byte[64 << 20]));
+        final var decompressor = new NettyHttpBodyDecompressor(ZlibWrapper.GZIP);
+        final var inflatedSize = new long[]{0};
+
+        assertFalse(decompressor.decompress(compressed, inflated -> {
+            inflatedSize[0] += inflated.readableBytes();
+            return inflatedSize[0] <= limit;
+        }));
+        decompressor.close();
+
+        // No more than one step of input should be inflated past the limit.
+        assertTrue(inflatedSize[0] < limit + 1100L * NettyHttpBodyDecompressor.MAX_INPUT_PER_STEP,
+            "Inflated " + inflatedSize[0] + " bytes");
+        assertTrue(compressed.isReadable());
+    }
+
+    private static Predicate<ByteBuf> appendTo(final StringBuilder output) {
+        return inflated -> {
+            output.append(inflated.toString(StandardCharsets.UTF_8));
+            return true;
+        };
+    }
+
+    private static byte[] gzip(final byte[] data) throws IOException {
+        final var output = new ByteArrayOutputStream();
+        try (final var gzip = new GZIPOutputStream(output)) {
+            gzip.write(data);
+        }
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,132 @@
+package se.arkalix.internal.net.http;
+
+import se.arkalix.internal.net.NettyAutoReadController;
+import se.arkalix.util.Result;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestNettyHttpBodyReceiver {
+    @Test
+    void shouldPublishChunksOnlyWhenDemanded() {
+        final var channel = new EmbeddedChannel();
+        final var receiver = new NettyHttpBodyReceiver(ByteBufAllocator.DEFAULT,
+            new NettyAutoReadController(channel), new DefaultHttpHeaders());
+        final var subscriber = new RecordingSubscriber();
+        receiver.bodyAsPublisher().subscribe(subscriber);
+
+        receiver.append(contentOf("a"));
+        receiver.append(contentOf("b"));
+        assertEquals(List.of(), subscriber.chunks);
+        assertFalse(channel.config().isAutoRead());
+
+        subscriber.subscription.request(1);
+        assertEquals(List.of("a"), subscriber.chunks);
+        assertFalse(channel.config().isAutoRead());
+
+        subscriber.subscription.request(2);
+        assertEquals(List.of("a", "b"), subscriber.chunks);
+        assertTrue(channel.config().isAutoRead());
+
+        receiver.append(contentOf("c"));
+        receiver.finish(LastHttpContent.EMPTY_LAST_CONTENT);
+        assertEquals(List.of("a", "b", "c"), subscriber.chunks);
+        assertTrue(subscriber.isCompleted);
+        assertTrue(channel.config().isAutoRead());
+    }
+
+    @Test
+    void shouldResumeReadingWhenCancelled() {
+        final var channel = new EmbeddedChannel();
+        final var receiver = new NettyHttpBodyReceiver(ByteBufAllocator.DEFAULT,
+            new NettyAutoReadController(channel), new DefaultHttpHeaders());
+        final var subscriber = new RecordingSubscriber();
+        receiver.bodyAsPublisher().subscribe(subscriber);
+
+        receiver.append(contentOf("a"));
+        assertFalse(channel.config().isAutoRead());
+
+        subscriber.subscription.cancel();
+        receiver.append(contentOf("b"));
+        receiver.finish(LastHttpContent.EMPTY_LAST_CONTENT);
+        assertEquals(List.of(), subscriber.chunks);
+        assertFalse(subscriber.isCompleted);
+        assertTrue(channel.config().isAutoRead());
+    }
+
+    @Test
+    void shouldNotifyBodyConsumersUsingCompletionExecutor() {
+        final var executed = new ArrayList<Runnable>();
+        final var receiver = new NettyHttpBodyReceiver(ByteBufAllocator.DEFAULT,
+            new NettyAutoReadController(new EmbeddedChannel()), new DefaultHttpHeaders());
+        receiver.completionExecutor(executed::add);
+        final var bodies = new ArrayList<String>();
+        receiver.bodyAsString().onResult(result -> bodies.add(result.value()));
+
+        receiver.append(contentOf("a"));
+        receiver.finish(LastHttpContent.EMPTY_LAST_CONTENT);
+        assertEquals(List.of(), bodies);
+        assertEquals(1, executed.size());
+
+        executed.get(0).run();
+        assertEquals(List.of("a"), bodies);
+    }
+
+    @Test
+    void shouldFailBodyIfCompletionExecutorRejects() {
+        final var receiver = new NettyHttpBodyReceiver(ByteBufAllocator.DEFAULT,
+            new NettyAutoReadController(new EmbeddedChannel()), new DefaultHttpHeaders());
+        receiver.completionExecutor(task -> {
+            throw new RejectedExecutionException();
+        });
+        final var results = new ArrayList<Result<String>>();
+        receiver.bodyAsString().onResult(results::add);
+
+        receiver.finish(LastHttpContent.EMPTY_LAST_CONTENT);
+        assertEquals(1, results.size());
+        assertTrue(results.get(0).fault() instanceof RejectedExecutionException);
+    }
+
+    private static DefaultHttpContent contentOf(final String string) {
+        return new DefaultHttpContent(Unpooled.copiedBuffer(string, StandardCharsets.UTF_8));
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<ByteBuffer> {
+        private final List<String> chunks = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private boolean isCompleted = false;
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(final ByteBuffer item) {
+            chunks.add(StandardCharsets.UTF_8.decode(item).toString());
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            fail(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            isCompleted = true;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package se.arkalix.internal.net.http.client;
+
+import org.junit.jupiter.api.Test;
+import se.arkalix.internal.net.NettyAutoReadController;
+import se.arkalix.internal.net.http.NettyHttpBodyReceiver;
+import se.arkalix.net.http.HttpMethod;
+import se.arkalix.net.http.HttpStatus;
+import se.arkalix.net.http.client.HttpClientCircuitBreaker;
+import se.arkalix.net.http.client.HttpClientCircuitBreaker.State;
+import se.arkalix.net.http.client.HttpClientCircuitOpenException;
+import se.arkalix.net.http.client.HttpClientRequest;
+import se.arkalix.net.http.client.HttpClientResponse;
+import se.arkalix.util.concurrent.Future;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestHttpClientCircuitBreakers {
+    private static final InetSocketAddress REMOTE_A = new InetSocketAddress("127.0.0.1", 9001);
+    private static final InetSocketAddress REMOTE_B = new InetSocketAddress("127.0.0.1", 9002);
+
+    @Test
+    void shouldOpenHalfOpenAndCloseCircuit() throws InterruptedException {
+        final var breakers = new HttpClientCircuitBreakers(new HttpClientCircuitBreaker.Builder()
+            .windowSize(4)
+            .minimumCalls(4)
+            .failureRateThreshold(0.5)
+            .openDuration(Duration.ofMillis(50))
+            .halfOpenCalls(1)
+            .build());
+
+        send(breakers, REMOTE_A, true);
+        send(breakers, REMOTE_A, true);
+        send(breakers, REMOTE_A, false);
+        assertEquals(State.CLOSED, breakers.stateOf(REMOTE_A, null));
+        send(breakers, REMOTE_A, true);
+        assertEquals(State.OPEN, breakers.stateOf(REMOTE_A, null));
+        assertEquals(State.CLOSED, breakers.stateOf(REMOTE_B, null));
+
+        final var sent = new ArrayList<Integer>();
+        final var faults = new ArrayList<Throwable>();
+        breakers.send(REMOTE_A, request(), () -> {
+            sent.add(1);
+            return Future.success(response(HttpResponseStatus.OK));
+        }).onFailure(faults::add);
+        assertEquals(0, sent.size());
+        assertTrue(faults.get(0) instanceof HttpClientCircuitOpenException);
+
+        Thread.sleep(60);
+        assertEquals(State.HALF_OPEN, breakers.stateOf(REMOTE_A, null));
+        send(breakers, REMOTE_A, true);
+        assertEquals(State.OPEN, breakers.stateOf(REMOTE_A, null));
+
+        Thread.sleep(60);
+        send(breakers, REMOTE_A, false);
+        assertEquals(State.CLOSED, breakers.stateOf(REMOTE_A, null));
+    }
+
+    @Test
+    void shouldKeepSeparateCircuitsPerService() {
+        final var breakers = new HttpClientCircuitBreakers(new HttpClientCircuitBreaker.Builder()
+            .windowSize(2)
+            .minimumCalls(2)
+            .serviceKey(request -> request.uri().orElse(null))
+            .build());
+
+        send(breakers, REMOTE_A, true);
+        send(breakers, REMOTE_A, true);
+        assertEquals(State.OPEN, breakers.stateOf(REMOTE_A, "/test"));
+        assertEquals(State.CLOSED, breakers.stateOf(REMOTE_A, "/other"));
+        assertEquals(State.CLOSED, breakers.stateOf(REMOTE_A, null));
+    }
+
+    @Test
+    void shouldCountFailureStatusesAsFailures() {
+        final var breakers = new HttpClientCircuitBreakers(new HttpClientCircuitBreaker.Builder()
+            .windowSize(2)
+            .minimumCalls(2)
+            .build());
+
+        final var statuses = new ArrayList<HttpStatus>();
+        for (var i = 0; i < 2; ++i) {
+            breakers.send(REMOTE_A, request(), () -> Future.success(response(HttpResponseStatus.SERVICE_UNAVAILABLE)))
+                .onResult(result -> statuses.add(result.value().status()));
+            breakers.send(REMOTE_B, request(), () -> Future.success(response(HttpResponseStatus.NOT_FOUND)))
+                .onResult(result -> statuses.add(result.value().status()));
+        }
+        assertEquals(4, statuses.size());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, statuses.get(0));
+        assertEquals(State.OPEN, breakers.stateOf(REMOTE_A, null));
+        assertEquals(State.CLOSED, breakers.stateOf(REMOTE_B, null));
+    }
+
+    @Test
+    void shouldUseConfiguredFailureStatuses() {
+        final var breakers = new HttpClientCircuitBreakers(new HttpClientCircuitBreaker.Builder()
+            .windowSize(2)
+            .minimumCalls(2)
+            .failureStatuses(HttpStatus.TOO_MANY_REQUESTS)
+            .build());
+
+        for (var i = 0; i < 2; ++i) {
+            breakers.send(REMOTE_A, request(), () -> Future.success(response(HttpResponseStatus.TOO_MANY_REQUESTS)))
+                .onResult(ignored -> {});
+            breakers.send(REMOTE_B, request(), () -> Future.success(response(HttpResponseStatus.BAD_GATEWAY)))
+                .onResult(ignored -> {});
+        }
+        assertEquals(State.OPEN, breakers.stateOf(REMOTE_A, null));
+        assertEquals(State.CLOSED, breakers.stateOf(REMOTE_B, null));
+    }
+
+    @Test
+    void shouldForgetClosedCircuitsWithoutFailuresFirst() {
+        final var breakers = new HttpClientCircuitBreakers(new HttpClientCircuitBreaker.Builder()
+            .windowSize(2)
+            .minimumCalls(2)
+            .maxCircuits(4)
+            .build());
+
+        send(breakers, REMOTE_A, true);
+        send(breakers, REMOTE_A, true);
+        assertEquals(State.OPEN, breakers.stateOf(REMOTE_A, null));
+
+        for (var port = 9100; port < 9200; ++port) {
+            send(breakers, new InetSocketAddress("127.0.0.1", port), false);
+        }
+        assertEquals(State.OPEN, breakers.stateOf(REMOTE_A, null));
+    }
+
+    @Test
+    void shouldNotForgetOpenCircuitsWhileClosedCircuitsRemain() {
+        final var breakers = new HttpClientCircuitBreakers(new HttpClientCircuitBreaker.Builder()
+            .windowSize(4)
+            .minimumCalls(4)
+            .maxCircuits(8)
+            .build());
+
+        // Every circuit remembers a failure, which is why none is stale.
+        final var open = new ArrayList<InetSocketAddress>();
+        for (var port = 9100; port < 9104; ++port) {
+            final var remoteSocketAddress = new InetSocketAddress("127.0.0.1", port);
+            for (var i = 0; i < 4; ++i) {
+                send(breakers, remoteSocketAddress, true);
+            }
+            assertEquals(State.OPEN, breakers.stateOf(remoteSocketAddress, null));
+            open.add(remoteSocketAddress);
+        }
+        for (var port = 9200; port < 9300; ++port) {
+            send(breakers, new InetSocketAddress("127.0.0.1", port), true);
+        }
+        for (final var remoteSocketAddress : open) {
+            assertEquals(State.OPEN, breakers.stateOf(remoteSocketAddress, null));
+        }
+    }
+
+    private static void send(
+        final HttpClientCircuitBreakers breakers,
+        final InetSocketAddress remoteSocketAddress,
+        final boolean isFailing)
+    {
+        breakers.send(remoteSocketAddress, request(), () -> isFailing
+            ? Future.failure(new IOException("Connection refused"))
+            : Future.success(response(HttpResponseStatus.OK)))
+            .onResult(ignored -> {});
+    }
+
+    private static HttpClientRequest request() {
+        return new HttpClientRequest()
+            .method(HttpMethod.GET)
+            .uri("/test");
+    }
+
+    private static HttpClientResponse response(final HttpResponseStatus status) {
+        final var body = new NettyHttpBodyReceiver(ByteBufAllocator.DEFAULT,
+            new NettyAutoReadController(new EmbeddedChannel()), new DefaultHttpHeaders());
+        return new NettyHttpClientResponse(body, new DefaultHttpResponse(HttpVersion.HTTP_1_1, status));
+    }
+}
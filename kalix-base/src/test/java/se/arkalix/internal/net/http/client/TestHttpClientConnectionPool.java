@@ -0,0 +1,216 @@
+package se.arkalix.internal.net.http.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.arkalix.net.http.HttpMethod;
+import se.arkalix.net.http.client.HttpClient;
+import se.arkalix.net.http.client.HttpClientRequest;
+import se.arkalix.util.Result;
+import se.arkalix.util.concurrent.Future;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.*;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestHttpClientConnectionPool {
+    private final ConcurrentLinkedQueue<Channel> acceptedChannels = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<String> receivedUris = new ConcurrentLinkedQueue<>();
+    private final CompletableFuture<Runnable> slowBodyFinisher = new CompletableFuture<>();
+
+    private EventLoopGroup group;
+    private InetSocketAddress remoteSocketAddress;
+    private HttpClient client;
+
+    @BeforeEach
+    void startServerAndCreateClient() throws Exception {
+        group = new NioEventLoopGroup(1);
+        remoteSocketAddress = (InetSocketAddress) new ServerBootstrap()
+            .group(group)
+            .channel(NioServerSocketChannel.class)
+            .childHandler(new ChannelInitializer<>() {
+                @Override
+                protected void initChannel(final Channel ch) {
+                    acceptedChannels.add(ch);
+                    ch.pipeline()
+                        .addLast(new HttpServerCodec())
+                        .addLast(new PipeliningServerHandler());
+                }
+            })
+            .bind(InetAddress.getLoopbackAddress(), 0)
+            .syncUninterruptibly()
+            .channel()
+            .localAddress();
+
+        client = new HttpClient.Builder()
+            .insecure()
+            .connectionPoolSize(1)
+            .build();
+    }
+
+    @AfterEach
+    void stopServer() {
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    @Test
+    void shouldPipelineRequestWhileEarlierResponseBodyIsStreaming() throws Exception {
+        final var slowHeadReceived = new CountDownLatch(1);
+        final var slowBody = send("/slow", slowHeadReceived);
+        assertTrue(slowHeadReceived.await(5, TimeUnit.SECONDS));
+
+        final var fastBody = send("/fast", null);
+        awaitCondition(() -> receivedUris.size() == 2);
+        assertEquals(List.of("/slow", "/fast"), List.copyOf(receivedUris));
+        assertEquals(1, acceptedChannels.size());
+        assertFalse(slowBody.isDone());
+        assertFalse(fastBody.isDone());
+
+        slowBodyFinisher.get(5, TimeUnit.SECONDS).run();
+        assertEquals("slow body", slowBody.get(5, TimeUnit.SECONDS).valueOrThrow());
+        assertEquals("/fast", fastBody.get(5, TimeUnit.SECONDS).valueOrThrow());
+        assertEquals("/fast", send("/fast", null).get(5, TimeUnit.SECONDS).valueOrThrow());
+        assertEquals(1, acceptedChannels.size());
+    }
+
+    @Test
+    void shouldNotReuseConnectionAfterConnectionCloseResponse() throws Exception {
+        assertEquals("/close", send("/close", null).get(5, TimeUnit.SECONDS).valueOrThrow());
+        awaitCondition(() -> !acceptedChannels.peek().isActive());
+        assertEquals(0, client.connectionPoolStatistics().orElseThrow().connectionCount());
+
+        assertEquals("/fast", send("/fast", null).get(5, TimeUnit.SECONDS).valueOrThrow());
+        assertEquals(2, acceptedChannels.size());
+    }
+
+    @Test
+    void shouldCloseConnectionOfCancelledRequest() throws Exception {
+        final var result = new CompletableFuture<Result<?>>();
+        final Future<?> future = client.send(remoteSocketAddress, request("/hang"));
+        future.onResult(result::complete);
+        awaitCondition(() -> receivedUris.size() == 1);
+        future.cancel(true);
+
+        assertTrue(result.get(5, TimeUnit.SECONDS).fault() instanceof CancellationException);
+        awaitCondition(() -> !acceptedChannels.peek().isActive());
+        assertEquals(0, client.connectionPoolStatistics().orElseThrow().connectionCount());
+
+        assertEquals("/fast", send("/fast", null).get(5, TimeUnit.SECONDS).valueOrThrow());
+        assertEquals(2, acceptedChannels.size());
+    }
+
+    private CompletableFuture<Result<String>> send(final String uri, final CountDownLatch headReceived) {
+        final var body = new CompletableFuture<Result<String>>();
+        client.send(remoteSocketAddress, request(uri))
+            .flatMap(response -> {
+                if (headReceived != null) {
+                    headReceived.countDown();
+                }
+                return response.bodyAsString();
+            })
+            .onResult(body::complete);
+        return body;
+    }
+
+    private static HttpClientRequest request(final String uri) {
+        return new HttpClientRequest()
+            .method(HttpMethod.GET)
+            .uri(uri);
+    }
+
+    private static void awaitCondition(final BooleanSupplier condition) throws InterruptedException {
+        for (var i = 0; i < 250; ++i) {
+            if (condition.getAsBoolean()) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        fail("Condition not satisfied in time");
+    }
+
+    /*
+     * Responds to requests in the order they are received. The body of a
+     * "/slow" response is not completed until the test says so, requests for
+     * "/hang" are never responded to and "/close" responses close their
+     * connections.
+     */
+    private class PipeliningServerHandler extends SimpleChannelInboundHandler<HttpObject> {
+        private final ArrayDeque<String> pendingUris = new ArrayDeque<>();
+        private boolean isResponding = false;
+
+        @Override
+        protected void channelRead0(final ChannelHandlerContext ctx, final HttpObject msg) {
+            if (msg instanceof HttpRequest) {
+                final var uri = ((HttpRequest) msg).uri();
+                receivedUris.add(uri);
+                pendingUris.add(uri);
+                if (!isResponding) {
+                    respondToNext(ctx);
+                }
+            }
+        }
+
+        private void respondToNext(final ChannelHandlerContext ctx) {
+            final var uri = pendingUris.poll();
+            isResponding = uri != null;
+            if (uri == null) {
+                return;
+            }
+            switch (uri) {
+            case "/slow":
+                final var head = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+                HttpUtil.setTransferEncodingChunked(head, true);
+                ctx.writeAndFlush(head);
+                slowBodyFinisher.complete(() -> ctx.executor().execute(() -> {
+                    ctx.write(new DefaultHttpContent(Unpooled.copiedBuffer("slow ", StandardCharsets.UTF_8)));
+                    ctx.writeAndFlush(new DefaultLastHttpContent(Unpooled.copiedBuffer("body",
+                        StandardCharsets.UTF_8)));
+                    respondToNext(ctx);
+                }));
+                break;
+
+            case "/hang":
+                break;
+
+            case "/close":
+                final var closing = newFullResponse(uri);
+                closing.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+                ctx.writeAndFlush(closing).addListener(ChannelFutureListener.CLOSE);
+                break;
+
+            default:
+                ctx.writeAndFlush(newFullResponse(uri));
+                respondToNext(ctx);
+                break;
+            }
+        }
+
+        private FullHttpResponse newFullResponse(final String body) {
+            final var response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.copiedBuffer(body, StandardCharsets.UTF_8));
+            HttpUtil.setContentLength(response, response.content().readableBytes());
+            return response;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package se.arkalix.internal.net.http.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.arkalix.internal.net.NettyAutoReadController;
+import se.arkalix.internal.net.http.NettyHttpBodyReceiver;
+import se.arkalix.net.http.HttpMethod;
+import se.arkalix.net.http.client.HttpClientRequest;
+import se.arkalix.net.http.client.HttpClientRequestPolicy;
+import se.arkalix.net.http.client.HttpClientResponse;
+import se.arkalix.net.http.client.HttpClientTimeoutException;
+import se.arkalix.util.Result;
+import se.arkalix.util.concurrent.Future;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestHttpClientRequestExecution {
+    private static final InetSocketAddress REMOTE = new InetSocketAddress("127.0.0.1", 9000);
+
+    private DefaultEventLoop eventLoop;
+
+    @BeforeEach
+    void createEventLoop() {
+        eventLoop = new DefaultEventLoop();
+    }
+
+    @AfterEach
+    void shutdownEventLoop() {
+        eventLoop.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void shouldFailAndCancelAttemptWhenDeadlineIsPassed() throws Exception {
+        final var policy = new HttpClientRequestPolicy.Builder()
+            .timeout(Duration.ofMillis(20))
+            .build();
+        final var pending = new PendingFuture();
+
+        final var result = await(HttpClientRequestExecution.execute(policy, request(HttpMethod.GET), REMOTE,
+            () -> pending, eventLoop));
+
+        assertTrue(result.fault() instanceof HttpClientTimeoutException);
+        assertTrue(pending.isCancelled);
+    }
+
+    @Test
+    void shouldRetryIdempotentRequestsOnly() throws Exception {
+        final var policy = new HttpClientRequestPolicy.Builder()
+            .maxRetries(2)
+            .initialBackoff(Duration.ofMillis(1))
+            .build();
+        final var response = response(HttpResponseStatus.OK);
+
+        final var getAttempts = new ArrayList<Integer>();
+        final var getResult = await(HttpClientRequestExecution.execute(policy, request(HttpMethod.GET), REMOTE,
+            () -> {
+                getAttempts.add(getAttempts.size());
+                return getAttempts.size() < 3
+                    ? Future.failure(new IOException("Connection reset"))
+                    : Future.success(response);
+            }, eventLoop));
+        assertSame(response, getResult.value());
+        assertEquals(3, getAttempts.size());
+
+        final var postAttempts = new ArrayList<Integer>();
+        final var postResult = await(HttpClientRequestExecution.execute(policy, request(HttpMethod.POST), REMOTE,
+            () -> {
+                postAttempts.add(postAttempts.size());
+                return Future.failure(new IOException("Connection reset"));
+            }, eventLoop));
+        assertTrue(postResult.fault() instanceof IOException);
+        assertEquals(1, postAttempts.size());
+    }
+
+    @Test
+    void shouldUseHedgedAttemptIfFirstIsSlow() throws Exception {
+        final var policy = new HttpClientRequestPolicy.Builder()
+            .hedgeDelay(Duration.ofMillis(10))
+            .build();
+        final var slow = new PendingFuture();
+        final var response = response(HttpResponseStatus.OK);
+
+        final var attempts = new ArrayList<Future<HttpClientResponse>>(List.of(slow, Future.success(response)));
+        final var result = await(HttpClientRequestExecution.execute(policy, request(HttpMethod.GET), REMOTE,
+            () -> attempts.remove(0), eventLoop));
+
+        assertSame(response, result.value());
+        assertTrue(slow.isCancelled);
+    }
+
+    private static Result<HttpClientResponse> await(final Future<HttpClientResponse> future) throws Exception {
+        final var result = new CompletableFuture<Result<HttpClientResponse>>();
+        future.onResult(result::complete);
+        return result.get(5, TimeUnit.SECONDS);
+    }
+
+    private static HttpClientRequest request(final HttpMethod method) {
+        return new HttpClientRequest()
+            .method(method)
+            .uri("/test");
+    }
+
+    private static HttpClientResponse response(final HttpResponseStatus status) {
+        final var body = new NettyHttpBodyReceiver(ByteBufAllocator.DEFAULT,
+            new NettyAutoReadController(new EmbeddedChannel()), new DefaultHttpHeaders());
+        return new NettyHttpClientResponse(body, new DefaultHttpResponse(HttpVersion.HTTP_1_1, status));
+    }
+
+    private static class PendingFuture implements Future<HttpClientResponse> {
+        private volatile boolean isCancelled = false;
+
+        @Override
+        public void onResult(final Consumer<Result<HttpClientResponse>> consumer) {
+            // Never completes.
+        }
+
+        @Override
+        public void cancel(final boolean mayInterruptIfRunning) {
+            isCancelled = true;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package se.arkalix.internal.net.http.client;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import se.arkalix.net.http.HttpMethod;
+import se.arkalix.net.http.HttpStatus;
+import se.arkalix.net.http.client.HttpClientConnection;
+import se.arkalix.net.http.client.HttpClientRequest;
+import se.arkalix.util.Result;
+import se.arkalix.util.concurrent.Future;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestNettyHttpClientMultiplexer {
+    private static EventLoopGroup group;
+
+    private final ConcurrentLinkedQueue<Channel> acceptedChannels = new ConcurrentLinkedQueue<>();
+    private Channel serverChannel;
+
+    @BeforeAll
+    static void createGroup() {
+        group = new NioEventLoopGroup(2);
+    }
+
+    @AfterAll
+    static void shutdownGroup() {
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    @AfterEach
+    void closeServer() {
+        if (serverChannel != null) {
+            serverChannel.close().syncUninterruptibly();
+        }
+        acceptedChannels.forEach(Channel::close);
+    }
+
+    @Test
+    void shouldSendConcurrentRequestsAsStreamsOfOneConnection() throws Exception {
+        final var remoteSocketAddress = startServer(newHttp2ServerInitializer());
+        final var multiplexer = newMultiplexer(null, Duration.ofMinutes(5));
+
+        final var stream0 = await(multiplexer.openStream(remoteSocketAddress)).orElseThrow();
+        final var stream1 = await(multiplexer.openStream(remoteSocketAddress)).orElseThrow();
+        assertNotSame(stream0, stream1);
+        assertEquals("stream 3", exchange(stream0));
+        assertEquals("stream 5", exchange(stream1));
+        assertEquals("stream 7", exchange(await(multiplexer.openStream(remoteSocketAddress)).orElseThrow()));
+        assertEquals(1, acceptedChannels.size());
+    }
+
+    @Test
+    void shouldReconnectAfterConnectionIsClosed() throws Exception {
+        final var remoteSocketAddress = startServer(newHttp2ServerInitializer());
+        final var multiplexer = newMultiplexer(null, Duration.ofMinutes(5));
+
+        assertEquals("stream 3", exchange(await(multiplexer.openStream(remoteSocketAddress)).orElseThrow()));
+        acceptedChannels.peek().close().syncUninterruptibly();
+
+        // The closing of the connection may not yet have been observed by
+        // the client, in which case opening a stream could fail.
+        String body = null;
+        for (var i = 0; body == null && i < 50; ++i) {
+            try {
+                body = exchange(await(multiplexer.openStream(remoteSocketAddress)).orElseThrow());
+            }
+            catch (final Exception exception) {
+                Thread.sleep(20);
+            }
+        }
+        assertEquals("stream 3", body);
+        assertEquals(2, acceptedChannels.size());
+    }
+
+    @Test
+    void shouldRememberHttp11OnlyHostsUntilRetryIntervalExpires() throws Exception {
+        final var certificate = new SelfSignedCertificate("localhost");
+        final var serverSslContext = SslContextBuilder.forServer(certificate.key(), certificate.cert())
+            .applicationProtocolConfig(newAlpnConfig(ApplicationProtocolNames.HTTP_1_1))
+            .build();
+        final var remoteSocketAddress = startServer(new ChannelInitializer<>() {
+            @Override
+            protected void initChannel(final Channel ch) {
+                acceptedChannels.add(ch);
+                ch.pipeline().addLast(serverSslContext.newHandler(ch.alloc()));
+            }
+        });
+        final var multiplexer = newMultiplexer(SslContextBuilder.forClient()
+            .trustManager(certificate.cert())
+            .applicationProtocolConfig(newAlpnConfig(ApplicationProtocolNames.HTTP_2,
+                ApplicationProtocolNames.HTTP_1_1))
+            .build(), Duration.ofMillis(200));
+
+        assertEquals(Optional.empty(), await(multiplexer.openStream(remoteSocketAddress)));
+        assertEquals(Optional.empty(), await(multiplexer.openStream(remoteSocketAddress)));
+        assertEquals(1, acceptedChannels.size());
+
+        Thread.sleep(300);
+        assertEquals(Optional.empty(), await(multiplexer.openStream(remoteSocketAddress)));
+        assertEquals(2, acceptedChannels.size());
+    }
+
+    private InetSocketAddress startServer(final ChannelHandler initializer) {
+        serverChannel = new ServerBootstrap()
+            .group(group)
+            .channel(NioServerSocketChannel.class)
+            .childHandler(initializer)
+            .bind(InetAddress.getLoopbackAddress(), 0)
+            .syncUninterruptibly()
+            .channel();
+        return (InetSocketAddress) serverChannel.localAddress();
+    }
+
+    private ChannelInitializer<Channel> newHttp2ServerInitializer() {
+        return new ChannelInitializer<>() {
+            @Override
+            protected void initChannel(final Channel ch) {
+                acceptedChannels.add(ch);
+                ch.pipeline()
+                    .addLast(Http2FrameCodecBuilder.forServer().build())
+                    .addLast(new Http2MultiplexHandler(new ChannelInitializer<Http2StreamChannel>() {
+                        @Override
+                        protected void initChannel(final Http2StreamChannel stream) {
+                            stream.pipeline()
+                                .addLast(new Http2StreamFrameToHttpObjectCodec(true))
+                                .addLast(new SimpleChannelInboundHandler<HttpObject>() {
+                                    @Override
+                                    protected void channelRead0(final ChannelHandlerContext ctx, final HttpObject msg) {
+                                        if (msg instanceof LastHttpContent) {
+                                            ctx.writeAndFlush(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                                                HttpResponseStatus.OK, Unpooled.copiedBuffer("stream " +
+                                                stream.stream().id(), StandardCharsets.UTF_8)));
+                                        }
+                                    }
+                                });
+                        }
+                    }));
+            }
+        };
+    }
+
+    private static NettyHttpClientMultiplexer newMultiplexer(
+        final SslContext sslContext,
+        final Duration http2RetryInterval)
+    {
+        return new NettyHttpClientMultiplexer.Builder()
+            .bootstrap(new Bootstrap()
+                .group(group)
+                .channel(NioSocketChannel.class))
+            .sslContext(sslContext)
+            .readIdleTimeout(Duration.ofSeconds(30))
+            .writeIdleTimeout(Duration.ofSeconds(120))
+            .http2RetryInterval(http2RetryInterval)
+            .build();
+    }
+
+    private static ApplicationProtocolConfig newAlpnConfig(final String... protocols) {
+        return new ApplicationProtocolConfig(
+            ApplicationProtocolConfig.Protocol.ALPN,
+            ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+            ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+            protocols);
+    }
+
+    private static String exchange(final HttpClientConnection stream) throws Exception {
+        return await(stream.send(new HttpClientRequest()
+            .method(HttpMethod.GET)
+            .uri("/"))
+            .flatMap(response -> {
+                assertEquals(HttpStatus.OK, response.status());
+                return response.bodyAsString();
+            }));
+    }
+
+    private static <V> V await(final Future<V> future) throws Exception {
+        final var result = new CompletableFuture<Result<V>>();
+        future.onResult(result::complete);
+        return result.get(5, TimeUnit.SECONDS).valueOrThrow();
+    }
+}
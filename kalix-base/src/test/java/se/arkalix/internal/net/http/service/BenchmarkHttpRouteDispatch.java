@@ -0,0 +1,128 @@
+package se.arkalix.internal.net.http.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import se.arkalix.description.SystemDescription;
+import se.arkalix.descriptor.EncodingDescriptor;
+import se.arkalix.internal.net.NettyAutoReadController;
+import se.arkalix.internal.net.http.NettyHttpBodyReceiver;
+import se.arkalix.net.http.HttpMethod;
+import se.arkalix.net.http.service.*;
+import se.arkalix.util.concurrent.Future;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the bytes allocated by the calling thread per dispatch of a request
+ * to a route sequence whose validators and route handler all return completed
+ * futures, both using {@link HttpRouteSequence#tryHandle(HttpRouteTask)} and
+ * using the chain of {@link Future#flatMap flatMap} calls it replaced. Run
+ * with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+public class BenchmarkHttpRouteDispatch {
+    private static final int WARMUP_DISPATCHES = 200_000;
+    private static final int MEASURED_DISPATCHES = 1_000_000;
+
+    @Test
+    void measureAllocationsPerDispatch() {
+        final var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        for (final var pattern : new String[]{"/x", "/#id"}) {
+            final var validator = new HttpValidator(0, null, null, (request, response) -> Future.done());
+            final var sequence = new HttpRouteSequence(
+                new HttpValidator[]{validator},
+                new HttpRoute(HttpMethod.GET, HttpPattern.valueOf(pattern), (request, response) -> Future.done()),
+                new HttpCatcher<?>[0], false, null);
+            final var task = taskFor("/base/x");
+
+            final var loopBytes = measure(threads, task, sequence::tryHandle);
+            final var chainBytes = measure(threads, task, task0 ->
+                tryHandleUsingChain(validator, sequence.route(), task0));
+
+            System.out.printf("%-5s loop  %6.1f bytes/dispatch%n", pattern, loopBytes);
+            System.out.printf("%-5s chain %6.1f bytes/dispatch%n", pattern, chainBytes);
+            assertTrue(loopBytes < chainBytes);
+        }
+
+        final var task = taskFor("/base/x");
+        final var taskBytes = measure(threads, task, task0 -> new HttpRouteTask.Builder()
+            .basePath(task0.basePath())
+            .request(task0.request())
+            .response(task0.response())
+            .build());
+        System.out.printf("HttpRouteTask %6.1f bytes/dispatch%n", taskBytes);
+    }
+
+    private static double measure(
+        final com.sun.management.ThreadMXBean threads,
+        final HttpRouteTask task,
+        final Function<HttpRouteTask, Object> dispatcher)
+    {
+        final var threadId = Thread.currentThread().getId();
+        final var results = new ArrayList<Object>(1);
+        for (var i = 0; i < WARMUP_DISPATCHES; ++i) {
+            results.add(dispatcher.apply(task));
+            results.clear();
+        }
+        final var bytes0 = threads.getThreadAllocatedBytes(threadId);
+        for (var i = 0; i < MEASURED_DISPATCHES; ++i) {
+            results.add(dispatcher.apply(task));
+            results.clear();
+        }
+        final var bytes1 = threads.getThreadAllocatedBytes(threadId);
+        return (bytes1 - bytes0) / (double) MEASURED_DISPATCHES;
+    }
+
+    // The dispatch performed by HttpRouteSequence before it iterated over
+    // completed futures in plain loops, without catchers.
+    private static Future<Boolean> tryHandleUsingChain(
+        final HttpValidator validator,
+        final HttpRoute route,
+        final HttpRouteTask task)
+    {
+        final var pathParameters = new ArrayList<String>(route.pattern().map(HttpPattern::nParameters).orElse(0));
+        if (!route.match(task, pathParameters)) {
+            return Future.success(false);
+        }
+        return validator.tryHandle(task)
+            .flatMap(isHandled -> {
+                if (isHandled) {
+                    return Future.success(true);
+                }
+                return route
+                    .handle(task.request().cloneAndSet(pathParameters), task.response())
+                    .map(ignored -> true);
+            });
+    }
+
+    private static HttpRouteTask taskFor(final String path) {
+        final var request = new DefaultHttpRequest(HttpVersion.HTTP_1_1,
+            io.netty.handler.codec.http.HttpMethod.GET, path);
+        final var body = new NettyHttpBodyReceiver(ByteBufAllocator.DEFAULT,
+            new NettyAutoReadController(new EmbeddedChannel()), new DefaultHttpHeaders());
+        return new HttpRouteTask.Builder()
+            .basePath("/base")
+            .request(new NettyHttpServiceRequest.Builder()
+                .body(body)
+                .queryStringDecoder(new QueryStringDecoder(path))
+                .request(request)
+                .consumer(new SystemDescription("consumer", new InetSocketAddress("127.0.0.1", 9001)))
+                .build())
+            .response(new NettyHttpServiceResponse(request, new DefaultHttpHeaders(), EncodingDescriptor.JSON, null))
+            .build();
+    }
+}
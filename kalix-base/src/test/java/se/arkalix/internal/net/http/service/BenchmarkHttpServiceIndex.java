@@ -0,0 +1,119 @@
+package se.arkalix.internal.net.http.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import se.arkalix.ArSystem;
+import se.arkalix.descriptor.EncodingDescriptor;
+import se.arkalix.net.http.service.HttpService;
+import se.arkalix.security.access.AccessPolicy;
+
+import java.net.InetAddress;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures how long it takes to find the service responsible for a request
+ * path among 1,000 provided services, both using the linear scan the
+ * {@link HttpServer} used before {@link HttpServiceIndex} was introduced and
+ * using the index itself. Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+public class BenchmarkHttpServiceIndex {
+    private static final int SERVICES = 1000;
+    private static final int PATHS = 4096;
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int MEASURED_ROUNDS = 1000;
+
+    @Test
+    void measureLookupWithThousandServices() {
+        final var system = new ArSystem.Builder()
+            .name("provider")
+            .localAddressPort(InetAddress.getLoopbackAddress(), 0)
+            .insecure()
+            .build();
+        try {
+            final var scan = new ConcurrentSkipListMap<String, HttpServiceInternal>(Comparator.reverseOrder());
+            var index = HttpServiceIndex.EMPTY;
+            for (var i = 0; i < SERVICES; ++i) {
+                final var service = new HttpServiceInternal(system, new HttpService()
+                    .name("service" + i)
+                    .basePath("/service-" + i + "/v1")
+                    .encodings(EncodingDescriptor.JSON)
+                    .accessPolicy(AccessPolicy.unrestricted()), null);
+                scan.put(service.basePath(), service);
+                index = index.with(service);
+            }
+
+            // One in every sixteen paths matches no service at all, which
+            // makes the linear scan visit every service.
+            final var random = new Random(1);
+            final var paths = new String[PATHS];
+            for (var i = 0; i < PATHS; ++i) {
+                paths[i] = i % 16 == 0
+                    ? "/unknown/v1/resource"
+                    : "/service-" + random.nextInt(SERVICES) + "/v1/resource/" + i;
+            }
+            for (final var path : paths) {
+                assertEquals(getServiceByPathUsingScan(scan, path), index.getServiceByPath(path));
+            }
+
+            final var finalIndex = index;
+            final var scanNanos = measure(paths, path -> getServiceByPathUsingScan(scan, path));
+            final var indexNanos = measure(paths, finalIndex::getServiceByPath);
+
+            System.out.printf("linear scan %10.1f ns/lookup%n", scanNanos);
+            System.out.printf("trie index  %10.1f ns/lookup%n", indexNanos);
+        }
+        finally {
+            system.shutdown();
+        }
+    }
+
+    private static double measure(final String[] paths, final Lookup lookup) {
+        var found = 0L;
+        for (var round = 0; round < WARMUP_ROUNDS; ++round) {
+            found += lookupAll(paths, lookup);
+        }
+        final var startNanos = System.nanoTime();
+        for (var round = 0; round < MEASURED_ROUNDS; ++round) {
+            found += lookupAll(paths, lookup);
+        }
+        final var nanos = System.nanoTime() - startNanos;
+        assertTrue(found > 0);
+        return nanos / (double) (MEASURED_ROUNDS * (long) paths.length);
+    }
+
+    private static int lookupAll(final String[] paths, final Lookup lookup) {
+        var found = 0;
+        for (final var path : paths) {
+            if (lookup.getServiceByPath(path).isPresent()) {
+                found += 1;
+            }
+        }
+        return found;
+    }
+
+    // The lookup performed by HttpServer before HttpServiceIndex existed.
+    private static Optional<HttpServiceInternal> getServiceByPathUsingScan(
+        final Map<String, HttpServiceInternal> services,
+        final String path)
+    {
+        for (final var entry : services.entrySet()) {
+            final var service = entry.getValue();
+            if (path.startsWith(service.basePath())) {
+                return Optional.of(service);
+            }
+        }
+        return Optional.empty();
+    }
+
+    @FunctionalInterface
+    private interface Lookup {
+        Optional<HttpServiceInternal> getServiceByPath(String path);
+    }
+}
@@ -0,0 +1,164 @@
+package se.arkalix.internal.net.http.service;
+
+import se.arkalix.net.http.HttpStatus;
+import se.arkalix.net.http.service.HttpAdaptiveConcurrencyLimit;
+import se.arkalix.net.http.service.HttpServiceRequestException;
+import io.netty.util.concurrent.DefaultEventExecutor;
+import io.netty.util.concurrent.EventExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestHttpAdmissionController {
+    private EventExecutor executor;
+
+    @BeforeEach
+    void createExecutor() {
+        executor = new DefaultEventExecutor();
+    }
+
+    @AfterEach
+    void shutdownExecutor() {
+        executor.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void shouldQueueAndRejectWhenFull() {
+        final var controller = new HttpAdmissionController(null, 1, 1, Duration.ofSeconds(10), Duration.ofSeconds(1));
+
+        final var admission0 = controller.admit(executor);
+        final var admission1 = controller.admit(executor);
+        final var admission2 = controller.admit(executor);
+
+        assertTrue(admission0.isSuccess());
+        assertFalse(admission1.isDone());
+        assertTrue(admission2.isDone());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ((HttpServiceRequestException) admission2.cause()).status());
+        assertEquals(1, controller.queuedCount());
+
+        // Rejections must not share exceptions, as those are mutable.
+        final var admission3 = controller.admit(executor);
+        assertNotSame(admission2.cause(), admission3.cause());
+
+        controller.release();
+        assertTrue(admission1.isSuccess());
+        assertEquals(1, controller.inFlightCount());
+        assertEquals(0, controller.queuedCount());
+
+        controller.release();
+        assertEquals(0, controller.inFlightCount());
+        assertEquals(2, controller.rejectedCount());
+    }
+
+    @Test
+    void shouldRejectWhenQueuedForTooLong() {
+        final var controller = new HttpAdmissionController(null, 1, 1, Duration.ofMillis(10), Duration.ofSeconds(1));
+
+        assertTrue(controller.admit(executor).isSuccess());
+        final var admission = controller.admit(executor);
+
+        assertTrue(admission.awaitUninterruptibly(5000));
+        assertFalse(admission.isSuccess());
+        assertEquals(0, controller.queuedCount());
+
+        controller.release();
+        assertEquals(0, controller.inFlightCount());
+    }
+
+    @Test
+    void shouldRequireAdmissionByParent() {
+        final var parent = new HttpAdmissionController(null, 1, 1, Duration.ofSeconds(10), Duration.ofSeconds(1));
+        final var child0 = new HttpAdmissionController(parent, 1, 1, Duration.ofSeconds(10), Duration.ofSeconds(1));
+        final var child1 = new HttpAdmissionController(parent, 1, 1, Duration.ofSeconds(10), Duration.ofSeconds(1));
+
+        final var admission0 = child0.admit(executor);
+        assertTrue(admission0.awaitUninterruptibly(5000));
+        assertTrue(admission0.isSuccess());
+
+        final var admission1 = child1.admit(executor);
+        assertFalse(admission1.awaitUninterruptibly(50));
+        assertEquals(0, child1.inFlightCount());
+        assertEquals(1, parent.queuedCount());
+
+        child0.release();
+        assertTrue(admission1.awaitUninterruptibly(5000));
+        assertTrue(admission1.isSuccess());
+        assertEquals(0, child0.inFlightCount());
+        assertEquals(1, parent.inFlightCount());
+    }
+
+    @Test
+    void shouldNotOccupyChildCapacityWhileWaitingForParent() {
+        final var parent = new HttpAdmissionController(null, 1, 4, Duration.ofSeconds(10), Duration.ofSeconds(1));
+        final var child = new HttpAdmissionController(parent, 2, 0, Duration.ofSeconds(10), Duration.ofSeconds(1));
+
+        final var admission0 = child.admit(executor);
+        assertTrue(admission0.awaitUninterruptibly(5000));
+        assertTrue(admission0.isSuccess());
+
+        // The parent is the bottleneck, which is why none of these
+        // requests may be rejected by the child, even though it has no queue.
+        final var admission1 = child.admit(executor);
+        final var admission2 = child.admit(executor);
+        final var admission3 = child.admit(executor);
+        assertFalse(admission1.awaitUninterruptibly(50));
+        assertFalse(admission2.isDone());
+        assertFalse(admission3.isDone());
+        assertEquals(1, child.inFlightCount());
+        assertEquals(3, parent.queuedCount());
+        assertEquals(0, child.rejectedCount());
+
+        child.release();
+        assertTrue(admission1.awaitUninterruptibly(5000));
+        assertTrue(admission1.isSuccess());
+        assertEquals(1, child.inFlightCount());
+        assertEquals(1, parent.inFlightCount());
+        assertEquals(2, parent.queuedCount());
+    }
+
+    @Test
+    void shouldReleaseParentAdmissionIfChildRejects() {
+        final var parent = new HttpAdmissionController(null, 4, 0, Duration.ofSeconds(10), Duration.ofSeconds(1));
+        final var child = new HttpAdmissionController(parent, 1, 0, Duration.ofSeconds(10), Duration.ofSeconds(1));
+
+        final var admission0 = child.admit(executor);
+        assertTrue(admission0.awaitUninterruptibly(5000));
+        assertTrue(admission0.isSuccess());
+
+        final var admission1 = child.admit(executor);
+        assertTrue(admission1.awaitUninterruptibly(5000));
+        assertFalse(admission1.isSuccess());
+        assertEquals(1, child.rejectedCount());
+        assertEquals(1, parent.inFlightCount());
+
+        child.release();
+        assertEquals(0, child.inFlightCount());
+        assertEquals(0, parent.inFlightCount());
+    }
+
+    @Test
+    void shouldAdmitWaitersWhenAdaptiveLimitGrows() {
+        final var limit = new HttpAdaptiveConcurrencyLimit.Builder()
+            .initialLimit(1)
+            .smoothing(1.0)
+            .build();
+        final var controller = new HttpAdmissionController(null, limit, 4, Duration.ofSeconds(10), Duration.ofSeconds(1));
+
+        assertTrue(controller.admit(executor).isSuccess());
+        final var admission0 = controller.admit(executor);
+        final var admission1 = controller.admit(executor);
+        assertEquals(2, controller.queuedCount());
+
+        controller.release(Duration.ofMillis(10).toNanos());
+        assertEquals(2, limit.limit());
+        assertTrue(admission0.isSuccess());
+        assertTrue(admission1.isSuccess());
+        assertEquals(2, controller.inFlightCount());
+        assertEquals(1, limit.sampleCount());
+    }
+}
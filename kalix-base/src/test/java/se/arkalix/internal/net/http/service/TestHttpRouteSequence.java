@@ -0,0 +1,149 @@
+package se.arkalix.internal.net.http.service;
+
+import org.junit.jupiter.api.Test;
+import se.arkalix.description.SystemDescription;
+import se.arkalix.descriptor.EncodingDescriptor;
+import se.arkalix.internal.net.NettyAutoReadController;
+import se.arkalix.internal.net.http.NettyHttpBodyReceiver;
+import se.arkalix.net.http.HttpMethod;
+import se.arkalix.net.http.HttpStatus;
+import se.arkalix.net.http.service.*;
+import se.arkalix.util.concurrent.Future;
+import se.arkalix.util.concurrent.FutureFailure;
+import se.arkalix.util.concurrent.FutureSuccess;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestHttpRouteSequence {
+    @Test
+    void shouldNotInvokeRouteIfValidatorRejects() {
+        final var calls = new ArrayList<String>();
+        final var sequence = new HttpRouteSequence(
+            new HttpValidator[]{
+                new HttpValidator(0, null, null, (request, response) -> {
+                    calls.add("validator");
+                    response.status(HttpStatus.FORBIDDEN);
+                    return Future.done();
+                }),
+            },
+            new HttpRoute(HttpMethod.GET, HttpPattern.valueOf("/x"), (request, response) -> {
+                calls.add("route");
+                return Future.done();
+            }),
+            new HttpCatcher<?>[0], false, null);
+
+        final var task = taskFor(HttpMethod.GET, "/base/x");
+        final var future = sequence.tryHandle(task);
+
+        assertTrue(future instanceof FutureSuccess);
+        assertTrue(((FutureSuccess<Boolean>) future).value());
+        assertEquals(List.of("validator"), calls);
+        assertEquals(HttpStatus.FORBIDDEN, task.response().status().orElseThrow());
+    }
+
+    @Test
+    void shouldNotHandleRequestIfNoRouteMatches() {
+        final var calls = new ArrayList<String>();
+        final var sequence = new HttpRouteSequence(
+            new HttpValidator[]{
+                new HttpValidator(0, null, null, (request, response) -> {
+                    calls.add("validator");
+                    return Future.done();
+                }),
+            },
+            new HttpRoute(HttpMethod.GET, HttpPattern.valueOf("/x"), (request, response) -> {
+                calls.add("route");
+                return Future.done();
+            }),
+            new HttpCatcher<?>[0], false, null);
+
+        for (final var task : List.of(taskFor(HttpMethod.GET, "/base/y"), taskFor(HttpMethod.POST, "/base/x"))) {
+            final var future = sequence.tryHandle(task);
+            assertTrue(future instanceof FutureSuccess);
+            assertFalse(((FutureSuccess<Boolean>) future).value());
+        }
+        assertEquals(List.of(), calls);
+    }
+
+    @Test
+    void shouldPassRouteFailuresToMatchingCatchers() {
+        final var sequence = new HttpRouteSequence(
+            new HttpValidator[0],
+            new HttpRoute(HttpMethod.GET, HttpPattern.valueOf("/x"), (request, response) -> {
+                throw new IllegalStateException();
+            }),
+            new HttpCatcher<?>[]{
+                new HttpCatcher<>(0, null, null, IllegalArgumentException.class, (fault, request, response) -> {
+                    response.status(HttpStatus.BAD_REQUEST);
+                    return Future.done();
+                }),
+                new HttpCatcher<>(1, null, null, IllegalStateException.class, (fault, request, response) -> {
+                    response.status(HttpStatus.CONFLICT);
+                    return Future.done();
+                }),
+            }, false, null);
+
+        final var task = taskFor(HttpMethod.GET, "/base/x");
+        final var future = sequence.tryHandle(task);
+
+        assertTrue(future instanceof FutureSuccess);
+        assertEquals(HttpStatus.CONFLICT, task.response().status().orElseThrow());
+    }
+
+    @Test
+    void shouldFailIfNoCatcherHandlesRouteFailure() {
+        final var fault = new IllegalStateException();
+        final var sequence = new HttpRouteSequence(
+            new HttpValidator[0],
+            new HttpRoute(HttpMethod.GET, HttpPattern.valueOf("/x"), (request, response) -> Future.failure(fault)),
+            new HttpCatcher<?>[0], false, null);
+
+        final var future = sequence.tryHandle(taskFor(HttpMethod.GET, "/base/x"));
+
+        assertTrue(future instanceof FutureFailure);
+        assertSame(fault, ((FutureFailure<Boolean>) future).fault());
+    }
+
+    @Test
+    void shouldPassPathParametersOnlyForPatternsThatCollectThem() {
+        final var parameters = new ArrayList<List<String>>();
+        for (final var pattern : List.of("/x/y", "/#id/y", "/x/>")) {
+            final var sequence = new HttpRouteSequence(
+                new HttpValidator[0],
+                new HttpRoute(HttpMethod.GET, HttpPattern.valueOf(pattern), (request, response) -> {
+                    parameters.add(request.pathParameters());
+                    return Future.done();
+                }),
+                new HttpCatcher<?>[0], false, null);
+            sequence.tryHandle(taskFor(HttpMethod.GET, "/base/x/y"));
+        }
+        assertEquals(List.of(List.of(), List.of("x"), List.of("/y")), parameters);
+    }
+
+    private static HttpRouteTask taskFor(final HttpMethod method, final String path) {
+        final var request = new DefaultHttpRequest(HttpVersion.HTTP_1_1,
+            io.netty.handler.codec.http.HttpMethod.valueOf(method.name()), path);
+        final var body = new NettyHttpBodyReceiver(ByteBufAllocator.DEFAULT,
+            new NettyAutoReadController(new EmbeddedChannel()), new DefaultHttpHeaders());
+        return new HttpRouteTask.Builder()
+            .basePath("/base")
+            .request(new NettyHttpServiceRequest.Builder()
+                .body(body)
+                .queryStringDecoder(new QueryStringDecoder(path))
+                .request(request)
+                .consumer(new SystemDescription("consumer", new InetSocketAddress("127.0.0.1", 9001)))
+                .build())
+            .response(new NettyHttpServiceResponse(request, new DefaultHttpHeaders(), EncodingDescriptor.JSON, null))
+            .build();
+    }
+}
@@ -0,0 +1,142 @@
+package se.arkalix.internal.net.http.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import se.arkalix.net.http.HttpMethod;
+import se.arkalix.net.http.service.HttpCatcher;
+import se.arkalix.net.http.service.HttpPattern;
+import se.arkalix.net.http.service.HttpRoute;
+import se.arkalix.net.http.service.HttpValidator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+public class TestHttpRouter {
+    private static final String[] PATTERNS = new String[]{
+        "/", "/hello", "/hello/#id", "/hello/#id/name", "/hello/world", "/hello/>", "/#a/#b", "/#a/world",
+        "/>", "/x/#/>", "/x/y/>", "//#id/thing", "///thing", "/hello/world/again",
+    };
+
+    private static final String[] PATHS = new String[]{
+        "/base", "/base/", "/base/hello", "/base/hello/", "/base/hello/world", "/base/hello/there",
+        "/base/hello/world/again", "/base/hello/1/name", "/base/hello/1/name/", "/base/x/y/z",
+        "/base/x/1/z/w", "/base/x/y", "/base/a/world", "/base//1/thing", "/base///thing", "/base/q/r/s",
+        "/basement", "/base/hello//", "/base/x/y/",
+    };
+
+    private static final HttpMethod[] METHODS = new HttpMethod[]{
+        HttpMethod.GET, HttpMethod.POST, null,
+    };
+
+    @ParameterizedTest
+    @MethodSource("routePathMethodTriples")
+    void shouldRouteToMostSpecializedRoute(final String expected, final HttpMethod method, final String path) {
+        final var routes = new ArrayList<HttpRoute>();
+        for (final var pattern : PATTERNS) {
+            routes.add(new HttpRoute(HttpMethod.GET, HttpPattern.valueOf(pattern), null));
+        }
+        final var router = createRouterFor(routes);
+        final var actual = router.route(method, path, 5)
+            .flatMap(routeSequence -> routeSequence.route().pattern())
+            .map(HttpPattern::text);
+        assertEquals(Optional.ofNullable(expected), actual);
+    }
+
+    static Stream<Arguments> routePathMethodTriples() {
+        return Stream.of(
+            arguments("/hello/world", HttpMethod.GET, "/base/hello/world"),
+            arguments("/hello/world", HttpMethod.GET, "/base/hello/world/"),
+            arguments("/hello/#", HttpMethod.GET, "/base/hello/there"),
+            arguments("/hello/>", HttpMethod.GET, "/base/hello/there/again"),
+            arguments("/hello/world/again", HttpMethod.GET, "/base/hello/world/again"),
+            arguments("/#/world", HttpMethod.GET, "/base/a/world"),
+            arguments("/>", HttpMethod.GET, "/base/some/other/path"),
+            arguments(null, HttpMethod.GET, "/base"),
+            arguments(null, HttpMethod.GET, "/basement"),
+            arguments(null, HttpMethod.POST, "/base/hello/world")
+        );
+    }
+
+    @Test
+    void shouldRouteLikeLinearScan() {
+        final var routes = new ArrayList<HttpRoute>();
+        for (final var pattern : PATTERNS) {
+            for (final var method : METHODS) {
+                routes.add(new HttpRoute(method, HttpPattern.valueOf(pattern), null));
+            }
+        }
+        routes.add(new HttpRoute(HttpMethod.DELETE, null, null));
+
+        final var sortedRoutes = routes.stream()
+            .sorted(HttpRoutables::compare)
+            .collect(Collectors.toList());
+
+        // Remove routes one by one to make sure less specialized routes are
+        // selected when more specialized ones are missing.
+        while (!sortedRoutes.isEmpty()) {
+            final var router = createRouterFor(sortedRoutes);
+            for (final var path : PATHS) {
+                for (final var method : new HttpMethod[]{HttpMethod.GET, HttpMethod.POST, HttpMethod.DELETE}) {
+                    final var expected = scanFor(sortedRoutes, method, path, 5);
+                    final var actual = router.route(method, path, 5)
+                        .map(HttpRouteSequence::route);
+                    assertEquals(expected, actual, method + " " + path);
+                }
+            }
+            sortedRoutes.remove(0);
+        }
+    }
+
+    @Test
+    void shouldRouteAmongManyRoutes() {
+        final var routes = new ArrayList<HttpRoute>();
+        for (var i = 0; i < 1000; ++i) {
+            routes.add(new HttpRoute(HttpMethod.GET, HttpPattern.valueOf("/items/" + i + "/#id"), null));
+            routes.add(new HttpRoute(HttpMethod.PUT, HttpPattern.valueOf("/items/" + i), null));
+        }
+        final var router = createRouterFor(routes);
+        for (var i = 0; i < 1000; ++i) {
+            final var path = "/base/items/" + i + "/x";
+            assertEquals(scanFor(routes, HttpMethod.GET, path, 5), router.route(HttpMethod.GET, path, 5)
+                .map(HttpRouteSequence::route));
+        }
+        assertTrue(router.route(HttpMethod.GET, "/base/items/1000/x", 5).isEmpty());
+        assertTrue(router.route(HttpMethod.GET, "/base/items/999", 5).isEmpty());
+        assertTrue(router.route(HttpMethod.PUT, "/base/items/999", 5).isPresent());
+    }
+
+    private static HttpRouter createRouterFor(final List<HttpRoute> routes) {
+        final var factory = new HttpRouteSequenceFactory(
+            Collections.<HttpCatcher<?>>emptyList(),
+            Collections.<HttpValidator>emptyList(),
+            false,
+            null,
+            "test");
+        return new HttpRouter(routes.stream()
+            .sorted(HttpRoutables::compare)
+            .map(factory::createRouteSequenceFor)
+            .collect(Collectors.toList()));
+    }
+
+    private static Optional<HttpRoute> scanFor(
+        final List<HttpRoute> routes,
+        final HttpMethod method,
+        final String path,
+        final int offset)
+    {
+        return routes.stream()
+            .sorted(HttpRoutables::compare)
+            .filter(route -> route.method().map(method::equals).orElse(true) &&
+                route.pattern().map(pattern -> pattern.match(path, offset, new ArrayList<>())).orElse(true))
+            .findFirst();
+    }
+}
@@ -0,0 +1,136 @@
+package se.arkalix.internal.net.http.service;
+
+import org.junit.jupiter.api.Test;
+import se.arkalix.ArServiceHandle;
+import se.arkalix.ArSystem;
+import se.arkalix.descriptor.EncodingDescriptor;
+import se.arkalix.net.http.service.HttpService;
+import se.arkalix.security.access.AccessPolicy;
+import se.arkalix.util.Result;
+import se.arkalix.util.concurrent.Future;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestHttpServer {
+    private static final int N_THREADS = 8;
+    private static final int N_SERVICES_PER_THREAD = 16;
+
+    @Test
+    void shouldProvideConcurrentlyProvidedServicesExactlyOnce() throws Exception {
+        final var system = new ArSystem.Builder()
+            .name("provider")
+            .localAddressPort(InetAddress.getLoopbackAddress(), 0)
+            .insecure()
+            .build();
+        try {
+            // The first service creates the server all others are added to.
+            await(provide(system, "first", "/first"));
+
+            final var isStarting = new CountDownLatch(1);
+            final var results = new ArrayList<CompletableFuture<Result<ArServiceHandle>>>();
+            final var threads = new ArrayList<Thread>();
+            for (var t = 0; t < N_THREADS; ++t) {
+                final var threadResults = new ArrayList<CompletableFuture<Result<ArServiceHandle>>>();
+                for (var s = 0; s < N_SERVICES_PER_THREAD; ++s) {
+                    threadResults.add(new CompletableFuture<>());
+                }
+                results.addAll(threadResults);
+                final var threadIndex = t;
+                final var thread = new Thread(() -> {
+                    try {
+                        isStarting.await();
+                    }
+                    catch (final InterruptedException exception) {
+                        return;
+                    }
+                    for (var s = 0; s < N_SERVICES_PER_THREAD; ++s) {
+                        // Every thread tries to provide one unique base path
+                        // and all but one of the shared base paths, in
+                        // different orders.
+                        final var index = s;
+                        final var path = index == 0
+                            ? "/unique/" + threadIndex
+                            : "/shared/" + ((index + threadIndex) % N_SERVICES_PER_THREAD);
+                        provide(system, "s" + index, path)
+                            .onResult(result -> threadResults.get(index).complete(result));
+                    }
+                }, "t" + t);
+                threads.add(thread);
+                thread.start();
+            }
+            isStarting.countDown();
+            for (final var thread : threads) {
+                thread.join(10_000);
+            }
+
+            final var handles = new ArrayList<ArServiceHandle>();
+            var failures = 0;
+            for (final var result : results) {
+                final var result0 = result.get(10, TimeUnit.SECONDS);
+                if (result0.isSuccess()) {
+                    handles.add(result0.value());
+                }
+                else {
+                    assertTrue(result0.fault() instanceof IllegalStateException);
+                    failures += 1;
+                }
+            }
+
+            // Every unique base path and every shared base path is provided
+            // exactly once.
+            final var expectedSuccesses = N_THREADS + N_SERVICES_PER_THREAD;
+            assertEquals(expectedSuccesses, handles.size());
+            assertEquals(N_THREADS * N_SERVICES_PER_THREAD - expectedSuccesses, failures);
+
+            final List<String> qualifiers = handles.stream()
+                .map(handle -> handle.description().qualifier())
+                .distinct()
+                .collect(Collectors.toList());
+            assertEquals(expectedSuccesses, qualifiers.size());
+            assertEquals(expectedSuccesses + 1, system.providedServices().count());
+
+            // Dismissed base paths can be provided again.
+            final var dismissed = handles.get(0);
+            dismissed.dismiss();
+            await(provide(system, "again", dismissed.description().qualifier()));
+        }
+        finally {
+            system.shutdown();
+        }
+    }
+
+    private static Future<ArServiceHandle> provide(
+        final ArSystem system,
+        final String name,
+        final String basePath)
+    {
+        return system.provide(new HttpService()
+            .name(name)
+            .basePath(basePath)
+            .encodings(EncodingDescriptor.JSON)
+            .accessPolicy(AccessPolicy.unrestricted()));
+    }
+
+    private static ArServiceHandle await(final Future<ArServiceHandle> future)
+        throws Exception
+    {
+        final var completable = new CompletableFuture<ArServiceHandle>();
+        future.onResult(result -> {
+            if (result.isSuccess()) {
+                completable.complete(result.value());
+            }
+            else {
+                completable.completeExceptionally(result.fault());
+            }
+        });
+        return completable.get(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,107 @@
+package se.arkalix.internal.net.http.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import se.arkalix.ArSystem;
+import se.arkalix.descriptor.EncodingDescriptor;
+import se.arkalix.net.http.service.HttpService;
+import se.arkalix.security.access.AccessPolicy;
+
+import java.net.InetAddress;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestHttpServiceIndex {
+    private static ArSystem system;
+
+    @BeforeAll
+    static void createSystem() {
+        system = new ArSystem.Builder()
+            .name("provider")
+            .localAddressPort(InetAddress.getLoopbackAddress(), 0)
+            .insecure()
+            .build();
+    }
+
+    @AfterAll
+    static void shutdownSystem() {
+        system.shutdown();
+    }
+
+    @Test
+    void shouldFindServiceWithLongestSegmentWisePrefix() {
+        final var index = HttpServiceIndex.EMPTY
+            .with(service("root", "/"))
+            .with(service("a", "/a"))
+            .with(service("ab", "/a/b"))
+            .with(service("abc", "/abc"));
+
+        assertEquals(Optional.of("ab"), nameByPath(index, "/a/b/c"));
+        assertEquals(Optional.of("ab"), nameByPath(index, "/a/b"));
+        assertEquals(Optional.of("a"), nameByPath(index, "/a/bc"));
+        assertEquals(Optional.of("a"), nameByPath(index, "/a/"));
+        assertEquals(Optional.of("abc"), nameByPath(index, "/abc/d"));
+        assertEquals(Optional.of("root"), nameByPath(index, "/ab"));
+        assertEquals(Optional.of("root"), nameByPath(index, "/"));
+        assertEquals(Optional.empty(), nameByPath(index, ""));
+        assertEquals(Optional.empty(), nameByPath(index, "a/b"));
+        assertEquals(Optional.empty(), nameByPath(HttpServiceIndex.EMPTY, "/a"));
+    }
+
+    @Test
+    void shouldFindServiceByExactBasePath() {
+        final var index = HttpServiceIndex.EMPTY
+            .with(service("a", "/a"))
+            .with(service("ab", "/a/b"));
+
+        assertEquals("a", index.getServiceByBasePath("/a").orElseThrow().name());
+        assertEquals("ab", index.getServiceByBasePath("/a/b").orElseThrow().name());
+        assertTrue(index.getServiceByBasePath("/").isEmpty());
+        assertTrue(index.getServiceByBasePath("/a/b/c").isEmpty());
+    }
+
+    @Test
+    void shouldLeaveOriginalIndexUnchangedWhenInserting() {
+        final var index0 = HttpServiceIndex.EMPTY.with(service("a", "/a"));
+        final var index1 = index0.with(service("ab", "/a/b"));
+        final var index2 = index1.with(service("replacement", "/a/b"));
+
+        assertEquals(Optional.of("a"), nameByPath(index0, "/a/b"));
+        assertEquals(Optional.of("ab"), nameByPath(index1, "/a/b"));
+        assertEquals(Optional.of("replacement"), nameByPath(index2, "/a/b"));
+    }
+
+    @Test
+    void shouldRemoveOnlyServiceWithGivenBasePath() {
+        final var index0 = HttpServiceIndex.EMPTY
+            .with(service("root", "/"))
+            .with(service("a", "/a"))
+            .with(service("ab", "/a/b"));
+
+        final var index1 = index0.without("/a");
+        assertEquals(Optional.of("ab"), nameByPath(index1, "/a/b/c"));
+        assertEquals(Optional.of("root"), nameByPath(index1, "/a/c"));
+        assertEquals(Optional.of("a"), nameByPath(index0, "/a/c"));
+
+        final var index2 = index1.without("/a/b").without("/x/y");
+        assertEquals(Optional.of("root"), nameByPath(index2, "/a/b/c"));
+
+        final var index3 = index2.without("/");
+        assertEquals(Optional.empty(), nameByPath(index3, "/a/b/c"));
+        assertEquals(Optional.empty(), nameByPath(index3.with(service("ab", "/a/b")), "/a"));
+    }
+
+    private static Optional<String> nameByPath(final HttpServiceIndex index, final String path) {
+        return index.getServiceByPath(path).map(HttpServiceInternal::name);
+    }
+
+    private static HttpServiceInternal service(final String name, final String basePath) {
+        return new HttpServiceInternal(system, new HttpService()
+            .name(name)
+            .basePath(basePath)
+            .encodings(EncodingDescriptor.JSON)
+            .accessPolicy(AccessPolicy.unrestricted()), null);
+    }
+}
@@ -0,0 +1,310 @@
+package se.arkalix.internal.net.http.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import se.arkalix.ArSystem;
+import se.arkalix.description.ServiceDescription;
+import se.arkalix.description.SystemDescription;
+import se.arkalix.descriptor.AccessDescriptor;
+import se.arkalix.descriptor.EncodingDescriptor;
+import se.arkalix.internal.util.concurrent.NettyFutures;
+import se.arkalix.net.http.HttpStatus;
+import se.arkalix.net.http.service.HttpMetricsService;
+import se.arkalix.net.http.service.HttpService;
+import se.arkalix.security.access.AccessPolicy;
+import se.arkalix.util.concurrent.Future;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestNettyHttpServiceConnectionHandler {
+    private static final Pattern STATUS_LINE = Pattern.compile("HTTP/1\\.[01] (\\d{3})[^\\r]*\\r\\n");
+
+    private static ArSystem system;
+
+    private final List<Promise<HttpStatus>> slowResponses = new ArrayList<>();
+
+    @BeforeAll
+    static void createSystem() {
+        system = new ArSystem.Builder()
+            .name("provider")
+            .localAddressPort(InetAddress.getLoopbackAddress(), 0)
+            .insecure()
+            .build();
+    }
+
+    @AfterAll
+    static void shutdownSystem() {
+        system.shutdown();
+    }
+
+    @Test
+    void shouldRespondToPipelinedRequestsInOrder() {
+        final var channel = newChannel();
+        channel.writeInbound(bytes("" +
+            "GET /base/slow HTTP/1.1\r\nhost: test\r\n\r\n" +
+            "GET /base/fast HTTP/1.1\r\nhost: test\r\n\r\n" +
+            "GET /missing HTTP/1.1\r\nhost: test\r\n\r\n" +
+            "GET /base/slow HTTP/1.1\r\nhost: test\r\n\r\n"));
+
+        // Later responses are complete, but must wait for the first.
+        assertEquals(List.of(), readStatuses(channel));
+
+        slowResponses.get(0).setSuccess(HttpStatus.ACCEPTED);
+        assertEquals(List.of(202, 200, 404), readStatuses(channel));
+
+        slowResponses.get(1).setSuccess(HttpStatus.CREATED);
+        assertEquals(List.of(201), readStatuses(channel));
+        assertTrue(channel.isOpen());
+    }
+
+    @Test
+    void shouldQueueRequestTimeoutBehindEarlierResponses() {
+        final var channel = newChannel();
+        channel.writeInbound(bytes("" +
+            "GET /base/slow HTTP/1.1\r\nhost: test\r\n\r\n" +
+            "POST /base/upload HTTP/1.1\r\nhost: test\r\ncontent-length: 10\r\n\r\nabc"));
+
+        channel.pipeline().fireUserEventTriggered(IdleStateEvent.FIRST_READER_IDLE_STATE_EVENT);
+        assertEquals(List.of(), readStatuses(channel));
+        assertTrue(channel.isOpen());
+
+        slowResponses.get(0).setSuccess(HttpStatus.OK);
+        assertEquals(List.of(200, 408), readStatuses(channel));
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    void shouldCloseAfterPendingResponsesIfIdleBetweenRequests() {
+        final var channel = newChannel();
+        channel.writeInbound(bytes("GET /base/slow HTTP/1.1\r\nhost: test\r\n\r\n"));
+
+        channel.pipeline().fireUserEventTriggered(IdleStateEvent.FIRST_READER_IDLE_STATE_EVENT);
+        assertTrue(channel.isOpen());
+
+        slowResponses.get(0).setSuccess(HttpStatus.OK);
+        assertEquals(List.of(200), readStatuses(channel));
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    void shouldRejectTooLongRequestLinesAndHeaders() {
+        var channel = newChannel(new HttpServerCodec(64, 128, 8192));
+        channel.writeInbound(bytes("GET /base/fast/" + "x".repeat(64) + " HTTP/1.1\r\nhost: test\r\n\r\n"));
+        assertEquals(List.of(431), readStatuses(channel));
+        assertFalse(channel.isOpen());
+
+        channel = newChannel(new HttpServerCodec(64, 128, 8192));
+        channel.writeInbound(bytes("GET /base/fast HTTP/1.1\r\nhost: test\r\nx-long: " + "x".repeat(128) +
+            "\r\n\r\n"));
+        assertEquals(List.of(431), readStatuses(channel));
+        assertFalse(channel.isOpen());
+
+        channel = newChannel(new HttpServerCodec(64, 128, 8192));
+        channel.writeInbound(bytes("GET /base/fast HTTP/1.1\r\nhost: test\r\n\r\n"));
+        assertEquals(List.of(200), readStatuses(channel));
+        assertTrue(channel.isOpen());
+    }
+
+    @Test
+    void shouldRejectMalformedRequests() {
+        final var channel = newChannel();
+        channel.writeInbound(bytes("GET /base/fast HTTP/1.1\r\nhost: test\r\ncontent-length: x\r\n\r\n"));
+        assertEquals(List.of(400), readStatuses(channel));
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    void shouldDecompressRequestBodyOfRoutedRequest() throws Exception {
+        final var channel = newChannel();
+        final var body = gzip("Hello, compressed world!".getBytes(StandardCharsets.US_ASCII));
+        channel.writeInbound(bytes("POST /base/echo HTTP/1.1\r\nhost: test\r\ncontent-encoding: gzip\r\n" +
+            "content-length: " + body.length + "\r\n\r\n"), Unpooled.wrappedBuffer(body));
+
+        final var output = readOutput(channel);
+        assertTrue(output.startsWith("HTTP/1.1 200 "), output);
+        assertTrue(output.endsWith("\r\n\r\nHello, compressed world!"), output);
+    }
+
+    @Test
+    void shouldRejectRequestBodyInflatedBeyondLimit() throws Exception {
+        final var channel = newChannel();
+        final var body = gzip(new byte[1 << 20]);
+        channel.writeInbound(bytes("POST /base/echo HTTP/1.1\r\nhost: test\r\ncontent-encoding: gzip\r\n" +
+            "content-length: " + body.length + "\r\n\r\n"), Unpooled.wrappedBuffer(body));
+
+        assertEquals(List.of(413), readStatuses(channel));
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    void shouldServeMetricsAsPlainText() {
+        final var service = new HttpServiceInternal(system, HttpMetricsService.create(system,
+            AccessPolicy.unrestricted()), null);
+        final var channel = new EmbeddedChannel(new HttpServerCodec(), new NettyHttpServiceConnectionHandler(
+            path -> path.startsWith(HttpMetricsService.BASE_PATH) ? Optional.of(service) : Optional.empty(),
+            null, system.httpServerMetrics(), null));
+
+        channel.writeInbound(bytes("GET /metrics HTTP/1.1\r\nhost: test\r\naccept: application/openmetrics-text;" +
+            "version=0.0.1;q=0.75,text/plain;version=0.0.4;q=0.5,*/*;q=0.1\r\n\r\n"));
+        final var output = readOutput(channel);
+        assertTrue(output.startsWith("HTTP/1.1 200 "), output);
+        assertTrue(output.contains("content-type: text/plain; version=0.0.4; charset=utf-8\r\n"), output);
+
+        channel.writeInbound(bytes("GET /metrics HTTP/1.1\r\nhost: test\r\naccept: application/json\r\n\r\n"));
+        assertEquals(List.of(415), readStatuses(channel));
+    }
+
+    @Test
+    void shouldSuspendReadingWhileAuthorizingUsingVerificationPool() {
+        final var executors = new ArrayList<Executor>();
+        final var authorizations = new ArrayList<Promise<Boolean>>();
+        final var service = new HttpServiceInternal(system, new HttpService()
+            .name("token")
+            .basePath("/token")
+            .encodings(EncodingDescriptor.JSON)
+            .accessPolicy(new AccessPolicy() {
+                @Override
+                public AccessDescriptor descriptor() {
+                    return AccessDescriptor.TOKEN;
+                }
+
+                @Override
+                public boolean isAuthorized(
+                    final SystemDescription consumer,
+                    final ServiceDescription service,
+                    final String token)
+                {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public Future<Boolean> isAuthorizedAsync(
+                    final SystemDescription consumer,
+                    final ServiceDescription service,
+                    final String token,
+                    final Executor executor)
+                {
+                    executors.add(executor);
+                    final var promise = ImmediateEventExecutor.INSTANCE.<Boolean>newPromise();
+                    authorizations.add(promise);
+                    return NettyFutures.adapt(promise);
+                }
+            })
+            .get("/fast", (request, response) -> {
+                response.status(HttpStatus.OK);
+                return Future.done();
+            }), null);
+        final var channel = new EmbeddedChannel(new HttpServerCodec(), new NettyHttpServiceConnectionHandler(
+            path -> path.startsWith("/token") ? Optional.of(service) : Optional.empty(),
+            null, system.httpServerMetrics(), null));
+
+        channel.writeInbound(bytes("" +
+            "GET /token/fast HTTP/1.1\r\nhost: test\r\n\r\n" +
+            "GET /token/fast HTTP/1.1\r\nhost: test\r\n\r\n"));
+        assertEquals(1, authorizations.size());
+        assertSame(system.accessVerificationPool(), executors.get(0));
+        assertFalse(channel.config().isAutoRead());
+        assertEquals(List.of(), readStatuses(channel));
+
+        // The deferred request is authorized only after the first has been.
+        authorizations.get(0).setSuccess(true);
+        assertEquals(List.of(200), readStatuses(channel));
+        assertEquals(2, authorizations.size());
+        assertFalse(channel.config().isAutoRead());
+
+        authorizations.get(1).setSuccess(true);
+        assertEquals(List.of(200), readStatuses(channel));
+        assertTrue(channel.config().isAutoRead());
+        assertTrue(channel.isOpen());
+    }
+
+    private EmbeddedChannel newChannel() {
+        return newChannel(new HttpServerCodec());
+    }
+
+    private EmbeddedChannel newChannel(final HttpServerCodec codec) {
+        final var service = new HttpServiceInternal(system, new HttpService()
+            .name("test")
+            .basePath("/base")
+            .encodings(EncodingDescriptor.JSON)
+            .accessPolicy(AccessPolicy.unrestricted())
+            .maxRequestBodySize(4096)
+            .get("/slow", (request, response) -> {
+                final var promise = ImmediateEventExecutor.INSTANCE.<HttpStatus>newPromise();
+                slowResponses.add(promise);
+                return NettyFutures.adapt(promise).map(status -> {
+                    response.status(status);
+                    return null;
+                });
+            })
+            .get("/fast", (request, response) -> {
+                response.status(HttpStatus.OK);
+                return Future.done();
+            })
+            .post("/echo", (request, response) -> request.bodyAsString()
+                .map(body -> {
+                    response.status(HttpStatus.OK).body(body);
+                    return null;
+                }))
+            .post("/upload", (request, response) -> request.bodyAsString()
+                .map(body -> {
+                    response.status(HttpStatus.OK);
+                    return null;
+                })), null);
+
+        return new EmbeddedChannel(codec, new NettyHttpServiceConnectionHandler(
+            path -> path.startsWith("/base") ? Optional.of(service) : Optional.empty(),
+            null, system.httpServerMetrics(), null));
+    }
+
+    private static ByteBuf bytes(final String string) {
+        return Unpooled.copiedBuffer(string, StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] gzip(final byte[] data) throws IOException {
+        final var output = new ByteArrayOutputStream();
+        try (final var gzip = new GZIPOutputStream(output)) {
+            gzip.write(data);
+        }
+        return output.toByteArray();
+    }
+
+    private static String readOutput(final EmbeddedChannel channel) {
+        channel.runPendingTasks();
+        final var builder = new StringBuilder();
+        ByteBuf buffer;
+        while ((buffer = channel.readOutbound()) != null) {
+            builder.append(buffer.toString(StandardCharsets.US_ASCII));
+            buffer.release();
+        }
+        return builder.toString();
+    }
+
+    private static List<Integer> readStatuses(final EmbeddedChannel channel) {
+        final var statuses = new ArrayList<Integer>();
+        final var matcher = STATUS_LINE.matcher(readOutput(channel));
+        while (matcher.find()) {
+            statuses.add(Integer.parseInt(matcher.group(1)));
+        }
+        return statuses;
+    }
+}
@@ -0,0 +1,235 @@
+package se.arkalix.internal.net.http.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import se.arkalix.ArSystem;
+import se.arkalix.descriptor.EncodingDescriptor;
+import se.arkalix.net.http.HttpStatus;
+import se.arkalix.net.http.service.HttpServerLimits;
+import se.arkalix.net.http.service.HttpService;
+import se.arkalix.security.access.AccessPolicy;
+import se.arkalix.util.concurrent.Future;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.*;
+import io.netty.handler.codec.http2.*;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ClientAuth;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+
+import java.io.ByteArrayOutputStream;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestNettyHttpServiceConnectionInitializer {
+    private static ArSystem system;
+    private static HttpServiceInternal service;
+
+    private static final HttpServiceLookup LOOKUP = path -> path.startsWith("/base")
+        ? Optional.of(service)
+        : Optional.empty();
+    private static Path file;
+    private static byte[] fileContents;
+
+    @BeforeAll
+    static void createSystemAndFile() throws Exception {
+        system = new ArSystem.Builder()
+            .name("provider")
+            .localAddressPort(InetAddress.getLoopbackAddress(), 0)
+            .insecure()
+            .build();
+
+        // Larger than the default HTTP/2 flow control window.
+        fileContents = new byte[200_000];
+        new Random(1).nextBytes(fileContents);
+        file = Files.createTempFile("kalix-test-", ".bin");
+        Files.write(file, fileContents);
+
+        service = new HttpServiceInternal(system, new HttpService()
+            .name("test")
+            .basePath("/base")
+            .encodings(EncodingDescriptor.JSON)
+            .accessPolicy(AccessPolicy.unrestricted())
+            .get("/file", (request, response) -> {
+                response.status(HttpStatus.OK).body(file);
+                return Future.done();
+            }), null);
+    }
+
+    @AfterAll
+    static void shutdownSystemAndDeleteFile() throws Exception {
+        system.shutdown();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void shouldFallBackToHttp1IfNoPrefaceIsReceived() {
+        final var server = newServerChannel(null);
+        server.writeInbound(Unpooled.copiedBuffer("GET /missing HTTP/1.1\r\nhost: test\r\n\r\n",
+            StandardCharsets.US_ASCII));
+
+        assertNotNull(server.pipeline().get(HttpServerCodec.class));
+        assertNull(server.pipeline().get(Http2FrameCodec.class));
+        final ByteBuf response = server.readOutbound();
+        assertTrue(response.toString(StandardCharsets.US_ASCII).startsWith("HTTP/1.1 404 "));
+        response.release();
+    }
+
+    @Test
+    void shouldDetectPriorKnowledgePrefaceAndSendPathBodyOverStream() throws Exception {
+        final var server = newServerChannel(null);
+        final var client = newClientChannel(null);
+
+        // Deliver the first bytes of the preface on their own.
+        final ByteBuf preface = client.readOutbound();
+        server.writeInbound(preface.readRetainedSlice(10));
+        assertNull(server.pipeline().get(Http2FrameCodec.class));
+        assertNull(server.pipeline().get(HttpServerCodec.class));
+        server.writeInbound(preface);
+        assertNotNull(server.pipeline().get(Http2FrameCodec.class));
+        assertNull(server.pipeline().get(HttpServerCodec.class));
+
+        final var response = exchange(client, server, "/base/file");
+        assertEquals(HttpResponseStatus.OK, response.status);
+        assertArrayEquals(fileContents, response.body.toByteArray());
+    }
+
+    @Test
+    void shouldNegotiateHttp2ViaAlpn() throws Exception {
+        final var certificate = new SelfSignedCertificate("localhost");
+        final var alpn = new ApplicationProtocolConfig(
+            ApplicationProtocolConfig.Protocol.ALPN,
+            ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+            ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+            ApplicationProtocolNames.HTTP_2,
+            ApplicationProtocolNames.HTTP_1_1);
+        final var server = newServerChannel(new NettyHttpServiceConnectionInitializer(LOOKUP,
+            SslContextBuilder.forServer(certificate.key(), certificate.cert())
+                .trustManager(certificate.cert())
+                .clientAuth(ClientAuth.REQUIRE)
+                .applicationProtocolConfig(alpn)
+                .build(),
+            HttpServerLimits.getDefault(), system.httpServerMetrics(), null, null));
+        final var client = newClientChannel(SslContextBuilder.forClient()
+            .keyManager(certificate.key(), certificate.cert())
+            .trustManager(certificate.cert())
+            .applicationProtocolConfig(alpn)
+            .build()
+            .newHandler(ByteBufAllocator.DEFAULT, "localhost", 443));
+
+        // The self-signed client certificate is not an Arrowhead
+        // certificate chain, which is why the request is unauthorized.
+        final var response = exchange(client, server, "/base/file");
+        assertNotNull(server.pipeline().get(Http2FrameCodec.class));
+        assertNull(server.pipeline().get(HttpServerCodec.class));
+        assertEquals(HttpResponseStatus.UNAUTHORIZED, response.status);
+    }
+
+    private static EmbeddedChannel newServerChannel(final NettyHttpServiceConnectionInitializer initializer) {
+        return new EmbeddedChannel(initializer != null
+            ? initializer
+            : new NettyHttpServiceConnectionInitializer(LOOKUP, null,
+                HttpServerLimits.getDefault(), system.httpServerMetrics(), null, null));
+    }
+
+    private static EmbeddedChannel newClientChannel(final ChannelHandler sslHandler) {
+        final var channel = new EmbeddedChannel();
+        if (sslHandler != null) {
+            channel.pipeline().addLast(sslHandler);
+        }
+        channel.pipeline()
+            .addLast(Http2FrameCodecBuilder.forClient().build())
+            .addLast(new Http2MultiplexHandler(new ChannelInitializer<>() {
+                @Override
+                protected void initChannel(final Channel ch) {}
+            }));
+        channel.flushOutbound();
+        return channel;
+    }
+
+    private static Response exchange(final EmbeddedChannel client, final EmbeddedChannel server, final String path) {
+        final var response = new Response();
+        final var streamFuture = new Http2StreamChannelBootstrap(client)
+            .handler(new ChannelInitializer<Http2StreamChannel>() {
+                @Override
+                protected void initChannel(final Http2StreamChannel ch) {
+                    ch.pipeline()
+                        .addLast(new Http2StreamFrameToHttpObjectCodec(false))
+                        .addLast(new SimpleChannelInboundHandler<HttpObject>() {
+                            @Override
+                            protected void channelRead0(final ChannelHandlerContext ctx, final HttpObject msg) {
+                                if (msg instanceof HttpResponse) {
+                                    response.status = ((HttpResponse) msg).status();
+                                }
+                                if (msg instanceof HttpContent) {
+                                    final var content = ((HttpContent) msg).content();
+                                    final var bytes = new byte[content.readableBytes()];
+                                    content.readBytes(bytes);
+                                    response.body.writeBytes(bytes);
+                                }
+                            }
+                        });
+                }
+            })
+            .open();
+        pump(client, server);
+        final var stream = streamFuture.getNow();
+        assertNotNull(stream, "Failed to open stream");
+
+        final var request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, path);
+        request.headers().set("host", "localhost");
+        stream.writeAndFlush(request);
+        pump(client, server);
+        return response;
+    }
+
+    private static void pump(final EmbeddedChannel client, final EmbeddedChannel server) {
+        for (var i = 0; i < 1000; ++i) {
+            client.runPendingTasks();
+            server.runPendingTasks();
+            final var isMoving = transfer(client, server) | transfer(server, client);
+            if (!isMoving) {
+                return;
+            }
+        }
+        fail("Exchange did not settle");
+    }
+
+    private static boolean transfer(final EmbeddedChannel source, final EmbeddedChannel target) {
+        if (source.isOpen()) {
+            source.flushOutbound();
+        }
+        var isMoving = false;
+        ByteBuf buffer;
+        while ((buffer = source.readOutbound()) != null) {
+            if (!buffer.isReadable() || !target.isOpen()) {
+                buffer.release();
+                continue;
+            }
+            target.writeInbound(buffer);
+            isMoving = true;
+        }
+        return isMoving;
+    }
+
+    private static class Response {
+        private HttpResponseStatus status;
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    }
+}
@@ -0,0 +1,162 @@
+package se.arkalix.internal.net.http.service;
+
+import se.arkalix.descriptor.EncodingDescriptor;
+import se.arkalix.net.http.HttpStatus;
+import se.arkalix.net.http.service.HttpCompression;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.http.*;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestNettyHttpServiceResponse {
+    @Test
+    void shouldWritePublishedBodyAsChunks() throws Exception {
+        final var channel = new EmbeddedChannel(new HttpResponseEncoder());
+        final var response = responseTo(HttpVersion.HTTP_1_1)
+            .status(HttpStatus.OK)
+            .header("content-type", "text/plain")
+            .body(publisherOf("Hello", ", ", "World!"));
+
+        final var future = ((NettyHttpServiceResponse) response).write(channel);
+        assertTrue(future.isSuccess());
+
+        final var output = readOutbound(channel);
+        assertTrue(output.contains("transfer-encoding: chunked\r\n"));
+        assertFalse(output.contains("content-length"));
+        assertTrue(output.endsWith("\r\n\r\n5\r\nHello\r\n2\r\n, \r\n6\r\nWorld!\r\n0\r\n\r\n"));
+    }
+
+    @Test
+    void shouldCloseChannelIfPublisherFails() throws Exception {
+        final var channel = new EmbeddedChannel(new HttpResponseEncoder());
+        final var response = (NettyHttpServiceResponse) responseTo(HttpVersion.HTTP_1_1)
+            .status(HttpStatus.OK)
+            .body(subscriber -> subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(final long n) {
+                    subscriber.onError(new IllegalStateException());
+                }
+
+                @Override
+                public void cancel() {}
+            }));
+
+        final var future = response.write(channel);
+        assertTrue(future.cause() instanceof IllegalStateException);
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    void shouldRejectNullPublisher() {
+        final var response = responseTo(HttpVersion.HTTP_1_1);
+        assertThrows(NullPointerException.class, () -> response.body((Flow.Publisher<ByteBuffer>) null));
+        assertTrue(response.body().isEmpty());
+    }
+
+    @Test
+    void shouldCompressLargeBodyIfAccepted() throws Exception {
+        final var channel = new EmbeddedChannel();
+        final var request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        request.headers().set("accept-encoding", "deflate;q=0.5, gzip");
+        final var body = "{\"text\":\"" + "a".repeat(2000) + "\"}";
+        final var response = new NettyHttpServiceResponse(request, new DefaultHttpHeaders(), EncodingDescriptor.JSON,
+            HttpCompression.getDefault());
+        response.status(HttpStatus.OK).body(body);
+
+        response.write(channel);
+
+        final FullHttpResponse output = channel.readOutbound();
+        assertEquals("gzip", output.headers().get("content-encoding"));
+        assertEquals("accept-encoding", output.headers().get("vary"));
+        assertEquals(output.content().readableBytes(), output.headers().getInt("content-length"));
+        assertTrue(output.content().readableBytes() < body.length());
+
+        final var decoder = new EmbeddedChannel(ZlibCodecFactory.newZlibDecoder(ZlibWrapper.GZIP));
+        decoder.writeInbound(output.content());
+        assertEquals(body, readInbound(decoder));
+    }
+
+    @Test
+    void shouldNotCompressSmallBody() throws Exception {
+        final var channel = new EmbeddedChannel();
+        final var request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        request.headers().set("accept-encoding", "gzip");
+        final var response = new NettyHttpServiceResponse(request, new DefaultHttpHeaders(), EncodingDescriptor.JSON,
+            HttpCompression.getDefault());
+        response.status(HttpStatus.OK).body("{}");
+
+        response.write(channel);
+
+        final FullHttpResponse output = channel.readOutbound();
+        assertFalse(output.headers().contains("content-encoding"));
+        assertEquals("{}", output.content().toString(StandardCharsets.UTF_8));
+        output.release();
+    }
+
+    private static NettyHttpServiceResponse responseTo(final HttpVersion version) {
+        final var request = new DefaultHttpRequest(version, HttpMethod.GET, "/");
+        return new NettyHttpServiceResponse(request, new DefaultHttpHeaders(), EncodingDescriptor.JSON, null);
+    }
+
+    private static Flow.Publisher<ByteBuffer> publisherOf(final String... chunks) {
+        final var remaining = new ArrayDeque<>(List.of(chunks));
+        return subscriber -> subscriber.onSubscribe(new Flow.Subscription() {
+            private boolean isDelivering = false;
+            private boolean isCompleted = false;
+            private long demand = 0;
+
+            @Override
+            public void request(final long n) {
+                demand += n;
+                if (isDelivering) {
+                    return;
+                }
+                isDelivering = true;
+                while (demand > 0 && !remaining.isEmpty()) {
+                    demand -= 1;
+                    subscriber.onNext(ByteBuffer.wrap(remaining.poll().getBytes(StandardCharsets.UTF_8)));
+                }
+                if (remaining.isEmpty() && !isCompleted) {
+                    isCompleted = true;
+                    subscriber.onComplete();
+                }
+                isDelivering = false;
+            }
+
+            @Override
+            public void cancel() {
+                remaining.clear();
+            }
+        });
+    }
+
+    private static String readInbound(final EmbeddedChannel channel) {
+        final var builder = new StringBuilder();
+        ByteBuf buffer;
+        while ((buffer = channel.readInbound()) != null) {
+            builder.append(buffer.toString(StandardCharsets.UTF_8));
+            buffer.release();
+        }
+        return builder.toString();
+    }
+
+    private static String readOutbound(final EmbeddedChannel channel) {
+        final var builder = new StringBuilder();
+        ByteBuf buffer;
+        while ((buffer = channel.readOutbound()) != null) {
+            builder.append(buffer.toString(StandardCharsets.UTF_8));
+            buffer.release();
+        }
+        return builder.toString();
+    }
+}
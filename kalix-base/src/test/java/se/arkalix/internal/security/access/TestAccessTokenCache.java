@@ -0,0 +1,67 @@
+package se.arkalix.internal.security.access;
+
+import org.junit.jupiter.api.Test;
+import se.arkalix.descriptor.InterfaceDescriptor;
+
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestAccessTokenCache {
+    private static final PrivateKey KEY_A;
+    private static final PrivateKey KEY_B;
+
+    static {
+        try {
+            final var generator = KeyPairGenerator.getInstance("EC");
+            KEY_A = generator.generateKeyPair().getPrivate();
+            KEY_B = generator.generateKeyPair().getPrivate();
+        }
+        catch (final NoSuchAlgorithmException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    @Test
+    void shouldOnlyReturnUnexpiredTokensReadWithSameKey() {
+        final var now = new long[]{1000L};
+        final var cache = new AccessTokenCache(8, () -> now[0]);
+        final var accessToken = new AccessToken("consumer", InterfaceDescriptor.HTTP_SECURE_JSON, "service", 2000L);
+
+        assertNull(cache.get("token", KEY_A));
+        cache.put("token", KEY_A, accessToken);
+        assertSame(accessToken, cache.get("token", KEY_A));
+        assertNull(cache.get("token", KEY_B));
+        assertNull(cache.get("other", KEY_A));
+
+        now[0] = 2000L;
+        assertNull(cache.get("token", KEY_A));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void shouldEvictWhenFull() {
+        final var now = new long[]{1000L};
+        final var cache = new AccessTokenCache(8, () -> now[0]);
+        for (var i = 0; i < 4; ++i) {
+            cache.put("expiring" + i, KEY_A, new AccessToken("c", InterfaceDescriptor.HTTP_SECURE_JSON, "s", 1500L));
+        }
+        for (var i = 0; i < 4; ++i) {
+            cache.put("lasting" + i, KEY_A, new AccessToken("c", InterfaceDescriptor.HTTP_SECURE_JSON, "s", 9000L));
+        }
+        assertEquals(8, cache.size());
+
+        now[0] = 1500L;
+        cache.put("new", KEY_A, new AccessToken("c", InterfaceDescriptor.HTTP_SECURE_JSON, "s", 9000L));
+        assertEquals(5, cache.size());
+        assertNotNull(cache.get("lasting0", KEY_A));
+        assertNotNull(cache.get("new", KEY_A));
+
+        for (var i = 0; i < 16; ++i) {
+            cache.put("more" + i, KEY_A, new AccessToken("c", InterfaceDescriptor.HTTP_SECURE_JSON, "s", 9000L));
+            assertTrue(cache.size() <= 8);
+        }
+    }
+}
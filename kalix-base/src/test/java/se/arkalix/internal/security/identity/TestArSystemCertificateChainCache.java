@@ -0,0 +1,76 @@
+package se.arkalix.internal.security.identity;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestArSystemCertificateChainCache {
+    private static X509Certificate system;
+    private static X509Certificate cloud;
+    private static X509Certificate company;
+    private static X509Certificate master;
+
+    @BeforeAll
+    static void createCertificates() throws Exception {
+        system = new SelfSignedCertificate("system.cloud.group.arrowhead.eu").cert();
+        cloud = new SelfSignedCertificate("cloud.group.arrowhead.eu").cert();
+        company = new SelfSignedCertificate("group.arrowhead.eu").cert();
+        master = new SelfSignedCertificate("arrowhead.eu").cert();
+    }
+
+    @Test
+    void shouldReturnCachedChainForEqualCertificates() {
+        final var cache = new ArSystemCertificateChainCache(8);
+
+        final var chain0 = cache.tryConvert(new Certificate[]{system, cloud, company, master}).orElseThrow();
+        final var chain1 = cache.tryConvert(new Certificate[]{system, cloud, company, master}).orElseThrow();
+        assertSame(chain0, chain1);
+        assertEquals("system", chain1.systemName());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void shouldConvertAndCacheDifferentCertificates() {
+        final var cache = new ArSystemCertificateChainCache(8);
+
+        final var chain0 = cache.tryConvert(new Certificate[]{system, cloud, company, master}).orElseThrow();
+        final var chain1 = cache.tryConvert(new Certificate[]{cloud, cloud, company, master}).orElseThrow();
+        assertNotSame(chain0, chain1);
+        assertEquals("cloud", chain1.systemName());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void shouldNotCacheChainsThatCannotBeConverted() {
+        final var cache = new ArSystemCertificateChainCache(8);
+
+        assertEquals(Optional.empty(), cache.tryConvert(new Certificate[]{system, cloud, company}));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void shouldEvictChainsWhenFull() {
+        final var cache = new ArSystemCertificateChainCache(4);
+        final var certificates = new X509Certificate[]{system, cloud, company, master};
+
+        // Every chain has a different system certificate followed by the
+        // same issuer certificates.
+        for (final var certificate : certificates) {
+            cache.tryConvert(new Certificate[]{certificate, cloud, company, master});
+        }
+        assertEquals(4, cache.size());
+
+        final var chain = cache.tryConvert(new Certificate[]{system, system, company, master}).orElseThrow();
+        assertEquals(4, cache.size());
+        assertSame(chain, cache.tryConvert(new Certificate[]{system, system, company, master}).orElseThrow());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,91 @@
+package se.arkalix.internal.util.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestBoundedCache {
+    @Test
+    void shouldEvictQuarterOfEntriesWhenFull() {
+        final var cache = new BoundedCache<Integer, String>(8);
+        for (var i = 0; i < 8; ++i) {
+            cache.put(i, "value" + i);
+        }
+        assertEquals(8, cache.size());
+
+        cache.put(8, "value8");
+        assertEquals(7, cache.size());
+        assertEquals("value8", cache.get(8));
+
+        for (var i = 9; i < 64; ++i) {
+            cache.put(i, "value" + i);
+            assertTrue(cache.size() <= 8);
+        }
+    }
+
+    @Test
+    void shouldEvictStaleEntriesFirst() {
+        final var cache = new BoundedCache<Integer, String>(8, value -> value.startsWith("stale"));
+        for (var i = 0; i < 8; ++i) {
+            cache.put(i, i % 2 == 0 ? "stale" : "fresh");
+        }
+
+        cache.put(8, "fresh");
+        assertEquals(5, cache.size());
+        for (var i = 1; i < 9; i += 2) {
+            assertEquals("fresh", cache.get(i));
+        }
+        assertEquals("fresh", cache.get(8));
+    }
+
+    @Test
+    void shouldEvictRetainedEntriesLast() {
+        final var cache = new BoundedCache<Integer, String>(8, value -> value.startsWith("stale"),
+            value -> value.startsWith("retained"));
+        for (var i = 0; i < 8; ++i) {
+            cache.put(i, i < 6 ? "retained" : "fresh");
+        }
+
+        cache.put(8, "fresh");
+        assertEquals(7, cache.size());
+        for (var i = 0; i < 6; ++i) {
+            assertEquals("retained", cache.get(i));
+        }
+
+        // Retained entries are evicted if nothing else frees enough room.
+        for (var i = 9; i < 64; ++i) {
+            cache.put(i, "retained");
+            assertTrue(cache.size() <= 8);
+        }
+    }
+
+    @Test
+    void shouldComputeAbsentValuesAndEvictWhenFull() {
+        final var cache = new BoundedCache<Integer, String>(4, value -> value.startsWith("stale"));
+        assertEquals("stale0", cache.computeIfAbsent(0, key -> "stale" + key));
+        assertEquals("stale0", cache.computeIfAbsent(0, key -> "fresh" + key));
+        for (var i = 1; i < 4; ++i) {
+            cache.computeIfAbsent(i, key -> "fresh" + key);
+        }
+        assertEquals(4, cache.size());
+
+        assertEquals("fresh4", cache.computeIfAbsent(4, key -> "fresh" + key));
+        assertEquals(4, cache.size());
+        assertNull(cache.get(0));
+    }
+
+    @Test
+    void shouldOnlyRemoveEntryWithExpectedValue() {
+        final var cache = new BoundedCache<String, String>(4);
+        cache.put("key", "a");
+        assertFalse(cache.remove("key", "b"));
+        assertEquals("a", cache.get("key"));
+        assertTrue(cache.remove("key", "a"));
+        assertNull(cache.get("key"));
+    }
+
+    @Test
+    void shouldRejectNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new BoundedCache<>(0));
+    }
+}
@@ -0,0 +1,70 @@
+package se.arkalix.internal.util.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestBoundedThreadPool {
+    private BoundedThreadPool pool;
+
+    @BeforeEach
+    void createPool() {
+        pool = new BoundedThreadPool(1, 1, null, "kalix-test-");
+    }
+
+    @AfterEach
+    void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void shouldExecuteOnNamedThreads() throws Exception {
+        final var threadName = new CompletableFuture<String>();
+        pool.execute(() -> threadName.complete(Thread.currentThread().getName()));
+        assertTrue(threadName.get(5, TimeUnit.SECONDS).startsWith("kalix-test-"));
+    }
+
+    @Test
+    void shouldQueueAndRejectWhenSaturated() throws InterruptedException {
+        final var isRunning = new CountDownLatch(1);
+        final var mayComplete = new CountDownLatch(1);
+        final var isCompleted = new CountDownLatch(2);
+        pool.execute(() -> {
+            isRunning.countDown();
+            try {
+                mayComplete.await(5, TimeUnit.SECONDS);
+            }
+            catch (final InterruptedException ignored) {}
+            isCompleted.countDown();
+        });
+        assertTrue(isRunning.await(5, TimeUnit.SECONDS));
+
+        pool.execute(isCompleted::countDown);
+        assertThrows(RejectedExecutionException.class, () -> pool.execute(() -> {}));
+
+        assertEquals(1, pool.activeCount());
+        assertEquals(1, pool.queuedCount());
+        assertEquals(1, pool.rejectedCount());
+
+        mayComplete.countDown();
+        assertTrue(isCompleted.await(5, TimeUnit.SECONDS));
+        assertEquals(2, pool.startedCount());
+        assertEquals(0, pool.queuedCount());
+        assertTrue(pool.maxQueueTime().compareTo(pool.averageQueueTime()) >= 0);
+    }
+
+    @Test
+    void shouldRejectTasksAfterShutdown() {
+        pool.shutdown();
+        assertTrue(pool.isShutdown());
+        assertThrows(RejectedExecutionException.class, () -> pool.execute(() -> {}));
+        assertEquals(1, pool.rejectedCount());
+    }
+}
@@ -0,0 +1,46 @@
+package se.arkalix.net.http.client;
+
+import org.junit.jupiter.api.Test;
+import se.arkalix.ArSystem;
+
+import java.net.InetAddress;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestHttpClient {
+    @Test
+    void shouldPoolConnectionsOfSystemClientsByDefault() throws Exception {
+        final var system = newSystem(new ArSystem.Builder());
+        try {
+            assertEquals(4, system.httpClientConnectionPoolSize());
+            assertTrue(HttpClient.from(system).connectionPoolStatistics().isPresent());
+        }
+        finally {
+            system.shutdown();
+        }
+    }
+
+    @Test
+    void shouldNotPoolConnectionsOfSystemClientsIfDisabled() throws Exception {
+        final var system = newSystem(new ArSystem.Builder().httpClientConnectionPoolSize(0));
+        try {
+            assertTrue(HttpClient.from(system).connectionPoolStatistics().isEmpty());
+        }
+        finally {
+            system.shutdown();
+        }
+    }
+
+    @Test
+    void shouldRejectNegativeSystemClientPoolSize() {
+        assertThrows(IllegalArgumentException.class, () -> new ArSystem.Builder().httpClientConnectionPoolSize(-1));
+    }
+
+    private static ArSystem newSystem(final ArSystem.Builder builder) {
+        return builder
+            .name("consumer")
+            .localAddressPort(InetAddress.getLoopbackAddress(), 0)
+            .insecure()
+            .build();
+    }
+}
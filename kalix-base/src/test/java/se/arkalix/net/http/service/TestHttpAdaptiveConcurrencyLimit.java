@@ -0,0 +1,68 @@
+package se.arkalix.net.http.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestHttpAdaptiveConcurrencyLimit {
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    void shouldGrowWhileLatenciesAreStable() {
+        final var limit = new HttpAdaptiveConcurrencyLimit.Builder()
+            .initialLimit(10)
+            .maxLimit(100)
+            .build();
+
+        for (var i = 0; i < 100; ++i) {
+            limit.onSample(10 * MILLIS, limit.limit());
+        }
+
+        assertEquals(100, limit.limit());
+        assertEquals(Duration.ofMillis(10), limit.shortRtt());
+        assertEquals(100, limit.sampleCount());
+    }
+
+    @Test
+    void shouldShrinkWhenLatenciesIncrease() {
+        final var limit = new HttpAdaptiveConcurrencyLimit.Builder()
+            .initialLimit(50)
+            .minLimit(5)
+            .build();
+
+        for (var i = 0; i < 20; ++i) {
+            limit.onSample(10 * MILLIS, limit.limit());
+        }
+        final var limitBefore = limit.limit();
+        for (var i = 0; i < 20; ++i) {
+            limit.onSample(100 * MILLIS, limit.limit());
+        }
+
+        assertTrue(limit.limit() < limitBefore);
+        assertTrue(limit.limit() >= 5);
+        assertTrue(limit.shortRtt().compareTo(limit.longRtt()) > 0);
+    }
+
+    @Test
+    void shouldNotGrowWhenFarBelowLimit() {
+        final var limit = new HttpAdaptiveConcurrencyLimit.Builder()
+            .initialLimit(20)
+            .build();
+
+        for (var i = 0; i < 100; ++i) {
+            limit.onSample(10 * MILLIS, 1);
+        }
+
+        assertEquals(20, limit.limit());
+    }
+
+    @Test
+    void shouldRejectInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new HttpAdaptiveConcurrencyLimit.Builder()
+            .initialLimit(5)
+            .minLimit(10)
+            .build());
+    }
+}
@@ -0,0 +1,66 @@
+package se.arkalix.net.http.service;
+
+import io.netty.util.concurrent.DefaultEventExecutor;
+import org.junit.jupiter.api.Test;
+import se.arkalix.internal.net.http.service.HttpAdmissionController;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestHttpServerMetrics {
+    @Test
+    void shouldWriteAdmissionControllerCountsAndAdaptiveLimits() {
+        final var executor = new DefaultEventExecutor();
+        try {
+            final var metrics = new HttpServerMetrics();
+            final var server = new HttpAdmissionController(null, 8, 0, Duration.ofSeconds(10), Duration.ofSeconds(1));
+            final var limit = new HttpAdaptiveConcurrencyLimit.Builder()
+                .initialLimit(1)
+                .minLimit(1)
+                .maxLimit(1)
+                .build();
+            final var service = new HttpAdmissionController(server, limit, 1, Duration.ofSeconds(10),
+                Duration.ofSeconds(1));
+            metrics.registerAdmissionController("", server);
+            metrics.registerAdmissionController("temperature", service);
+
+            assertTrue(service.admit(executor).awaitUninterruptibly(5000));
+            final var queued = service.admit(executor);
+            final var rejected = service.admit(executor);
+            assertTrue(rejected.awaitUninterruptibly(5000));
+            assertFalse(rejected.isSuccess());
+            assertFalse(queued.isDone());
+            limit.onSample(Duration.ofMillis(250).toNanos(), 1);
+
+            final var builder = new StringBuilder();
+            metrics.writePrometheusTextTo(builder);
+            final var text = builder.toString();
+
+            assertTrue(text.contains("# TYPE kalix_http_server_in_flight_requests gauge\n"));
+            assertTrue(text.contains("kalix_http_server_concurrency_limit{service=\"\"} 8\n"));
+            assertTrue(text.contains("kalix_http_server_concurrency_limit{service=\"temperature\"} 1\n"));
+            assertTrue(text.contains("kalix_http_server_in_flight_requests{service=\"\"} 2\n"));
+            assertTrue(text.contains("kalix_http_server_in_flight_requests{service=\"temperature\"} 1\n"));
+            assertTrue(text.contains("kalix_http_server_queued_requests{service=\"temperature\"} 1\n"));
+            assertTrue(text.contains("kalix_http_server_rejected_requests_total{service=\"temperature\"} 1\n"));
+            assertTrue(text.contains(
+                "kalix_http_server_adaptive_limit_short_rtt_seconds{service=\"temperature\"} 0.25\n"));
+            assertTrue(text.contains(
+                "kalix_http_server_adaptive_limit_long_rtt_seconds{service=\"temperature\"} 0.25\n"));
+            assertTrue(text.contains(
+                "kalix_http_server_adaptive_limit_rejected_requests_total{service=\"temperature\"} 1\n"));
+            assertFalse(text.contains("kalix_http_server_adaptive_limit_short_rtt_seconds{service=\"\"}"));
+
+            metrics.unregisterAdmissionController("temperature", service);
+            builder.setLength(0);
+            metrics.writePrometheusTextTo(builder);
+            assertFalse(builder.toString().contains("service=\"temperature\""));
+            assertFalse(builder.toString().contains("kalix_http_server_adaptive_limit_"));
+        }
+        finally {
+            executor.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package se.arkalix.net.http.service;
+
+import org.junit.jupiter.api.Test;
+import se.arkalix.ArServiceHandle;
+import se.arkalix.ArSystem;
+import se.arkalix.descriptor.EncodingDescriptor;
+import se.arkalix.net.http.HttpStatus;
+import se.arkalix.security.access.AccessPolicy;
+import se.arkalix.util.concurrent.Future;
+
+import java.net.InetAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestHttpService {
+    @Test
+    void shouldUseBasePathAsQualifier() {
+        final var service = new HttpService()
+            .name("temperature")
+            .basePath("/temperature/v1");
+
+        assertEquals("/temperature/v1", service.basePath());
+        assertEquals("/temperature/v1", service.qualifier());
+        assertEquals("", new HttpService().name("temperature").basePath());
+    }
+
+    @Test
+    void shouldBeProvidedUnderBasePath() throws Exception {
+        final var system = new ArSystem.Builder()
+            .name("provider")
+            .localAddressPort(InetAddress.getLoopbackAddress(), 0)
+            .insecure()
+            .build();
+        try {
+            final var handle = new CompletableFuture<ArServiceHandle>();
+            system.provide(new HttpService()
+                .name("temperature")
+                .basePath("/temperature")
+                .encodings(EncodingDescriptor.JSON)
+                .accessPolicy(AccessPolicy.unrestricted())
+                .get("/", (request, response) -> {
+                    response.status(HttpStatus.OK);
+                    return Future.done();
+                }))
+                .onResult(result -> {
+                    if (result.isSuccess()) {
+                        handle.complete(result.value());
+                    }
+                    else {
+                        handle.completeExceptionally(result.fault());
+                    }
+                });
+
+            final var description = handle.get(5, TimeUnit.SECONDS).description();
+            assertEquals("temperature", description.name());
+            assertEquals("/temperature", description.qualifier());
+            assertEquals("provider", description.provider().name());
+        }
+        finally {
+            system.shutdown();
+        }
+    }
+
+    @Test
+    void shouldRejectAdaptiveConcurrencyLimitSharedBetweenServices() {
+        final var limit = new HttpAdaptiveConcurrencyLimit.Builder().build();
+        final var service0 = new HttpService().adaptiveConcurrencyLimit(limit);
+        final var service1 = new HttpService();
+
+        assertSame(service0, service0.adaptiveConcurrencyLimit(limit));
+        assertThrows(IllegalStateException.class, () -> service1.adaptiveConcurrencyLimit(limit));
+        assertTrue(service1.adaptiveConcurrencyLimit().isEmpty());
+
+        service0.adaptiveConcurrencyLimit(null);
+        service1.adaptiveConcurrencyLimit(limit);
+        assertSame(limit, service1.adaptiveConcurrencyLimit().orElseThrow());
+    }
+
+    @Test
+    void shouldExportAdmissionCountsWhileProvided() throws Exception {
+        final var system = new ArSystem.Builder()
+            .name("provider")
+            .localAddressPort(InetAddress.getLoopbackAddress(), 0)
+            .insecure()
+            .build();
+        try {
+            final var handle = new CompletableFuture<ArServiceHandle>();
+            system.provide(new HttpService()
+                .name("temperature")
+                .basePath("/temperature")
+                .encodings(EncodingDescriptor.JSON)
+                .accessPolicy(AccessPolicy.unrestricted())
+                .adaptiveConcurrencyLimit(new HttpAdaptiveConcurrencyLimit.Builder().build())
+                .get("/", (request, response) -> {
+                    response.status(HttpStatus.OK);
+                    return Future.done();
+                }))
+                .onResult(result -> {
+                    if (result.isSuccess()) {
+                        handle.complete(result.value());
+                    }
+                    else {
+                        handle.completeExceptionally(result.fault());
+                    }
+                });
+            handle.get(5, TimeUnit.SECONDS);
+
+            final var builder = new StringBuilder();
+            system.httpServerMetrics().writePrometheusTextTo(builder);
+            final var text = builder.toString();
+            assertTrue(text.contains("kalix_http_server_concurrency_limit{service=\"temperature\"} 20\n"));
+            assertTrue(text.contains("kalix_http_server_adaptive_limit_short_rtt_seconds{service=\"temperature\"}"));
+
+            handle.get().dismiss();
+            builder.setLength(0);
+            system.httpServerMetrics().writePrometheusTextTo(builder);
+            assertFalse(builder.toString().contains("service=\"temperature\""));
+        }
+        finally {
+            system.shutdown();
+        }
+    }
+}
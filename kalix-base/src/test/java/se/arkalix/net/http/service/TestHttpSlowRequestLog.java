@@ -0,0 +1,52 @@
+package se.arkalix.net.http.service;
+
+import org.junit.jupiter.api.Test;
+import se.arkalix.net.http.HttpMethod;
+import se.arkalix.net.http.service.HttpRequestTimings.Stage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestHttpSlowRequestLog {
+    @Test
+    void shouldOnlyLogRequestsAboveThreshold() throws InterruptedException {
+        final var logged = new ArrayList<HttpRequestTimings>();
+        final var metrics = new HttpServerMetrics(new HttpSlowRequestLog.Builder()
+            .threshold(Duration.ofMillis(5))
+            .consumer(logged::add)
+            .build());
+
+        final var fast = new HttpRequestTimings(HttpMethod.GET, "/fast");
+        fast.mark(Stage.LOOKUP);
+        fast.end();
+        metrics.record(fast);
+
+        final var slow = new HttpRequestTimings(HttpMethod.POST, "/slow");
+        slow.mark(Stage.LOOKUP);
+        Thread.sleep(10);
+        slow.mark(Stage.HANDLING);
+        slow.add(Stage.DECODING, 1000);
+        slow.outcome("test", "/slow", 201);
+        slow.end();
+        metrics.record(slow);
+
+        assertEquals(1, logged.size());
+        assertSame(slow, logged.get(0));
+        assertTrue(slow.stage(Stage.HANDLING).orElseThrow().toMillis() >= 10);
+        assertEquals(Duration.ofNanos(1000), slow.stage(Stage.DECODING).orElseThrow());
+        assertTrue(slow.stage(Stage.AUTHORIZATION).isEmpty());
+        assertTrue(slow.toString().startsWith("POST /slow -> 201 [service=test, route=/slow]"));
+
+        assertEquals(2, metrics.stage(Stage.LOOKUP).count());
+        assertEquals(1, metrics.stage(Stage.HANDLING).count());
+        assertEquals(0, metrics.stage(Stage.FLUSHING).count());
+        assertEquals(1, metrics.slowRequestLog().orElseThrow().slowCount());
+    }
+
+    @Test
+    void shouldRequireConsumer() {
+        assertThrows(NullPointerException.class, () -> new HttpSlowRequestLog.Builder().build());
+    }
+}
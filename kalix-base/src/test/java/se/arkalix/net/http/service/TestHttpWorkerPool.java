@@ -0,0 +1,56 @@
+package se.arkalix.net.http.service;
+
+import io.netty.util.concurrent.DefaultEventExecutor;
+import io.netty.util.concurrent.EventExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestHttpWorkerPool {
+    private EventExecutor executor;
+    private HttpWorkerPool pool;
+
+    @BeforeEach
+    void createExecutorAndPool() {
+        executor = new DefaultEventExecutor();
+        pool = new HttpWorkerPool.Builder()
+            .nThreads(1)
+            .maxQueued(1)
+            .build();
+    }
+
+    @AfterEach
+    void shutdownExecutorAndPool() {
+        pool.shutdown();
+        executor.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void shouldNotifyOnGivenExecutor() throws Exception {
+        final var promise = pool.submit(() -> Thread.currentThread().getName(), executor);
+        final var notifiedOnExecutor = new CompletableFuture<Boolean>();
+        promise.addListener(ignored -> notifiedOnExecutor.complete(executor.inEventLoop()));
+
+        assertTrue(notifiedOnExecutor.get(5, TimeUnit.SECONDS));
+        assertTrue(promise.isSuccess());
+        assertTrue(promise.getNow().startsWith("kalix-http-worker-"));
+        assertEquals(1, pool.startedCount());
+    }
+
+    @Test
+    void shouldFailPromiseIfTaskIsRejected() {
+        pool.shutdown();
+        final var promise = pool.submit(() -> true, executor);
+
+        assertTrue(promise.awaitUninterruptibly(5000));
+        assertTrue(promise.cause() instanceof RejectedExecutionException);
+        assertEquals(1, pool.rejectedCount());
+        assertEquals(0, pool.startedCount());
+    }
+}
@@ -0,0 +1,170 @@
+package se.arkalix.security.access;
+
+import org.jose4j.jwe.ContentEncryptionAlgorithmIdentifiers;
+import org.jose4j.jwe.JsonWebEncryption;
+import org.jose4j.jwe.KeyManagementAlgorithmIdentifiers;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import se.arkalix.description.ServiceDescription;
+import se.arkalix.description.SystemDescription;
+import se.arkalix.descriptor.AccessDescriptor;
+import se.arkalix.descriptor.InterfaceDescriptor;
+import se.arkalix.security.identity.ArSystemCertificateChain;
+import se.arkalix.security.identity.ArSystemKeyStore;
+import se.arkalix.util.Result;
+import se.arkalix.util.concurrent.Future;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+
+import java.net.InetSocketAddress;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestAccessByToken {
+    private static KeyPair authorizationKeyPair;
+    private static SystemDescription consumer;
+    private static ServiceDescription service;
+
+    @BeforeAll
+    static void createSystemsAndKeys() throws Exception {
+        final var generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        authorizationKeyPair = generator.generateKeyPair();
+
+        final var cloud = new SelfSignedCertificate("cloud.group.arrowhead.eu");
+        final var group = new SelfSignedCertificate("group.arrowhead.eu");
+        final var master = new SelfSignedCertificate("arrowhead.eu");
+        final var provider = new SelfSignedCertificate("provider.cloud.group.arrowhead.eu");
+        final var consumer0 = new SelfSignedCertificate("consumer.cloud.group.arrowhead.eu");
+
+        consumer = new SystemDescription(new ArSystemCertificateChain(new X509Certificate[]{
+            consumer0.cert(), cloud.cert(), group.cert(), master.cert()
+        }), new InetSocketAddress(0));
+        service = new ServiceDescription.Builder()
+            .name("service")
+            .provider(new SystemDescription(new ArSystemKeyStore(new X509Certificate[]{
+                provider.cert(), cloud.cert(), group.cert(), master.cert()
+            }, provider.key()), new InetSocketAddress(0)))
+            .qualifier("/service")
+            .security(AccessDescriptor.TOKEN)
+            .supportedInterfaces(List.of(InterfaceDescriptor.HTTP_SECURE_JSON))
+            .build();
+    }
+
+    @Test
+    void shouldVerifyUncachedTokensUsingGivenExecutor() throws Exception {
+        final var policy = new AccessByToken(authorizationKeyPair.getPublic());
+        final var token = newToken("consumer", "service");
+        final var tasks = new ArrayList<Runnable>();
+
+        final var authorization = await(policy.isAuthorizedAsync(consumer, service, token, tasks::add));
+        assertEquals(1, tasks.size());
+        assertFalse(authorization.isDone());
+        tasks.get(0).run();
+        assertTrue(authorization.get(5, TimeUnit.SECONDS).valueOrThrow());
+
+        // The token is now cached, which is why the executor is not used.
+        final var cachedAuthorization = await(policy.isAuthorizedAsync(consumer, service, token, tasks::add));
+        assertEquals(1, tasks.size());
+        assertTrue(cachedAuthorization.get(5, TimeUnit.SECONDS).valueOrThrow());
+    }
+
+    @Test
+    void shouldDenyTokensIssuedForOtherServices() throws Exception {
+        final var policy = new AccessByToken(authorizationKeyPair.getPublic());
+        final var authorization = await(policy.isAuthorizedAsync(consumer, service,
+            newToken("consumer", "other"), Runnable::run));
+        assertFalse(authorization.get(5, TimeUnit.SECONDS).valueOrThrow());
+    }
+
+    @Test
+    void shouldFailWithInvalidTokens() throws Exception {
+        final var policy = new AccessByToken(authorizationKeyPair.getPublic());
+        final var authorization = await(policy.isAuthorizedAsync(consumer, service, "invalid", Runnable::run));
+        assertTrue(authorization.get(5, TimeUnit.SECONDS).fault() instanceof AccessTokenException);
+    }
+
+    @Test
+    void shouldDenyMissingTokensWithoutUsingExecutor() throws Exception {
+        final var policy = new AccessByToken(authorizationKeyPair.getPublic());
+        final var authorization = await(policy.isAuthorizedAsync(consumer, service, null, task -> fail()));
+        assertFalse(authorization.get(5, TimeUnit.SECONDS).valueOrThrow());
+    }
+
+    @Test
+    void shouldPreferExecutorGivenToConstructor() throws Exception {
+        final var tasks = new ArrayList<Runnable>();
+        final var policy = new AccessByToken(authorizationKeyPair.getPublic(), 0, tasks::add);
+        final var authorization = await(policy.isAuthorizedAsync(consumer, service,
+            newToken("consumer", "service"), task -> fail()));
+        assertEquals(1, tasks.size());
+        tasks.get(0).run();
+        assertTrue(authorization.get(5, TimeUnit.SECONDS).valueOrThrow());
+    }
+
+    @Test
+    void shouldVerifyTokensUsingVerificationPool() throws Exception {
+        final var pool = new AccessVerificationPool.Builder()
+            .nThreads(1)
+            .build();
+        try {
+            final var policy = new AccessByToken(authorizationKeyPair.getPublic());
+            final var authorization = await(policy.isAuthorizedAsync(consumer, service,
+                newToken("consumer", "service"), pool));
+            assertTrue(authorization.get(5, TimeUnit.SECONDS).valueOrThrow());
+            assertEquals(1, pool.startedCount());
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void shouldFailIfVerificationPoolRejectsTask() throws Exception {
+        final var pool = new AccessVerificationPool.Builder().build();
+        pool.shutdown();
+
+        final var policy = new AccessByToken(authorizationKeyPair.getPublic());
+        final var authorization = await(policy.isAuthorizedAsync(consumer, service,
+            newToken("consumer", "service"), pool));
+        assertTrue(authorization.get(5, TimeUnit.SECONDS).fault() instanceof RejectedExecutionException);
+        assertEquals(1, pool.rejectedCount());
+    }
+
+    private static String newToken(final String cid, final String sid) throws Exception {
+        final var claims = new JwtClaims();
+        claims.setClaim("cid", cid);
+        claims.setClaim("iid", InterfaceDescriptor.HTTP_SECURE_JSON.toString());
+        claims.setClaim("sid", sid);
+        claims.setExpirationTimeMinutesInTheFuture(60);
+
+        final var jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setKey(authorizationKeyPair.getPrivate());
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.RSA_USING_SHA256);
+
+        final var jwe = new JsonWebEncryption();
+        jwe.setPayload(jws.getCompactSerialization());
+        jwe.setKey(service.provider().certificateChain().systemPublicKey());
+        jwe.setAlgorithmHeaderValue(KeyManagementAlgorithmIdentifiers.RSA_OAEP_256);
+        jwe.setEncryptionMethodHeaderParameter(ContentEncryptionAlgorithmIdentifiers.AES_256_CBC_HMAC_SHA_512);
+        jwe.setContentTypeHeaderValue("JWT");
+        return jwe.getCompactSerialization();
+    }
+
+    private static <V> CompletableFuture<Result<V>> await(final Future<V> future) {
+        final var result = new CompletableFuture<Result<V>>();
+        future.onResult(result::complete);
+        return result;
+    }
+}
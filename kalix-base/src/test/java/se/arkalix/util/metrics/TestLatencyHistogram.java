@@ -0,0 +1,44 @@
+package se.arkalix.util.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestLatencyHistogram {
+    @Test
+    void shouldPlaceEveryLatencyInBucketBoundingIt() {
+        var previousIndex = 0;
+        for (var micros = 0L; micros < 1L << 27; micros = micros < 64 ? micros + 1 : micros + micros / 13) {
+            final var index = LatencyHistogram.indexOf(micros);
+            assertTrue(index >= previousIndex, "Index of " + micros);
+            assertTrue(micros < LatencyHistogram.upperBoundMicrosOf(index), "Upper bound of " + micros);
+            if (index > 0) {
+                assertTrue(micros >= LatencyHistogram.upperBoundMicrosOf(index - 1), "Lower bound of " + micros);
+            }
+            previousIndex = index;
+        }
+    }
+
+    @Test
+    void shouldSummarizeRecordedLatencies() {
+        final var histogram = new LatencyHistogram();
+        for (var i = 1; i <= 100; ++i) {
+            histogram.record(Duration.ofMillis(i));
+        }
+        final var snapshot = histogram.snapshot();
+
+        assertEquals(100, snapshot.count());
+        assertEquals(Duration.ofMillis(5050), snapshot.sum());
+        assertEquals(Duration.ofNanos(50_500_000), snapshot.mean());
+        assertEquals(0, snapshot.countBelow(Duration.ofNanos(512_000)));
+        assertEquals(32, snapshot.countBelow(Duration.ofNanos(32_768_000)));
+        assertEquals(100, snapshot.countBelow(Duration.ofSeconds(1)));
+
+        final var p50 = snapshot.percentile(50.0).toNanos();
+        assertTrue(p50 >= 50_000_000 && p50 <= 50_000_000 * 1.125, "p50 " + p50);
+        final var p99 = snapshot.percentile(99.0).toNanos();
+        assertTrue(p99 >= 99_000_000 && p99 <= 99_000_000 * 1.125, "p99 " + p99);
+    }
+}